@@ -0,0 +1,317 @@
+package com.wallet.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.Transaction;
+import com.wallet.repository.TransactionJdbcRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cold tier of the transaction history. Transactions older than max-age-days
+ * are moved out of the transaction table into immutable segment files, one per
+ * archival run, so the table only holds recent history. The archived count of
+ * every account tells readers how much of its history to take from here before
+ * continuing in the table. Disabled with wallet.archive.max-age-days=0
+ */
+@Slf4j
+@Component
+public class TransactionArchive {
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	@Autowired
+	private TransactionJdbcRepository transactionJdbcRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${wallet.archive.directory:data/archive}")
+	private String directory;
+
+	@Value("${wallet.archive.max-age-days:0}")
+	private int maxAgeDays;
+
+	@Value("${wallet.archive.interval-minutes:1440}")
+	private long intervalMinutes;
+
+	@Value("${wallet.archive.block-records:256}")
+	private int blockRecords;
+
+	@Value("${wallet.archive.fetch-size:1000}")
+	private int fetchSize;
+
+	// Oldest first, replaced as a whole when a segment is added
+	private volatile List<TransactionSegment> segments = Collections.emptyList();
+
+	private long lastSegmentTime;
+
+	private ScheduledExecutorService archiver;
+
+	@PostConstruct
+	public void open() throws IOException {
+
+		Path archiveDirectory = Paths.get(directory);
+
+		if (!Files.isDirectory(archiveDirectory)) {
+			return;
+		}
+
+		List<TransactionSegment> opened = new ArrayList<>();
+
+		try (Stream<Path> files = Files.list(archiveDirectory)) {
+
+			for (Path file : files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+					&& file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().collect(Collectors.toList())) {
+				opened.add(TransactionSegment.open(file));
+			}
+		}
+
+		segments = Collections.unmodifiableList(opened);
+
+		log.info("Transaction archive opened with {} segments", opened.size());
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+
+		if (maxAgeDays > 0) {
+
+			archiver = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("transaction-archiver-"));
+			archiver.scheduleWithFixedDelay(this::runArchival, 0, intervalMinutes, TimeUnit.MINUTES);
+		}
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException, IOException {
+
+		if (archiver != null) {
+			archiver.shutdown();
+			archiver.awaitTermination(30, TimeUnit.SECONDS);
+		}
+
+		for (TransactionSegment segment : segments) {
+			segment.close();
+		}
+	}
+
+	/**
+	 * Moves the transactions from before the start of the day max-age-days ago
+	 * into a new segment. The segment is in place before the rows are deleted, and
+	 * an interrupted delete is completed by the next run, so no transaction is
+	 * ever missing from both tiers. Returns the number of archived transactions
+	 */
+	public synchronized long archive() throws IOException {
+
+		completeLastRun();
+
+		LocalDateTime cutoff = LocalDate.now().minusDays(maxAgeDays).atStartOfDay();
+		Long boundary = transactionJdbcRepository.findArchiveBoundary(cutoff);
+		long boundaryId = boundary == null ? Long.MAX_VALUE : boundary;
+
+		Path archiveDirectory = Paths.get(directory);
+		Files.createDirectories(archiveDirectory);
+
+		Path temporary = archiveDirectory.resolve(SEGMENT_PREFIX + "next.tmp");
+		long[] archived = new long[1];
+
+		try (TransactionSegment.Writer writer = TransactionSegment.create(temporary, blockRecords)) {
+
+			String[] accountNumber = new String[1];
+			long[] ordinal = new long[1];
+
+			transactionJdbcRepository.streamArchivable(cutoff, boundaryId, fetchSize, resultSet -> {
+
+				String rowAccountNumber = resultSet.getString("account_number");
+
+				// Ordinals continue from the transactions archived by earlier runs
+				if (!rowAccountNumber.equals(accountNumber[0])) {
+					accountNumber[0] = rowAccountNumber;
+					ordinal[0] = resultSet.getLong("archived_transaction_count");
+				}
+
+				Transaction transaction = Transaction.builder().id(resultSet.getLong("id"))
+						.account(Account.builder().accountNumber(rowAccountNumber).build())
+						.transactionId(resultSet.getString("transaction_id"))
+						.transactionType(resultSet.getString("transaction_type"))
+						.transactionAmount(resultSet.getBigDecimal("transaction_amount"))
+						.balanceAfter(resultSet.getBigDecimal("balance_after"))
+						.transactionDate(resultSet.getTimestamp("transaction_date").toLocalDateTime()).build();
+
+				try {
+					writer.append(transaction, ordinal[0]++);
+				} catch (IOException exception) {
+					throw new UncheckedIOException(exception);
+				}
+				archived[0]++;
+			});
+
+			if (archived[0] == 0) {
+				writer.close();
+				Files.delete(temporary);
+				return 0;
+			}
+
+			transactionJdbcRepository.streamArchivableIds(cutoff, boundaryId, fetchSize, resultSet -> {
+				try {
+					writer.appendId(resultSet.getString("transaction_id"), resultSet.getString("account_number"),
+							resultSet.getLong("archive_ordinal"));
+				} catch (IOException exception) {
+					throw new UncheckedIOException(exception);
+				}
+			});
+
+			writer.finish(cutoff, boundaryId);
+		} catch (UncheckedIOException exception) {
+			throw exception.getCause();
+		}
+
+		// Names order by time, even for segments written within the same millisecond
+		lastSegmentTime = Math.max(System.currentTimeMillis(), lastSegmentTime + 1);
+
+		Path segmentPath = archiveDirectory
+				.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, lastSegmentTime, SEGMENT_SUFFIX));
+		Files.move(temporary, segmentPath, StandardCopyOption.ATOMIC_MOVE);
+
+		List<TransactionSegment> updated = new ArrayList<>(segments);
+		updated.add(TransactionSegment.open(segmentPath));
+		segments = Collections.unmodifiableList(updated);
+
+		transactionTemplate
+				.executeWithoutResult(status -> transactionJdbcRepository.deleteArchived(cutoff, boundaryId));
+
+		log.info("Archived {} transactions from before {} into {}", archived[0], cutoff, segmentPath.getFileName());
+
+		return archived[0];
+	}
+
+	/**
+	 * Hands the archived transactions of the account with ordinals in
+	 * [fromOrdinal, toOrdinal) to the consumer, oldest first. Callers bound
+	 * toOrdinal by the archived count of the account
+	 */
+	public void forEach(String accountNumber, long fromOrdinal, long toOrdinal, Consumer<Transaction> consumer) {
+
+		long from = fromOrdinal;
+
+		try {
+			// Later segments continue the ordinals of earlier ones
+			for (TransactionSegment segment : segments) {
+
+				if (from >= toOrdinal) {
+					return;
+				}
+				from += segment.scan(accountNumber, from, toOrdinal, consumer);
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	public List<Transaction> findByAccountNumber(String accountNumber, long fromOrdinal, long toOrdinal) {
+
+		List<Transaction> transactions = new ArrayList<>();
+		forEach(accountNumber, fromOrdinal, toOrdinal, transactions::add);
+
+		return transactions;
+	}
+
+	public Optional<Transaction> findByTransactionId(String transactionId) {
+
+		try {
+			for (TransactionSegment segment : segments) {
+
+				Optional<Transaction> transaction = segment.findByTransactionId(transactionId);
+
+				if (transaction.isPresent()) {
+					return transaction;
+				}
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+
+		return Optional.empty();
+	}
+
+	/**
+	 * Every archived transaction is from before this date. The earliest date when
+	 * nothing is archived
+	 */
+	public LocalDateTime getCutoff() {
+
+		return segments.stream().map(TransactionSegment::getCutoff).max(Comparator.naturalOrder())
+				.orElse(LocalDateTime.MIN);
+	}
+
+	public void forEachTransactionId(Consumer<String> consumer) {
+
+		try {
+			for (TransactionSegment segment : segments) {
+				segment.forEachTransactionId(consumer);
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	// Repeats the delete of the latest run, which is a no-op unless it was interrupted
+	private void completeLastRun() {
+
+		List<TransactionSegment> current = segments;
+
+		if (current.isEmpty()) {
+			return;
+		}
+
+		TransactionSegment last = current.get(current.size() - 1);
+		int deleted = transactionTemplate.execute(
+				status -> transactionJdbcRepository.deleteArchived(last.getCutoff(), last.getBoundaryId()));
+
+		if (deleted > 0) {
+			log.warn("Completed interrupted archival into {}, deleted {} transactions", last.getPath().getFileName(),
+					deleted);
+		}
+	}
+
+	private void runArchival() {
+
+		try {
+			archive();
+		} catch (IOException | RuntimeException exception) {
+			log.error("Transaction archival failed: {}", exception.getMessage(), exception);
+		}
+	}
+}
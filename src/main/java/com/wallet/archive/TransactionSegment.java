@@ -0,0 +1,642 @@
+package com.wallet.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.Transaction;
+
+/**
+ * Immutable file of archived transactions. Records are sorted by account and
+ * ordinal, the position of the transaction in the archived history of its
+ * account, and deflated in blocks. A second run of blocks maps every
+ * transactionId to its record. The index holds the first key of every block,
+ * so a lookup inflates one block, and a Bloom filter over the accounts and
+ * transactionIds, so segments which cannot hold the key are not read at all.
+ *
+ * Layout: data blocks, id blocks, index, then the index offset, its CRC and the
+ * magic number
+ */
+public class TransactionSegment implements Closeable {
+
+	private static final int MAGIC = 0x57415231;
+
+	private static final int TRAILER_LENGTH = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+	private static final int BLOOM_BITS_PER_KEY = 10;
+
+	private static final int BLOOM_HASH_FUNCTIONS = 7;
+
+	private final Path path;
+
+	private final FileChannel channel;
+
+	private final LocalDateTime cutoff;
+
+	private final long boundaryId;
+
+	private final List<Block> dataBlocks;
+
+	private final List<Block> idBlocks;
+
+	private final long[] bloom;
+
+	private TransactionSegment(Path path, FileChannel channel, LocalDateTime cutoff, long boundaryId,
+			List<Block> dataBlocks, List<Block> idBlocks, long[] bloom) {
+
+		this.path = path;
+		this.channel = channel;
+		this.cutoff = cutoff;
+		this.boundaryId = boundaryId;
+		this.dataBlocks = dataBlocks;
+		this.idBlocks = idBlocks;
+		this.bloom = bloom;
+	}
+
+	public static Writer create(Path path, int blockRecords) throws IOException {
+
+		return new Writer(path, blockRecords);
+	}
+
+	public static TransactionSegment open(Path path) throws IOException {
+
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			long size = channel.size();
+
+			if (size < TRAILER_LENGTH) {
+				throw new IOException("Not a segment file");
+			}
+
+			ByteBuffer trailer = read(channel, size - TRAILER_LENGTH, TRAILER_LENGTH);
+			long indexOffset = trailer.getLong();
+			long checksum = trailer.getLong();
+
+			if (trailer.getInt() != MAGIC) {
+				throw new IOException("Not a segment file");
+			}
+
+			byte[] indexBytes = read(channel, indexOffset, Math.toIntExact(size - TRAILER_LENGTH - indexOffset))
+					.array();
+			CRC32 crc = new CRC32();
+			crc.update(indexBytes);
+
+			if (crc.getValue() != checksum) {
+				throw new IOException("Checksum mismatch");
+			}
+
+			DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBytes));
+
+			LocalDateTime cutoff = LocalDateTime.parse(index.readUTF());
+			long boundaryId = index.readLong();
+			List<Block> dataBlocks = readBlocks(index);
+			List<Block> idBlocks = readBlocks(index);
+			long[] bloom = new long[index.readInt()];
+
+			for (int word = 0; word < bloom.length; word++) {
+				bloom[word] = index.readLong();
+			}
+
+			return new TransactionSegment(path, channel, cutoff, boundaryId, dataBlocks, idBlocks, bloom);
+		} catch (IOException | RuntimeException exception) {
+
+			channel.close();
+			throw exception;
+		}
+	}
+
+	public Path getPath() {
+
+		return path;
+	}
+
+	/**
+	 * Transactions before the cutoff and below the boundary id were moved into
+	 * this segment
+	 */
+	public LocalDateTime getCutoff() {
+
+		return cutoff;
+	}
+
+	public long getBoundaryId() {
+
+		return boundaryId;
+	}
+
+	/**
+	 * Hands the transactions of the account with ordinals in [fromOrdinal,
+	 * toOrdinal) to the consumer, oldest first, and returns how many there were
+	 */
+	public long scan(String accountNumber, long fromOrdinal, long toOrdinal, Consumer<Transaction> consumer)
+			throws IOException {
+
+		if (fromOrdinal >= toOrdinal || !mightContain(accountKey(accountNumber))) {
+			return 0;
+		}
+
+		long scanned = 0;
+
+		for (int block = floor(dataBlocks, accountNumber, fromOrdinal); block < dataBlocks.size(); block++) {
+
+			DataInputStream input = inflate(dataBlocks.get(block));
+
+			while (input.available() > 0) {
+
+				String recordAccountNumber = input.readUTF();
+				long ordinal = input.readLong();
+				int comparison = recordAccountNumber.compareTo(accountNumber);
+
+				if (comparison > 0 || (comparison == 0 && ordinal >= toOrdinal)) {
+					return scanned;
+				}
+
+				Transaction transaction = readTransaction(input, recordAccountNumber);
+
+				if (comparison == 0 && ordinal >= fromOrdinal) {
+
+					consumer.accept(transaction);
+					scanned++;
+				}
+			}
+		}
+
+		return scanned;
+	}
+
+	public Optional<Transaction> findByTransactionId(String transactionId) throws IOException {
+
+		if (idBlocks.isEmpty() || !mightContain(transactionIdKey(transactionId))) {
+			return Optional.empty();
+		}
+
+		DataInputStream input = inflate(idBlocks.get(floor(idBlocks, transactionId, 0)));
+
+		while (input.available() > 0) {
+
+			String recordTransactionId = input.readUTF();
+			String accountNumber = input.readUTF();
+			long ordinal = input.readLong();
+			int comparison = recordTransactionId.compareTo(transactionId);
+
+			if (comparison == 0) {
+
+				List<Transaction> transactions = new ArrayList<>(1);
+				scan(accountNumber, ordinal, ordinal + 1, transactions::add);
+				return transactions.stream().findFirst();
+			}
+
+			if (comparison > 0) {
+				break;
+			}
+		}
+
+		return Optional.empty();
+	}
+
+	public void forEachTransactionId(Consumer<String> consumer) throws IOException {
+
+		for (Block block : idBlocks) {
+
+			DataInputStream input = inflate(block);
+
+			while (input.available() > 0) {
+
+				consumer.accept(input.readUTF());
+				input.readUTF();
+				input.readLong();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		channel.close();
+	}
+
+	private DataInputStream inflate(Block block) throws IOException {
+
+		byte[] compressed = read(channel, block.offset, block.length).array();
+		byte[] raw = new byte[block.rawLength];
+		Inflater inflater = new Inflater();
+
+		try {
+			inflater.setInput(compressed);
+			int inflated = 0;
+
+			while (inflated < raw.length) {
+
+				int count = inflater.inflate(raw, inflated, raw.length - inflated);
+
+				if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("Truncated block in " + path.getFileName());
+				}
+				inflated += count;
+			}
+		} catch (DataFormatException exception) {
+			throw new IOException("Corrupt block in " + path.getFileName(), exception);
+		} finally {
+			inflater.end();
+		}
+
+		return new DataInputStream(new ByteArrayInputStream(raw));
+	}
+
+	private boolean mightContain(String key) {
+
+		long hash = hash(key);
+		long bitCount = bloom.length * 64L;
+
+		for (int index = 1; index <= BLOOM_HASH_FUNCTIONS; index++) {
+
+			long bitIndex = bitIndex(hash, index, bitCount);
+
+			if ((bloom[(int) (bitIndex >>> 6)] & (1L << bitIndex)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static Transaction readTransaction(DataInputStream input, String accountNumber) throws IOException {
+
+		Transaction transaction = Transaction.builder().id(input.readLong())
+				.account(Account.builder().accountNumber(accountNumber).build()).transactionId(input.readUTF())
+				.transactionType(input.readUTF()).transactionAmount(new BigDecimal(input.readUTF())).build();
+
+		if (input.readBoolean()) {
+			transaction.setBalanceAfter(new BigDecimal(input.readUTF()));
+		}
+
+		transaction.setTransactionDate(LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC));
+
+		return transaction;
+	}
+
+	// Last block starting at or before the key, the first one when the key sorts before all of them
+	private static int floor(List<Block> blocks, String key, long ordinal) {
+
+		int low = 0;
+		int high = blocks.size() - 1;
+		int floor = 0;
+
+		while (low <= high) {
+
+			int middle = (low + high) >>> 1;
+			Block block = blocks.get(middle);
+			int comparison = block.firstKey.compareTo(key);
+
+			if (comparison < 0 || (comparison == 0 && block.firstOrdinal <= ordinal)) {
+
+				floor = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		return floor;
+	}
+
+	private static List<Block> readBlocks(DataInputStream input) throws IOException {
+
+		int count = input.readInt();
+		List<Block> blocks = new ArrayList<>(count);
+
+		for (int index = 0; index < count; index++) {
+			blocks.add(new Block(input.readUTF(), input.readLong(), input.readLong(), input.readInt(),
+					input.readInt()));
+		}
+
+		return blocks;
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		while (buffer.hasRemaining()) {
+
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+
+		buffer.flip();
+		return buffer;
+	}
+
+	private static String accountKey(String accountNumber) {
+
+		return "a:" + accountNumber;
+	}
+
+	private static String transactionIdKey(String transactionId) {
+
+		return "t:" + transactionId;
+	}
+
+	// Double hashing: the i-th bit is h1 + i * h2
+	private static long bitIndex(long hash, int index, long bitCount) {
+
+		long combined = (int) hash + (long) index * (int) (hash >>> 32);
+
+		return (combined < 0 ? ~combined : combined) % bitCount;
+	}
+
+	// 64 bit FNV-1a
+	private static long hash(String value) {
+
+		long hash = 0xcbf29ce484222325L;
+
+		for (int index = 0; index < value.length(); index++) {
+			hash ^= value.charAt(index);
+			hash *= 0x100000001b3L;
+		}
+
+		return hash;
+	}
+
+	private static class Block {
+
+		private final String firstKey;
+
+		private final long firstOrdinal;
+
+		private long offset;
+
+		private int length;
+
+		private int rawLength;
+
+		private Block(String firstKey, long firstOrdinal, long offset, int length, int rawLength) {
+
+			this.firstKey = firstKey;
+			this.firstOrdinal = firstOrdinal;
+			this.offset = offset;
+			this.length = length;
+			this.rawLength = rawLength;
+		}
+	}
+
+	/**
+	 * Writes a segment: every transaction with append in (accountNumber, ordinal)
+	 * order, then every transactionId with appendId in transactionId order, then
+	 * finish. Keys out of order are rejected, as the lookups depend on them
+	 */
+	public static class Writer implements Closeable {
+
+		private final FileChannel channel;
+
+		private final DataOutputStream output;
+
+		private final int blockRecords;
+
+		private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+		private final DataOutputStream blockOutput = new DataOutputStream(block);
+
+		private final Deflater deflater = new Deflater();
+
+		private final byte[] deflateBuffer = new byte[8192];
+
+		private final List<Block> dataBlocks = new ArrayList<>();
+
+		private final List<Block> idBlocks = new ArrayList<>();
+
+		private long[] keyHashes = new long[1024];
+
+		private int keyCount;
+
+		private long position;
+
+		private int blockRecordCount;
+
+		private String lastKey;
+
+		private long lastOrdinal;
+
+		private boolean appendingIds;
+
+		private Writer(Path path, int blockRecords) throws IOException {
+
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			this.blockRecords = blockRecords;
+		}
+
+		public void append(Transaction transaction, long ordinal) throws IOException {
+
+			if (appendingIds) {
+				throw new IllegalStateException("Transactions must be appended before transactionIds");
+			}
+
+			String accountNumber = transaction.getAccount().getAccountNumber();
+			int comparison = lastKey == null ? 1 : accountNumber.compareTo(lastKey);
+
+			if (comparison < 0 || (comparison == 0 && ordinal <= lastOrdinal)) {
+				throw new IllegalStateException(String.format(
+						"Archived transactions out of order at accountNumber: %s, ordinal: %d", accountNumber, ordinal));
+			}
+
+			if (comparison > 0) {
+				addKey(accountKey(accountNumber));
+			}
+
+			startRecord(dataBlocks, accountNumber, ordinal);
+
+			blockOutput.writeUTF(accountNumber);
+			blockOutput.writeLong(ordinal);
+			blockOutput.writeLong(transaction.getId());
+			blockOutput.writeUTF(transaction.getTransactionId());
+			blockOutput.writeUTF(transaction.getTransactionType());
+			blockOutput.writeUTF(transaction.getTransactionAmount().toPlainString());
+			blockOutput.writeBoolean(transaction.getBalanceAfter() != null);
+
+			if (transaction.getBalanceAfter() != null) {
+				blockOutput.writeUTF(transaction.getBalanceAfter().toPlainString());
+			}
+
+			blockOutput.writeLong(transaction.getTransactionDate().toEpochSecond(ZoneOffset.UTC));
+			blockOutput.writeInt(transaction.getTransactionDate().getNano());
+
+			endRecord(dataBlocks);
+		}
+
+		public void appendId(String transactionId, String accountNumber, long ordinal) throws IOException {
+
+			if (!appendingIds) {
+
+				flushBlock(dataBlocks);
+				appendingIds = true;
+				lastKey = null;
+			}
+
+			if (lastKey != null && transactionId.compareTo(lastKey) <= 0) {
+				throw new IllegalStateException(
+						String.format("Archived transactionIds out of order at transactionId: %s", transactionId));
+			}
+
+			addKey(transactionIdKey(transactionId));
+			startRecord(idBlocks, transactionId, 0);
+
+			blockOutput.writeUTF(transactionId);
+			blockOutput.writeUTF(accountNumber);
+			blockOutput.writeLong(ordinal);
+
+			endRecord(idBlocks);
+		}
+
+		/**
+		 * Writes the index and forces the segment to disk
+		 */
+		public void finish(LocalDateTime cutoff, long boundaryId) throws IOException {
+
+			flushBlock(appendingIds ? idBlocks : dataBlocks);
+
+			ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+			DataOutputStream index = new DataOutputStream(indexBytes);
+
+			index.writeUTF(cutoff.toString());
+			index.writeLong(boundaryId);
+			writeBlocks(index, dataBlocks);
+			writeBlocks(index, idBlocks);
+
+			long[] bloom = bloom();
+			index.writeInt(bloom.length);
+
+			for (long word : bloom) {
+				index.writeLong(word);
+			}
+
+			byte[] bytes = indexBytes.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+
+			output.write(bytes);
+			output.writeLong(position);
+			output.writeLong(crc.getValue());
+			output.writeInt(MAGIC);
+			output.flush();
+			channel.force(true);
+		}
+
+		@Override
+		public void close() throws IOException {
+
+			deflater.end();
+			output.close();
+		}
+
+		private void startRecord(List<Block> blocks, String key, long ordinal) {
+
+			if (blockRecordCount == 0) {
+				blocks.add(new Block(key, ordinal, 0, 0, 0));
+			}
+
+			lastKey = key;
+			lastOrdinal = ordinal;
+		}
+
+		private void endRecord(List<Block> blocks) throws IOException {
+
+			if (++blockRecordCount == blockRecords) {
+				flushBlock(blocks);
+			}
+		}
+
+		private void flushBlock(List<Block> blocks) throws IOException {
+
+			if (blockRecordCount == 0) {
+				return;
+			}
+
+			byte[] raw = block.toByteArray();
+			long offset = position;
+
+			deflater.reset();
+			deflater.setInput(raw);
+			deflater.finish();
+
+			while (!deflater.finished()) {
+
+				int count = deflater.deflate(deflateBuffer);
+				output.write(deflateBuffer, 0, count);
+				position += count;
+			}
+
+			Block current = blocks.get(blocks.size() - 1);
+			current.offset = offset;
+			current.length = Math.toIntExact(position - offset);
+			current.rawLength = raw.length;
+
+			block.reset();
+			blockRecordCount = 0;
+		}
+
+		private void addKey(String key) {
+
+			if (keyCount == keyHashes.length) {
+				keyHashes = Arrays.copyOf(keyHashes, keyCount * 2);
+			}
+			keyHashes[keyCount++] = hash(key);
+		}
+
+		private long[] bloom() {
+
+			long[] bloom = new long[Math.max(1, (keyCount * BLOOM_BITS_PER_KEY + 63) / 64)];
+			long bitCount = bloom.length * 64L;
+
+			for (int key = 0; key < keyCount; key++) {
+				for (int index = 1; index <= BLOOM_HASH_FUNCTIONS; index++) {
+
+					long bitIndex = bitIndex(keyHashes[key], index, bitCount);
+					bloom[(int) (bitIndex >>> 6)] |= 1L << bitIndex;
+				}
+			}
+
+			return bloom;
+		}
+
+		private static void writeBlocks(DataOutputStream index, List<Block> blocks) throws IOException {
+
+			index.writeInt(blocks.size());
+
+			for (Block block : blocks) {
+
+				index.writeUTF(block.firstKey);
+				index.writeLong(block.firstOrdinal);
+				index.writeLong(block.offset);
+				index.writeInt(block.length);
+				index.writeInt(block.rawLength);
+			}
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package com.wallet.cache;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+
+/**
+ * Bounded LRU cache of account balances, keyed by account number, for balance
+ * polling. Accounts are hashed onto segments, each an LRU map with its own
+ * lock. A written balance is published once its transaction commits, tagged
+ * with the version it was written at, so a commit which publishes late never
+ * replaces the balance of a later one. Balances changed without the row lock
+ * are invalidated instead. With max-staleness-millis above 0, entries older
+ * than that are reloaded, for deployments where other instances write to the
+ * same database.
+ */
+@Component
+public class BalanceCache {
+
+	private final Segment[] segments;
+
+	private final long maxStalenessNanos;
+
+	private final boolean enabled;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	private final Counter evictions;
+
+	public BalanceCache(@Value("${wallet.balance-cache.max-size:100000}") int maxSize,
+			@Value("${wallet.balance-cache.segments:16}") int segmentCount,
+			@Value("${wallet.balance-cache.max-staleness-millis:0}") long maxStalenessMillis,
+			MeterRegistry meterRegistry) {
+
+		enabled = maxSize > 0;
+		maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+
+		hits = Counter.builder("wallet.balance-cache.gets").tag("result", "hit").register(meterRegistry);
+		misses = Counter.builder("wallet.balance-cache.gets").tag("result", "miss").register(meterRegistry);
+		evictions = Counter.builder("wallet.balance-cache.evictions").register(meterRegistry);
+
+		segments = new Segment[Math.max(1, segmentCount)];
+
+		for (int index = 0; index < segments.length; index++) {
+			segments[index] = new Segment((maxSize + segments.length - 1) / segments.length);
+		}
+
+		Gauge.builder("wallet.balance-cache.size", this, BalanceCache::size).register(meterRegistry);
+		Gauge.builder("wallet.balance-cache.hit-ratio", this, BalanceCache::hitRatio).register(meterRegistry);
+	}
+
+	/**
+	 * Returns the cached balance, or loads and caches it on a miss
+	 */
+	public BigDecimal get(String accountNumber, Supplier<BigDecimal> loader) {
+
+		if (!enabled) {
+			return loader.get();
+		}
+
+		Segment segment = segmentFor(accountNumber);
+		long loadVersion;
+
+		synchronized (segment) {
+
+			CachedBalance cached = segment.balances.get(accountNumber);
+
+			if (cached != null && (maxStalenessNanos == 0 || System.nanoTime() - cached.cachedAt < maxStalenessNanos)) {
+
+				hits.increment();
+				return cached.balance;
+			}
+
+			// A balance loaded while a write is in flight may be overtaken by its commit
+			loadVersion = segment.writesInFlight == 0 ? segment.version : -1;
+		}
+
+		misses.increment();
+		BigDecimal balance = loader.get();
+
+		if (loadVersion >= 0) {
+
+			synchronized (segment) {
+
+				// A write in between may have changed the balance after it was loaded
+				if (segment.version == loadVersion) {
+					segment.balances.put(accountNumber, new CachedBalance(balance, loadVersion, System.nanoTime()));
+				}
+			}
+		}
+
+		return balance;
+	}
+
+	/**
+	 * Caches the balance written by the current transaction once it commits.
+	 * Must be called while the transaction holds the lock on the balance, so
+	 * versions are taken in commit order.
+	 */
+	public void putWithinTransaction(String accountNumber, BigDecimal balance) {
+
+		if (!enabled) {
+			return;
+		}
+
+		Segment segment = segmentFor(accountNumber);
+		long version = segment.startWrite();
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+
+			segment.completeWrite(accountNumber, new CachedBalance(balance, version, System.nanoTime()));
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCompletion(int status) {
+
+				// The balance was never committed
+				segment.completeWrite(accountNumber, status == STATUS_COMMITTED
+						? new CachedBalance(balance, version, System.nanoTime())
+						: null);
+			}
+		});
+	}
+
+	/**
+	 * Drops the balance now and again once the current transaction completes, as
+	 * a read during the transaction would cache the old one
+	 */
+	public void invalidateWithinTransaction(String accountNumber) {
+
+		if (!enabled) {
+			return;
+		}
+
+		Segment segment = segmentFor(accountNumber);
+		segment.startWrite();
+		segment.remove(accountNumber);
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+
+			segment.completeWrite(accountNumber, null);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCompletion(int status) {
+				segment.completeWrite(accountNumber, null);
+			}
+		});
+	}
+
+	public void invalidate(String accountNumber) {
+
+		segmentFor(accountNumber).remove(accountNumber);
+	}
+
+	public int size() {
+
+		int size = 0;
+
+		for (Segment segment : segments) {
+
+			synchronized (segment) {
+				size += segment.balances.size();
+			}
+		}
+
+		return size;
+	}
+
+	private Segment segmentFor(String accountNumber) {
+
+		return segments[Math.floorMod(accountNumber.hashCode(), segments.length)];
+	}
+
+	private double hitRatio() {
+
+		double gets = hits.count() + misses.count();
+
+		return gets == 0 ? 0 : hits.count() / gets;
+	}
+
+	/**
+	 * LRU map of a share of the accounts, guarded by its own monitor
+	 */
+	private class Segment {
+
+		private final Map<String, CachedBalance> balances;
+
+		// Bumped by every write, so a read which raced with one does not cache its result
+		private long version;
+
+		// Writes whose transactions have not completed yet
+		private int writesInFlight;
+
+		private Segment(int maxSize) {
+
+			balances = new LinkedHashMap<String, CachedBalance>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, CachedBalance> eldest) {
+
+					if (size() <= maxSize) {
+						return false;
+					}
+
+					evictions.increment();
+					return true;
+				}
+			};
+		}
+
+		private synchronized long startWrite() {
+
+			writesInFlight++;
+			return ++version;
+		}
+
+		// Publishes the balance unless a later write already did
+		private synchronized void completeWrite(String accountNumber, CachedBalance written) {
+
+			writesInFlight--;
+			version++;
+
+			if (written == null) {
+				return;
+			}
+
+			CachedBalance cached = balances.get(accountNumber);
+
+			if (cached == null || cached.version < written.version) {
+				balances.put(accountNumber, written);
+			}
+		}
+
+		private synchronized void remove(String accountNumber) {
+
+			version++;
+			balances.remove(accountNumber);
+		}
+	}
+
+	@AllArgsConstructor
+	private static class CachedBalance {
+
+		private final BigDecimal balance;
+
+		// Version of the segment the balance was written or loaded at
+		private final long version;
+
+		private final long cachedAt;
+	}
+}
@@ -0,0 +1,140 @@
+package com.wallet.cache;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.wallet.archive.TransactionArchive;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filter over every performed transactionId. A negative answer means the
+ * id was definitely never used, so the duplicate check can skip the database.
+ * Until the filter is loaded from the transaction table and the archive every id
+ * is reported as possibly seen.
+ */
+@Slf4j
+@Component
+public class TransactionIdFilter {
+
+	private static final int FETCH_SIZE = 1000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Value("${wallet.transaction-id-filter.expected-insertions:10000000}")
+	private long expectedInsertions;
+
+	@Value("${wallet.transaction-id-filter.false-positive-rate:0.01}")
+	private double falsePositiveRate;
+
+	private AtomicLongArray bits;
+
+	private long bitCount;
+
+	private int hashFunctions;
+
+	private volatile boolean loaded;
+
+	@PostConstruct
+	public void init() {
+
+		long optimalBits = (long) Math
+				.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+
+		bits = new AtomicLongArray(Math.toIntExact((optimalBits + 63) / 64));
+		bitCount = bits.length() * 64L;
+		hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+
+		long start = System.currentTimeMillis();
+
+		jdbcTemplate.query(connection -> {
+
+			PreparedStatement statement = connection.prepareStatement("SELECT transaction_id FROM transaction",
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(FETCH_SIZE);
+			return statement;
+		}, (RowCallbackHandler) resultSet -> put(resultSet.getString(1)));
+		transactionArchive.forEachTransactionId(this::put);
+
+		loaded = true;
+
+		log.info("Transaction id filter loaded in {} ms", System.currentTimeMillis() - start);
+	}
+
+	public boolean mightContain(String transactionId) {
+
+		if (!loaded) {
+			return true;
+		}
+
+		long hash = hash(transactionId);
+
+		for (int index = 1; index <= hashFunctions; index++) {
+
+			long bitIndex = bitIndex(hash, index);
+
+			if ((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public void put(String transactionId) {
+
+		long hash = hash(transactionId);
+
+		for (int index = 1; index <= hashFunctions; index++) {
+
+			long bitIndex = bitIndex(hash, index);
+			int word = (int) (bitIndex >>> 6);
+			long mask = 1L << bitIndex;
+
+			long current;
+			do {
+				current = bits.get(word);
+			} while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+		}
+	}
+
+	// Double hashing: the i-th bit is h1 + i * h2
+	private long bitIndex(long hash, int index) {
+
+		long combined = (int) hash + (long) index * (int) (hash >>> 32);
+
+		return (combined < 0 ? ~combined : combined) % bitCount;
+	}
+
+	// 64 bit FNV-1a
+	private long hash(String value) {
+
+		long hash = 0xcbf29ce484222325L;
+
+		for (int index = 0; index < value.length(); index++) {
+			hash ^= value.charAt(index);
+			hash *= 0x100000001b3L;
+		}
+
+		return hash;
+	}
+}
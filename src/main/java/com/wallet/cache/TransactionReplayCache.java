@@ -0,0 +1,141 @@
+package com.wallet.cache;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.wallet.exception.DuplicateTransactionException;
+import com.wallet.model.Constants;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.response.TransactionDto;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded cache of the responses of recently performed transactions, keyed by
+ * transactionId, so that a retried request is answered with its original
+ * response. Concurrent requests with the same transactionId share a single
+ * execution. Responses evicted from the cache are still replayed by the
+ * transaction service from the stored transaction.
+ */
+@Slf4j
+@Component
+public class TransactionReplayCache {
+
+	private final Map<String, PerformedTransaction> responses;
+
+	private final Map<String, PerformedTransaction> inFlight = new ConcurrentHashMap<>();
+
+	public TransactionReplayCache(@Value("${wallet.replay-cache.max-size:100000}") int maxSize) {
+
+		responses = new LinkedHashMap<String, PerformedTransaction>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PerformedTransaction> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public TransactionDto execute(String accountNumber, TransactionRequest transactionRequest,
+			TransactionType transactionType, Supplier<TransactionDto> operation) {
+
+		String transactionId = transactionRequest.getTransactionId();
+		PerformedTransaction request = new PerformedTransaction(accountNumber, transactionType,
+				transactionRequest.getAmount(), new CompletableFuture<>());
+
+		PerformedTransaction performed;
+
+		synchronized (responses) {
+			performed = responses.get(transactionId);
+		}
+
+		if (performed == null) {
+
+			performed = inFlight.putIfAbsent(transactionId, request);
+
+			if (performed == null) {
+				return perform(transactionId, request, operation);
+			}
+		}
+
+		if (!performed.matches(request)) {
+
+			log.error(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+			throw new DuplicateTransactionException(
+					String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+		}
+
+		log.info("Replaying response of transactionId: {}", transactionId);
+
+		return await(performed.response);
+	}
+
+	private TransactionDto perform(String transactionId, PerformedTransaction request,
+			Supplier<TransactionDto> operation) {
+
+		try {
+			TransactionDto transactionDto = operation.get();
+
+			synchronized (responses) {
+				responses.put(transactionId, request);
+			}
+
+			request.response.complete(transactionDto);
+			return transactionDto;
+		} catch (RuntimeException exception) {
+
+			// Waiting duplicates get the same outcome, a later retry executes again
+			request.response.completeExceptionally(exception);
+			throw exception;
+		} finally {
+			inFlight.remove(transactionId);
+		}
+	}
+
+	private TransactionDto await(CompletableFuture<TransactionDto> response) {
+
+		try {
+			return response.get();
+		} catch (ExecutionException exception) {
+
+			if (exception.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) exception.getCause();
+			}
+			throw new IllegalStateException(exception.getCause());
+		} catch (InterruptedException exception) {
+
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	@AllArgsConstructor
+	private static class PerformedTransaction {
+
+		private final String accountNumber;
+
+		private final TransactionType transactionType;
+
+		private final BigDecimal amount;
+
+		private final CompletableFuture<TransactionDto> response;
+
+		private boolean matches(PerformedTransaction other) {
+
+			return accountNumber.equals(other.accountNumber) && transactionType == other.transactionType
+					&& amount.compareTo(other.amount) == 0;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.wallet.config;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs every request on its own virtual thread instead of the bounded Tomcat
+ * pool, so blocking JPA calls park a cheap thread rather than pin a platform
+ * one. Enabled with wallet.web.execution-mode=virtual on the JDK 21 build.
+ * Concurrent database work stays bounded by the connection pool.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "wallet.web.execution-mode", havingValue = "virtual")
+public class VirtualThreadExecutionConfig {
+
+	// Not a bean, an Executor bean would switch off Boot's applicationTaskExecutor
+	private final ExecutorService requestExecutor = VirtualThreads.newPerTaskExecutor();
+
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+
+		log.info("Requests run on virtual threads");
+
+		return factory -> factory
+				.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(requestExecutor));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+
+		requestExecutor.shutdown();
+	}
+}
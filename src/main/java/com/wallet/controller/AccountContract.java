@@ -1,12 +1,28 @@
 package com.wallet.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.wallet.model.dto.request.AccountRequest;
+import com.wallet.model.dto.request.BalanceStripesRequest;
+import com.wallet.model.dto.request.BatchTransactionRequest;
+import com.wallet.model.dto.request.HoldRequest;
 import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
 import com.wallet.model.dto.response.AccountDto;
+import com.wallet.model.dto.response.HoldDto;
+import com.wallet.model.dto.response.OnboardingResponse;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -33,6 +49,35 @@ public interface AccountContract {
 	ResponseEntity<AccountDto> createAccount(
 			@Parameter(description = "Create an account of given type") AccountRequest accountRequest);
 
+	/**
+	 * Creates accounts in bulk from a JSON array of account requests, with a
+	 * result for every account
+	 * 
+	 * @param accountRequests
+	 * @return a response entity with the result of every account
+	 */
+	@Operation(summary = "Create accounts in bulk from a JSON array", tags = { "/accounts/bulk" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Result of every account"),
+			@ApiResponse(responseCode = "400", description = "No accounts in the request"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<OnboardingResponse> createAccounts(
+			@Parameter(description = "Accounts to create") List<AccountRequest> accountRequests);
+
+	/**
+	 * Creates accounts in bulk from a CSV stream with a fullName, emailId,
+	 * mobileNumber, accountType, balanceAmount header, with a result for every
+	 * row
+	 * 
+	 * @param csv
+	 * @return a response entity with the result of every row
+	 */
+	@Operation(summary = "Create accounts in bulk from a CSV stream", tags = { "/accounts/bulk" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Result of every row"),
+			@ApiResponse(responseCode = "400", description = "Invalid CSV header or no rows"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<OnboardingResponse> createAccountsFromCsv(
+			@Parameter(description = "CSV stream of accounts to create") InputStream csv) throws IOException;
+
 	/**
 	 * Fetches the account balance for given account number
 	 * 
@@ -47,6 +92,25 @@ public interface AccountContract {
 	ResponseEntity<AccountDto> fetchBalance(
 			@Parameter(description = "Fetch the balance for the given account number") String accountNumber);
 
+	/**
+	 * Splits the balance of a hot account into stripes which concurrent writers
+	 * update independently, or folds it back for 0 stripes
+	 * 
+	 * @param accountNumber
+	 * @param balanceStripesRequest
+	 * @return a response entity with the account balance
+	 */
+	@Operation(summary = "Split the balance of the given account into stripes", tags = {
+			"/accounts/{accountNumber}/balance/stripes" })
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Balance striped successfully", content = {
+					@Content(mediaType = "application/json", schema = @Schema(implementation = BalanceStripesRequest.class)) }),
+			@ApiResponse(responseCode = "400", description = "Invalid request body"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<AccountDto> stripeBalance(
+			@Parameter(description = "Split the balance of the given account into stripes") String accountNumber,
+			BalanceStripesRequest balanceStripesRequest);
+
 	/**
 	 * Perform a DEBIT transaction on given account number and created transaction
 	 * record for given transactionId
@@ -84,18 +148,198 @@ public interface AccountContract {
 			@Parameter(description = "Perform a CREDIT transaction on given account") String accountNumber,
 			TransactionRequest transactionRequest);
 
+	/**
+	 * Hold an amount on given account number until it is captured, released or
+	 * expires
+	 * 
+	 * @param accountNumber
+	 * @param holdRequest
+	 * @return a response entity with hold response
+	 */
+	@Operation(summary = "Hold an amount on given account", tags = { "/accounts/{accountNumber}/holds" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "201", description = "Amount held successfully", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = HoldRequest.class)) }),
+			@ApiResponse(responseCode = "400", description = "Invalid request body"),
+			@ApiResponse(responseCode = "409", description = "Duplicate hold found"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<HoldDto> reserve(@Parameter(description = "Hold an amount on given account") String accountNumber,
+			HoldRequest holdRequest);
+
+	/**
+	 * Capture a hold into a DEBIT transaction with the holdId as transactionId
+	 * 
+	 * @param accountNumber
+	 * @param holdId
+	 * @return a response entity with transaction response
+	 */
+	@Operation(summary = "Capture a hold into a DEBIT transaction", tags = {
+			"/accounts/{accountNumber}/holds/{holdId}/capture" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Account debited successfully"),
+			@ApiResponse(responseCode = "400", description = "Invalid hold"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<TransactionDto> capture(
+			@Parameter(description = "Capture a hold into a DEBIT transaction") String accountNumber, String holdId);
+
+	/**
+	 * Release a hold, returning the held amount to the balance
+	 * 
+	 * @param accountNumber
+	 * @param holdId
+	 * @return a response entity with hold response
+	 */
+	@Operation(summary = "Release a hold", tags = { "/accounts/{accountNumber}/holds/{holdId}/release" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Hold released successfully"),
+			@ApiResponse(responseCode = "400", description = "Invalid hold"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<HoldDto> release(@Parameter(description = "Release a hold") String accountNumber, String holdId);
+
 	/**
 	 * Get all transactions for given user account
 	 * 
 	 * @param account number
+	 * @param totals  false to get whether a next page exists instead of the
+	 *                totals
+	 * @param from    optional start of the period, inclusive
+	 * @param to      optional end of the period, exclusive
+	 * @param type    optional CREDIT or DEBIT
 	 * @return a response entity with transactions
 	 */
 	@Operation(summary = "Get all transactions for given user account", tags = { "/accounts/transactions" })
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Transaction details per user"),
-			@ApiResponse(responseCode = "400", description = "Invalid account number"),
+			@ApiResponse(responseCode = "400", description = "Invalid account number or filter"),
 			@ApiResponse(responseCode = "500", description = "Internal server error") })
 	ResponseEntity<TransactionResponse> getAllTransactions(
 			@Parameter(description = "Get all transactions for given user account") String accountNumber, Integer page,
-			Integer limit);
+			Integer limit, @Parameter(description = "Include totalNoOfPages and totalNoOfTransactions") boolean totals,
+			@Parameter(description = "Start of the period, inclusive, yyyy-MM-ddTHH:mm:ss") LocalDateTime from,
+			@Parameter(description = "End of the period, exclusive, yyyy-MM-ddTHH:mm:ss") LocalDateTime to,
+			@Parameter(description = "CREDIT or DEBIT") String type);
+
+	/**
+	 * Get transactions of given user account oldest first, a page at a time. Each
+	 * page returns the cursor of the next one
+	 * 
+	 * @param accountNumber
+	 * @param cursor        nextCursor of the previous page, none for the first
+	 *                      page
+	 * @param limit
+	 * @return a response entity with transactions and the next cursor
+	 */
+	@Operation(summary = "Get transactions for given user account after a cursor", tags = {
+			"/accounts/transactions/cursor" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Transaction details per user"),
+			@ApiResponse(responseCode = "400", description = "Invalid account number or cursor"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<TransactionResponse> getTransactionsAfter(
+			@Parameter(description = "Get transactions for given user account") String accountNumber,
+			@Parameter(description = "nextCursor of the previous page") String cursor, Integer limit);
+
+	/**
+	 * Generate the statement of given user account for a period, with the opening
+	 * balance, a running balance on every transaction and the totals
+	 * 
+	 * @param accountNumber
+	 * @param fromDate      first day of the period
+	 * @param toDate        last day of the period
+	 * @return a response entity with the statement
+	 */
+	@Operation(summary = "Generate the statement of given user account for a period", tags = {
+			"/accounts/{accountNumber}/statement" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Account statement"),
+			@ApiResponse(responseCode = "400", description = "Invalid account number or period"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<StatementDto> getStatement(
+			@Parameter(description = "Generate the statement of given user account") String accountNumber,
+			@Parameter(description = "First day of the period, yyyy-MM-dd") LocalDate fromDate,
+			@Parameter(description = "Last day of the period, yyyy-MM-dd") LocalDate toDate);
+
+	/**
+	 * Summarize the credits and debits of given user account for a period, day by
+	 * day, from the daily rollups
+	 * 
+	 * @param accountNumber
+	 * @param fromDate      first day of the period
+	 * @param toDate        last day of the period
+	 * @return a response entity with the summary
+	 */
+	@Operation(summary = "Summarize the credits and debits of given user account for a period", tags = {
+			"/accounts/{accountNumber}/summary" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Account summary"),
+			@ApiResponse(responseCode = "400", description = "Invalid account number or period"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<SummaryDto> getSummary(
+			@Parameter(description = "Summarize the credits and debits of given user account") String accountNumber,
+			@Parameter(description = "First day of the period, yyyy-MM-dd") LocalDate fromDate,
+			@Parameter(description = "Last day of the period, yyyy-MM-dd") LocalDate toDate);
+
+	/**
+	 * Export the whole transaction history of given user account, oldest first,
+	 * streamed as it is read
+	 * 
+	 * @param accountNumber
+	 * @param format        ndjson or csv
+	 * @return a response entity streaming the transactions
+	 */
+	@Operation(summary = "Export all transactions for given user account", tags = { "/accounts/transactions/export" })
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Transaction history", content = {
+			@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv") }),
+			@ApiResponse(responseCode = "400", description = "Invalid account number or format"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<StreamingResponseBody> exportTransactions(
+			@Parameter(description = "Export all transactions for given user account") String accountNumber,
+			@Parameter(description = "ndjson or csv") String format);
+
+	/**
+	 * Perform a batch of DEBIT/CREDIT transactions on given account number in a
+	 * single database transaction
+	 * 
+	 * @param accountNumber
+	 * @param batchTransactionRequest
+	 * @return a response entity with a transaction response per item
+	 */
+	@Operation(summary = "Perform a batch of transactions on given account", tags = {
+			"/accounts/{accountNumber}/transactions/batch" })
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Batch performed successfully", content = {
+					@Content(mediaType = "application/json", schema = @Schema(implementation = BatchTransactionRequest.class)) }),
+			@ApiResponse(responseCode = "400", description = "Invalid request body"),
+			@ApiResponse(responseCode = "409", description = "Duplicate transaction found"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<TransactionResponse> performBatch(
+			@Parameter(description = "Perform a batch of transactions on given account") String accountNumber,
+			BatchTransactionRequest batchTransactionRequest);
+
+	/**
+	 * Perform a batch of DEBIT/CREDIT transactions, each naming its own account
+	 * number, in a single database transaction
+	 * 
+	 * @param batchTransactionRequest
+	 * @return a response entity with a transaction response per item
+	 */
+	@Operation(summary = "Perform a batch of transactions across accounts", tags = { "/accounts/transactions/batch" })
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Batch performed successfully", content = {
+					@Content(mediaType = "application/json", schema = @Schema(implementation = BatchTransactionRequest.class)) }),
+			@ApiResponse(responseCode = "400", description = "Invalid request body"),
+			@ApiResponse(responseCode = "409", description = "Duplicate transaction found"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<TransactionResponse> performMultiAccountBatch(BatchTransactionRequest batchTransactionRequest);
+
+	/**
+	 * Transfer an amount from one account to another, debiting and crediting both
+	 * atomically
+	 * 
+	 * @param transferRequest
+	 * @return a response entity with transfer response
+	 */
+	@Operation(summary = "Transfer an amount between two accounts", tags = { "/accounts/transfers" })
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Amount transferred successfully", content = {
+					@Content(mediaType = "application/json", schema = @Schema(implementation = TransferRequest.class)) }),
+			@ApiResponse(responseCode = "400", description = "Invalid request body"),
+			@ApiResponse(responseCode = "409", description = "Duplicate transaction found"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	ResponseEntity<TransferDto> performTransfer(
+			@Parameter(description = "Transfer an amount between two accounts") TransferRequest transferRequest);
 
 }
@@ -1,27 +1,53 @@
 package com.wallet.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.wallet.cache.TransactionReplayCache;
+import com.wallet.model.ExportFormat;
+import com.wallet.model.TransactionType;
 import com.wallet.model.dto.request.AccountRequest;
+import com.wallet.model.dto.request.BalanceStripesRequest;
+import com.wallet.model.dto.request.BatchTransactionRequest;
+import com.wallet.model.dto.request.HoldRequest;
+import com.wallet.model.dto.request.TransactionFilter;
 import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
 import com.wallet.model.dto.response.AccountDto;
+import com.wallet.model.dto.response.HoldDto;
+import com.wallet.model.dto.response.OnboardingResponse;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
 import com.wallet.service.AccountService;
+import com.wallet.service.HoldService;
 import com.wallet.service.TransactionService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -31,12 +57,20 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping
 public class AccountController implements AccountContract {
 
+	private static final String CSV_CONTENT_TYPE = "text/csv";
+
 	@Autowired
 	private AccountService accountService;
 
 	@Autowired
 	private TransactionService transactionService;
 
+	@Autowired
+	private HoldService holdService;
+
+	@Autowired
+	private TransactionReplayCache transactionReplayCache;
+
 	@Override
 	@PostMapping
 	public ResponseEntity<AccountDto> createAccount(@Valid @RequestBody AccountRequest accountRequest) {
@@ -46,6 +80,24 @@ public class AccountController implements AccountContract {
 		return new ResponseEntity<AccountDto>(accountService.createAccount(accountRequest), HttpStatus.CREATED);
 	}
 
+	@Override
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<OnboardingResponse> createAccounts(@RequestBody List<AccountRequest> accountRequests) {
+
+		log.info("{} new accounts are getting created", accountRequests.size());
+
+		return ResponseEntity.ok(accountService.createAccounts(accountRequests));
+	}
+
+	@Override
+	@PostMapping(value = "/bulk", consumes = CSV_CONTENT_TYPE)
+	public ResponseEntity<OnboardingResponse> createAccountsFromCsv(InputStream csv) throws IOException {
+
+		log.info("New accounts are getting created from CSV");
+
+		return ResponseEntity.ok(accountService.createAccounts(csv));
+	}
+
 	@Override
 	@GetMapping(value = "/{accountNumber}/balance")
 	public ResponseEntity<AccountDto> fetchBalance(
@@ -56,6 +108,18 @@ public class AccountController implements AccountContract {
 		return ResponseEntity.ok().body(accountService.fetchBalance(accountNumber));
 	}
 
+	@Override
+	@PutMapping(value = "/{accountNumber}/balance/stripes")
+	public ResponseEntity<AccountDto> stripeBalance(
+			@NotBlank @PathVariable(name = "accountNumber") String accountNumber,
+			@Valid @RequestBody BalanceStripesRequest balanceStripesRequest) {
+
+		log.info("Splitting the balance of accountNumber: {} into {} stripes", accountNumber,
+				balanceStripesRequest.getStripes());
+
+		return ResponseEntity.ok(accountService.stripeBalance(accountNumber, balanceStripesRequest.getStripes()));
+	}
+
 	@Override
 	@PostMapping(value = "/{accountNumber}/transactions/debit")
 	public ResponseEntity<TransactionDto> performDebit(
@@ -65,7 +129,8 @@ public class AccountController implements AccountContract {
 		log.info("Performing DEBIT transaction on account: {} with transactionId: {}", accountNumber,
 				transactionRequest.getTransactionId());
 
-		return ResponseEntity.ok(transactionService.performDebit(accountNumber, transactionRequest));
+		return ResponseEntity.ok(transactionReplayCache.execute(accountNumber, transactionRequest,
+				TransactionType.DEBIT, () -> transactionService.performDebit(accountNumber, transactionRequest)));
 	}
 
 	@Override
@@ -77,7 +142,38 @@ public class AccountController implements AccountContract {
 		log.info("Performing CREDIT transaction on account: {} with transactionId: {}", accountNumber,
 				transactionRequest.getTransactionId());
 
-		return ResponseEntity.ok(transactionService.performCredit(accountNumber, transactionRequest));
+		return ResponseEntity.ok(transactionReplayCache.execute(accountNumber, transactionRequest,
+				TransactionType.CREDIT, () -> transactionService.performCredit(accountNumber, transactionRequest)));
+	}
+
+	@Override
+	@PostMapping(value = "/{accountNumber}/holds")
+	public ResponseEntity<HoldDto> reserve(@NotBlank @PathVariable(name = "accountNumber") String accountNumber,
+			@Valid @RequestBody HoldRequest holdRequest) {
+
+		log.info("Placing hold: {} on account: {}", holdRequest.getHoldId(), accountNumber);
+
+		return new ResponseEntity<HoldDto>(holdService.reserve(accountNumber, holdRequest), HttpStatus.CREATED);
+	}
+
+	@Override
+	@PostMapping(value = "/{accountNumber}/holds/{holdId}/capture")
+	public ResponseEntity<TransactionDto> capture(@NotBlank @PathVariable(name = "accountNumber") String accountNumber,
+			@NotBlank @PathVariable(name = "holdId") String holdId) {
+
+		log.info("Capturing hold: {} on account: {}", holdId, accountNumber);
+
+		return ResponseEntity.ok(holdService.capture(accountNumber, holdId));
+	}
+
+	@Override
+	@PostMapping(value = "/{accountNumber}/holds/{holdId}/release")
+	public ResponseEntity<HoldDto> release(@NotBlank @PathVariable(name = "accountNumber") String accountNumber,
+			@NotBlank @PathVariable(name = "holdId") String holdId) {
+
+		log.info("Releasing hold: {} on account: {}", holdId, accountNumber);
+
+		return ResponseEntity.ok(holdService.release(accountNumber, holdId));
 	}
 
 	@Override
@@ -85,10 +181,109 @@ public class AccountController implements AccountContract {
 	public ResponseEntity<TransactionResponse> getAllTransactions(
 			@NotBlank @RequestParam(name = "accountNumber") String accountNumber,
 			@Min(0) @RequestParam(name = "page", defaultValue = "0", required = false) Integer page,
-			@Min(1) @Max(50) @RequestParam(name = "limit", defaultValue = "10", required = false) Integer limit) {
+			@Min(1) @Max(50) @RequestParam(name = "limit", defaultValue = "10", required = false) Integer limit,
+			@RequestParam(name = "totals", defaultValue = "true", required = false) boolean totals,
+			@DateTimeFormat(iso = ISO.DATE_TIME) @RequestParam(name = "from", required = false) LocalDateTime from,
+			@DateTimeFormat(iso = ISO.DATE_TIME) @RequestParam(name = "to", required = false) LocalDateTime to,
+			@RequestParam(name = "type", required = false) String type) {
 
 		log.info("Get all transactions for given accountNumber: {}", accountNumber);
 
-		return ResponseEntity.ok(transactionService.getAllTransactions(accountNumber, page, limit));
+		TransactionFilter filter = TransactionFilter.builder().from(from).to(to).transactionType(type).build();
+
+		if (!filter.isEmpty()) {
+			return ResponseEntity
+					.ok(transactionService.getFilteredTransactions(accountNumber, filter, page, limit, totals));
+		}
+
+		return ResponseEntity.ok(totals ? transactionService.getAllTransactions(accountNumber, page, limit)
+				: transactionService.getTransactionSlice(accountNumber, page, limit));
+	}
+
+	@Override
+	@GetMapping(value = "/transactions/cursor")
+	public ResponseEntity<TransactionResponse> getTransactionsAfter(
+			@NotBlank @RequestParam(name = "accountNumber") String accountNumber,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@Min(1) @Max(50) @RequestParam(name = "limit", defaultValue = "10", required = false) Integer limit) {
+
+		log.info("Get transactions after cursor: {} for given accountNumber: {}", cursor, accountNumber);
+
+		return ResponseEntity.ok(transactionService.getTransactionsAfter(accountNumber, cursor, limit));
+	}
+
+	@Override
+	@GetMapping(value = "/{accountNumber}/statement")
+	public ResponseEntity<StatementDto> getStatement(
+			@NotBlank @PathVariable(name = "accountNumber") String accountNumber,
+			@DateTimeFormat(iso = ISO.DATE) @RequestParam(name = "fromDate") LocalDate fromDate,
+			@DateTimeFormat(iso = ISO.DATE) @RequestParam(name = "toDate") LocalDate toDate) {
+
+		log.info("Generating statement of accountNumber: {} from {} to {}", accountNumber, fromDate, toDate);
+
+		return ResponseEntity.ok(transactionService.getStatement(accountNumber, fromDate, toDate));
+	}
+
+	@Override
+	@GetMapping(value = "/{accountNumber}/summary")
+	public ResponseEntity<SummaryDto> getSummary(@NotBlank @PathVariable(name = "accountNumber") String accountNumber,
+			@DateTimeFormat(iso = ISO.DATE) @RequestParam(name = "fromDate") LocalDate fromDate,
+			@DateTimeFormat(iso = ISO.DATE) @RequestParam(name = "toDate") LocalDate toDate) {
+
+		log.info("Summarizing accountNumber: {} from {} to {}", accountNumber, fromDate, toDate);
+
+		return ResponseEntity.ok(transactionService.getSummary(accountNumber, fromDate, toDate));
+	}
+
+	@Override
+	@GetMapping(value = "/transactions/export")
+	public ResponseEntity<StreamingResponseBody> exportTransactions(
+			@NotBlank @RequestParam(name = "accountNumber") String accountNumber,
+			@RequestParam(name = "format", defaultValue = "ndjson", required = false) String format) {
+
+		ExportFormat exportFormat = ExportFormat.of(format);
+
+		log.info("Exporting transactions of accountNumber: {} as {}", accountNumber, exportFormat);
+
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"transactions-" + accountNumber + "." + exportFormat.getFileExtension()
+								+ "\"")
+				.body(transactionService.exportTransactions(accountNumber, exportFormat));
+	}
+
+	@Override
+	@PostMapping(value = "/{accountNumber}/transactions/batch")
+	public ResponseEntity<TransactionResponse> performBatch(
+			@NotBlank @PathVariable(name = "accountNumber") String accountNumber,
+			@Valid @RequestBody BatchTransactionRequest batchTransactionRequest) {
+
+		log.info("Performing batch of {} transactions on account: {}",
+				batchTransactionRequest.getTransactions().size(), accountNumber);
+
+		return ResponseEntity
+				.ok(transactionService.performBatch(accountNumber, batchTransactionRequest.getTransactions()));
+	}
+
+	@Override
+	@PostMapping(value = "/transactions/batch")
+	public ResponseEntity<TransactionResponse> performMultiAccountBatch(
+			@Valid @RequestBody BatchTransactionRequest batchTransactionRequest) {
+
+		log.info("Performing batch of {} transactions across accounts",
+				batchTransactionRequest.getTransactions().size());
+
+		return ResponseEntity.ok(transactionService.performBatch(null, batchTransactionRequest.getTransactions()));
+	}
+
+	@Override
+	@PostMapping(value = "/transfers")
+	public ResponseEntity<TransferDto> performTransfer(@Valid @RequestBody TransferRequest transferRequest) {
+
+		log.info("Transferring from account: {} to account: {} with transactionId: {}",
+				transferRequest.getFromAccountNumber(), transferRequest.getToAccountNumber(),
+				transferRequest.getTransactionId());
+
+		return ResponseEntity.ok(transactionService.performTransfer(transferRequest));
 	}
 }
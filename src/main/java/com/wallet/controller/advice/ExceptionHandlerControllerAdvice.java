@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import com.wallet.exception.DuplicateTransactionException;
 import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.Constants;
 import com.wallet.model.dto.ErrorMessage;
 import com.wallet.model.dto.ErrorResponses;
 
@@ -55,6 +56,22 @@ public class ExceptionHandlerControllerAdvice {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponses);
 	}
 
+	/**
+	 * Amounts which do not convert to minor units of the currency, or balances
+	 * which would overflow them
+	 */
+	@ExceptionHandler(ArithmeticException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponses> processArithmeticException(final ArithmeticException exception) {
+
+		log.error("Exception: {}, {}", HttpStatus.BAD_REQUEST.value(), exception.getMessage());
+
+		ErrorResponses errorResponses = ErrorResponses.builder().status(HttpStatus.BAD_REQUEST.value())
+				.message(Constants.INVALID_AMOUNT_MESSAGE).build();
+
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponses);
+	}
+
 	@ExceptionHandler(DuplicateTransactionException.class)
 	@ResponseStatus(HttpStatus.CONFLICT)
 	public ResponseEntity<ErrorResponses> processDuplicateException(final DuplicateTransactionException exception) {
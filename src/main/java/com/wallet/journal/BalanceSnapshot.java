@@ -0,0 +1,24 @@
+package com.wallet.journal;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Every account with its ledger balance, copied on the writer of its partition
+ * along with the journal sequence the partition had persisted by then
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSnapshot {
+
+	// Last persisted journal sequence of every ledger partition
+	private long[] sequences;
+
+	private List<SnapshotAccount> accounts;
+}
@@ -0,0 +1,259 @@
+package com.wallet.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores balance snapshots as checksummed files, keeping the latest few.
+ * Balances are fixed-width records of the account number, the balance in
+ * minor units and the journal sequence it includes, followed by the details of
+ * the accounts in the same order. A snapshot is written to a temporary file,
+ * forced to disk and moved into place, so a crash never leaves a partial
+ * snapshot behind.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.transactions.write-mode", havingValue = "ledger")
+public class BalanceSnapshotStore {
+
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+	private static final String SNAPSHOT_SUFFIX = ".bin";
+
+	private static final int MAGIC = 0x57534e33;
+
+	// Zero-padded ASCII account number of a record
+	private static final int ACCOUNT_NUMBER_SIZE = 32;
+
+	@Value("${wallet.snapshot.directory:data/snapshots}")
+	private String directory;
+
+	@Value("${wallet.snapshot.retained:2}")
+	private int retained;
+
+	private long lastSnapshotTime;
+
+	public synchronized void save(BalanceSnapshot snapshot) throws IOException {
+
+		Path snapshotDirectory = Paths.get(directory);
+		Files.createDirectories(snapshotDirectory);
+
+		Path temporary = snapshotDirectory.resolve(SNAPSHOT_PREFIX + "next.tmp");
+		CRC32 crc = new CRC32();
+
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			DataOutputStream output = new DataOutputStream(
+					new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), crc));
+
+			output.writeInt(MAGIC);
+			output.writeInt(snapshot.getSequences().length);
+
+			for (long sequence : snapshot.getSequences()) {
+				output.writeLong(sequence);
+			}
+
+			output.writeInt(snapshot.getAccounts().size());
+
+			for (SnapshotAccount account : snapshot.getAccounts()) {
+
+				output.write(encodeAccountNumber(account.getAccountNumber()));
+				output.writeLong(account.getMinorUnits());
+				output.writeLong(account.getSequence());
+			}
+
+			for (SnapshotAccount account : snapshot.getAccounts()) {
+
+				output.writeUTF(account.getEmailId());
+				output.writeUTF(account.getFullName());
+				output.writeUTF(account.getMobileNumber());
+				output.writeUTF(account.getAccountType());
+				output.writeUTF(account.getAccountStatus());
+			}
+
+			output.writeLong(crc.getValue());
+			output.flush();
+
+			channel.force(true);
+		}
+
+		// Names order by time, even for snapshots taken within the same millisecond
+		lastSnapshotTime = Math.max(System.currentTimeMillis(), lastSnapshotTime + 1);
+
+		Files.move(temporary,
+				snapshotDirectory
+						.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lastSnapshotTime, SNAPSHOT_SUFFIX)),
+				StandardCopyOption.ATOMIC_MOVE);
+
+		// The rename is only durable once the directory is
+		try (FileChannel directoryChannel = FileChannel.open(snapshotDirectory, StandardOpenOption.READ)) {
+			directoryChannel.force(true);
+		}
+
+		List<Path> snapshots = snapshots();
+
+		for (Path expired : snapshots.subList(Math.min(retained, snapshots.size()), snapshots.size())) {
+			Files.delete(expired);
+		}
+	}
+
+	/**
+	 * Returns the lowest journal sequence any retained snapshot replays from.
+	 * The journal entries up to it are no longer needed by a restore.
+	 */
+	public long earliestSequence() throws IOException {
+
+		long earliestSequence = Long.MAX_VALUE;
+
+		for (Path snapshot : snapshots()) {
+
+			try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+
+				if (input.readInt() != MAGIC) {
+					continue;
+				}
+
+				int partitionCount = input.readInt();
+
+				for (int index = 0; index < partitionCount; index++) {
+					earliestSequence = Math.min(earliestSequence, input.readLong());
+				}
+			} catch (IOException exception) {
+				log.warn("Snapshot {} could not be read: {}", snapshot.getFileName(), exception.getMessage());
+			}
+		}
+
+		return earliestSequence == Long.MAX_VALUE ? 0 : earliestSequence;
+	}
+
+	/**
+	 * Returns the latest snapshot which is intact
+	 */
+	public Optional<BalanceSnapshot> loadLatest() throws IOException {
+
+		for (Path snapshot : snapshots()) {
+
+			try {
+				return Optional.of(read(snapshot));
+			} catch (IOException exception) {
+				log.warn("Snapshot {} could not be read: {}", snapshot.getFileName(), exception.getMessage());
+			}
+		}
+
+		return Optional.empty();
+	}
+
+	private BalanceSnapshot read(Path snapshot) throws IOException {
+
+		CRC32 crc = new CRC32();
+
+		try (DataInputStream input = new DataInputStream(
+				new CheckedInputStream(new BufferedInputStream(Files.newInputStream(snapshot)), crc))) {
+
+			if (input.readInt() != MAGIC) {
+				throw new IOException("Not a snapshot file");
+			}
+
+			long[] sequences = new long[input.readInt()];
+
+			for (int index = 0; index < sequences.length; index++) {
+				sequences[index] = input.readLong();
+			}
+
+			int accountCount = input.readInt();
+			List<SnapshotAccount> accounts = new ArrayList<>(accountCount);
+			byte[] accountNumber = new byte[ACCOUNT_NUMBER_SIZE];
+
+			for (int index = 0; index < accountCount; index++) {
+
+				input.readFully(accountNumber);
+				accounts.add(SnapshotAccount.builder().accountNumber(decodeAccountNumber(accountNumber))
+						.minorUnits(input.readLong()).sequence(input.readLong()).build());
+			}
+
+			for (SnapshotAccount account : accounts) {
+
+				account.setEmailId(input.readUTF());
+				account.setFullName(input.readUTF());
+				account.setMobileNumber(input.readUTF());
+				account.setAccountType(input.readUTF());
+				account.setAccountStatus(input.readUTF());
+			}
+
+			long checksum = crc.getValue();
+
+			if (input.readLong() != checksum) {
+				throw new IOException("Checksum mismatch");
+			}
+
+			return BalanceSnapshot.builder().sequences(sequences).accounts(accounts).build();
+		}
+	}
+
+	private byte[] encodeAccountNumber(String accountNumber) throws IOException {
+
+		byte[] bytes = accountNumber.getBytes(StandardCharsets.US_ASCII);
+
+		if (bytes.length > ACCOUNT_NUMBER_SIZE) {
+			throw new IOException("Account number does not fit a snapshot record: " + accountNumber);
+		}
+
+		return Arrays.copyOf(bytes, ACCOUNT_NUMBER_SIZE);
+	}
+
+	private String decodeAccountNumber(byte[] bytes) {
+
+		int length = 0;
+
+		while (length < bytes.length && bytes[length] != 0) {
+			length++;
+		}
+
+		return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+	}
+
+	// Latest first
+	private List<Path> snapshots() throws IOException {
+
+		Path snapshotDirectory = Paths.get(directory);
+
+		if (!Files.isDirectory(snapshotDirectory)) {
+			return Collections.emptyList();
+		}
+
+		try (Stream<Path> files = Files.list(snapshotDirectory)) {
+
+			return files.filter(file -> file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+					&& file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+					.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.wallet.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Account as of a snapshot. The ledger balance includes every journal entry of
+ * the account up to the sequence
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotAccount {
+
+	private String accountNumber;
+
+	private long minorUnits;
+
+	private long sequence;
+
+	private String emailId;
+
+	private String fullName;
+
+	private String mobileNumber;
+
+	private String accountType;
+
+	private String accountStatus;
+}
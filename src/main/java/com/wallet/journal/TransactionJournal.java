@@ -0,0 +1,372 @@
+package com.wallet.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.wallet.ledger.LedgerEntry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of the entries accepted by the ledger. Entries are
+ * written to memory-mapped segment files as [length][crc32][payload] records
+ * and forced to disk before the append returns. The entries appended together
+ * share one record, so they never straddle two segments and a crash keeps all
+ * of them or none. Concurrent appends share a
+ * force: the records are written under the journal lock, and whoever forces
+ * first makes every record written so far durable. A zero length or a checksum
+ * mismatch marks the end of a segment, so a torn write left by a crash is
+ * ignored on replay.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.transactions.write-mode", havingValue = "ledger")
+public class TransactionJournal {
+
+	private static final String SEGMENT_PREFIX = "journal-";
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final int HEADER_SIZE = 8;
+
+	@Value("${wallet.journal.directory:data/journal}")
+	private String directory;
+
+	@Value("${wallet.journal.segment-size:67108864}")
+	private int segmentSize;
+
+	@Value("${wallet.journal.force-on-append:true}")
+	private boolean forceOnAppend;
+
+	private FileChannel channel;
+
+	private MappedByteBuffer buffer;
+
+	private long nextSequence = 1;
+
+	// Serializes forces, never held while waiting for the journal lock
+	private final Object forceLock = new Object();
+
+	// Last sequence known to be durable
+	private volatile long forcedSequence;
+
+	@PostConstruct
+	public synchronized void open() throws IOException {
+
+		Path journalDirectory = Paths.get(directory);
+		Files.createDirectories(journalDirectory);
+
+		List<Path> segments = segments();
+
+		if (segments.isEmpty()) {
+			roll(nextSequence);
+			forcedSequence = nextSequence - 1;
+			return;
+		}
+
+		// Continue after the last complete record of the last segment
+		Path lastSegment = segments.get(segments.size() - 1);
+		long[] lastSequence = { firstSequence(lastSegment) - 1 };
+
+		channel = FileChannel.open(lastSegment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		read(buffer, entry -> lastSequence[0] = entry.getSequence());
+
+		nextSequence = lastSequence[0] + 1;
+		forcedSequence = lastSequence[0];
+
+		log.info("Journal opened with {} segments, next sequence: {}", segments.size(), nextSequence);
+	}
+
+	@PreDestroy
+	public synchronized void close() throws IOException {
+
+		if (channel != null) {
+
+			buffer.force();
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Appends the entry, assigning it the next sequence number. The entry is
+	 * durable once this returns.
+	 */
+	public long append(LedgerEntry entry) {
+
+		appendAll(Collections.singletonList(entry));
+
+		return entry.getSequence();
+	}
+
+	/**
+	 * Appends the entries as a single record with consecutive sequence numbers,
+	 * durable once this returns
+	 */
+	public void appendAll(List<LedgerEntry> entries) {
+
+		long sequence;
+
+		synchronized (this) {
+			sequence = write(entries);
+		}
+
+		force(sequence);
+	}
+
+	public synchronized long lastSequence() {
+
+		return nextSequence - 1;
+	}
+
+	/**
+	 * Deletes the segments which only hold entries up to the given sequence. The
+	 * last segment is kept, as appends continue in it.
+	 *
+	 * @return number of deleted segments
+	 */
+	public synchronized int deleteUpTo(long sequence) throws IOException {
+
+		List<Path> segments = segments();
+		int deleted = 0;
+
+		while (deleted + 1 < segments.size() && firstSequence(segments.get(deleted + 1)) - 1 <= sequence) {
+
+			Files.delete(segments.get(deleted));
+			deleted++;
+		}
+
+		if (deleted > 0) {
+			log.info("Deleted {} journal segments up to sequence: {}", deleted, sequence);
+		}
+
+		return deleted;
+	}
+
+	/**
+	 * Reads every complete entry of the journal in sequence order
+	 */
+	public void replay(Consumer<LedgerEntry> consumer) throws IOException {
+
+		replay(0, consumer);
+	}
+
+	/**
+	 * Reads the complete entries after the given sequence, skipping the segments
+	 * which end before it
+	 */
+	public void replay(long afterSequence, Consumer<LedgerEntry> consumer) throws IOException {
+
+		List<Path> segments = segments();
+
+		for (int index = 0; index < segments.size(); index++) {
+
+			if (index + 1 < segments.size() && firstSequence(segments.get(index + 1)) <= afterSequence + 1) {
+				continue;
+			}
+
+			try (FileChannel segmentChannel = FileChannel.open(segments.get(index), StandardOpenOption.READ)) {
+
+				read(segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size()), entry -> {
+
+					if (entry.getSequence() > afterSequence) {
+						consumer.accept(entry);
+					}
+				});
+			}
+		}
+	}
+
+	// Returns the sequence of the last entry
+	private long write(List<LedgerEntry> entries) {
+
+		try {
+			long sequence = nextSequence;
+
+			for (LedgerEntry entry : entries) {
+				entry.setSequence(sequence++);
+			}
+
+			byte[] payload = encode(entries);
+
+			if (HEADER_SIZE + payload.length > segmentSize) {
+				throw new IOException(
+						String.format("Journal record of %d bytes exceeds the segment size", payload.length));
+			}
+
+			if (buffer.remaining() < HEADER_SIZE + payload.length) {
+				roll(nextSequence);
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+
+			buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+
+			nextSequence = sequence;
+			return sequence - 1;
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	/**
+	 * Makes the records up to the given sequence durable. A caller whose record
+	 * was covered by a force of another caller returns without forcing again.
+	 * Segments rolled over are forced when they are closed.
+	 */
+	private void force(long sequence) {
+
+		if (!forceOnAppend) {
+			return;
+		}
+
+		synchronized (forceLock) {
+
+			if (forcedSequence >= sequence) {
+				return;
+			}
+
+			MappedByteBuffer current;
+			long written;
+
+			synchronized (this) {
+
+				current = buffer;
+				written = nextSequence - 1;
+			}
+
+			current.force();
+			forcedSequence = written;
+		}
+	}
+
+	private void read(MappedByteBuffer segment, Consumer<LedgerEntry> consumer) throws IOException {
+
+		while (segment.remaining() >= HEADER_SIZE) {
+
+			int start = segment.position();
+			int length = segment.getInt();
+
+			if (length <= 0 || length > segment.remaining() - Integer.BYTES) {
+				segment.position(start);
+				return;
+			}
+
+			int checksum = segment.getInt();
+			byte[] payload = new byte[length];
+			segment.get(payload);
+
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+
+			if ((int) crc.getValue() != checksum) {
+
+				log.warn("Journal record at position {} has an invalid checksum, ignoring the rest of the segment",
+						start);
+				segment.position(start);
+				return;
+			}
+
+			decode(payload).forEach(consumer);
+		}
+	}
+
+	private void roll(long firstSequence) throws IOException {
+
+		close();
+
+		Path segment = Paths.get(directory, String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+
+		channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+	}
+
+	private List<Path> segments() throws IOException {
+
+		try (Stream<Path> files = Files.list(Paths.get(directory))) {
+
+			return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+					&& file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private long firstSequence(Path segment) {
+
+		String fileName = segment.getFileName().toString();
+
+		return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private byte[] encode(List<LedgerEntry> entries) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 * entries.size());
+
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+
+			output.writeInt(entries.size());
+
+			for (LedgerEntry entry : entries) {
+
+				output.writeLong(entry.getSequence());
+				output.writeUTF(entry.getAccountNumber());
+				output.writeUTF(entry.getTransactionId());
+				output.writeUTF(entry.getTransactionType());
+				output.writeLong(entry.getTransactionAmount());
+				output.writeLong(entry.getTransactionDate().toEpochSecond(ZoneOffset.UTC));
+				output.writeInt(entry.getTransactionDate().getNano());
+				output.writeLong(entry.getBalanceAfter());
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private List<LedgerEntry> decode(byte[] payload) throws IOException {
+
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+
+			int count = input.readInt();
+			List<LedgerEntry> entries = new ArrayList<>(count);
+
+			for (int index = 0; index < count; index++) {
+
+				entries.add(LedgerEntry.builder().sequence(input.readLong()).accountNumber(input.readUTF())
+						.transactionId(input.readUTF()).transactionType(input.readUTF())
+						.transactionAmount(input.readLong())
+						.transactionDate(LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC))
+						.balanceAfter(input.readLong()).build());
+			}
+
+			return entries;
+		}
+	}
+}
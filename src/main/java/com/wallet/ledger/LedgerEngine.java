@@ -0,0 +1,984 @@
+package com.wallet.ledger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.archive.TransactionArchive;
+import com.wallet.cache.TransactionIdFilter;
+import com.wallet.exception.DuplicateTransactionException;
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.journal.BalanceSnapshot;
+import com.wallet.journal.BalanceSnapshotStore;
+import com.wallet.journal.SnapshotAccount;
+import com.wallet.journal.TransactionJournal;
+import com.wallet.model.AccountStatus;
+import com.wallet.model.Constants;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.dto.response.TransferDto;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.Transaction;
+import com.wallet.repository.AccountRepository;
+import com.wallet.repository.TransactionRepository;
+import com.wallet.service.impl.DailySummaries;
+import com.wallet.util.Money;
+import com.wallet.util.Util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory ledger which hashes account numbers onto partitions. Every
+ * partition is owned by a single writer thread, so balance checks and
+ * mutations for an account are serialized without locks. Accepted entries are
+ * journaled before they are acknowledged, and persisted asynchronously, in
+ * batches, by a flusher thread per partition. An entry which cannot be
+ * persisted even after retries stops its partition rather than being dropped,
+ * and is persisted by the journal replay on the next start. On startup the
+ * journal tail after the latest balance snapshot is projected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.transactions.write-mode", havingValue = "ledger")
+public class LedgerEngine {
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private Util ledgerUtil;
+
+	@Autowired
+	private TransactionIdFilter transactionIdFilter;
+
+	@Autowired
+	private TransactionJournal transactionJournal;
+
+	@Autowired
+	private BalanceSnapshotStore balanceSnapshotStore;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private DailySummaries dailySummaries;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Value("${wallet.ledger.partitions:8}")
+	private int partitionCount;
+
+	@Value("${wallet.ledger.flush-batch-size:500}")
+	private int flushBatchSize;
+
+	@Value("${wallet.ledger.flush-retries:3}")
+	private int flushRetries;
+
+	@Value("${wallet.ledger.flush-retry-backoff-millis:100}")
+	private long flushRetryBackoffMillis;
+
+	@Value("${wallet.snapshot.interval-seconds:60}")
+	private long snapshotIntervalSeconds;
+
+	@Value("${wallet.snapshot.replay-threads:0}")
+	private int replayThreads;
+
+	@Value("${wallet.currency:INR}")
+	private String currency;
+
+	// Decimals of the minor unit the ledger counts in
+	private int scale;
+
+	// Transaction ids accepted by the ledger but not yet persisted
+	private final Set<String> pendingTransactionIds = ConcurrentHashMap.newKeySet();
+
+	private final CountDownLatch recovered = new CountDownLatch(1);
+
+	// Projected entries per second during the last recovery
+	private final AtomicLong replayRate = new AtomicLong();
+
+	private ScheduledExecutorService snapshotter;
+
+	private LedgerPartition[] partitions;
+
+	private volatile boolean running;
+
+	@PostConstruct
+	public void start() {
+
+		running = true;
+		scale = Money.scaleOf(currency);
+		partitions = new LedgerPartition[partitionCount];
+
+		for (int index = 0; index < partitionCount; index++) {
+			partitions[index] = new LedgerPartition(index);
+		}
+
+		meterRegistry.gauge("wallet.ledger.recovery.replay.rate", replayRate);
+
+		log.info("Ledger started with {} partitions", partitionCount);
+	}
+
+	/**
+	 * Restores the accounts of the latest snapshot if the database lost its
+	 * transactions, and projects the journaled entries after it which are
+	 * missing from the database, then lets the partitions accept writes
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recover() throws IOException {
+
+		long start = System.nanoTime();
+		Optional<BalanceSnapshot> snapshot = balanceSnapshotStore.loadLatest();
+
+		boolean databaseLost = snapshot.isPresent() && transactionRepository.count() == 0;
+		Map<String, SnapshotAccount> restoredAccounts = databaseLost ? restore(snapshot.get())
+				: Collections.emptyMap();
+
+		long afterSequence = snapshot.map(latest -> Arrays.stream(latest.getSequences()).min().orElse(0)).orElse(0L);
+		AtomicLong projected = new AtomicLong();
+
+		// Entries of a partition are projected in order, partitions in parallel
+		ExecutorService replayer = Executors.newFixedThreadPool(
+				replayThreads > 0 ? replayThreads : Runtime.getRuntime().availableProcessors(),
+				new CustomizableThreadFactory("ledger-replay-"));
+		CompletableFuture<?>[] tails = new CompletableFuture<?>[partitions.length];
+		List<List<LedgerEntry>> chunks = new ArrayList<>(partitions.length);
+
+		for (int index = 0; index < partitions.length; index++) {
+
+			tails[index] = CompletableFuture.completedFuture(null);
+			chunks.add(new ArrayList<>(flushBatchSize));
+		}
+
+		try {
+			transactionJournal.replay(afterSequence, entry -> {
+
+				// A restored balance already includes the entries up to its sequence
+				SnapshotAccount restoredAccount = restoredAccounts.get(entry.getAccountNumber());
+
+				if (restoredAccount != null && entry.getSequence() <= restoredAccount.getSequence()) {
+					return;
+				}
+
+				int index = partitionIndex(entry.getAccountNumber());
+				chunks.get(index).add(entry);
+
+				if (chunks.get(index).size() == flushBatchSize) {
+
+					List<LedgerEntry> chunk = chunks.set(index, new ArrayList<>(flushBatchSize));
+					tails[index] = tails[index].thenRunAsync(() -> projected.addAndGet(project(chunk)), replayer);
+				}
+			});
+
+			for (int index = 0; index < partitions.length; index++) {
+
+				List<LedgerEntry> chunk = chunks.get(index);
+				tails[index] = tails[index].thenRunAsync(() -> projected.addAndGet(project(chunk)), replayer);
+			}
+
+			CompletableFuture.allOf(tails).join();
+		} finally {
+			replayer.shutdown();
+		}
+
+		// Everything journaled so far is persisted
+		long lastSequence = transactionJournal.lastSequence();
+
+		for (LedgerPartition partition : partitions) {
+			partition.flushedSequence = lastSequence;
+		}
+
+		recovered.countDown();
+
+		long elapsedNanos = System.nanoTime() - start;
+		meterRegistry.timer("wallet.ledger.recovery.duration").record(elapsedNanos, TimeUnit.NANOSECONDS);
+		meterRegistry.counter("wallet.ledger.recovery.projected.entries").increment(projected.get());
+		replayRate.set(projected.get() * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos));
+
+		log.info("Ledger recovered {} journaled entries in {} ms", projected.get(),
+				TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+		if (snapshotIntervalSeconds > 0) {
+
+			snapshotter = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ledger-snapshot-"));
+			snapshotter.scheduleWithFixedDelay(this::takeSnapshot, snapshotIntervalSeconds, snapshotIntervalSeconds,
+					TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of every account with its ledger balance, copied on the
+	 * writer of its partition along with the journal sequence the partition has
+	 * persisted, then deletes the journal segments no retained snapshot replays
+	 */
+	public void snapshot() throws IOException {
+
+		long start = System.nanoTime();
+
+		// Read before the copies, so an account a copy finds unloaded has not changed since
+		Map<Integer, List<Account>> storedAccounts = accountRepository.findAll().stream()
+				.collect(Collectors.groupingBy(account -> partitionIndex(account.getAccountNumber())));
+
+		long[] sequences = new long[partitions.length];
+		List<SnapshotAccount> accounts = new ArrayList<>();
+
+		for (int index = 0; index < partitions.length; index++) {
+
+			LedgerPartition partition = partitions[index];
+			List<Account> partitionAccounts = storedAccounts.getOrDefault(index, Collections.emptyList());
+
+			// Balances of a terminated writer no longer change
+			PartitionCopy copy = partition.writer.isTerminated() ? partition.copy(partitionAccounts)
+					: submit(partition, () -> partition.copy(partitionAccounts));
+
+			sequences[index] = copy.sequence;
+			accounts.addAll(copy.accounts);
+		}
+
+		completeAccountDetails(accounts);
+
+		balanceSnapshotStore.save(BalanceSnapshot.builder().sequences(sequences).accounts(accounts).build());
+		transactionJournal.deleteUpTo(balanceSnapshotStore.earliestSequence());
+
+		meterRegistry.timer("wallet.ledger.snapshot.duration").record(System.nanoTime() - start,
+				TimeUnit.NANOSECONDS);
+		log.info("Snapshot of {} accounts written", accounts.size());
+	}
+
+	// Accounts created after the accounts were read, and written since, have no details yet
+	private void completeAccountDetails(List<SnapshotAccount> accounts) {
+
+		Map<String, SnapshotAccount> incompleteAccounts = accounts.stream()
+				.filter(account -> account.getEmailId() == null)
+				.collect(Collectors.toMap(SnapshotAccount::getAccountNumber, account -> account));
+
+		if (incompleteAccounts.isEmpty()) {
+			return;
+		}
+
+		for (Account account : accountRepository.findAllByAccountNumberIn(incompleteAccounts.keySet())) {
+			copyDetails(account, incompleteAccounts.remove(account.getAccountNumber()));
+		}
+
+		accounts.removeAll(incompleteAccounts.values());
+	}
+
+	private static SnapshotAccount copyDetails(Account account, SnapshotAccount snapshotAccount) {
+
+		snapshotAccount.setEmailId(account.getEmailId());
+		snapshotAccount.setFullName(account.getFullName());
+		snapshotAccount.setMobileNumber(account.getMobileNumber());
+		snapshotAccount.setAccountType(account.getAccountType());
+		snapshotAccount.setAccountStatus(account.getAccountStatus());
+
+		return snapshotAccount;
+	}
+
+	private void takeSnapshot() {
+
+		try {
+			snapshot();
+		} catch (IOException | RuntimeException exception) {
+			log.error("Snapshot could not be written: {}", exception.getMessage());
+		}
+	}
+
+	/**
+	 * Sets the balances of the stored accounts to the ones in the snapshot, and
+	 * recreates the accounts which are missing. Returns the restored accounts by
+	 * account number
+	 */
+	private Map<String, SnapshotAccount> restore(BalanceSnapshot snapshot) {
+
+		Map<String, Account> storedAccounts = accountRepository.findAll().stream()
+				.collect(Collectors.toMap(Account::getAccountNumber, account -> account));
+		Map<String, SnapshotAccount> restoredAccounts = new HashMap<>();
+		List<Account> accounts = new ArrayList<>(snapshot.getAccounts().size());
+		int recreated = 0;
+
+		for (SnapshotAccount snapshotAccount : snapshot.getAccounts()) {
+
+			Account account = storedAccounts.get(snapshotAccount.getAccountNumber());
+
+			if (account == null) {
+
+				account = Account.builder().accountNumber(snapshotAccount.getAccountNumber())
+						.emailId(snapshotAccount.getEmailId()).fullName(snapshotAccount.getFullName())
+						.mobileNumber(snapshotAccount.getMobileNumber()).accountType(snapshotAccount.getAccountType())
+						.build();
+				recreated++;
+			}
+
+			account.setBalanceAmount(Money.toAmount(snapshotAccount.getMinorUnits(), scale));
+			account.setAccountStatus(snapshotAccount.getAccountStatus());
+			accounts.add(account);
+			restoredAccounts.put(account.getAccountNumber(), snapshotAccount);
+		}
+
+		transactionTemplate.executeWithoutResult(status -> accountRepository.saveAll(accounts));
+
+		log.info("Restored {} accounts from snapshot, {} of them recreated", accounts.size(), recreated);
+
+		return restoredAccounts;
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+
+		if (snapshotter != null) {
+			snapshotter.shutdown();
+			snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+		}
+
+		for (LedgerPartition partition : partitions) {
+
+			if (recovered.getCount() == 0) {
+				partition.writer.shutdown();
+			} else {
+
+				// Never recovered, so fail the writes waiting for it
+				partition.writer.shutdownNow().forEach(task -> ((Future<?>) task).cancel(false));
+			}
+		}
+
+		for (LedgerPartition partition : partitions) {
+			partition.writer.awaitTermination(30, TimeUnit.SECONDS);
+		}
+
+		// Flushers drain their queues before exiting
+		running = false;
+
+		for (LedgerPartition partition : partitions) {
+			partition.flusher.join();
+		}
+
+		// Everything is persisted, so the next start has no journal tail to replay
+		if (snapshotter != null) {
+			takeSnapshot();
+		}
+
+		log.info("Ledger stopped");
+	}
+
+	public TransactionDto debit(String accountNumber, TransactionRequest transactionRequest) {
+
+		LedgerPartition partition = partitionFor(accountNumber);
+
+		return submit(partition, () -> partition.apply(accountNumber, transactionRequest, TransactionType.DEBIT));
+	}
+
+	public TransactionDto credit(String accountNumber, TransactionRequest transactionRequest) {
+
+		LedgerPartition partition = partitionFor(accountNumber);
+
+		return submit(partition, () -> partition.apply(accountNumber, transactionRequest, TransactionType.CREDIT));
+	}
+
+	/**
+	 * Applies both legs of the transfer on the writers of both partitions. The
+	 * partitions are entered in index order, so opposite transfers cannot
+	 * deadlock.
+	 */
+	public TransferDto transfer(TransferRequest transferRequest) {
+
+		String fromAccountNumber = transferRequest.getFromAccountNumber();
+		String toAccountNumber = transferRequest.getToAccountNumber();
+
+		if (fromAccountNumber.equals(toAccountNumber)) {
+
+			log.error(String.format(Constants.SAME_ACCOUNT_TRANSFER_MESSAGE, fromAccountNumber));
+			throw new InvalidRequestDataException(
+					String.format(Constants.SAME_ACCOUNT_TRANSFER_MESSAGE, fromAccountNumber));
+		}
+
+		BatchTransactionItem debit = BatchTransactionItem.builder().accountNumber(fromAccountNumber)
+				.transactionId(transferRequest.getTransactionId()).transactionType(TransactionType.DEBIT.name())
+				.amount(transferRequest.getAmount()).build();
+		BatchTransactionItem credit = BatchTransactionItem.builder().accountNumber(toAccountNumber)
+				.transactionId(transferRequest.getTransactionId() + Constants.TRANSFER_CREDIT_SUFFIX)
+				.transactionType(TransactionType.CREDIT.name()).amount(transferRequest.getAmount()).build();
+
+		List<LedgerEntry> entries = applyAll(Arrays.asList(debit, credit));
+
+		return TransferDto.builder().message(Constants.TRANSFER_SUCCESS_MESSAGE)
+				.transactionId(transferRequest.getTransactionId()).fromAccountNumber(fromAccountNumber)
+				.fromAccountBalance(Money.format(entries.get(0).getBalanceAfter(), scale))
+				.toAccountNumber(toAccountNumber).transactionAmount(transferRequest.getAmount().toPlainString())
+				.transactionDate(ledgerUtil.getTimeString(entries.get(0).getTransactionDate())).build();
+	}
+
+	/**
+	 * Applies the items in order, all or nothing. Every item is checked before
+	 * any is journaled, and the items are journaled as one record.
+	 */
+	public List<TransactionDto> batch(List<BatchTransactionItem> items) {
+
+		List<LedgerEntry> entries = applyAll(items);
+		List<TransactionDto> results = new ArrayList<>(entries.size());
+
+		for (int index = 0; index < entries.size(); index++) {
+
+			LedgerEntry entry = entries.get(index);
+			boolean debit = TransactionType.DEBIT.name().equals(entry.getTransactionType());
+
+			results.add(TransactionDto.builder()
+					.message(debit ? Constants.DEBIT_SUCCESS_MESSAGE : Constants.CREDIT_SUCCESS_MESSAGE)
+					.accountNumber(entry.getAccountNumber())
+					.accountBalance(Money.format(entry.getBalanceAfter(), scale)).transactionId(entry.getTransactionId())
+					.transactionType(entry.getTransactionType())
+					.transactionAmount(items.get(index).getAmount().toPlainString())
+					.transactionDate(ledgerUtil.getTimeString(entry.getTransactionDate())).build());
+		}
+
+		return results;
+	}
+
+	/**
+	 * Returns the ledger balance of the account, if the account was already
+	 * loaded into its partition
+	 */
+	public Optional<BigDecimal> balanceOf(String accountNumber) {
+
+		LedgerPartition partition = partitionFor(accountNumber);
+
+		return submit(partition, () -> Optional.ofNullable(partition.balances.get(accountNumber))
+				.map(balance -> Money.toAmount(balance.minorUnits, scale)));
+	}
+
+	int partitionIndex(String accountNumber) {
+
+		return Math.floorMod(accountNumber.hashCode(), partitions.length);
+	}
+
+	private LedgerPartition partitionFor(String accountNumber) {
+
+		return partitions[partitionIndex(accountNumber)];
+	}
+
+	/**
+	 * Runs the items on the writers of every partition they touch. The
+	 * partitions are entered in index order, so batches over the same partitions
+	 * cannot deadlock.
+	 */
+	private List<LedgerEntry> applyAll(List<BatchTransactionItem> items) {
+
+		int[] indexes = items.stream().mapToInt(item -> partitionIndex(item.getAccountNumber())).distinct().sorted()
+				.toArray();
+
+		return submitAll(indexes, 0, () -> applyItems(items));
+	}
+
+	// Every writer waits while the writers of the higher partitions run
+	private <T> T submitAll(int[] indexes, int position, Callable<T> operation) {
+
+		LedgerPartition partition = partitions[indexes[position]];
+
+		if (position == indexes.length - 1) {
+			return submit(partition, operation);
+		}
+
+		return submit(partition, () -> submitAll(indexes, position + 1, operation));
+	}
+
+	// Runs while the writers of every partition of the items are held
+	private List<LedgerEntry> applyItems(List<BatchTransactionItem> items) {
+
+		List<String> reservedTransactionIds = new ArrayList<>(items.size());
+
+		try {
+			for (BatchTransactionItem item : items) {
+
+				partitionFor(item.getAccountNumber()).checkNotFailed();
+
+				// Check duplicate transaction, within the items and against the ones not yet persisted
+				if (!pendingTransactionIds.add(item.getTransactionId())) {
+					throw duplicateTransaction(item.getTransactionId());
+				}
+				reservedTransactionIds.add(item.getTransactionId());
+			}
+
+			for (String transactionId : reservedTransactionIds) {
+
+				if (transactionIdFilter.mightContain(transactionId)
+						&& transactionRepository.findByTransactionId(transactionId)
+								.or(() -> transactionArchive.findByTransactionId(transactionId)).isPresent()) {
+					throw duplicateTransaction(transactionId);
+				}
+			}
+
+			LocalDateTime now = LocalDateTime.now();
+			Map<String, Balance> balances = new HashMap<>();
+			Map<String, Long> updatedBalances = new HashMap<>();
+			List<LedgerEntry> entries = new ArrayList<>(items.size());
+
+			for (BatchTransactionItem item : items) {
+
+				String accountNumber = item.getAccountNumber();
+				Balance balance = balances.computeIfAbsent(accountNumber,
+						key -> partitionFor(key).loadBalance(key));
+				long amount = Money.toMinorUnits(item.getAmount(), scale);
+				long currentBalance = updatedBalances.getOrDefault(accountNumber, balance.minorUnits);
+				long updatedBalance = TransactionType.DEBIT.name().equals(item.getTransactionType())
+						? Money.subtract(currentBalance, amount)
+						: Money.add(currentBalance, amount);
+
+				// Check if sufficient funds are available
+				if (updatedBalance < 0) {
+
+					log.error(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+					throw new InvalidRequestDataException(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+				}
+
+				updatedBalances.put(accountNumber, updatedBalance);
+				entries.add(LedgerEntry.builder().accountNumber(accountNumber).transactionId(item.getTransactionId())
+						.transactionType(item.getTransactionType()).transactionAmount(amount).transactionDate(now)
+						.balanceAfter(updatedBalance).build());
+			}
+
+			// The items are accepted together once durable in the journal
+			transactionJournal.appendAll(entries);
+
+			for (LedgerEntry entry : entries) {
+
+				Balance balance = balances.get(entry.getAccountNumber());
+				balance.minorUnits = entry.getBalanceAfter();
+				balance.sequence = entry.getSequence();
+
+				LedgerPartition partition = partitionFor(entry.getAccountNumber());
+				partition.acceptedSequence = entry.getSequence();
+
+				transactionIdFilter.put(entry.getTransactionId());
+				partition.flushQueue.add(entry);
+			}
+
+			return entries;
+		} catch (RuntimeException exception) {
+
+			reservedTransactionIds.forEach(pendingTransactionIds::remove);
+			throw exception;
+		}
+	}
+
+	private <T> T submit(LedgerPartition partition, Callable<T> operation) {
+
+		try {
+			return partition.writer.submit(operation).get();
+		} catch (ExecutionException exception) {
+
+			if (exception.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) exception.getCause();
+			}
+			throw new IllegalStateException(exception.getCause());
+		} catch (InterruptedException exception) {
+
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	private class LedgerPartition {
+
+		private final int index;
+
+		// Only accessed from the writer thread
+		private final Map<String, Balance> balances = new HashMap<>();
+
+		private final BlockingQueue<LedgerEntry> flushQueue = new LinkedBlockingQueue<>();
+
+		private final ExecutorService writer;
+
+		private final Thread flusher;
+
+		// Last journal sequence persisted by the flusher
+		private volatile long flushedSequence;
+
+		// Last journal sequence accepted by the writer
+		private volatile long acceptedSequence;
+
+		// Set when an entry could not be persisted, the partition accepts no more writes
+		private volatile boolean failed;
+
+		private LedgerPartition(int index) {
+
+			this.index = index;
+			writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("ledger-writer-" + index + "-"));
+
+			// Writes queue up behind the recovery of the journal
+			writer.execute(this::awaitRecovery);
+
+			flusher = new Thread(this::flushLoop, "ledger-flusher-" + index);
+			flusher.start();
+		}
+
+		private void awaitRecovery() {
+
+			try {
+				recovered.await();
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private TransactionDto apply(String accountNumber, TransactionRequest transactionRequest,
+				TransactionType transactionType) {
+
+			String transactionId = transactionRequest.getTransactionId();
+
+			checkNotFailed();
+
+			// Check duplicate transaction, including the ones not yet persisted
+			if (!pendingTransactionIds.add(transactionId)) {
+				throw duplicateTransaction(transactionId);
+			}
+
+			try {
+
+				Optional<Transaction> performedTransaction = transactionIdFilter.mightContain(transactionId)
+						? transactionRepository.findByTransactionId(transactionId)
+								.or(() -> transactionArchive.findByTransactionId(transactionId))
+						: Optional.empty();
+
+				if (performedTransaction.isPresent()) {
+
+					// A retry of the same request gets the original response
+					if (ledgerUtil.isSameTransaction(performedTransaction.get(), accountNumber, transactionRequest,
+							transactionType)) {
+
+						pendingTransactionIds.remove(transactionId);
+						return ledgerUtil.mapToPerformedTransactionDto(performedTransaction.get());
+					}
+					throw duplicateTransaction(transactionId);
+				}
+
+				long amount = Money.toMinorUnits(transactionRequest.getAmount(), scale);
+				Balance balance = loadBalance(accountNumber);
+				long updatedBalance = transactionType == TransactionType.DEBIT
+						? Money.subtract(balance.minorUnits, amount)
+						: Money.add(balance.minorUnits, amount);
+
+				// Check if sufficient funds are available
+				if (updatedBalance < 0) {
+
+					log.error(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+					throw new InvalidRequestDataException(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+				}
+
+				LocalDateTime now = LocalDateTime.now();
+				LedgerEntry entry = LedgerEntry.builder().accountNumber(accountNumber).transactionId(transactionId)
+						.transactionType(transactionType.name()).transactionAmount(amount).transactionDate(now)
+						.balanceAfter(updatedBalance).build();
+
+				// The entry is accepted once it is durable in the journal
+				transactionJournal.append(entry);
+
+				balance.minorUnits = updatedBalance;
+				balance.sequence = entry.getSequence();
+				acceptedSequence = entry.getSequence();
+				transactionIdFilter.put(transactionId);
+				flushQueue.add(entry);
+
+				String message = transactionType == TransactionType.DEBIT ? Constants.DEBIT_SUCCESS_MESSAGE
+						: Constants.CREDIT_SUCCESS_MESSAGE;
+
+				return TransactionDto.builder().message(message).accountNumber(accountNumber)
+						.accountBalance(Money.format(updatedBalance, scale)).transactionType(transactionType.name())
+						.transactionDate(ledgerUtil.getTimeString(now)).build();
+			} catch (RuntimeException exception) {
+
+				pendingTransactionIds.remove(transactionId);
+				throw exception;
+			}
+		}
+
+		/**
+		 * Copies the given stored accounts of the partition with their ledger
+		 * balances, plus the loaded accounts which were stored after them. An
+		 * account which is not loaded has not changed since recovery, so its
+		 * stored balance includes every journal entry so far.
+		 */
+		private PartitionCopy copy(List<Account> storedAccounts) {
+
+			long lastSequence = transactionJournal.lastSequence();
+
+			// With nothing left to persist, the journal tail of the partition starts after the last entry
+			long sequence = flushedSequence >= acceptedSequence ? lastSequence : flushedSequence;
+
+			List<SnapshotAccount> copies = new ArrayList<>(storedAccounts.size());
+			Set<String> copiedAccountNumbers = new HashSet<>(storedAccounts.size());
+
+			for (Account account : storedAccounts) {
+
+				Balance balance = balances.get(account.getAccountNumber());
+
+				copies.add(copyDetails(account,
+						SnapshotAccount.builder().accountNumber(account.getAccountNumber())
+								.minorUnits(balance != null ? balance.minorUnits
+										: Money.toMinorUnits(account.getBalanceAmount(), scale))
+								.sequence(balance != null ? balance.sequence : lastSequence).build()));
+				copiedAccountNumbers.add(account.getAccountNumber());
+			}
+
+			balances.forEach((accountNumber, balance) -> {
+
+				if (!copiedAccountNumbers.contains(accountNumber)) {
+					copies.add(SnapshotAccount.builder().accountNumber(accountNumber).minorUnits(balance.minorUnits)
+							.sequence(balance.sequence).build());
+				}
+			});
+
+			return new PartitionCopy(sequence, copies);
+		}
+
+		private void checkNotFailed() {
+
+			if (failed) {
+				throw new IllegalStateException(
+						String.format("Ledger partition %d stopped after an entry could not be persisted", index));
+			}
+		}
+
+		private Balance loadBalance(String accountNumber) {
+
+			Balance balance = balances.get(accountNumber);
+
+			if (balance == null) {
+
+				Optional<Account> optionalAccount = accountRepository.findByAccountNumberAndAccountStatus(accountNumber,
+						AccountStatus.ACTIVE.name());
+
+				if (optionalAccount.isEmpty()) {
+
+					log.error(String.format(Constants.ACCOUNT_DOES_NOT_EXIST_MESSAGE, accountNumber));
+					throw new InvalidRequestDataException(
+							String.format(Constants.ACCOUNT_DOES_NOT_EXIST_MESSAGE, accountNumber));
+				}
+
+				// Every journaled entry of the account is persisted once it is recovered
+				balance = new Balance(Money.toMinorUnits(optionalAccount.get().getBalanceAmount(), scale),
+						transactionJournal.lastSequence());
+				balances.put(accountNumber, balance);
+			}
+
+			return balance;
+		}
+
+		private void flushLoop() {
+
+			List<LedgerEntry> batch = new ArrayList<>(flushBatchSize);
+
+			while ((running || !flushQueue.isEmpty()) && !failed) {
+
+				try {
+					LedgerEntry entry = flushQueue.poll(100, TimeUnit.MILLISECONDS);
+
+					if (entry == null) {
+						continue;
+					}
+
+					batch.add(entry);
+					flushQueue.drainTo(batch, flushBatchSize - 1);
+
+					flush(batch);
+				} catch (InterruptedException exception) {
+
+					Thread.currentThread().interrupt();
+					return;
+				} finally {
+					batch.clear();
+				}
+			}
+		}
+
+		private void flush(List<LedgerEntry> batch) throws InterruptedException {
+
+			int persisted = 0;
+
+			try {
+				transactionTemplate.executeWithoutResult(status -> batch.forEach(entry -> persist(entry)));
+				persisted = batch.size();
+			} catch (RuntimeException exception) {
+
+				log.error("Ledger batch flush failed, persisting entries one by one: {}", exception.getMessage());
+
+				// Entries are persisted in journal order, so none is persisted after one that failed
+				for (LedgerEntry entry : batch) {
+
+					if (!persistWithRetries(entry)) {
+
+						failed = true;
+						log.error("Ledger partition {} stopped, entries from transactionId: {} on are left to the "
+								+ "journal replay of the next start", index, entry.getTransactionId());
+						break;
+					}
+
+					persisted++;
+				}
+			} finally {
+
+				if (persisted > 0) {
+					flushedSequence = batch.get(persisted - 1).getSequence();
+				}
+
+				// The entries which were not persisted stay pending, so their transactionIds stay taken
+				batch.subList(0, persisted).forEach(entry -> pendingTransactionIds.remove(entry.getTransactionId()));
+			}
+		}
+
+		private boolean persistWithRetries(LedgerEntry entry) throws InterruptedException {
+
+			for (int attempt = 0;; attempt++) {
+
+				try {
+					transactionTemplate.executeWithoutResult(status -> persist(entry));
+					return true;
+				} catch (RuntimeException exception) {
+
+					if (attempt == flushRetries) {
+
+						log.error("Ledger entry with transactionId: {} could not be persisted: {}",
+								entry.getTransactionId(), exception.getMessage());
+						return false;
+					}
+
+					log.warn("Ledger entry with transactionId: {} could not be persisted, retrying: {}",
+							entry.getTransactionId(), exception.getMessage());
+					Thread.sleep(flushRetryBackoffMillis * (attempt + 1));
+				}
+			}
+		}
+	}
+
+	private void persist(LedgerEntry entry) {
+
+		BigDecimal amount = Money.toAmount(entry.getTransactionAmount(), scale);
+
+		int updatedRows = TransactionType.DEBIT.name().equals(entry.getTransactionType())
+				? accountRepository.debitBalance(entry.getAccountNumber(), AccountStatus.ACTIVE.name(), amount)
+				: accountRepository.creditBalance(entry.getAccountNumber(), AccountStatus.ACTIVE.name(), amount);
+
+		if (updatedRows == 0) {
+			throw new IllegalStateException(
+					"Ledger diverged from stored balance of accountNumber: " + entry.getAccountNumber());
+		}
+
+		transactionRepository.insertTransaction(entry.getAccountNumber(), entry.getTransactionId(),
+				entry.getTransactionType(), amount, entry.getTransactionDate(),
+				Money.toAmount(entry.getBalanceAfter(), scale));
+		accountRepository.addTransactionCount(entry.getAccountNumber(), 1);
+
+		if (TransactionType.DEBIT.name().equals(entry.getTransactionType())) {
+			dailySummaries.addDebit(entry.getAccountNumber(), 0, entry.getTransactionDate().toLocalDate(), amount);
+		} else {
+			dailySummaries.addCredit(entry.getAccountNumber(), 0, entry.getTransactionDate().toLocalDate(), amount);
+		}
+	}
+
+	private int project(List<LedgerEntry> chunk) {
+
+		if (chunk.isEmpty()) {
+			return 0;
+		}
+
+		Set<String> persistedTransactionIds = transactionRepository
+				.findAllByTransactionIdIn(chunk.stream().map(LedgerEntry::getTransactionId).collect(Collectors.toList()))
+				.stream().map(Transaction::getTransactionId).collect(Collectors.toSet());
+
+		int projected = 0;
+
+		for (LedgerEntry entry : chunk) {
+
+			if (persistedTransactionIds.contains(entry.getTransactionId())) {
+				continue;
+			}
+
+			try {
+				transactionTemplate.executeWithoutResult(status -> persist(entry));
+				transactionIdFilter.put(entry.getTransactionId());
+				projected++;
+			} catch (RuntimeException exception) {
+
+				log.error("Journaled entry with transactionId: {} could not be projected: {}",
+						entry.getTransactionId(), exception.getMessage());
+			}
+		}
+
+		return projected;
+	}
+
+	private DuplicateTransactionException duplicateTransaction(String transactionId) {
+
+		log.error(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+		return new DuplicateTransactionException(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+	}
+
+	/**
+	 * Mutable ledger balance in minor units, updated in place by the writer
+	 * thread, with the sequence of the last journal entry it includes
+	 */
+	@AllArgsConstructor
+	private static class Balance {
+
+		private long minorUnits;
+
+		private long sequence;
+	}
+
+	/**
+	 * Accounts of a partition copied for a snapshot, with the journal sequence
+	 * the partition had persisted
+	 */
+	@AllArgsConstructor
+	private static class PartitionCopy {
+
+		private final long sequence;
+
+		private final List<SnapshotAccount> accounts;
+	}
+}
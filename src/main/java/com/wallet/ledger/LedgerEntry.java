@@ -0,0 +1,35 @@
+package com.wallet.ledger;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A credit/debit accepted by the ledger, as journaled and then persisted
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+	// Assigned by the journal
+	private long sequence;
+
+	private String accountNumber;
+
+	private String transactionId;
+
+	private String transactionType;
+
+	// Minor units of the ledger currency
+	private long transactionAmount;
+
+	private LocalDateTime transactionDate;
+
+	// Minor units of the ledger currency
+	private long balanceAfter;
+}
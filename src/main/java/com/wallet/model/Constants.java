@@ -4,6 +4,18 @@ public class Constants {
 
 	public static final String ACCOUNT_CREATION_SUCCESS_MESSAGE = "Account created succesfully";
 
+	public static final String ONBOARDING_SUCCESS_MESSAGE = "%d accounts created, %d rejected";
+
+	public static final String ONBOARDING_EMPTY_MESSAGE = "There are no accounts to create";
+
+	public static final String INVALID_ACCOUNT_MESSAGE = "Account is invalid: %s";
+
+	public static final String ACCOUNT_FIELD_MISSING_MESSAGE = "%s cannot be null or empty";
+
+	public static final String INVALID_CSV_HEADER_MESSAGE = "Invalid CSV header, expected: %s";
+
+	public static final String INVALID_CSV_ROW_MESSAGE = "Invalid CSV row, expected values for: %s";
+
 	public static final String BALANCE_SUCCESS_MESSAGE = "Account balance fetched successfully";
 
 	public static final String ACCOUNT_DOES_NOT_EXIST_MESSAGE = "Account does not exist with accountNumber: %s";
@@ -12,6 +24,8 @@ public class Constants {
 
 	public static final String DUPLICATE_TRANSACTION_MESSAGE = "Transaction was already performed with transactionId: %s";
 
+	public static final String DUPLICATE_BATCH_TRANSACTION_MESSAGE = "A transaction of the batch was already performed";
+
 	public static final String REQUESTED_PAGE_EXCEEDED_MESSAGE = "Requested page exceeds total number of pages: %d";
 
 	public static final String NO_TRANSACTIONS_MESSAGE = "There were no transations performed on accountNumber: %s";
@@ -21,4 +35,50 @@ public class Constants {
 	public static final String DEBIT_SUCCESS_MESSAGE = "Account debited successfully";
 
 	public static final String INSUFFICIENT_FUNDS_MESSAGE = "There are insufficient funds in your account. Please provide different amount.";
+
+	public static final String BATCH_SUCCESS_MESSAGE = "Batch of transactions performed successfully";
+
+	public static final String BATCH_ACCOUNT_NUMBER_MISSING_MESSAGE = "accountNumber is required for transactionId: %s";
+
+	public static final String BATCH_ACCOUNT_NUMBER_MISMATCH_MESSAGE = "Transaction with transactionId: %s does not belong to accountNumber: %s";
+
+	public static final String TRANSFER_SUCCESS_MESSAGE = "Amount transferred successfully";
+
+	public static final String SAME_ACCOUNT_TRANSFER_MESSAGE = "Amount cannot be transferred to the same accountNumber: %s";
+
+	public static final String TRANSFER_CREDIT_SUFFIX = "-CR";
+
+	public static final String BALANCE_STRIPES_SUCCESS_MESSAGE = "Account balance split into %d stripes successfully";
+
+	public static final String HOLD_SUCCESS_MESSAGE = "Amount held successfully";
+
+	public static final String HOLD_RELEASE_SUCCESS_MESSAGE = "Hold released successfully";
+
+	public static final String HOLD_DOES_NOT_EXIST_MESSAGE = "Hold does not exist with holdId: %s";
+
+	public static final String HOLD_EXPIRED_MESSAGE = "Hold has expired with holdId: %s";
+
+	public static final String DUPLICATE_HOLD_MESSAGE = "Hold or transaction already exists with holdId: %s";
+
+	public static final String HOLDS_NOT_SUPPORTED_MESSAGE = "Holds are not supported in the ledger write mode";
+
+	public static final String BALANCE_STRIPES_NOT_SUPPORTED_MESSAGE = "Balance stripes are not supported in the ledger write mode";
+
+	public static final String INVALID_CURSOR_MESSAGE = "Invalid cursor: %s";
+
+	public static final String INVALID_AMOUNT_MESSAGE = "Amount does not fit the minor unit of the currency or the balance";
+
+	public static final String STATEMENT_SUCCESS_MESSAGE = "Account statement generated successfully";
+
+	public static final String SUMMARY_SUCCESS_MESSAGE = "Account summary generated successfully";
+
+	public static final String INVALID_SUMMARY_PERIOD_MESSAGE = "Summary period is invalid, fromDate: %s is after toDate: %s";
+
+	public static final String INVALID_STATEMENT_PERIOD_MESSAGE = "Statement period is invalid, fromDate: %s is after toDate: %s";
+
+	public static final String INVALID_TRANSACTION_TYPE_MESSAGE = "Invalid transaction type: %s, supported types are CREDIT and DEBIT";
+
+	public static final String INVALID_TRANSACTION_PERIOD_MESSAGE = "Transaction period is invalid, from: %s is not before to: %s";
+
+	public static final String INVALID_EXPORT_FORMAT_MESSAGE = "Invalid export format: %s, supported formats are ndjson and csv";
 }
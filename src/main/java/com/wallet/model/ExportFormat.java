@@ -0,0 +1,29 @@
+package com.wallet.model;
+
+import com.wallet.exception.InvalidRequestDataException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+	NDJSON("application/x-ndjson", "ndjson"), CSV("text/csv", "csv");
+
+	private final String contentType;
+
+	private final String fileExtension;
+
+	public static ExportFormat of(String format) {
+
+		for (ExportFormat exportFormat : values()) {
+
+			if (exportFormat.name().equalsIgnoreCase(format)) {
+				return exportFormat;
+			}
+		}
+
+		throw new InvalidRequestDataException(String.format(Constants.INVALID_EXPORT_FORMAT_MESSAGE, format));
+	}
+}
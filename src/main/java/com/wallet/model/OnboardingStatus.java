@@ -0,0 +1,6 @@
+package com.wallet.model;
+
+public enum OnboardingStatus {
+
+	CREATED, REJECTED;
+}
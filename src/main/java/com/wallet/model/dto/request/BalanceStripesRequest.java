@@ -0,0 +1,26 @@
+package com.wallet.model.dto.request;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceStripesRequest {
+
+	/**
+	 * Number of stripes to split the balance into, 0 folds it back into the
+	 * account row
+	 */
+	@NotNull(message = "{stripes.not-null}")
+	@Min(value = 0, message = "{stripes.range}")
+	@Max(value = 64, message = "{stripes.range}")
+	private Integer stripes;
+}
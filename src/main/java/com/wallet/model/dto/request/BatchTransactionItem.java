@@ -0,0 +1,39 @@
+package com.wallet.model.dto.request;
+
+import java.math.BigDecimal;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.wallet.model.TransactionType;
+import com.wallet.validator.CurrencyAmount;
+import com.wallet.validator.EnumValidator;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionItem {
+
+	private String accountNumber;
+
+	@NotBlank(message = "{transactionId.not-blank}")
+	@Size(max = 20, message = "{transactionId.size}")
+	private String transactionId;
+
+	@NotBlank(message = "{transactionType.not-blank}")
+	@EnumValidator(enumClass = TransactionType.class, message = "{transactionType.invalid}")
+	private String transactionType;
+
+	@NotNull(message = "{amount.not-null}")
+	@DecimalMin(value = "1", message = "{amount.min}")
+	@CurrencyAmount(integer = 15, message = "{amount.currency}")
+	private BigDecimal amount;
+}
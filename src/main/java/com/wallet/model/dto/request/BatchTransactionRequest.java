@@ -0,0 +1,24 @@
+package com.wallet.model.dto.request;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionRequest {
+
+	@Valid
+	@NotEmpty(message = "{transactions.not-empty}")
+	@Size(max = 1000, message = "{transactions.size}")
+	private List<BatchTransactionItem> transactions;
+}
@@ -0,0 +1,41 @@
+package com.wallet.model.dto.request;
+
+import java.math.BigDecimal;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.wallet.validator.CurrencyAmount;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldRequest {
+
+	/**
+	 * Becomes the transactionId of the DEBIT when the hold is captured
+	 */
+	@NotBlank(message = "{holdId.not-blank}")
+	@Size(max = 20, message = "{holdId.size}")
+	private String holdId;
+
+	@NotNull(message = "{amount.not-null}")
+	@DecimalMin(value = "1", message = "{amount.min}")
+	@CurrencyAmount(integer = 15, message = "{amount.currency}")
+	private BigDecimal amount;
+
+	@NotNull(message = "{ttlMillis.not-null}")
+	@Min(value = 1, message = "{ttlMillis.range}")
+	@Max(value = 3_600_000, message = "{ttlMillis.range}")
+	private Long ttlMillis;
+}
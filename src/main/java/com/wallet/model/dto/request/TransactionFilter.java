@@ -0,0 +1,29 @@
+package com.wallet.model.dto.request;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional filters on transaction history. from is inclusive, to is exclusive
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionFilter {
+
+	private LocalDateTime from;
+
+	private LocalDateTime to;
+
+	private String transactionType;
+
+	public boolean isEmpty() {
+
+		return from == null && to == null && transactionType == null;
+	}
+}
@@ -4,8 +4,11 @@ import java.math.BigDecimal;
 
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+import com.wallet.validator.CurrencyAmount;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +24,8 @@ public class TransactionRequest {
 	@Size(max = 20, message = "{transactionId.size}")
 	private String transactionId;
 
+	@NotNull(message = "{amount.not-null}")
 	@DecimalMin(value = "1", message = "{amount.min}")
+	@CurrencyAmount(integer = 15, message = "{amount.currency}")
 	private BigDecimal amount;
 }
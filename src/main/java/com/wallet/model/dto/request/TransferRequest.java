@@ -0,0 +1,38 @@
+package com.wallet.model.dto.request;
+
+import java.math.BigDecimal;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.wallet.validator.CurrencyAmount;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRequest {
+
+	// The credit leg is recorded with a suffixed transactionId, which must fit 20 characters too
+	@NotBlank(message = "{transactionId.not-blank}")
+	@Size(max = 17, message = "{transactionId.size}")
+	private String transactionId;
+
+	@NotBlank(message = "{accountNumber.not-blank}")
+	private String fromAccountNumber;
+
+	@NotBlank(message = "{accountNumber.not-blank}")
+	private String toAccountNumber;
+
+	@NotNull(message = "{amount.not-null}")
+	@DecimalMin(value = "1", message = "{amount.min}")
+	@CurrencyAmount(integer = 15, message = "{amount.currency}")
+	private BigDecimal amount;
+}
@@ -0,0 +1,26 @@
+package com.wallet.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DailySummaryDto {
+
+	private String summaryDate;
+
+	private long noOfCredits;
+
+	private String totalCredits;
+
+	private long noOfDebits;
+
+	private String totalDebits;
+}
@@ -0,0 +1,28 @@
+package com.wallet.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HoldDto {
+
+	private String message;
+
+	private String holdId;
+
+	private String accountNumber;
+
+	private String holdAmount;
+
+	private String accountBalance;
+
+	private String expiresAt;
+}
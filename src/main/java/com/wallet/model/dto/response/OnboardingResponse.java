@@ -0,0 +1,26 @@
+package com.wallet.model.dto.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OnboardingResponse {
+
+	private String message;
+
+	private int noOfCreated;
+
+	private int noOfRejected;
+
+	private List<OnboardingResultDto> results;
+}
@@ -0,0 +1,28 @@
+package com.wallet.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OnboardingResultDto {
+
+	/**
+	 * Position of the account in the request, from 1. CSV rows are counted
+	 * without the header
+	 */
+	private int row;
+
+	private String status;
+
+	private String accountNumber;
+
+	private String message;
+}
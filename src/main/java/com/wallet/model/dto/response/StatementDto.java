@@ -0,0 +1,44 @@
+package com.wallet.model.dto.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StatementDto {
+
+	private String message;
+
+	private String accountNumber;
+
+	private String fromDate;
+
+	private String toDate;
+
+	private String openingBalance;
+
+	private String closingBalance;
+
+	private String totalCredits;
+
+	private String totalDebits;
+
+	private int noOfCredits;
+
+	private int noOfDebits;
+
+	/**
+	 * Transactions of the period, oldest first, each with the balance after it
+	 * as accountBalance
+	 */
+	private List<TransactionDto> transactions;
+}
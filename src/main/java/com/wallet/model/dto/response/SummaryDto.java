@@ -0,0 +1,39 @@
+package com.wallet.model.dto.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SummaryDto {
+
+	private String message;
+
+	private String accountNumber;
+
+	private String fromDate;
+
+	private String toDate;
+
+	private long noOfCredits;
+
+	private String totalCredits;
+
+	private long noOfDebits;
+
+	private String totalDebits;
+
+	/**
+	 * One entry per day with transactions, oldest first
+	 */
+	private List<DailySummaryDto> days;
+}
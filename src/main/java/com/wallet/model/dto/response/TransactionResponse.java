@@ -23,4 +23,6 @@ public class TransactionResponse {
 	private String message;
 	private int totalNoOfPages;
 	private int totalNoOfTransactions;
+	private String nextCursor;
+	private Boolean hasNext;
 }
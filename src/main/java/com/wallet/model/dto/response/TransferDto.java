@@ -0,0 +1,30 @@
+package com.wallet.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferDto {
+
+	private String message;
+
+	private String transactionId;
+
+	private String fromAccountNumber;
+
+	private String fromAccountBalance;
+
+	private String toAccountNumber;
+
+	private String transactionAmount;
+
+	private String transactionDate;
+}
@@ -12,6 +12,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,7 +24,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "account")
+@Table(name = "account", uniqueConstraints = {
+		@UniqueConstraint(name = "uk_account_account_number", columnNames = { "account_number" }),
+		@UniqueConstraint(name = "uk_account_email_id", columnNames = { "email_id" }),
+		@UniqueConstraint(name = "uk_account_mobile_number", columnNames = { "mobile_number" }) })
 public class Account implements Serializable {
 	/**
 	* 
@@ -37,13 +41,13 @@ public class Account implements Serializable {
 	@Column(name = "account_number", nullable = false)
 	private String accountNumber;
 
-	@Column(name = "email_id", nullable = false, unique = true)
+	@Column(name = "email_id", nullable = false)
 	private String emailId;
 
 	@Column(name = "full_name", nullable = false)
 	private String fullName;
 
-	@Column(name = "mobile_number", nullable = false, unique = true)
+	@Column(name = "mobile_number", nullable = false)
 	private String mobileNumber;
 
 	@OneToMany(mappedBy = "account", cascade = CascadeType.ALL)
@@ -57,4 +61,25 @@ public class Account implements Serializable {
 
 	@Column(name = "account_status", nullable = false)
 	private String accountStatus;
+
+	/**
+	 * Number of stripes the balance is split into, 0 when it is kept in the
+	 * account row only
+	 */
+	@Column(name = "balance_stripes", nullable = false, columnDefinition = "integer default 0")
+	private int balanceStripes;
+
+	/**
+	 * Number of transactions recorded on the account, kept up to date with every
+	 * insert. Striped accounts count the rest of them on their stripes
+	 */
+	@Column(name = "transaction_count", nullable = false, columnDefinition = "bigint default 0")
+	private long transactionCount;
+
+	/**
+	 * Number of the oldest transactions of the account which were moved out of
+	 * the transaction table into the archive
+	 */
+	@Column(name = "archived_transaction_count", nullable = false, columnDefinition = "bigint default 0")
+	private long archivedTransactionCount;
 }
@@ -0,0 +1,46 @@
+package com.wallet.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One slice of the balance of a striped account. The balance of such an
+ * account is its own balance amount plus the sum of its stripes
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "account_balance_stripe", uniqueConstraints = @UniqueConstraint(name = "uk_account_balance_stripe", columnNames = {
+		"account_number", "stripe_index" }))
+public class AccountBalanceStripe {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "account_number", nullable = false)
+	private String accountNumber;
+
+	@Column(name = "stripe_index", nullable = false)
+	private int stripeIndex;
+
+	@Column(name = "balance_amount", nullable = false)
+	private BigDecimal balanceAmount;
+
+	@Column(name = "transaction_count", nullable = false, columnDefinition = "bigint default 0")
+	private long transactionCount;
+}
@@ -0,0 +1,47 @@
+package com.wallet.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Funds reserved on an account until they are captured, released or the hold
+ * expires. The held amount is already taken out of the account balance
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "balance_hold", uniqueConstraints = @UniqueConstraint(name = "uk_balance_hold_hold_id", columnNames = {
+		"hold_id" }))
+public class BalanceHold {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "hold_id", nullable = false)
+	private String holdId;
+
+	@Column(name = "account_number", nullable = false)
+	private String accountNumber;
+
+	@Column(name = "hold_amount", nullable = false)
+	private BigDecimal holdAmount;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+}
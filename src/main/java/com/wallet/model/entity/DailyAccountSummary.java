@@ -0,0 +1,56 @@
+package com.wallet.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counts and sums of the credits and debits of an account on one day. Striped
+ * accounts spread them over one row per stripe, like their balance
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "daily_account_summary", uniqueConstraints = @UniqueConstraint(name = "uk_daily_account_summary", columnNames = {
+		"account_number", "summary_date", "stripe_index" }))
+public class DailyAccountSummary {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "account_number", nullable = false)
+	private String accountNumber;
+
+	@Column(name = "summary_date", nullable = false)
+	private LocalDate summaryDate;
+
+	@Column(name = "stripe_index", nullable = false)
+	private int stripeIndex;
+
+	@Column(name = "credit_count", nullable = false)
+	private long creditCount;
+
+	@Column(name = "credit_amount", nullable = false)
+	private BigDecimal creditAmount;
+
+	@Column(name = "debit_count", nullable = false)
+	private long debitCount;
+
+	@Column(name = "debit_amount", nullable = false)
+	private BigDecimal debitAmount;
+}
@@ -9,9 +9,11 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,7 +25,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "transaction")
+@Table(name = "transaction", uniqueConstraints = @UniqueConstraint(name = "uk_transaction_transaction_id", columnNames = {
+		"transaction_id" }), indexes = {
+				@Index(name = "idx_transaction_account_date_id", columnList = "account_number, transaction_date, id"),
+				@Index(name = "idx_transaction_account_type_date", columnList = "account_number, transaction_type, transaction_date") })
 public class Transaction {
 
 	@Id
@@ -45,4 +50,7 @@ public class Transaction {
 
 	@Column(name = "transaction_date", nullable = false)
 	private LocalDateTime transactionDate;
+
+	@Column(name = "balance_after")
+	private BigDecimal balanceAfter;
 }
@@ -0,0 +1,55 @@
+package com.wallet.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.wallet.model.entity.AccountBalanceStripe;
+
+@Repository
+public interface AccountBalanceStripeRepository extends JpaRepository<AccountBalanceStripe, Long> {
+
+	/**
+	 * Debits a single stripe in one conditional statement. Returns 0 when the
+	 * stripe does not have sufficient funds. Clears the persistence context so
+	 * stripes locked afterwards are read fresh
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE AccountBalanceStripe s SET s.balanceAmount = s.balanceAmount - :amount "
+			+ "WHERE s.accountNumber = :accountNumber AND s.stripeIndex = :stripeIndex AND s.balanceAmount >= :amount")
+	int debitStripe(@Param("accountNumber") String accountNumber, @Param("stripeIndex") int stripeIndex,
+			@Param("amount") BigDecimal amount);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE AccountBalanceStripe s SET s.balanceAmount = s.balanceAmount + :amount "
+			+ "WHERE s.accountNumber = :accountNumber AND s.stripeIndex = :stripeIndex")
+	int creditStripe(@Param("accountNumber") String accountNumber, @Param("stripeIndex") int stripeIndex,
+			@Param("amount") BigDecimal amount);
+
+	/**
+	 * Locks all stripes of the account, always in stripe order so that
+	 * concurrent borrowers cannot deadlock
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	List<AccountBalanceStripe> findAllByAccountNumberOrderByStripeIndex(String accountNumber);
+
+	@Query("SELECT COALESCE(SUM(s.balanceAmount), 0) FROM AccountBalanceStripe s WHERE s.accountNumber = :accountNumber")
+	BigDecimal sumBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE AccountBalanceStripe s SET s.transactionCount = s.transactionCount + :count "
+			+ "WHERE s.accountNumber = :accountNumber AND s.stripeIndex = :stripeIndex")
+	int addTransactionCount(@Param("accountNumber") String accountNumber, @Param("stripeIndex") int stripeIndex,
+			@Param("count") long count);
+
+	@Query("SELECT COALESCE(SUM(s.transactionCount), 0) FROM AccountBalanceStripe s WHERE s.accountNumber = :accountNumber")
+	long sumTransactionCountByAccountNumber(@Param("accountNumber") String accountNumber);
+}
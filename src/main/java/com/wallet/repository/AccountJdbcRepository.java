@@ -0,0 +1,38 @@
+package com.wallet.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.wallet.model.entity.Account;
+
+/**
+ * Plain JDBC access for inserting accounts in statement batches
+ */
+@Repository
+public class AccountJdbcRepository {
+
+	private static final String INSERT_ACCOUNT_SQL = "INSERT INTO account (account_number, email_id, full_name, "
+			+ "mobile_number, balance_amount, account_type, account_status) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Inserts the accounts as one JDBC batch. Fails as a whole if any of them
+	 * violates a unique constraint
+	 */
+	public int[] insertAccounts(List<Account> accounts) {
+
+		List<Object[]> arguments = accounts.stream()
+				.map(account -> new Object[] { account.getAccountNumber(), account.getEmailId(), account.getFullName(),
+						account.getMobileNumber(), account.getBalanceAmount(), account.getAccountType(),
+						account.getAccountStatus() })
+				.collect(Collectors.toList());
+
+		return jdbcTemplate.batchUpdate(INSERT_ACCOUNT_SQL, arguments);
+	}
+}
@@ -1,8 +1,17 @@
 package com.wallet.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.wallet.model.entity.Account;
@@ -10,7 +19,63 @@ import com.wallet.model.entity.Account;
 @Repository
 public interface AccountRepository extends PagingAndSortingRepository<Account, Long> {
 
-	Optional<Account> findByEmailIdOrMobileNumber(String emailId, String mobileNumber);
+	@Override
+	List<Account> findAll();
+
+	boolean existsByEmailId(String emailId);
+
+	boolean existsByMobileNumber(String mobileNumber);
 
 	Optional<Account> findByAccountNumberAndAccountStatus(String accountNumber, String accountStatus);
+
+	List<Account> findAllByAccountNumberIn(Collection<String> accountNumbers);
+
+	@Query("SELECT a.emailId FROM Account a WHERE a.emailId IN :emailIds")
+	List<String> findEmailIdsIn(@Param("emailIds") Collection<String> emailIds);
+
+	@Query("SELECT a.mobileNumber FROM Account a WHERE a.mobileNumber IN :mobileNumbers")
+	List<String> findMobileNumbersIn(@Param("mobileNumbers") Collection<String> mobileNumbers);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<Account> findWithLockByAccountNumberAndAccountStatus(String accountNumber, String accountStatus);
+
+	/**
+	 * Debits the account in a single conditional statement. Returns 0 when the
+	 * account is not in the given status, is striped or does not have
+	 * sufficient funds
+	 */
+	@Modifying
+	@Query("UPDATE Account a SET a.balanceAmount = a.balanceAmount - :amount WHERE a.accountNumber = :accountNumber "
+			+ "AND a.accountStatus = :accountStatus AND a.balanceStripes = 0 AND a.balanceAmount >= :amount")
+	int debitBalance(@Param("accountNumber") String accountNumber, @Param("accountStatus") String accountStatus,
+			@Param("amount") BigDecimal amount);
+
+	/**
+	 * Credits the account in a single statement. Returns 0 when the account is
+	 * not in the given status or is striped
+	 */
+	@Modifying
+	@Query("UPDATE Account a SET a.balanceAmount = a.balanceAmount + :amount WHERE a.accountNumber = :accountNumber "
+			+ "AND a.accountStatus = :accountStatus AND a.balanceStripes = 0")
+	int creditBalance(@Param("accountNumber") String accountNumber, @Param("accountStatus") String accountStatus,
+			@Param("amount") BigDecimal amount);
+
+	/**
+	 * Adds to the number of transactions recorded on the account, in the same
+	 * transaction which inserts them
+	 */
+	@Modifying
+	@Query("UPDATE Account a SET a.transactionCount = a.transactionCount + :count WHERE a.accountNumber = :accountNumber")
+	int addTransactionCount(@Param("accountNumber") String accountNumber, @Param("count") long count);
+
+	/**
+	 * Reserves the next block of account numbers. Sequence values are never
+	 * rolled back, so a block is not handed out twice even if the reserving
+	 * transaction fails
+	 */
+	@Query(value = "SELECT NEXT VALUE FOR account_number_block_seq", nativeQuery = true)
+	long nextAccountNumberBlock();
+
+	@Query("SELECT a.balanceAmount FROM Account a WHERE a.accountNumber = :accountNumber")
+	BigDecimal findBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
 }
@@ -0,0 +1,24 @@
+package com.wallet.repository;
+
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import com.wallet.model.entity.BalanceHold;
+
+@Repository
+public interface BalanceHoldRepository extends JpaRepository<BalanceHold, Long> {
+
+	boolean existsByHoldId(String holdId);
+
+	/**
+	 * Locks the hold, so it is settled only once when capture, release and
+	 * expiry race
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<BalanceHold> findWithLockByHoldId(String holdId);
+}
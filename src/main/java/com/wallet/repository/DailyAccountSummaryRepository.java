@@ -0,0 +1,41 @@
+package com.wallet.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.wallet.model.entity.DailyAccountSummary;
+
+@Repository
+public interface DailyAccountSummaryRepository extends JpaRepository<DailyAccountSummary, Long> {
+
+	/**
+	 * Adds to the counts and sums of one summary row. Returns 0 when the row does
+	 * not exist yet
+	 */
+	@Modifying
+	@Query("UPDATE DailyAccountSummary s SET s.creditCount = s.creditCount + :creditCount, "
+			+ "s.creditAmount = s.creditAmount + :creditAmount, s.debitCount = s.debitCount + :debitCount, "
+			+ "s.debitAmount = s.debitAmount + :debitAmount WHERE s.accountNumber = :accountNumber "
+			+ "AND s.summaryDate = :summaryDate AND s.stripeIndex = :stripeIndex")
+	int addToSummary(@Param("accountNumber") String accountNumber, @Param("summaryDate") LocalDate summaryDate,
+			@Param("stripeIndex") int stripeIndex, @Param("creditCount") long creditCount,
+			@Param("creditAmount") BigDecimal creditAmount, @Param("debitCount") long debitCount,
+			@Param("debitAmount") BigDecimal debitAmount);
+
+	/**
+	 * Sums up the rows of every day of the period, reading one row per day and
+	 * stripe rather than one per transaction
+	 */
+	@Query("SELECT s.summaryDate, SUM(s.creditCount), SUM(s.creditAmount), SUM(s.debitCount), SUM(s.debitAmount) "
+			+ "FROM DailyAccountSummary s WHERE s.accountNumber = :accountNumber "
+			+ "AND s.summaryDate BETWEEN :fromDate AND :toDate GROUP BY s.summaryDate ORDER BY s.summaryDate")
+	List<Object[]> sumByDay(@Param("accountNumber") String accountNumber, @Param("fromDate") LocalDate fromDate,
+			@Param("toDate") LocalDate toDate);
+}
@@ -0,0 +1,218 @@
+package com.wallet.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.wallet.model.AccountStatus;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.BatchTransactionItem;
+
+/**
+ * Plain JDBC access for the write paths which need statement batching, and for
+ * the cursors of exports and archival
+ */
+@Repository
+public class TransactionJdbcRepository {
+
+	private static final String UPDATE_BALANCE_SQL = "UPDATE account SET balance_amount = balance_amount + ? "
+			+ "WHERE account_number = ? AND account_status = ? AND balance_stripes = 0 AND balance_amount + ? >= 0";
+
+	private static final String INSERT_TRANSACTION_SQL = "INSERT INTO transaction (account_number, transaction_id, "
+			+ "transaction_type, transaction_amount, transaction_date, balance_after) VALUES (?, ?, ?, ?, ?, ?)";
+
+	// SQL state class of unique and other integrity constraint violations
+	private static final String INTEGRITY_VIOLATION_STATE = "23";
+
+	private static final String INSERT_DAILY_SUMMARY_SQL = "INSERT INTO daily_account_summary (account_number, "
+			+ "summary_date, stripe_index, credit_count, credit_amount, debit_count, debit_amount) "
+			+ "VALUES (?, ?, ?, 0, 0, 0, 0)";
+
+	private static final String SELECT_TRANSACTIONS_SQL = "SELECT transaction_id, transaction_type, "
+			+ "transaction_amount, balance_after, transaction_date FROM transaction WHERE account_number = ? "
+			+ "ORDER BY transaction_date, id";
+
+	// Scans in id order, from the oldest transactions still in the table
+	private static final String SELECT_ARCHIVE_BOUNDARY_SQL = "SELECT id FROM transaction WHERE transaction_date >= ? "
+			+ "ORDER BY id LIMIT 1";
+
+	private static final String ARCHIVABLE_CONDITION = "t.id < ? AND t.transaction_date < ?";
+
+	private static final String SELECT_ARCHIVABLE_SQL = "SELECT t.id, t.account_number, t.transaction_id, "
+			+ "t.transaction_type, t.transaction_amount, t.balance_after, t.transaction_date, "
+			+ "a.archived_transaction_count FROM transaction t JOIN account a ON a.account_number = t.account_number "
+			+ "WHERE " + ARCHIVABLE_CONDITION + " ORDER BY t.account_number, t.transaction_date, t.id";
+
+	private static final String SELECT_ARCHIVABLE_IDS_SQL = "SELECT t.transaction_id, t.account_number, "
+			+ "a.archived_transaction_count + ROW_NUMBER() OVER (PARTITION BY t.account_number "
+			+ "ORDER BY t.transaction_date, t.id) - 1 AS archive_ordinal FROM transaction t "
+			+ "JOIN account a ON a.account_number = t.account_number WHERE " + ARCHIVABLE_CONDITION
+			+ " ORDER BY t.transaction_id";
+
+	private static final String ADD_ARCHIVED_COUNT_SQL = "UPDATE account a SET archived_transaction_count = "
+			+ "archived_transaction_count + (SELECT COUNT(*) FROM transaction t WHERE t.account_number = a.account_number "
+			+ "AND " + ARCHIVABLE_CONDITION + ") WHERE EXISTS (SELECT 1 FROM transaction t "
+			+ "WHERE t.account_number = a.account_number AND " + ARCHIVABLE_CONDITION + ")";
+
+	private static final String DELETE_ARCHIVED_SQL = "DELETE FROM transaction t WHERE " + ARCHIVABLE_CONDITION;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Applies the balance change of every item, in order, as one JDBC batch. An
+	 * item whose update count is 0 was either for an inactive/unknown or striped
+	 * account or would have made the balance negative
+	 */
+	public int[] updateBalances(List<BatchTransactionItem> items) {
+
+		List<Object[]> arguments = items.stream().map(item -> {
+
+			Object delta = TransactionType.DEBIT.name().equals(item.getTransactionType()) ? item.getAmount().negate()
+					: item.getAmount();
+
+			return new Object[] { delta, item.getAccountNumber(), AccountStatus.ACTIVE.name(), delta };
+		}).collect(Collectors.toList());
+
+		return jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, arguments);
+	}
+
+	public int[] insertTransactions(List<BatchTransactionItem> items, List<BigDecimal> balancesAfter,
+			LocalDateTime transactionDate) {
+
+		Timestamp timestamp = Timestamp.valueOf(transactionDate);
+
+		List<Object[]> arguments = new ArrayList<>(items.size());
+
+		for (int index = 0; index < items.size(); index++) {
+
+			BatchTransactionItem item = items.get(index);
+			arguments.add(new Object[] { item.getAccountNumber(), item.getTransactionId(), item.getTransactionType(),
+					item.getAmount(), timestamp, balancesAfter.get(index) });
+		}
+
+		return jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, arguments);
+	}
+
+	/**
+	 * Inserts an empty daily summary row behind a savepoint on the connection of
+	 * the surrounding transaction. Returns false when the row already exists, in
+	 * which case only the savepoint is rolled back and not the whole transaction
+	 */
+	public boolean insertDailySummary(String accountNumber, LocalDate summaryDate, int stripeIndex) {
+
+		return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+
+			Savepoint savepoint = connection.setSavepoint();
+
+			try (PreparedStatement statement = connection.prepareStatement(INSERT_DAILY_SUMMARY_SQL)) {
+				statement.setString(1, accountNumber);
+				statement.setDate(2, Date.valueOf(summaryDate));
+				statement.setInt(3, stripeIndex);
+				statement.executeUpdate();
+			} catch (SQLException exception) {
+
+				if (exception.getSQLState() == null || !exception.getSQLState().startsWith(INTEGRITY_VIOLATION_STATE)) {
+					throw exception;
+				}
+
+				connection.rollback(savepoint);
+				return false;
+			}
+
+			connection.releaseSavepoint(savepoint);
+			return true;
+		});
+	}
+
+	/**
+	 * Id of the oldest transaction from the cutoff on, or null when there is
+	 * none. Transactions before the cutoff and below this id can be archived
+	 */
+	public Long findArchiveBoundary(LocalDateTime cutoff) {
+
+		List<Long> ids = jdbcTemplate.queryForList(SELECT_ARCHIVE_BOUNDARY_SQL, Long.class, Timestamp.valueOf(cutoff));
+
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	/**
+	 * Streams the archivable transactions in (account_number, transaction_date,
+	 * id) order, each with the archived count of its account
+	 */
+	public void streamArchivable(LocalDateTime cutoff, long boundaryId, int fetchSize,
+			RowCallbackHandler rowCallbackHandler) {
+
+		streamArchivable(SELECT_ARCHIVABLE_SQL, cutoff, boundaryId, fetchSize, rowCallbackHandler);
+	}
+
+	/**
+	 * Streams the transactionIds of the archivable transactions in order, each
+	 * with its account and its ordinal in the archived history of the account
+	 */
+	public void streamArchivableIds(LocalDateTime cutoff, long boundaryId, int fetchSize,
+			RowCallbackHandler rowCallbackHandler) {
+
+		streamArchivable(SELECT_ARCHIVABLE_IDS_SQL, cutoff, boundaryId, fetchSize, rowCallbackHandler);
+	}
+
+	/**
+	 * Adds the archivable transactions to the archived counts of their accounts
+	 * and deletes them. Run in one transaction, so it can safely be repeated
+	 */
+	public int deleteArchived(LocalDateTime cutoff, long boundaryId) {
+
+		Timestamp timestamp = Timestamp.valueOf(cutoff);
+
+		jdbcTemplate.update(ADD_ARCHIVED_COUNT_SQL, boundaryId, timestamp, boundaryId, timestamp);
+
+		return jdbcTemplate.update(DELETE_ARCHIVED_SQL, boundaryId, timestamp);
+	}
+
+	/**
+	 * Hands every transaction of the account, oldest first, to the handler
+	 * through a forward-only cursor which fetches fetchSize rows at a time. No
+	 * row is retained, so memory stays flat however long the history is. Some
+	 * drivers only honour the fetch size within a transaction
+	 */
+	public void streamTransactions(String accountNumber, int fetchSize, RowCallbackHandler rowCallbackHandler) {
+
+		jdbcTemplate.query(connection -> {
+
+			PreparedStatement statement = connection.prepareStatement(SELECT_TRANSACTIONS_SQL,
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(fetchSize);
+			statement.setString(1, accountNumber);
+			return statement;
+		}, rowCallbackHandler);
+	}
+
+	private void streamArchivable(String sql, LocalDateTime cutoff, long boundaryId, int fetchSize,
+			RowCallbackHandler rowCallbackHandler) {
+
+		jdbcTemplate.query(connection -> {
+
+			PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(fetchSize);
+			statement.setLong(1, boundaryId);
+			statement.setTimestamp(2, Timestamp.valueOf(cutoff));
+			return statement;
+		}, rowCallbackHandler);
+	}
+}
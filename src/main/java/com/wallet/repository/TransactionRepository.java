@@ -1,10 +1,22 @@
 package com.wallet.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.wallet.model.entity.Account;
@@ -13,7 +25,124 @@ import com.wallet.model.entity.Transaction;
 @Repository
 public interface TransactionRepository extends PagingAndSortingRepository<Transaction, Long> {
 
+	// Filters on the date range only, served by idx_transaction_account_date_id
+	String IN_PERIOD_CONDITION = " FROM transaction WHERE account_number = :accountNumber "
+			+ "AND transaction_date >= :from AND transaction_date < :to";
+
+	// Filters on type and date range, served by idx_transaction_account_type_date
+	String BY_TYPE_IN_PERIOD_CONDITION = " FROM transaction WHERE account_number = :accountNumber "
+			+ "AND transaction_type = :transactionType AND transaction_date >= :from AND transaction_date < :to";
+
+	String FIND_IN_PERIOD_SQL = "SELECT *" + IN_PERIOD_CONDITION + " ORDER BY transaction_date, id";
+
+	String FIND_BY_TYPE_IN_PERIOD_SQL = "SELECT *" + BY_TYPE_IN_PERIOD_CONDITION + " ORDER BY transaction_date, id";
+
+	String COUNT_IN_PERIOD_SQL = "SELECT COUNT(*)" + IN_PERIOD_CONDITION;
+
+	String COUNT_BY_TYPE_IN_PERIOD_SQL = "SELECT COUNT(*)" + BY_TYPE_IN_PERIOD_CONDITION;
+
 	Optional<Transaction> findByTransactionId(String transactionId);
 
+	List<Transaction> findAllByTransactionIdIn(Collection<String> transactionIds);
+
 	Page<Transaction> findAllByAccount(Account account, Pageable pageable);
+
+	/**
+	 * Page of an account's transactions without the count query of a Page
+	 */
+	Slice<Transaction> findSliceByAccount(Account account, Pageable pageable);
+
+	@Query(value = FIND_IN_PERIOD_SQL, nativeQuery = true)
+	Slice<Transaction> findSliceInPeriod(@Param("accountNumber") String accountNumber,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+	@Query(value = FIND_BY_TYPE_IN_PERIOD_SQL, nativeQuery = true)
+	Slice<Transaction> findSliceByTypeInPeriod(@Param("accountNumber") String accountNumber,
+			@Param("transactionType") String transactionType, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to, Pageable pageable);
+
+	@Query(value = COUNT_IN_PERIOD_SQL, nativeQuery = true)
+	long countInPeriod(@Param("accountNumber") String accountNumber, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to);
+
+	@Query(value = COUNT_BY_TYPE_IN_PERIOD_SQL, nativeQuery = true)
+	long countByTypeInPeriod(@Param("accountNumber") String accountNumber,
+			@Param("transactionType") String transactionType, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to);
+
+	/**
+	 * Transactions of an account in (transactionDate, id) order from any offset,
+	 * for pages which start in the archive and continue in the table
+	 */
+	@Query(value = "SELECT * FROM transaction WHERE account_number = :accountNumber "
+			+ "ORDER BY transaction_date, id LIMIT :limit OFFSET :offset", nativeQuery = true)
+	List<Transaction> findByAccountNumberFrom(@Param("accountNumber") String accountNumber,
+			@Param("offset") long offset, @Param("limit") int limit);
+
+	/**
+	 * First page of an account's transactions in (transactionDate, id) order,
+	 * without counting them
+	 */
+	@Query("SELECT t FROM Transaction t WHERE t.account.accountNumber = :accountNumber "
+			+ "ORDER BY t.transactionDate, t.id")
+	List<Transaction> findFirstByAccountNumber(@Param("accountNumber") String accountNumber, Pageable pageable);
+
+	/**
+	 * Page of an account's transactions following the given (transactionDate, id)
+	 * position, seeking on the account/date/id index instead of skipping rows
+	 */
+	@Query("SELECT t FROM Transaction t WHERE t.account.accountNumber = :accountNumber "
+			+ "AND (t.transactionDate > :transactionDate OR (t.transactionDate = :transactionDate AND t.id > :id)) "
+			+ "ORDER BY t.transactionDate, t.id")
+	List<Transaction> findNextByAccountNumber(@Param("accountNumber") String accountNumber,
+			@Param("transactionDate") LocalDateTime transactionDate, @Param("id") Long id, Pageable pageable);
+
+	/**
+	 * Latest transactions before the given date which recorded the balance after
+	 * them, newest first. The first one anchors the opening balance of a
+	 * statement
+	 */
+	@Query("SELECT t FROM Transaction t WHERE t.account.accountNumber = :accountNumber "
+			+ "AND t.transactionDate < :before AND t.balanceAfter IS NOT NULL ORDER BY t.transactionDate DESC, t.id DESC")
+	List<Transaction> findLastBefore(@Param("accountNumber") String accountNumber,
+			@Param("before") LocalDateTime before, Pageable pageable);
+
+	/**
+	 * Earliest transactions from the given date on which recorded the balance
+	 * after them, oldest first
+	 */
+	@Query("SELECT t FROM Transaction t WHERE t.account.accountNumber = :accountNumber "
+			+ "AND t.transactionDate >= :from AND t.balanceAfter IS NOT NULL ORDER BY t.transactionDate, t.id")
+	List<Transaction> findFirstFrom(@Param("accountNumber") String accountNumber, @Param("from") LocalDateTime from,
+			Pageable pageable);
+
+	/**
+	 * Credits minus debits of the transactions from the given date on, so the
+	 * balance at that date is the current balance minus this amount
+	 */
+	@Query("SELECT COALESCE(SUM(CASE WHEN t.transactionType = 'DEBIT' THEN -t.transactionAmount "
+			+ "ELSE t.transactionAmount END), 0) FROM Transaction t "
+			+ "WHERE t.account.accountNumber = :accountNumber AND t.transactionDate >= :from")
+	BigDecimal sumNetAmountFrom(@Param("accountNumber") String accountNumber, @Param("from") LocalDateTime from);
+
+	/**
+	 * Streams the transactions of the period in (transactionDate, id) order, so a
+	 * statement is built in one pass. Must be consumed within a transaction
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT t FROM Transaction t WHERE t.account.accountNumber = :accountNumber "
+			+ "AND t.transactionDate >= :from AND t.transactionDate < :to ORDER BY t.transactionDate, t.id")
+	Stream<Transaction> streamByAccountNumberAndPeriod(@Param("accountNumber") String accountNumber,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+	/**
+	 * Inserts the transaction record directly, without loading the owning account
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO transaction (account_number, transaction_id, transaction_type, transaction_amount, "
+			+ "transaction_date, balance_after) VALUES (:accountNumber, :transactionId, :transactionType, "
+			+ ":transactionAmount, :transactionDate, :balanceAfter)", nativeQuery = true)
+	int insertTransaction(@Param("accountNumber") String accountNumber, @Param("transactionId") String transactionId,
+			@Param("transactionType") String transactionType, @Param("transactionAmount") BigDecimal transactionAmount,
+			@Param("transactionDate") LocalDateTime transactionDate, @Param("balanceAfter") BigDecimal balanceAfter);
 }
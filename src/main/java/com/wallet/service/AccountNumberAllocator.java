@@ -0,0 +1,10 @@
+package com.wallet.service;
+
+/**
+ * Hands out the numbers of new accounts. Every number is handed out at most
+ * once, across threads and instances sharing the database
+ */
+public interface AccountNumberAllocator {
+
+	String allocate();
+}
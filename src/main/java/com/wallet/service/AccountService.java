@@ -1,11 +1,22 @@
 package com.wallet.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 import com.wallet.model.dto.request.AccountRequest;
 import com.wallet.model.dto.response.AccountDto;
+import com.wallet.model.dto.response.OnboardingResponse;
 
 public interface AccountService {
 
 	AccountDto createAccount(AccountRequest accountDto);
 
+	OnboardingResponse createAccounts(List<AccountRequest> accountRequests);
+
+	OnboardingResponse createAccounts(InputStream csv) throws IOException;
+
 	AccountDto fetchBalance(String accountNumber);
+
+	AccountDto stripeBalance(String accountNumber, int stripes);
 }
@@ -0,0 +1,14 @@
+package com.wallet.service;
+
+import com.wallet.model.dto.request.HoldRequest;
+import com.wallet.model.dto.response.HoldDto;
+import com.wallet.model.dto.response.TransactionDto;
+
+public interface HoldService {
+
+	HoldDto reserve(String accountNumber, HoldRequest holdRequest);
+
+	TransactionDto capture(String accountNumber, String holdId);
+
+	HoldDto release(String accountNumber, String holdId);
+}
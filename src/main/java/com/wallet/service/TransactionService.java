@@ -1,8 +1,20 @@
 package com.wallet.service;
 
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.wallet.model.ExportFormat;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionFilter;
 import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
 
 public interface TransactionService {
 
@@ -11,4 +23,54 @@ public interface TransactionService {
 	TransactionDto performCredit(String accountNumber, TransactionRequest transactionRequest);
 
 	TransactionResponse getAllTransactions(String accountNumber, Integer page, Integer limit);
+
+	/**
+	 * Returns a page of transactions with whether another one follows, without
+	 * the totals
+	 */
+	TransactionResponse getTransactionSlice(String accountNumber, Integer page, Integer limit);
+
+	/**
+	 * Returns a page of the transactions matching the filter, with the totals of
+	 * the matching ones or just whether another page follows
+	 */
+	TransactionResponse getFilteredTransactions(String accountNumber, TransactionFilter filter, Integer page,
+			Integer limit, boolean totals);
+
+	/**
+	 * Returns up to limit transactions following the cursor, or the first ones
+	 * for a null cursor, with the cursor of the next page if there is one
+	 */
+	TransactionResponse getTransactionsAfter(String accountNumber, String cursor, Integer limit);
+
+	/**
+	 * Returns the transactions between the dates, both inclusive, with the
+	 * opening balance, the balance after every transaction and the totals
+	 */
+	StatementDto getStatement(String accountNumber, LocalDate fromDate, LocalDate toDate);
+
+	/**
+	 * Returns the credit and debit counts and sums of every day between the
+	 * dates, both inclusive, read from the daily rollups
+	 */
+	SummaryDto getSummary(String accountNumber, LocalDate fromDate, LocalDate toDate);
+
+	/**
+	 * Checks the account exists and returns a body which streams its whole
+	 * transaction history in the given format once written
+	 */
+	StreamingResponseBody exportTransactions(String accountNumber, ExportFormat format);
+
+	/**
+	 * Applies all given transactions atomically. A null accountNumber means every
+	 * item names its own account
+	 */
+	TransactionResponse performBatch(String accountNumber, List<BatchTransactionItem> transactions);
+
+	/**
+	 * Debits one account and credits another atomically. The credit leg is
+	 * recorded with the transactionId suffixed by
+	 * {@link com.wallet.model.Constants#TRANSFER_CREDIT_SUFFIX}
+	 */
+	TransferDto performTransfer(TransferRequest transferRequest);
 }
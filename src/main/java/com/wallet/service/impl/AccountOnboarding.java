@@ -0,0 +1,333 @@
+package com.wallet.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.validation.Validator;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.AccountStatus;
+import com.wallet.model.Constants;
+import com.wallet.model.OnboardingStatus;
+import com.wallet.model.dto.request.AccountRequest;
+import com.wallet.model.dto.response.OnboardingResponse;
+import com.wallet.model.dto.response.OnboardingResultDto;
+import com.wallet.model.entity.Account;
+import com.wallet.repository.AccountJdbcRepository;
+import com.wallet.repository.AccountRepository;
+import com.wallet.service.AccountNumberAllocator;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates accounts in bulk, chunk by chunk. Each chunk checks the emailIds and
+ * mobile numbers of all its accounts in two queries, inserts the new accounts
+ * as one JDBC batch and commits, so a long CSV stream never holds a single
+ * huge transaction. Every account gets its own result, rejected ones do not
+ * stop the others. Must be called outside of a transaction
+ */
+@Slf4j
+@Component
+public class AccountOnboarding {
+
+	private static final List<String> CSV_COLUMNS = Arrays.asList("fullName", "emailId", "mobileNumber",
+			"accountType", "balanceAmount");
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private AccountJdbcRepository accountJdbcRepository;
+
+	@Autowired
+	private AccountNumberAllocator accountNumberAllocator;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private Validator validator;
+
+	@Value("${wallet.onboarding.chunk-size:1000}")
+	private int chunkSize;
+
+	public OnboardingResponse createAccounts(List<AccountRequest> accountRequests) {
+
+		if (accountRequests == null || accountRequests.isEmpty()) {
+
+			log.error(Constants.ONBOARDING_EMPTY_MESSAGE);
+			throw new InvalidRequestDataException(Constants.ONBOARDING_EMPTY_MESSAGE);
+		}
+
+		List<OnboardingResultDto> results = new ArrayList<>(accountRequests.size());
+		List<Row> chunk = new ArrayList<>(chunkSize);
+
+		for (int index = 0; index < accountRequests.size(); index++) {
+
+			chunk.add(new Row(index + 1, accountRequests.get(index), null));
+
+			if (chunk.size() == chunkSize) {
+				results.addAll(createChunk(chunk));
+				chunk.clear();
+			}
+		}
+
+		results.addAll(createChunk(chunk));
+
+		return response(results);
+	}
+
+	/**
+	 * Creates the accounts of a CSV stream with a fullName, emailId,
+	 * mobileNumber, accountType, balanceAmount header and one account per line
+	 */
+	public OnboardingResponse createAccounts(InputStream csv) throws IOException {
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+		String header = reader.readLine();
+
+		if (header == null || !CSV_COLUMNS.equals(parseCsvLine(header))) {
+
+			String message = String.format(Constants.INVALID_CSV_HEADER_MESSAGE, String.join(",", CSV_COLUMNS));
+			log.error(message);
+			throw new InvalidRequestDataException(message);
+		}
+
+		List<OnboardingResultDto> results = new ArrayList<>();
+		List<Row> chunk = new ArrayList<>(chunkSize);
+		int row = 0;
+		String line;
+
+		while ((line = reader.readLine()) != null) {
+
+			if (line.isBlank()) {
+				continue;
+			}
+
+			chunk.add(toRow(++row, parseCsvLine(line)));
+
+			if (chunk.size() == chunkSize) {
+				results.addAll(createChunk(chunk));
+				chunk.clear();
+			}
+		}
+
+		if (row == 0) {
+
+			log.error(Constants.ONBOARDING_EMPTY_MESSAGE);
+			throw new InvalidRequestDataException(Constants.ONBOARDING_EMPTY_MESSAGE);
+		}
+
+		results.addAll(createChunk(chunk));
+
+		return response(results);
+	}
+
+	private List<OnboardingResultDto> createChunk(List<Row> rows) {
+
+		if (rows.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		try {
+			return transactionTemplate.execute(status -> insertChunk(rows));
+		} catch (DataIntegrityViolationException exception) {
+
+			// An account of the chunk was created by another request after the check,
+			// checking again rejects it
+			log.warn("Chunk of {} accounts conflicted with a concurrent insert, retrying: {}", rows.size(),
+					exception.getMessage());
+
+			return transactionTemplate.execute(status -> insertChunk(rows));
+		}
+	}
+
+	private List<OnboardingResultDto> insertChunk(List<Row> rows) {
+
+		OnboardingResultDto[] results = new OnboardingResultDto[rows.size()];
+		List<Integer> validRows = new ArrayList<>(rows.size());
+
+		for (int index = 0; index < rows.size(); index++) {
+
+			Row row = rows.get(index);
+			String error = row.error != null ? row.error : validate(row.accountRequest);
+
+			if (error != null) {
+				results[index] = rejected(row.row, error);
+			} else {
+				validRows.add(index);
+			}
+		}
+
+		Set<String> existingEmailIds = existing(validRows.stream()
+				.map(index -> rows.get(index).accountRequest.getEmailId()).collect(Collectors.toSet()),
+				accountRepository::findEmailIdsIn);
+		Set<String> existingMobileNumbers = existing(validRows.stream()
+				.map(index -> rows.get(index).accountRequest.getMobileNumber()).collect(Collectors.toSet()),
+				accountRepository::findMobileNumbersIn);
+
+		List<Account> accounts = new ArrayList<>(validRows.size());
+
+		for (int index : validRows) {
+
+			Row row = rows.get(index);
+			AccountRequest accountRequest = row.accountRequest;
+
+			// Earlier accounts of the same chunk are taken into the existing ones
+			if (!existingEmailIds.add(accountRequest.getEmailId())
+					|| !existingMobileNumbers.add(accountRequest.getMobileNumber())) {
+
+				results[index] = rejected(row.row, String.format(Constants.ACCOUNT_ALREADY_EXISTS_MESSAGE,
+						accountRequest.getEmailId(), accountRequest.getMobileNumber()));
+				continue;
+			}
+
+			Account account = new Account();
+			BeanUtils.copyProperties(accountRequest, account);
+			account.setAccountNumber(accountNumberAllocator.allocate());
+			account.setAccountStatus(AccountStatus.ACTIVE.name());
+			accounts.add(account);
+
+			results[index] = OnboardingResultDto.builder().row(row.row).status(OnboardingStatus.CREATED.name())
+					.accountNumber(account.getAccountNumber()).build();
+		}
+
+		if (!accounts.isEmpty()) {
+			accountJdbcRepository.insertAccounts(accounts);
+		}
+
+		return Arrays.asList(results);
+	}
+
+	private static Set<String> existing(Set<String> values, Function<Set<String>, List<String>> query) {
+
+		return values.isEmpty() ? new HashSet<>() : new HashSet<>(query.apply(values));
+	}
+
+	// Same constraints as the single account request, which leaves the columns
+	// without a database default to be checked here
+	private String validate(AccountRequest accountRequest) {
+
+		List<String> errors = validator.validate(accountRequest).stream()
+				.map(violation -> violation.getPropertyPath() + " " + violation.getMessage()).sorted()
+				.collect(Collectors.toList());
+
+		if (accountRequest.getAccountType() == null) {
+			errors.add(String.format(Constants.ACCOUNT_FIELD_MISSING_MESSAGE, "accountType"));
+		}
+
+		if (accountRequest.getBalanceAmount() == null) {
+			errors.add(String.format(Constants.ACCOUNT_FIELD_MISSING_MESSAGE, "balanceAmount"));
+		}
+
+		return errors.isEmpty() ? null : String.format(Constants.INVALID_ACCOUNT_MESSAGE, String.join(", ", errors));
+	}
+
+	private static Row toRow(int row, List<String> values) {
+
+		if (values.size() != CSV_COLUMNS.size()) {
+			return new Row(row, null,
+					String.format(Constants.INVALID_CSV_ROW_MESSAGE, String.join(",", CSV_COLUMNS)));
+		}
+
+		BigDecimal balanceAmount = null;
+
+		if (!values.get(4).isEmpty()) {
+			try {
+				balanceAmount = new BigDecimal(values.get(4));
+			} catch (NumberFormatException exception) {
+				return new Row(row, null,
+						String.format(Constants.INVALID_ACCOUNT_MESSAGE, "balanceAmount is not a number"));
+			}
+		}
+
+		return new Row(row, AccountRequest.builder().fullName(values.get(0)).emailId(values.get(1))
+				.mobileNumber(values.get(2)).accountType(values.get(3).isEmpty() ? null : values.get(3))
+				.balanceAmount(balanceAmount).build(), null);
+	}
+
+	// Splits a CSV line, with values optionally quoted as the exports write them
+	private static List<String> parseCsvLine(String line) {
+
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+
+		for (int index = 0; index < line.length(); index++) {
+
+			char character = line.charAt(index);
+
+			if (quoted) {
+
+				if (character != '"') {
+					value.append(character);
+				} else if (index + 1 < line.length() && line.charAt(index + 1) == '"') {
+					value.append('"');
+					index++;
+				} else {
+					quoted = false;
+				}
+			} else if (character == '"') {
+				quoted = true;
+			} else if (character == ',') {
+				values.add(value.toString().trim());
+				value.setLength(0);
+			} else {
+				value.append(character);
+			}
+		}
+
+		values.add(value.toString().trim());
+
+		return values;
+	}
+
+	private static OnboardingResultDto rejected(int row, String message) {
+
+		return OnboardingResultDto.builder().row(row).status(OnboardingStatus.REJECTED.name()).message(message)
+				.build();
+	}
+
+	private static OnboardingResponse response(List<OnboardingResultDto> results) {
+
+		int noOfCreated = (int) results.stream()
+				.filter(result -> OnboardingStatus.CREATED.name().equals(result.getStatus())).count();
+		int noOfRejected = results.size() - noOfCreated;
+
+		log.info("Onboarding created {} accounts and rejected {}", noOfCreated, noOfRejected);
+
+		return OnboardingResponse.builder()
+				.message(String.format(Constants.ONBOARDING_SUCCESS_MESSAGE, noOfCreated, noOfRejected))
+				.noOfCreated(noOfCreated).noOfRejected(noOfRejected).results(results).build();
+	}
+
+	@AllArgsConstructor
+	private static class Row {
+
+		private final int row;
+
+		private final AccountRequest accountRequest;
+
+		private final String error;
+	}
+}
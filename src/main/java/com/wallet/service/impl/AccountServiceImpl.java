@@ -1,21 +1,29 @@
 package com.wallet.service.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.wallet.cache.BalanceCache;
 import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.ledger.LedgerEngine;
 import com.wallet.model.AccountStatus;
 import com.wallet.model.Constants;
 import com.wallet.model.dto.request.AccountRequest;
 import com.wallet.model.dto.response.AccountDto;
+import com.wallet.model.dto.response.OnboardingResponse;
 import com.wallet.model.entity.Account;
 import com.wallet.repository.AccountRepository;
+import com.wallet.service.AccountNumberAllocator;
 import com.wallet.service.AccountService;
-import com.wallet.util.Util;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,16 +36,27 @@ public class AccountServiceImpl implements AccountService {
 	private AccountRepository accountRepository;
 
 	@Autowired
-	private Util accountUtil;
+	private AccountNumberAllocator accountNumberAllocator;
+
+	@Autowired
+	private AccountOnboarding accountOnboarding;
+
+	@Autowired
+	private StripedBalances stripedBalances;
+
+	@Autowired
+	private BalanceCache balanceCache;
+
+	@Autowired(required = false)
+	private LedgerEngine ledgerEngine;
 
 	@Override
 	public AccountDto createAccount(AccountRequest accountRequest) {
 
-		// Check if account already exists
-		Optional<Account> optionalAccount = accountRepository.findByEmailIdOrMobileNumber(accountRequest.getEmailId(),
-				accountRequest.getMobileNumber());
-
-		if (optionalAccount.isPresent()) {
+		// Check if account already exists, with one probe of the unique index of each
+		// column as an OR across both of them cannot use either
+		if (accountRepository.existsByEmailId(accountRequest.getEmailId())
+				|| accountRepository.existsByMobileNumber(accountRequest.getMobileNumber())) {
 
 			log.error(String.format(Constants.ACCOUNT_ALREADY_EXISTS_MESSAGE, accountRequest.getEmailId(),
 					accountRequest.getMobileNumber()));
@@ -48,7 +67,7 @@ public class AccountServiceImpl implements AccountService {
 		Account account = new Account();
 		BeanUtils.copyProperties(accountRequest, account);
 
-		String accountNumber = accountUtil.generateAccountNumber();
+		String accountNumber = accountNumberAllocator.allocate();
 		account.setAccountNumber(accountNumber);
 		account.setAccountStatus(AccountStatus.ACTIVE.name());
 
@@ -61,8 +80,35 @@ public class AccountServiceImpl implements AccountService {
 	}
 
 	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public OnboardingResponse createAccounts(List<AccountRequest> accountRequests) {
+
+		// Every chunk commits on its own
+		return accountOnboarding.createAccounts(accountRequests);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public OnboardingResponse createAccounts(InputStream csv) throws IOException {
+
+		return accountOnboarding.createAccounts(csv);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public AccountDto fetchBalance(String accountNumber) {
 
+		// Ledger balances are ahead of the stored ones and are not cached. Cache hits
+		// do not take a database connection
+		BigDecimal balance = ledgerEngine == null ? balanceCache.get(accountNumber, () -> loadBalance(accountNumber))
+				: loadBalance(accountNumber);
+
+		return AccountDto.builder().message(Constants.BALANCE_SUCCESS_MESSAGE).accountBalance(balance.toPlainString())
+				.accountNumber(accountNumber).build();
+	}
+
+	private BigDecimal loadBalance(String accountNumber) {
+
 		Optional<Account> optionalAccount = accountRepository.findByAccountNumberAndAccountStatus(accountNumber,
 				AccountStatus.ACTIVE.name());
 
@@ -74,8 +120,44 @@ public class AccountServiceImpl implements AccountService {
 
 		Account account = optionalAccount.get();
 
-		return AccountDto.builder().message(Constants.BALANCE_SUCCESS_MESSAGE)
-				.accountBalance(account.getBalanceAmount().toPlainString()).accountNumber(account.getAccountNumber())
+		// Ledger balance is ahead of the stored one until pending entries are flushed
+		BigDecimal balance = ledgerEngine == null ? account.getBalanceAmount()
+				: ledgerEngine.balanceOf(accountNumber).orElse(account.getBalanceAmount());
+
+		// Striped accounts hold most of their balance in the stripes
+		if (account.getBalanceStripes() > 0) {
+			balance = stripedBalances.balanceOf(account);
+		}
+
+		return balance;
+	}
+
+	@Override
+	public AccountDto stripeBalance(String accountNumber, int stripes) {
+
+		// The ledger keeps a single in-memory balance per account already
+		if (ledgerEngine != null) {
+
+			log.error(Constants.BALANCE_STRIPES_NOT_SUPPORTED_MESSAGE);
+			throw new InvalidRequestDataException(Constants.BALANCE_STRIPES_NOT_SUPPORTED_MESSAGE);
+		}
+
+		Optional<Account> optionalAccount = accountRepository
+				.findWithLockByAccountNumberAndAccountStatus(accountNumber, AccountStatus.ACTIVE.name());
+
+		if (optionalAccount.isEmpty()) {
+
+			log.error(String.format(Constants.ACCOUNT_DOES_NOT_EXIST_MESSAGE, accountNumber));
+			throw new InvalidRequestDataException(String.format(Constants.ACCOUNT_DOES_NOT_EXIST_MESSAGE, accountNumber));
+		}
+
+		Account account = optionalAccount.get();
+		stripedBalances.restripe(account, stripes);
+
+		log.info("Balance of accountNumber: {} split into {} stripes", accountNumber, stripes);
+
+		return AccountDto.builder().message(String.format(Constants.BALANCE_STRIPES_SUCCESS_MESSAGE, stripes))
+				.accountNumber(accountNumber).accountBalance(stripedBalances.balanceOf(account).toPlainString())
 				.build();
 	}
 }
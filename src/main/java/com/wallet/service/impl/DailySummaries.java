@@ -0,0 +1,75 @@
+package com.wallet.service.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.wallet.repository.DailyAccountSummaryRepository;
+import com.wallet.repository.TransactionJdbcRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the daily credit and debit rollups of every account up to date, in the
+ * transaction which records the transactions. Must be called within a
+ * transaction
+ */
+@Slf4j
+@Component
+public class DailySummaries {
+
+	@Autowired
+	private DailyAccountSummaryRepository dailyAccountSummaryRepository;
+
+	@Autowired
+	private TransactionJdbcRepository transactionJdbcRepository;
+
+	public void addCredit(String accountNumber, int balanceStripes, LocalDate summaryDate, BigDecimal amount) {
+
+		add(accountNumber, balanceStripes, summaryDate, 1, amount, 0, BigDecimal.ZERO);
+	}
+
+	public void addDebit(String accountNumber, int balanceStripes, LocalDate summaryDate, BigDecimal amount) {
+
+		add(accountNumber, balanceStripes, summaryDate, 0, BigDecimal.ZERO, 1, amount);
+	}
+
+	/**
+	 * Adds to the rollup of the day. Striped accounts add to the row of a random
+	 * stripe, so their writers do not queue on a single summary row
+	 */
+	public void add(String accountNumber, int balanceStripes, LocalDate summaryDate, long creditCount,
+			BigDecimal creditAmount, long debitCount, BigDecimal debitAmount) {
+
+		int stripeIndex = balanceStripes == 0 ? 0 : ThreadLocalRandom.current().nextInt(balanceStripes);
+
+		if (dailyAccountSummaryRepository.addToSummary(accountNumber, summaryDate, stripeIndex, creditCount,
+				creditAmount, debitCount, debitAmount) > 0) {
+			return;
+		}
+
+		// First transaction of the day on this row, create it empty and add again
+		createSummary(accountNumber, summaryDate, stripeIndex);
+
+		if (dailyAccountSummaryRepository.addToSummary(accountNumber, summaryDate, stripeIndex, creditCount,
+				creditAmount, debitCount, debitAmount) == 0) {
+			throw new IllegalStateException(String.format("Daily summary of accountNumber: %s on %s does not exist",
+					accountNumber, summaryDate));
+		}
+	}
+
+	/**
+	 * Creates the empty row behind a savepoint. A concurrent writer which created
+	 * it first only rolls back to the savepoint, not its whole transaction
+	 */
+	private void createSummary(String accountNumber, LocalDate summaryDate, int stripeIndex) {
+
+		if (!transactionJdbcRepository.insertDailySummary(accountNumber, summaryDate, stripeIndex)) {
+			log.debug("Daily summary of accountNumber: {} on {} was created concurrently", accountNumber,
+					summaryDate);
+		}
+	}
+}
@@ -0,0 +1,391 @@
+package com.wallet.service.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.wallet.cache.TransactionIdFilter;
+import com.wallet.model.AccountStatus;
+import com.wallet.model.ExportFormat;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionFilter;
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
+import com.wallet.model.entity.Account;
+import com.wallet.repository.AccountRepository;
+import com.wallet.service.TransactionService;
+import com.wallet.util.Money;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces concurrent credits and debits into shared database commits. A
+ * single writer thread drains the queue once it holds max-batch-size writes or
+ * max-wait has passed since the first one, and applies them all in one
+ * transaction. Writes which are bound to fail are left out of the group and
+ * applied on their own afterwards, so their errors cannot roll back the rest.
+ * Enabled with wallet.transactions.write-mode=group-commit
+ */
+@Slf4j
+@Primary
+@Service
+@ConditionalOnProperty(name = "wallet.transactions.write-mode", havingValue = "group-commit")
+public class GroupCommitTransactionServiceImpl implements TransactionService {
+
+	private static final String STOPPED_MESSAGE = "Group commit writer is stopped";
+
+	@Autowired
+	private TransactionServiceImpl transactionServiceImpl;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionIdFilter transactionIdFilter;
+
+	@Value("${wallet.group-commit.max-batch-size:64}")
+	private int maxBatchSize;
+
+	@Value("${wallet.group-commit.max-wait-micros:500}")
+	private long maxWaitMicros;
+
+	@Value("${wallet.currency:INR}")
+	private String currency;
+
+	// Decimals of the minor unit the group is checked in
+	private int scale;
+
+	private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+
+	private Thread writer;
+
+	private volatile boolean running;
+
+	@PostConstruct
+	public void start() {
+
+		running = true;
+		scale = Money.scaleOf(currency);
+
+		writer = new Thread(this::writeLoop, "group-commit-writer");
+		writer.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+
+		// Writer drains the queue before exiting
+		running = false;
+		writer.join();
+
+		// Fail the writes the writer did not take, if it exited early
+		List<PendingWrite> leftoverWrites = new ArrayList<>();
+		pendingWrites.drainTo(leftoverWrites);
+		leftoverWrites.forEach(
+				pendingWrite -> pendingWrite.result.completeExceptionally(new IllegalStateException(STOPPED_MESSAGE)));
+	}
+
+	@Override
+	public TransactionDto performDebit(String accountNumber, TransactionRequest transactionRequest) {
+
+		return enqueue(new PendingWrite(accountNumber, transactionRequest, TransactionType.DEBIT,
+				new CompletableFuture<>()));
+	}
+
+	@Override
+	public TransactionDto performCredit(String accountNumber, TransactionRequest transactionRequest) {
+
+		return enqueue(new PendingWrite(accountNumber, transactionRequest, TransactionType.CREDIT,
+				new CompletableFuture<>()));
+	}
+
+	@Override
+	public TransactionResponse getAllTransactions(String accountNumber, Integer page, Integer limit) {
+
+		return transactionServiceImpl.getAllTransactions(accountNumber, page, limit);
+	}
+
+	@Override
+	public TransactionResponse getTransactionSlice(String accountNumber, Integer page, Integer limit) {
+
+		return transactionServiceImpl.getTransactionSlice(accountNumber, page, limit);
+	}
+
+	@Override
+	public TransactionResponse getFilteredTransactions(String accountNumber, TransactionFilter filter, Integer page,
+			Integer limit, boolean totals) {
+
+		return transactionServiceImpl.getFilteredTransactions(accountNumber, filter, page, limit, totals);
+	}
+
+	@Override
+	public TransactionResponse getTransactionsAfter(String accountNumber, String cursor, Integer limit) {
+
+		return transactionServiceImpl.getTransactionsAfter(accountNumber, cursor, limit);
+	}
+
+	@Override
+	public StatementDto getStatement(String accountNumber, LocalDate fromDate, LocalDate toDate) {
+
+		return transactionServiceImpl.getStatement(accountNumber, fromDate, toDate);
+	}
+
+	@Override
+	public SummaryDto getSummary(String accountNumber, LocalDate fromDate, LocalDate toDate) {
+
+		return transactionServiceImpl.getSummary(accountNumber, fromDate, toDate);
+	}
+
+	@Override
+	public StreamingResponseBody exportTransactions(String accountNumber, ExportFormat format) {
+
+		return transactionServiceImpl.exportTransactions(accountNumber, format);
+	}
+
+	@Override
+	public TransactionResponse performBatch(String accountNumber, List<BatchTransactionItem> transactions) {
+
+		return transactionServiceImpl.performBatch(accountNumber, transactions);
+	}
+
+	@Override
+	public TransferDto performTransfer(TransferRequest transferRequest) {
+
+		return transactionServiceImpl.performTransfer(transferRequest);
+	}
+
+	private TransactionDto enqueue(PendingWrite pendingWrite) {
+
+		if (!running) {
+			throw new IllegalStateException(STOPPED_MESSAGE);
+		}
+
+		pendingWrites.add(pendingWrite);
+
+		// The writer may have drained the queue for the last time since the check
+		if (!running && pendingWrites.remove(pendingWrite)) {
+			throw new IllegalStateException(STOPPED_MESSAGE);
+		}
+
+		try {
+			return pendingWrite.result.get();
+		} catch (ExecutionException exception) {
+
+			if (exception.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) exception.getCause();
+			}
+			throw new IllegalStateException(exception.getCause());
+		} catch (InterruptedException exception) {
+
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	private void writeLoop() {
+
+		List<PendingWrite> group = new ArrayList<>(maxBatchSize);
+		long maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+
+		while (running || !pendingWrites.isEmpty()) {
+
+			try {
+				PendingWrite first = pendingWrites.poll(100, TimeUnit.MILLISECONDS);
+
+				if (first == null) {
+					continue;
+				}
+
+				group.add(first);
+				long deadline = System.nanoTime() + maxWaitNanos;
+
+				while (group.size() < maxBatchSize) {
+
+					long remaining = deadline - System.nanoTime();
+					PendingWrite next = remaining > 0 ? pendingWrites.poll(remaining, TimeUnit.NANOSECONDS) : null;
+
+					if (next == null) {
+						break;
+					}
+
+					group.add(next);
+					pendingWrites.drainTo(group, maxBatchSize - group.size());
+				}
+
+				commit(group);
+			} catch (InterruptedException exception) {
+
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				group.clear();
+			}
+		}
+	}
+
+	private void commit(List<PendingWrite> group) {
+
+		List<PendingWrite> failingWrites;
+
+		try {
+			failingWrites = findFailingWrites(group);
+		} catch (RuntimeException exception) {
+
+			log.debug("Group of {} writes could not be checked, applying them one by one: {}", group.size(),
+					exception.getMessage());
+			applyEach(group);
+			return;
+		}
+
+		List<PendingWrite> groupedWrites = new ArrayList<>(group);
+		groupedWrites.removeAll(failingWrites);
+
+		if (!groupedWrites.isEmpty()) {
+
+			try {
+				List<TransactionDto> results = transactionTemplate
+						.execute(status -> groupedWrites.stream().map(this::apply).collect(Collectors.toList()));
+
+				for (int index = 0; index < groupedWrites.size(); index++) {
+					groupedWrites.get(index).result.complete(results.get(index));
+				}
+			} catch (RuntimeException exception) {
+
+				log.debug("Group of {} writes rolled back, applying them one by one: {}", groupedWrites.size(),
+						exception.getMessage());
+				applyEach(groupedWrites);
+			}
+		}
+
+		// Applied after the group, so they see its balances
+		applyEach(failingWrites);
+	}
+
+	// Every write gets its own transaction, so each caller gets its own outcome
+	private void applyEach(List<PendingWrite> writes) {
+
+		for (PendingWrite pendingWrite : writes) {
+			try {
+				pendingWrite.result.complete(apply(pendingWrite));
+			} catch (RuntimeException writeException) {
+				pendingWrite.result.completeExceptionally(writeException);
+			}
+		}
+	}
+
+	/**
+	 * Returns the writes which would fail inside the group: the ones on missing
+	 * or inactive accounts, the ones with a transactionId which may have been
+	 * used already, and the debits which the balance left by the earlier writes
+	 * of the group does not cover. Debits of striped accounts are included, as
+	 * the stripe they land on is only picked when they are applied.
+	 */
+	private List<PendingWrite> findFailingWrites(List<PendingWrite> group) {
+
+		Map<String, Account> accounts = accountRepository
+				.findAllByAccountNumberIn(
+						group.stream().map(pendingWrite -> pendingWrite.accountNumber).collect(Collectors.toSet()))
+				.stream().collect(Collectors.toMap(Account::getAccountNumber, account -> account));
+		Map<String, Long> balances = new HashMap<>();
+		Set<String> transactionIds = new HashSet<>();
+		List<PendingWrite> failingWrites = new ArrayList<>();
+
+		for (PendingWrite pendingWrite : group) {
+
+			Account account = accounts.get(pendingWrite.accountNumber);
+			String transactionId = pendingWrite.transactionRequest.getTransactionId();
+
+			// Retries are replayed and reused transactionIds rejected on their own
+			if (account == null || !AccountStatus.ACTIVE.name().equals(account.getAccountStatus())
+					|| !transactionIds.add(transactionId) || transactionIdFilter.mightContain(transactionId)) {
+
+				failingWrites.add(pendingWrite);
+				continue;
+			}
+
+			if (account.getBalanceStripes() > 0) {
+
+				if (pendingWrite.transactionType == TransactionType.DEBIT) {
+					failingWrites.add(pendingWrite);
+				}
+				continue;
+			}
+
+			long updatedBalance;
+
+			// Amounts which do not convert or overflow the balance fail on their own
+			try {
+
+				long balance = balances.containsKey(account.getAccountNumber())
+						? balances.get(account.getAccountNumber())
+						: Money.toMinorUnits(account.getBalanceAmount(), scale);
+				long amount = Money.toMinorUnits(pendingWrite.transactionRequest.getAmount(), scale);
+
+				updatedBalance = pendingWrite.transactionType == TransactionType.DEBIT ? Money.subtract(balance, amount)
+						: Money.add(balance, amount);
+			} catch (ArithmeticException exception) {
+
+				failingWrites.add(pendingWrite);
+				continue;
+			}
+
+			if (updatedBalance < 0) {
+				failingWrites.add(pendingWrite);
+			} else {
+				balances.put(account.getAccountNumber(), updatedBalance);
+			}
+		}
+
+		return failingWrites;
+	}
+
+	private TransactionDto apply(PendingWrite pendingWrite) {
+
+		return pendingWrite.transactionType == TransactionType.DEBIT
+				? transactionServiceImpl.performDebit(pendingWrite.accountNumber, pendingWrite.transactionRequest)
+				: transactionServiceImpl.performCredit(pendingWrite.accountNumber, pendingWrite.transactionRequest);
+	}
+
+	@AllArgsConstructor
+	private static class PendingWrite {
+
+		private final String accountNumber;
+
+		private final TransactionRequest transactionRequest;
+
+		private final TransactionType transactionType;
+
+		private final CompletableFuture<TransactionDto> result;
+	}
+}
@@ -0,0 +1,364 @@
+package com.wallet.service.impl;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.archive.TransactionArchive;
+import com.wallet.cache.BalanceCache;
+import com.wallet.cache.TransactionIdFilter;
+import com.wallet.exception.DuplicateTransactionException;
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.ledger.LedgerEngine;
+import com.wallet.model.AccountStatus;
+import com.wallet.model.Constants;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.HoldRequest;
+import com.wallet.model.dto.response.HoldDto;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.BalanceHold;
+import com.wallet.model.entity.Transaction;
+import com.wallet.repository.AccountRepository;
+import com.wallet.repository.BalanceHoldRepository;
+import com.wallet.repository.TransactionRepository;
+import com.wallet.service.HoldService;
+import com.wallet.util.HashedTimerWheel;
+import com.wallet.util.Util;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Two-phase debits. A hold takes the amount out of the balance right away but
+ * records no transaction; capturing it records the DEBIT, releasing it or
+ * letting it expire returns the amount. Expiry is driven by an in-memory timer
+ * wheel, which is rebuilt from the stored holds on startup
+ */
+@Slf4j
+@Transactional
+@Service
+public class HoldServiceImpl implements HoldService {
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private BalanceHoldRepository balanceHoldRepository;
+
+	@Autowired
+	private StripedBalances stripedBalances;
+
+	@Autowired
+	private TransactionIdFilter transactionIdFilter;
+
+	@Autowired
+	private BalanceCache balanceCache;
+
+	@Autowired
+	private DailySummaries dailySummaries;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private Util holdUtil;
+
+	@Autowired(required = false)
+	private LedgerEngine ledgerEngine;
+
+	@Value("${wallet.holds.tick-millis:10}")
+	private long tickMillis;
+
+	@Value("${wallet.holds.wheel-size:512}")
+	private int wheelSize;
+
+	private HashedTimerWheel<String> expiryWheel;
+
+	// Expiries need a database transaction, which the wheel thread must not wait for
+	private ExecutorService expiryExecutor;
+
+	@PostConstruct
+	public void start() {
+
+		expiryExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("hold-expiry-"));
+		expiryWheel = new HashedTimerWheel<>("hold-expiry-wheel", tickMillis, wheelSize,
+				holdId -> expiryExecutor.execute(() -> expire(holdId)));
+		expiryWheel.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+
+		// Unsettled holds are rescheduled from the database on next start
+		expiryWheel.stop();
+		expiryExecutor.shutdown();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void scheduleStoredHolds() {
+
+		LocalDateTime now = LocalDateTime.now();
+
+		balanceHoldRepository.findAll().forEach(hold -> expiryWheel.schedule(hold.getHoldId(),
+				Math.max(Duration.between(now, hold.getExpiresAt()).toMillis(), 0)));
+
+		log.info("{} stored holds scheduled for expiry", expiryWheel.size());
+	}
+
+	@Override
+	public HoldDto reserve(String accountNumber, HoldRequest holdRequest) {
+
+		checkLedgerMode();
+
+		String holdId = holdRequest.getHoldId();
+
+		// The hold id becomes the transactionId of the captured debit
+		if (balanceHoldRepository.existsByHoldId(holdId) || (transactionIdFilter.mightContain(holdId)
+				&& transactionRepository.findByTransactionId(holdId)
+						.or(() -> transactionArchive.findByTransactionId(holdId)).isPresent())) {
+
+			log.error(String.format(Constants.DUPLICATE_HOLD_MESSAGE, holdId));
+			throw new DuplicateTransactionException(String.format(Constants.DUPLICATE_HOLD_MESSAGE, holdId));
+		}
+
+		Account account = takeAmount(accountNumber, holdRequest.getAmount());
+
+		LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(holdRequest.getTtlMillis()));
+
+		try {
+			balanceHoldRepository.saveAndFlush(BalanceHold.builder().holdId(holdId).accountNumber(accountNumber)
+					.holdAmount(holdRequest.getAmount()).expiresAt(expiresAt).build());
+		} catch (DataIntegrityViolationException exception) {
+
+			// A concurrent request used the hold id first
+			log.error(String.format(Constants.DUPLICATE_HOLD_MESSAGE, holdId));
+			throw new DuplicateTransactionException(String.format(Constants.DUPLICATE_HOLD_MESSAGE, holdId));
+		}
+
+		// Expiry only ever sees committed holds
+		afterCommit(() -> expiryWheel.schedule(holdId, holdRequest.getTtlMillis()));
+
+		log.info("Hold: {} of {} placed on accountNumber: {}", holdId, holdRequest.getAmount(), accountNumber);
+
+		return HoldDto.builder().message(Constants.HOLD_SUCCESS_MESSAGE).holdId(holdId).accountNumber(accountNumber)
+				.holdAmount(holdRequest.getAmount().toPlainString())
+				.accountBalance(balanceOf(accountNumber, account).toPlainString()).expiresAt(holdUtil.getTimeString(expiresAt))
+				.build();
+	}
+
+	@Override
+	public TransactionDto capture(String accountNumber, String holdId) {
+
+		checkLedgerMode();
+
+		Optional<BalanceHold> optionalHold = balanceHoldRepository.findWithLockByHoldId(holdId);
+
+		if (optionalHold.isEmpty() || !optionalHold.get().getAccountNumber().equals(accountNumber)) {
+
+			// A retried capture gets the original debit
+			Optional<Transaction> capturedTransaction = transactionRepository.findByTransactionId(holdId);
+
+			if (capturedTransaction.isPresent()
+					&& capturedTransaction.get().getAccount().getAccountNumber().equals(accountNumber)
+					&& TransactionType.DEBIT.name().equals(capturedTransaction.get().getTransactionType())) {
+				return holdUtil.mapToPerformedTransactionDto(capturedTransaction.get());
+			}
+
+			throw holdDoesNotExist(holdId);
+		}
+
+		BalanceHold hold = optionalHold.get();
+
+		// An expired hold is only ever returned, even if its expiry has not run yet
+		if (!hold.getExpiresAt().isAfter(LocalDateTime.now())) {
+
+			log.error(String.format(Constants.HOLD_EXPIRED_MESSAGE, holdId));
+			throw new InvalidRequestDataException(String.format(Constants.HOLD_EXPIRED_MESSAGE, holdId));
+		}
+
+		balanceHoldRepository.delete(hold);
+		afterCommit(() -> expiryWheel.cancel(holdId));
+
+		// The balance already excludes the held amount
+		Account account = checkAccountExists(accountNumber);
+		BigDecimal balance = stripedBalances.balanceOf(account);
+
+		if (account.getBalanceStripes() == 0) {
+			accountRepository.addTransactionCount(accountNumber, 1);
+		} else {
+			stripedBalances.countTransactions(account, 1);
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		transactionRepository.insertTransaction(accountNumber, holdId, TransactionType.DEBIT.name(),
+				hold.getHoldAmount(), now, balance);
+		transactionIdFilter.put(holdId);
+		dailySummaries.addDebit(accountNumber, account.getBalanceStripes(), now.toLocalDate(), hold.getHoldAmount());
+
+		log.info("Hold: {} captured on accountNumber: {}", holdId, accountNumber);
+
+		return TransactionDto.builder().message(Constants.DEBIT_SUCCESS_MESSAGE).accountNumber(accountNumber)
+				.accountBalance(balance.toPlainString()).transactionId(holdId)
+				.transactionType(TransactionType.DEBIT.name()).transactionAmount(hold.getHoldAmount().toPlainString())
+				.transactionDate(holdUtil.getTimeString(now)).build();
+	}
+
+	@Override
+	public HoldDto release(String accountNumber, String holdId) {
+
+		checkLedgerMode();
+
+		Optional<BalanceHold> optionalHold = balanceHoldRepository.findWithLockByHoldId(holdId);
+
+		if (optionalHold.isEmpty() || !optionalHold.get().getAccountNumber().equals(accountNumber)) {
+			throw holdDoesNotExist(holdId);
+		}
+
+		BalanceHold hold = optionalHold.get();
+		Account account = returnAmount(hold);
+		afterCommit(() -> expiryWheel.cancel(holdId));
+
+		log.info("Hold: {} released on accountNumber: {}", holdId, accountNumber);
+
+		return HoldDto.builder().message(Constants.HOLD_RELEASE_SUCCESS_MESSAGE).holdId(holdId)
+				.accountNumber(accountNumber).holdAmount(hold.getHoldAmount().toPlainString())
+				.accountBalance(balanceOf(accountNumber, account).toPlainString()).build();
+	}
+
+	// Runs on the expiry executor, outside of the service proxy
+	private void expire(String holdId) {
+
+		try {
+			transactionTemplate.executeWithoutResult(
+					status -> balanceHoldRepository.findWithLockByHoldId(holdId).ifPresent(hold -> {
+
+						LocalDateTime now = LocalDateTime.now();
+
+						// The wheel fires within a tick of the deadline, possibly before it
+						if (hold.getExpiresAt().isAfter(now)) {
+
+							expiryWheel.schedule(holdId, Duration.between(now, hold.getExpiresAt()).toMillis() + 1);
+							return;
+						}
+
+						returnAmount(hold);
+						log.info("Hold: {} on accountNumber: {} expired", holdId, hold.getAccountNumber());
+					}));
+		} catch (RuntimeException exception) {
+			log.error("Hold: {} could not be expired: {}", holdId, exception.getMessage());
+		}
+	}
+
+	/**
+	 * Takes the amount out of the balance, from the stripes if the account is
+	 * striped. Returns the striped account, or null
+	 */
+	private Account takeAmount(String accountNumber, BigDecimal amount) {
+
+		balanceCache.invalidateWithinTransaction(accountNumber);
+
+		if (accountRepository.debitBalance(accountNumber, AccountStatus.ACTIVE.name(), amount) > 0) {
+			return null;
+		}
+
+		// Check account exists, otherwise the funds were insufficient
+		Account account = checkAccountExists(accountNumber);
+
+		if (account.getBalanceStripes() == 0 || !stripedBalances.debit(account, amount)) {
+
+			log.error(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+			throw new InvalidRequestDataException(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+		}
+		return account;
+	}
+
+	private Account returnAmount(BalanceHold hold) {
+
+		balanceHoldRepository.delete(hold);
+
+		String accountNumber = hold.getAccountNumber();
+		balanceCache.invalidateWithinTransaction(accountNumber);
+
+		if (accountRepository.creditBalance(accountNumber, AccountStatus.ACTIVE.name(), hold.getHoldAmount()) > 0) {
+			return null;
+		}
+
+		Account account = checkAccountExists(accountNumber);
+		stripedBalances.credit(account, hold.getHoldAmount());
+		return account;
+	}
+
+	// The striped account is null when the balance is kept in the account row
+	private BigDecimal balanceOf(String accountNumber, Account stripedAccount) {
+
+		return stripedAccount == null ? accountRepository.findBalanceByAccountNumber(accountNumber)
+				: stripedBalances.balanceOf(stripedAccount);
+	}
+
+	private Account checkAccountExists(String accountNumber) {
+
+		return accountRepository.findByAccountNumberAndAccountStatus(accountNumber, AccountStatus.ACTIVE.name())
+				.orElseThrow(() -> {
+
+					log.error(String.format(Constants.ACCOUNT_DOES_NOT_EXIST_MESSAGE, accountNumber));
+					return new InvalidRequestDataException(
+							String.format(Constants.ACCOUNT_DOES_NOT_EXIST_MESSAGE, accountNumber));
+				});
+	}
+
+	private void checkLedgerMode() {
+
+		// Ledger balances live in memory, where the held amount would not be seen
+		if (ledgerEngine != null) {
+
+			log.error(Constants.HOLDS_NOT_SUPPORTED_MESSAGE);
+			throw new InvalidRequestDataException(Constants.HOLDS_NOT_SUPPORTED_MESSAGE);
+		}
+	}
+
+	private InvalidRequestDataException holdDoesNotExist(String holdId) {
+
+		log.error(String.format(Constants.HOLD_DOES_NOT_EXIST_MESSAGE, holdId));
+		return new InvalidRequestDataException(String.format(Constants.HOLD_DOES_NOT_EXIST_MESSAGE, holdId));
+	}
+
+	private void afterCommit(Runnable action) {
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,118 @@
+package com.wallet.service.impl;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.wallet.ledger.LedgerEngine;
+import com.wallet.model.Constants;
+import com.wallet.model.ExportFormat;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionFilter;
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
+import com.wallet.service.TransactionService;
+import com.wallet.util.Util;
+
+/**
+ * Routes credits and debits through the in-memory {@link LedgerEngine}. Enabled
+ * with wallet.transactions.write-mode=ledger
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "wallet.transactions.write-mode", havingValue = "ledger")
+public class LedgerTransactionServiceImpl implements TransactionService {
+
+	@Autowired
+	private LedgerEngine ledgerEngine;
+
+	@Autowired
+	private TransactionServiceImpl transactionServiceImpl;
+
+	@Autowired
+	private Util ledgerUtil;
+
+	@Override
+	public TransactionDto performDebit(String accountNumber, TransactionRequest transactionRequest) {
+
+		return ledgerEngine.debit(accountNumber, transactionRequest);
+	}
+
+	@Override
+	public TransactionDto performCredit(String accountNumber, TransactionRequest transactionRequest) {
+
+		return ledgerEngine.credit(accountNumber, transactionRequest);
+	}
+
+	@Override
+	public TransactionResponse getAllTransactions(String accountNumber, Integer page, Integer limit) {
+
+		return transactionServiceImpl.getAllTransactions(accountNumber, page, limit);
+	}
+
+	@Override
+	public TransactionResponse getTransactionSlice(String accountNumber, Integer page, Integer limit) {
+
+		return transactionServiceImpl.getTransactionSlice(accountNumber, page, limit);
+	}
+
+	@Override
+	public TransactionResponse getFilteredTransactions(String accountNumber, TransactionFilter filter, Integer page,
+			Integer limit, boolean totals) {
+
+		return transactionServiceImpl.getFilteredTransactions(accountNumber, filter, page, limit, totals);
+	}
+
+	@Override
+	public TransactionResponse getTransactionsAfter(String accountNumber, String cursor, Integer limit) {
+
+		return transactionServiceImpl.getTransactionsAfter(accountNumber, cursor, limit);
+	}
+
+	@Override
+	public StatementDto getStatement(String accountNumber, LocalDate fromDate, LocalDate toDate) {
+
+		return transactionServiceImpl.getStatement(accountNumber, fromDate, toDate);
+	}
+
+	@Override
+	public SummaryDto getSummary(String accountNumber, LocalDate fromDate, LocalDate toDate) {
+
+		return transactionServiceImpl.getSummary(accountNumber, fromDate, toDate);
+	}
+
+	@Override
+	public StreamingResponseBody exportTransactions(String accountNumber, ExportFormat format) {
+
+		return transactionServiceImpl.exportTransactions(accountNumber, format);
+	}
+
+	/**
+	 * The ledger checks every item before journaling them together, so as in the
+	 * direct mode the batch is all or nothing
+	 */
+	@Override
+	public TransactionResponse performBatch(String accountNumber, List<BatchTransactionItem> transactions) {
+
+		List<TransactionDto> results = ledgerEngine.batch(ledgerUtil.assignAccountNumber(accountNumber, transactions));
+
+		return TransactionResponse.builder().status(200).message(Constants.BATCH_SUCCESS_MESSAGE).transactions(results)
+				.totalNoOfTransactions(results.size()).build();
+	}
+
+	@Override
+	public TransferDto performTransfer(TransferRequest transferRequest) {
+
+		return ledgerEngine.transfer(transferRequest);
+	}
+}
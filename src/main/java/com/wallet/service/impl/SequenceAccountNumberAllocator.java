@@ -0,0 +1,114 @@
+package com.wallet.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.wallet.repository.AccountRepository;
+import com.wallet.service.AccountNumberAllocator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Allocates account numbers from blocks reserved on a database sequence. Each
+ * reservation takes one sequence value n and owns the numbers [n * block-size,
+ * (n + 1) * block-size), so instances never hand out the same number and the
+ * numbers within a block are taken with a single atomic increment. Numbers are
+ * the 9 digit block offset followed by a Luhn check digit. block-size can be
+ * raised later but never lowered, as lower blocks would overlap handed out
+ * ones
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.account-number.allocator", havingValue = "sequence", matchIfMissing = true)
+public class SequenceAccountNumberAllocator implements AccountNumberAllocator {
+
+	private static final long MAX_BODY = 999_999_999L;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Value("${wallet.account-number.block-size:1000}")
+	private long blockSize;
+
+	private volatile Block block;
+
+	@Override
+	public String allocate() {
+
+		while (true) {
+
+			Block current = block;
+
+			if (current != null) {
+
+				long body = current.next.getAndIncrement();
+
+				if (body < current.end) {
+					return String.format("%09d%d", body, checkDigit(body));
+				}
+			}
+
+			reserve(current);
+		}
+	}
+
+	/**
+	 * Luhn check digit of the number, which catches every single digit typo and
+	 * most swaps of adjacent digits
+	 */
+	public static int checkDigit(long number) {
+
+		int sum = 0;
+		boolean doubled = true;
+
+		for (long rest = number; rest > 0; rest /= 10) {
+
+			int digit = (int) (rest % 10);
+
+			if (doubled) {
+				digit *= 2;
+				digit = digit > 9 ? digit - 9 : digit;
+			}
+
+			sum += digit;
+			doubled = !doubled;
+		}
+
+		return (10 - sum % 10) % 10;
+	}
+
+	// Only the thread which finds the block exhausted first reserves the next one
+	private synchronized void reserve(Block exhausted) {
+
+		if (block != exhausted) {
+			return;
+		}
+
+		long start = accountRepository.nextAccountNumberBlock() * blockSize;
+
+		if (start + blockSize - 1 > MAX_BODY) {
+			throw new IllegalStateException("Account numbers are exhausted");
+		}
+
+		log.debug("Reserved account numbers from {} to {}", start, start + blockSize - 1);
+
+		block = new Block(start, start + blockSize);
+	}
+
+	private static class Block {
+
+		private final AtomicLong next;
+
+		private final long end;
+
+		private Block(long start, long end) {
+
+			this.next = new AtomicLong(start);
+			this.end = end;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.wallet.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.AccountBalanceStripe;
+import com.wallet.repository.AccountBalanceStripeRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Balance changes of striped accounts. Writers pick a stripe at random, so
+ * concurrent writes to a hot account lock different rows instead of queueing
+ * on the account row. Must be called within a transaction
+ */
+@Slf4j
+@Component
+public class StripedBalances {
+
+	@Autowired
+	private AccountBalanceStripeRepository accountBalanceStripeRepository;
+
+	public void credit(Account account, BigDecimal amount) {
+
+		int stripeIndex = ThreadLocalRandom.current().nextInt(account.getBalanceStripes());
+
+		if (accountBalanceStripeRepository.creditStripe(account.getAccountNumber(), stripeIndex, amount) == 0) {
+			throw new IllegalStateException(String.format("Stripe %d of accountNumber: %s does not exist",
+					stripeIndex, account.getAccountNumber()));
+		}
+	}
+
+	/**
+	 * Debits a random stripe, borrowing across all stripes when that one runs
+	 * low. Returns false when the stripes together do not have sufficient funds
+	 */
+	public boolean debit(Account account, BigDecimal amount) {
+
+		String accountNumber = account.getAccountNumber();
+		int stripeIndex = ThreadLocalRandom.current().nextInt(account.getBalanceStripes());
+
+		if (accountBalanceStripeRepository.debitStripe(accountNumber, stripeIndex, amount) > 0) {
+			return true;
+		}
+
+		List<AccountBalanceStripe> stripes = accountBalanceStripeRepository
+				.findAllByAccountNumberOrderByStripeIndex(accountNumber);
+
+		BigDecimal total = stripes.stream().map(AccountBalanceStripe::getBalanceAmount).reduce(BigDecimal.ZERO,
+				BigDecimal::add);
+
+		if (total.compareTo(amount) < 0) {
+			return false;
+		}
+
+		log.debug("Borrowing across {} stripes of accountNumber: {}", stripes.size(), accountNumber);
+
+		BigDecimal remaining = amount;
+
+		for (AccountBalanceStripe stripe : stripes) {
+
+			BigDecimal taken = stripe.getBalanceAmount().min(remaining);
+
+			if (taken.signum() > 0) {
+				accountBalanceStripeRepository.debitStripe(accountNumber, stripe.getStripeIndex(), taken);
+				remaining = remaining.subtract(taken);
+			}
+
+			if (remaining.signum() == 0) {
+				break;
+			}
+		}
+		return true;
+	}
+
+	public BigDecimal balanceOf(Account account) {
+
+		return account.getBalanceStripes() == 0 ? account.getBalanceAmount()
+				: account.getBalanceAmount()
+						.add(accountBalanceStripeRepository.sumBalanceByAccountNumber(account.getAccountNumber()));
+	}
+
+	/**
+	 * Balance of the account with all its stripes locked until the transaction
+	 * ends, so no balance change commits between reading it and reading the
+	 * transactions it includes
+	 */
+	public BigDecimal lockedBalanceOf(Account account) {
+
+		return accountBalanceStripeRepository.findAllByAccountNumberOrderByStripeIndex(account.getAccountNumber())
+				.stream().map(AccountBalanceStripe::getBalanceAmount)
+				.reduce(account.getBalanceAmount(), BigDecimal::add);
+	}
+
+	/**
+	 * Counts recorded transactions on a random stripe, like the balance changes
+	 * themselves, rather than on the account row
+	 */
+	public void countTransactions(Account account, long count) {
+
+		int stripeIndex = ThreadLocalRandom.current().nextInt(account.getBalanceStripes());
+		accountBalanceStripeRepository.addTransactionCount(account.getAccountNumber(), stripeIndex, count);
+	}
+
+	public long transactionCountOf(Account account) {
+
+		return account.getBalanceStripes() == 0 ? account.getTransactionCount()
+				: account.getTransactionCount()
+						+ accountBalanceStripeRepository.sumTransactionCountByAccountNumber(account.getAccountNumber());
+	}
+
+	/**
+	 * Splits the whole balance evenly into the given number of stripes, or folds
+	 * it back into the account row for 0 stripes. The account must be locked
+	 */
+	public void restripe(Account account, int stripeCount) {
+
+		String accountNumber = account.getAccountNumber();
+
+		List<AccountBalanceStripe> stripes = accountBalanceStripeRepository
+				.findAllByAccountNumberOrderByStripeIndex(accountNumber);
+
+		BigDecimal total = stripes.stream().map(AccountBalanceStripe::getBalanceAmount)
+				.reduce(account.getBalanceAmount(), BigDecimal::add);
+
+		accountBalanceStripeRepository.deleteAllInBatch(stripes);
+
+		// Transaction counts of the stripes are folded into the account row
+		account.setTransactionCount(account.getTransactionCount()
+				+ stripes.stream().mapToLong(AccountBalanceStripe::getTransactionCount).sum());
+		account.setBalanceStripes(stripeCount);
+
+		if (stripeCount == 0) {
+			account.setBalanceAmount(total);
+			return;
+		}
+
+		BigDecimal share = total.divide(BigDecimal.valueOf(stripeCount), 2, RoundingMode.DOWN);
+		List<AccountBalanceStripe> newStripes = new ArrayList<>(stripeCount);
+
+		for (int index = 0; index < stripeCount; index++) {
+
+			// The first stripe takes the remainder of the division
+			BigDecimal amount = index == 0 ? total.subtract(share.multiply(BigDecimal.valueOf(stripeCount - 1)))
+					: share;
+			newStripes.add(AccountBalanceStripe.builder().accountNumber(accountNumber).stripeIndex(index)
+					.balanceAmount(amount).build());
+		}
+
+		accountBalanceStripeRepository.saveAll(newStripes);
+		account.setBalanceAmount(BigDecimal.ZERO);
+	}
+}
@@ -0,0 +1,170 @@
+package com.wallet.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.archive.TransactionArchive;
+import com.wallet.model.ExportFormat;
+import com.wallet.repository.TransactionJdbcRepository;
+import com.wallet.util.Util;
+
+/**
+ * Writes the whole transaction history of an account as NDJSON or CSV, row by
+ * row from the archive and then the database cursor to the output stream
+ */
+@Component
+public class TransactionExporter {
+
+	private static final String CSV_HEADER = "transactionId,transactionType,transactionAmount,balanceAfter,transactionDate";
+
+	@Autowired
+	private TransactionJdbcRepository transactionJdbcRepository;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private Util exportUtil;
+
+	@Value("${wallet.export.fetch-size:1000}")
+	private int fetchSize;
+
+	private TransactionTemplate readOnlyTransaction;
+
+	@PostConstruct
+	public void init() {
+
+		readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+	}
+
+	public void export(String accountNumber, long archivedCount, ExportFormat format, OutputStream outputStream)
+			throws IOException {
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+		try {
+			if (format == ExportFormat.CSV) {
+				exportCsv(accountNumber, archivedCount, writer);
+			} else {
+				exportNdjson(accountNumber, archivedCount, writer);
+			}
+		} catch (UncheckedIOException exception) {
+			throw exception.getCause();
+		}
+
+		writer.flush();
+	}
+
+	private void exportNdjson(String accountNumber, long archivedCount, Writer writer) throws IOException {
+
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+		generator.setRootValueSeparator(null);
+
+		stream(accountNumber, archivedCount, (transactionId, transactionType, amount, balanceAfter, date) -> {
+
+			generator.writeStartObject();
+			generator.writeStringField("transactionId", transactionId);
+			generator.writeStringField("transactionType", transactionType);
+			generator.writeStringField("transactionAmount", plain(amount));
+			generator.writeStringField("balanceAfter", plain(balanceAfter));
+			generator.writeStringField("transactionDate", exportUtil.getTimeString(date));
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+		});
+
+		generator.flush();
+	}
+
+	private void exportCsv(String accountNumber, long archivedCount, Writer writer) throws IOException {
+
+		writer.write(CSV_HEADER);
+		writer.write('\n');
+
+		stream(accountNumber, archivedCount, (transactionId, transactionType, amount, balanceAfter, date) -> {
+
+			writer.write(csvValue(transactionId));
+			writer.write(',');
+			writer.write(transactionType);
+			writer.write(',');
+			writer.write(plain(amount));
+			writer.write(',');
+			writer.write(Objects.toString(plain(balanceAfter), ""));
+			writer.write(',');
+			writer.write(exportUtil.getTimeString(date));
+			writer.write('\n');
+		});
+	}
+
+	// The archive holds the oldest transactions, the table continues after them
+	private void stream(String accountNumber, long archivedCount, RowWriter rowWriter) {
+
+		transactionArchive.forEach(accountNumber, 0, archivedCount, transaction -> {
+			try {
+				rowWriter.write(transaction.getTransactionId(), transaction.getTransactionType(),
+						transaction.getTransactionAmount(), transaction.getBalanceAfter(),
+						transaction.getTransactionDate());
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		});
+
+		readOnlyTransaction.executeWithoutResult(status -> transactionJdbcRepository
+				.streamTransactions(accountNumber, fetchSize, resultSet -> {
+					try {
+						rowWriter.write(resultSet.getString("transaction_id"), resultSet.getString("transaction_type"),
+								resultSet.getBigDecimal("transaction_amount"), resultSet.getBigDecimal("balance_after"),
+								resultSet.getTimestamp("transaction_date").toLocalDateTime());
+					} catch (IOException exception) {
+
+						// The client went away, which also ends the query
+						throw new UncheckedIOException(exception);
+					}
+				}));
+	}
+
+	private static String plain(BigDecimal amount) {
+
+		return amount == null ? null : amount.toPlainString();
+	}
+
+	// Quotes values which would otherwise break the CSV row
+	private static String csvValue(String value) {
+
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	@FunctionalInterface
+	private interface RowWriter {
+
+		void write(String transactionId, String transactionType, BigDecimal amount, BigDecimal balanceAfter,
+				LocalDateTime date) throws IOException;
+	}
+}
@@ -1,33 +1,63 @@
 package com.wallet.service.impl;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.wallet.archive.TransactionArchive;
+import com.wallet.cache.BalanceCache;
+import com.wallet.cache.TransactionIdFilter;
 import com.wallet.exception.DuplicateTransactionException;
 import com.wallet.exception.InvalidRequestDataException;
 import com.wallet.model.AccountStatus;
 import com.wallet.model.Constants;
+import com.wallet.model.ExportFormat;
 import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionFilter;
 import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.DailySummaryDto;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
 import com.wallet.model.entity.Account;
 import com.wallet.model.entity.Transaction;
 import com.wallet.repository.AccountRepository;
+import com.wallet.repository.DailyAccountSummaryRepository;
+import com.wallet.repository.TransactionJdbcRepository;
 import com.wallet.repository.TransactionRepository;
 import com.wallet.service.TransactionService;
+import com.wallet.util.Money;
+import com.wallet.util.TransactionCursor;
 import com.wallet.util.Util;
 
 import lombok.extern.slf4j.Slf4j;
@@ -37,100 +67,651 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
+	// Bounds of an open-ended date filter
+	private static final LocalDateTime EARLIEST_TRANSACTION_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	private static final LocalDateTime LATEST_TRANSACTION_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
 	@Autowired
 	private AccountRepository accountRepository;
 
 	@Autowired
 	private TransactionRepository transactionRepository;
 
+	@Autowired
+	private TransactionJdbcRepository transactionJdbcRepository;
+
 	@Autowired
 	private Util transactionUtil;
 
+	@Autowired
+	private TransactionIdFilter transactionIdFilter;
+
+	@Autowired
+	private StripedBalances stripedBalances;
+
+	@Autowired
+	private BalanceCache balanceCache;
+
+	@Autowired
+	private TransactionExporter transactionExporter;
+
+	@Autowired
+	private DailySummaries dailySummaries;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Value("${wallet.currency:INR}")
+	private String currency;
+
+	// Decimals of the minor unit batch balances are walked back in
+	private int scale;
+
+	@PostConstruct
+	public void init() {
+
+		scale = Money.scaleOf(currency);
+	}
+
+	@Autowired
+	private DailyAccountSummaryRepository dailyAccountSummaryRepository;
+
 	@Override
 	public TransactionDto performDebit(String accountNumber, TransactionRequest transactionRequest) {
 
-		// Check account exists
-		Optional<Account> optionalAccount = checkAccountExists(accountNumber);
+		// Check duplicate transaction, a retry of the same request gets the original response
+		Optional<TransactionDto> performedTransaction = findPerformedTransaction(accountNumber, transactionRequest,
+				TransactionType.DEBIT);
+
+		if (performedTransaction.isPresent()) {
+			return performedTransaction.get();
+		}
 
-		// Check duplicate transaction
-		checkDuplicateTransaction(transactionRequest.getTransactionId());
+		// Debit only if account is active and sufficient funds are available
+		int updatedRows = accountRepository.debitBalance(accountNumber, AccountStatus.ACTIVE.name(),
+				transactionRequest.getAmount());
 
-		Account account = optionalAccount.get();
+		Account stripedAccount = null;
 
-		// Check if sufficient funds are available
-		BigDecimal remainingBalance = validateBalance(transactionRequest.getAmount(), account.getBalanceAmount());
-		account.setBalanceAmount(remainingBalance);
+		if (updatedRows == 0) {
+
+			// Check account exists, then debit its stripes if it is striped
+			Account account = checkAccountExists(accountNumber).get();
+
+			if (account.getBalanceStripes() == 0 || !stripedBalances.debit(account, transactionRequest.getAmount())) {
+
+				log.error(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+				throw new InvalidRequestDataException(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+			}
+			stripedAccount = account;
+		}
+
+		BigDecimal balance = stripedAccount == null ? accountRepository.findBalanceByAccountNumber(accountNumber)
+				: stripedBalances.balanceOf(stripedAccount);
+		cacheBalance(accountNumber, balance, stripedAccount != null);
+		countTransactions(accountNumber, stripedAccount, 1);
 
 		// Create transaction record
 		LocalDateTime now = LocalDateTime.now();
-		List<Transaction> transactions = createTransaction(transactionRequest, now, TransactionType.DEBIT.name(),
-				account);
-
-		account.setTransactions(transactions);
-		Account savedAccount = accountRepository.save(account);
+		createTransaction(accountNumber, transactionRequest, now, TransactionType.DEBIT.name(), balance);
+		dailySummaries.addDebit(accountNumber, stripedAccount == null ? 0 : stripedAccount.getBalanceStripes(),
+				now.toLocalDate(), transactionRequest.getAmount());
 
-		return TransactionDto.builder().message(Constants.DEBIT_SUCCESS_MESSAGE)
-				.accountNumber(savedAccount.getAccountNumber())
-				.accountBalance(savedAccount.getBalanceAmount().toPlainString())
-				.transactionType(TransactionType.DEBIT.name()).transactionDate(transactionUtil.getTimeString(now))
-				.build();
+		return TransactionDto.builder().message(Constants.DEBIT_SUCCESS_MESSAGE).accountNumber(accountNumber)
+				.accountBalance(balance.toPlainString()).transactionType(TransactionType.DEBIT.name())
+				.transactionDate(transactionUtil.getTimeString(now)).build();
 	}
 
 	@Override
 	public TransactionDto performCredit(String accountNumber, TransactionRequest transactionRequest) {
 
-		// Check account exists
-		Optional<Account> optionalAccount = checkAccountExists(accountNumber);
+		// Check duplicate transaction, a retry of the same request gets the original response
+		Optional<TransactionDto> performedTransaction = findPerformedTransaction(accountNumber, transactionRequest,
+				TransactionType.CREDIT);
 
-		// Check duplicate transaction
-		checkDuplicateTransaction(transactionRequest.getTransactionId());
+		if (performedTransaction.isPresent()) {
+			return performedTransaction.get();
+		}
+
+		int updatedRows = accountRepository.creditBalance(accountNumber, AccountStatus.ACTIVE.name(),
+				transactionRequest.getAmount());
+
+		Account stripedAccount = null;
+
+		if (updatedRows == 0) {
+
+			// Check account exists, then credit one of its stripes if it is striped
+			Account account = checkAccountExists(accountNumber).get();
 
-		Account account = optionalAccount.get();
-		account.setBalanceAmount(account.getBalanceAmount().add(transactionRequest.getAmount()));
+			if (account.getBalanceStripes() > 0) {
+
+				stripedBalances.credit(account, transactionRequest.getAmount());
+				stripedAccount = account;
+			}
+		}
+
+		BigDecimal balance = stripedAccount == null ? accountRepository.findBalanceByAccountNumber(accountNumber)
+				: stripedBalances.balanceOf(stripedAccount);
+		cacheBalance(accountNumber, balance, stripedAccount != null);
+		countTransactions(accountNumber, stripedAccount, 1);
 
 		// Create transaction record
 		LocalDateTime now = LocalDateTime.now();
-		List<Transaction> transactions = createTransaction(transactionRequest, now, TransactionType.CREDIT.name(),
-				account);
+		createTransaction(accountNumber, transactionRequest, now, TransactionType.CREDIT.name(), balance);
+		dailySummaries.addCredit(accountNumber, stripedAccount == null ? 0 : stripedAccount.getBalanceStripes(),
+				now.toLocalDate(), transactionRequest.getAmount());
+
+		return TransactionDto.builder().message(Constants.CREDIT_SUCCESS_MESSAGE).accountNumber(accountNumber)
+				.accountBalance(balance.toPlainString()).transactionType(TransactionType.CREDIT.name())
+				.transactionDate(transactionUtil.getTimeString(now)).build();
+	}
+
+	@Override
+	public TransactionResponse getAllTransactions(String accountNumber, Integer page, Integer limit) {
+
+		// Check account exists
+		Account account = checkAccountExists(accountNumber).get();
+
+		// Totals come from the maintained transaction count instead of a count query
+		return pageResponse(accountNumber, stripedBalances.transactionCountOf(account), page, limit,
+				pageable -> findSliceAcrossTiers(account, pageable));
+	}
+
+	@Override
+	public TransactionResponse getTransactionSlice(String accountNumber, Integer page, Integer limit) {
+
+		// Check account exists
+		Account account = checkAccountExists(accountNumber).get();
+
+		return sliceResponse(accountNumber, findSliceAcrossTiers(account, PageRequest.of(page, limit)));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public TransactionResponse getFilteredTransactions(String accountNumber, TransactionFilter filter, Integer page,
+			Integer limit, boolean totals) {
+
+		String transactionType = filter.getTransactionType() == null ? null
+				: checkTransactionType(filter.getTransactionType());
+		LocalDateTime from = filter.getFrom() == null ? EARLIEST_TRANSACTION_DATE : filter.getFrom();
+		LocalDateTime to = filter.getTo() == null ? LATEST_TRANSACTION_DATE : filter.getTo();
+
+		if (!from.isBefore(to)) {
+
+			log.error(String.format(Constants.INVALID_TRANSACTION_PERIOD_MESSAGE, from, to));
+			throw new InvalidRequestDataException(
+					String.format(Constants.INVALID_TRANSACTION_PERIOD_MESSAGE, from, to));
+		}
+
+		// Check account exists
+		checkAccountExists(accountNumber);
+
+		// Both bounds are always set, so the date range is an index range
+		Function<Pageable, Slice<Transaction>> sliceLoader = transactionType == null
+				? pageable -> transactionRepository.findSliceInPeriod(accountNumber, from, to, pageable)
+				: pageable -> transactionRepository.findSliceByTypeInPeriod(accountNumber, transactionType, from, to,
+						pageable);
+
+		if (!totals) {
+			return sliceResponse(accountNumber, sliceLoader.apply(PageRequest.of(page, limit)));
+		}
+
+		long totalElements = transactionType == null
+				? transactionRepository.countInPeriod(accountNumber, from, to)
+				: transactionRepository.countByTypeInPeriod(accountNumber, transactionType, from, to);
+
+		return pageResponse(accountNumber, totalElements, page, limit, sliceLoader);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public TransactionResponse getTransactionsAfter(String accountNumber, String cursor, Integer limit) {
+
+		// Check account exists
+		Account account = checkAccountExists(accountNumber).get();
+
+		TransactionCursor after = cursor == null ? null : TransactionCursor.decode(cursor);
+		long archivedCount = account.getArchivedTransactionCount();
+
+		// One extra transaction tells whether there is a next page, without counting
+		int wanted = limit + 1;
+
+		List<Transaction> page = new ArrayList<>(wanted);
+		long archiveOrdinal = after == null ? 0 : after.getArchiveOrdinal();
+
+		// Archived transactions read up to and including each page position taken
+		// from the archive, where the cursor after that position resumes
+		long[] archivedRead = new long[wanted];
+
+		// The archive holds the oldest transactions. Those archived since the cursor
+		// was handed out may include some it has already passed
+		while (page.size() < wanted && archiveOrdinal < archivedCount) {
+
+			long chunkEnd = Math.min(archivedCount, archiveOrdinal + wanted);
+
+			for (Transaction transaction : transactionArchive.findByAccountNumber(accountNumber, archiveOrdinal,
+					chunkEnd)) {
+
+				archiveOrdinal++;
+
+				if (after == null || after.isBefore(transaction)) {
+
+					archivedRead[page.size()] = archiveOrdinal;
+					page.add(transaction);
 
-		account.setTransactions(transactions);
-		Account savedAccount = accountRepository.save(account);
+					if (page.size() == wanted) {
+						break;
+					}
+				}
+			}
 
-		return TransactionDto.builder().message(Constants.CREDIT_SUCCESS_MESSAGE)
-				.accountNumber(savedAccount.getAccountNumber())
-				.accountBalance(savedAccount.getBalanceAmount().toPlainString())
-				.transactionType(TransactionType.CREDIT.name()).transactionDate(transactionUtil.getTimeString(now))
+			archiveOrdinal = page.size() == wanted ? archiveOrdinal : chunkEnd;
+		}
+
+		int archivedInPage = page.size();
+
+		if (page.size() < wanted) {
+
+			// The table continues after the archive
+			Pageable pageable = PageRequest.of(0, wanted - page.size());
+
+			if (!page.isEmpty()) {
+
+				Transaction last = page.get(page.size() - 1);
+				page.addAll(transactionRepository.findNextByAccountNumber(accountNumber, last.getTransactionDate(),
+						last.getId(), pageable));
+			} else if (after != null) {
+				page.addAll(transactionRepository.findNextByAccountNumber(accountNumber, after.getTransactionDate(),
+						after.getId(), pageable));
+			} else {
+				page.addAll(transactionRepository.findFirstByAccountNumber(accountNumber, pageable));
+			}
+		}
+
+		if (page.isEmpty()) {
+			return TransactionResponse.builder().status(200)
+					.message(String.format(Constants.NO_TRANSACTIONS_MESSAGE, accountNumber))
+					.transactions(Collections.emptyList()).build();
+		}
+
+		boolean hasNext = page.size() > limit;
+		List<Transaction> transactions = hasNext ? page.subList(0, limit) : page;
+
+		return TransactionResponse.builder().status(200).message("Success")
+				.transactions(transactions.stream().map(transactionUtil::mapToTransactionDto)
+						.collect(Collectors.toList()))
+				.totalNoOfTransactions(transactions.size())
+				.nextCursor(hasNext ? TransactionCursor.after(transactions.get(limit - 1),
+						limit <= archivedInPage ? archivedRead[limit - 1] : archivedCount).encode() : null)
 				.build();
 	}
 
 	@Override
-	public TransactionResponse getAllTransactions(String accountNumber, Integer page, Integer limit) {
+	// Not read only, the opening balance of striped accounts locks the stripes
+	@Transactional
+	public StatementDto getStatement(String accountNumber, LocalDate fromDate, LocalDate toDate) {
+
+		if (fromDate.isAfter(toDate)) {
+
+			log.error(String.format(Constants.INVALID_STATEMENT_PERIOD_MESSAGE, fromDate, toDate));
+			throw new InvalidRequestDataException(
+					String.format(Constants.INVALID_STATEMENT_PERIOD_MESSAGE, fromDate, toDate));
+		}
 
 		// Check account exists
-		Optional<Account> optionalAccount = checkAccountExists(accountNumber);
+		Account account = checkAccountExists(accountNumber).get();
 
-		Pageable pageable = PageRequest.of(page, limit);
+		LocalDateTime from = fromDate.atStartOfDay();
+		LocalDateTime to = toDate.plusDays(1).atStartOfDay();
 
-		Page<Transaction> transactionsPage = transactionRepository.findAllByAccount(optionalAccount.get(), pageable);
+		BigDecimal openingBalance = openingBalance(account, from);
+		BigDecimal balance = openingBalance;
+		BigDecimal totalCredits = BigDecimal.ZERO;
+		BigDecimal totalDebits = BigDecimal.ZERO;
+		int noOfCredits = 0;
+		int noOfDebits = 0;
 
-		int totalPages = transactionsPage.getTotalPages();
+		List<TransactionDto> lines = new ArrayList<>();
 
-		// Check if requested page number exceeds total number of pages
-		if (totalPages > 0 && page > totalPages - 1) {
-			return pageNumberExceededResponse(totalPages, transactionsPage.getTotalElements());
+		// One pass over the period, carrying the running balance and the totals. The
+		// archived transactions of the period come first, the table continues after them
+		try (Stream<Transaction> transactions = Stream.concat(findArchivedInPeriod(account, from, to).stream(),
+				transactionRepository.streamByAccountNumberAndPeriod(accountNumber, from, to))) {
+
+			Iterator<Transaction> iterator = transactions.iterator();
+
+			while (iterator.hasNext()) {
+
+				Transaction transaction = iterator.next();
+
+				if (TransactionType.DEBIT.name().equals(transaction.getTransactionType())) {
+
+					balance = balance.subtract(transaction.getTransactionAmount());
+					totalDebits = totalDebits.add(transaction.getTransactionAmount());
+					noOfDebits++;
+				} else {
+
+					balance = balance.add(transaction.getTransactionAmount());
+					totalCredits = totalCredits.add(transaction.getTransactionAmount());
+					noOfCredits++;
+				}
+
+				TransactionDto line = transactionUtil.mapToTransactionDto(transaction);
+				line.setAccountBalance(balance.toPlainString());
+				lines.add(line);
+			}
+		}
+
+		return StatementDto.builder().message(Constants.STATEMENT_SUCCESS_MESSAGE).accountNumber(accountNumber)
+				.fromDate(fromDate.toString()).toDate(toDate.toString()).openingBalance(openingBalance.toPlainString())
+				.closingBalance(balance.toPlainString()).totalCredits(totalCredits.toPlainString())
+				.totalDebits(totalDebits.toPlainString()).noOfCredits(noOfCredits).noOfDebits(noOfDebits)
+				.transactions(lines).build();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public SummaryDto getSummary(String accountNumber, LocalDate fromDate, LocalDate toDate) {
+
+		if (fromDate.isAfter(toDate)) {
+
+			log.error(String.format(Constants.INVALID_SUMMARY_PERIOD_MESSAGE, fromDate, toDate));
+			throw new InvalidRequestDataException(
+					String.format(Constants.INVALID_SUMMARY_PERIOD_MESSAGE, fromDate, toDate));
+		}
+
+		// Check account exists
+		checkAccountExists(accountNumber);
+
+		BigDecimal totalCredits = BigDecimal.ZERO;
+		BigDecimal totalDebits = BigDecimal.ZERO;
+		long noOfCredits = 0;
+		long noOfDebits = 0;
+
+		List<DailySummaryDto> days = new ArrayList<>();
+
+		// Read from the daily rollups, never from the transactions themselves
+		for (Object[] row : dailyAccountSummaryRepository.sumByDay(accountNumber, fromDate, toDate)) {
+
+			long dayCredits = ((Number) row[1]).longValue();
+			long dayDebits = ((Number) row[3]).longValue();
+			BigDecimal dayCreditAmount = (BigDecimal) row[2];
+			BigDecimal dayDebitAmount = (BigDecimal) row[4];
+
+			noOfCredits += dayCredits;
+			noOfDebits += dayDebits;
+			totalCredits = totalCredits.add(dayCreditAmount);
+			totalDebits = totalDebits.add(dayDebitAmount);
+
+			days.add(DailySummaryDto.builder().summaryDate(row[0].toString()).noOfCredits(dayCredits)
+					.totalCredits(dayCreditAmount.toPlainString()).noOfDebits(dayDebits)
+					.totalDebits(dayDebitAmount.toPlainString()).build());
+		}
+
+		return SummaryDto.builder().message(Constants.SUMMARY_SUCCESS_MESSAGE).accountNumber(accountNumber)
+				.fromDate(fromDate.toString()).toDate(toDate.toString()).noOfCredits(noOfCredits)
+				.totalCredits(totalCredits.toPlainString()).noOfDebits(noOfDebits)
+				.totalDebits(totalDebits.toPlainString()).days(days).build();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public StreamingResponseBody exportTransactions(String accountNumber, ExportFormat format) {
+
+		// Check account exists, before the response is committed
+		long archivedCount = checkAccountExists(accountNumber).get().getArchivedTransactionCount();
+
+		return outputStream -> transactionExporter.export(accountNumber, archivedCount, format, outputStream);
+	}
+
+	@Override
+	public TransactionResponse performBatch(String accountNumber, List<BatchTransactionItem> transactions) {
+
+		List<TransactionDto> results = applyBatch(transactionUtil.assignAccountNumber(accountNumber, transactions));
+
+		return TransactionResponse.builder().status(200).message(Constants.BATCH_SUCCESS_MESSAGE)
+				.transactions(results).totalNoOfTransactions(results.size()).build();
+	}
+
+	@Override
+	public TransferDto performTransfer(TransferRequest transferRequest) {
+
+		String fromAccountNumber = transferRequest.getFromAccountNumber();
+
+		if (fromAccountNumber.equals(transferRequest.getToAccountNumber())) {
+
+			log.error(String.format(Constants.SAME_ACCOUNT_TRANSFER_MESSAGE, fromAccountNumber));
+			throw new InvalidRequestDataException(
+					String.format(Constants.SAME_ACCOUNT_TRANSFER_MESSAGE, fromAccountNumber));
 		}
 
+		BatchTransactionItem debit = BatchTransactionItem.builder().accountNumber(fromAccountNumber)
+				.transactionId(transferRequest.getTransactionId()).transactionType(TransactionType.DEBIT.name())
+				.amount(transferRequest.getAmount()).build();
+		BatchTransactionItem credit = BatchTransactionItem.builder().accountNumber(transferRequest.getToAccountNumber())
+				.transactionId(transferRequest.getTransactionId() + Constants.TRANSFER_CREDIT_SUFFIX)
+				.transactionType(TransactionType.CREDIT.name()).amount(transferRequest.getAmount()).build();
+
+		// Rows are locked in account number order, so opposite transfers cannot deadlock
+		boolean debitFirst = fromAccountNumber.compareTo(transferRequest.getToAccountNumber()) < 0;
+		List<TransactionDto> results = applyBatch(
+				debitFirst ? Arrays.asList(debit, credit) : Arrays.asList(credit, debit));
+		TransactionDto debitResult = results.get(debitFirst ? 0 : 1);
+
+		return TransferDto.builder().message(Constants.TRANSFER_SUCCESS_MESSAGE)
+				.transactionId(transferRequest.getTransactionId()).fromAccountNumber(fromAccountNumber)
+				.fromAccountBalance(debitResult.getAccountBalance())
+				.toAccountNumber(transferRequest.getToAccountNumber())
+				.transactionAmount(transferRequest.getAmount().toPlainString())
+				.transactionDate(debitResult.getTransactionDate()).build();
+	}
+
+	/**
+	 * Applies the balance changes in the order of the items and records them, all
+	 * or nothing
+	 */
+	private List<TransactionDto> applyBatch(List<BatchTransactionItem> items) {
+
+		// Check duplicate transactions, within the batch and against performed ones
+		checkDuplicateTransactions(items);
+
+		// Apply all balance changes in order, as one JDBC batch
+		int[] updateCounts = transactionJdbcRepository.updateBalances(items);
+
+		Map<String, Account> stripedAccounts = new HashMap<>();
+
+		for (int index = 0; index < updateCounts.length; index++) {
+
+			if (updateCounts[index] == 0) {
+
+				// Check account exists, then apply the item to its stripes if it is striped
+				BatchTransactionItem item = items.get(index);
+				Account account = checkAccountExists(item.getAccountNumber()).get();
+
+				if (!applyToStripes(account, item)) {
+
+					log.error(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+					throw new InvalidRequestDataException(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+				}
+				stripedAccounts.put(account.getAccountNumber(), account);
+			}
+		}
+
+		Map<String, BigDecimal> balances = accountRepository
+				.findAllByAccountNumberIn(items.stream().map(BatchTransactionItem::getAccountNumber)
+						.collect(Collectors.toSet()))
+				.stream().collect(Collectors.toMap(Account::getAccountNumber, Account::getBalanceAmount,
+						(balance, duplicate) -> balance));
+
+		stripedAccounts.forEach(
+				(accountNumber, account) -> balances.put(accountNumber, stripedBalances.balanceOf(account)));
+		items.stream().collect(Collectors.groupingBy(BatchTransactionItem::getAccountNumber, Collectors.counting()))
+				.forEach((accountNumber, count) -> countTransactions(accountNumber, stripedAccounts.get(accountNumber),
+						count));
+		balances.forEach((accountNumber, balance) -> cacheBalance(accountNumber, balance,
+				stripedAccounts.containsKey(accountNumber)));
+
+		// Walk back from the final balances to the balance after every item, in minor units
+		Map<String, Long> minorUnitBalances = new HashMap<>();
+		balances.forEach((accountNumber, balance) -> minorUnitBalances.put(accountNumber,
+				Money.toMinorUnits(balance, scale)));
+
+		long[] balancesAfter = new long[items.size()];
+
+		for (int index = items.size() - 1; index >= 0; index--) {
+
+			BatchTransactionItem item = items.get(index);
+			long balance = minorUnitBalances.get(item.getAccountNumber());
+			long amount = Money.toMinorUnits(item.getAmount(), scale);
+			balancesAfter[index] = balance;
+
+			minorUnitBalances.put(item.getAccountNumber(),
+					TransactionType.DEBIT.name().equals(item.getTransactionType()) ? Money.add(balance, amount)
+							: Money.subtract(balance, amount));
+		}
+
+		// Create transaction records
+		LocalDateTime now = LocalDateTime.now();
+
+		try {
+			transactionJdbcRepository.insertTransactions(items, Arrays.stream(balancesAfter)
+					.mapToObj(balanceAfter -> Money.toAmount(balanceAfter, scale)).collect(Collectors.toList()), now);
+		} catch (DataIntegrityViolationException exception) {
+
+			// A concurrent request used one of the transactionIds first
+			log.error("{}: {}", Constants.DUPLICATE_BATCH_TRANSACTION_MESSAGE, exception.getMessage());
+			throw new DuplicateTransactionException(Constants.DUPLICATE_BATCH_TRANSACTION_MESSAGE);
+		}
+
+		items.forEach(item -> transactionIdFilter.put(item.getTransactionId()));
+		addToDailySummaries(items, stripedAccounts, now.toLocalDate());
+
+		List<TransactionDto> results = new ArrayList<>(items.size());
+		String transactionDate = transactionUtil.getTimeString(now);
+
+		for (int index = 0; index < items.size(); index++) {
+
+			BatchTransactionItem item = items.get(index);
+			boolean debit = TransactionType.DEBIT.name().equals(item.getTransactionType());
+
+			results.add(TransactionDto.builder()
+					.message(debit ? Constants.DEBIT_SUCCESS_MESSAGE : Constants.CREDIT_SUCCESS_MESSAGE)
+					.accountNumber(item.getAccountNumber()).accountBalance(Money.format(balancesAfter[index], scale))
+					.transactionId(item.getTransactionId()).transactionType(item.getTransactionType())
+					.transactionAmount(item.getAmount().toPlainString()).transactionDate(transactionDate).build());
+		}
+
+		log.info("Batch of {} transactions performed", items.size());
+
+		return results;
+	}
+
+	private void cacheBalance(String accountNumber, BigDecimal balance, boolean striped) {
+
+		// Stripes are updated without the account row lock, so writes are not ordered
+		if (striped) {
+			balanceCache.invalidateWithinTransaction(accountNumber);
+		} else {
+			balanceCache.putWithinTransaction(accountNumber, balance);
+		}
+	}
+
+	private boolean applyToStripes(Account account, BatchTransactionItem item) {
+
+		if (account.getBalanceStripes() == 0) {
+			return false;
+		}
+
+		if (TransactionType.DEBIT.name().equals(item.getTransactionType())) {
+			return stripedBalances.debit(account, item.getAmount());
+		}
+
+		stripedBalances.credit(account, item.getAmount());
+		return true;
+	}
+
+	private TransactionResponse pageResponse(String accountNumber, long totalElements, int page, int limit,
+			Function<Pageable, Slice<Transaction>> sliceLoader) {
+
+		int totalPages = Math.toIntExact((totalElements + limit - 1) / limit);
+
 		// Check if there are any transactions
-		if (transactionsPage.isEmpty()) {
-			return emptyTransactionsResponse(accountNumber, totalPages, transactionsPage.getTotalElements());
+		if (totalElements == 0) {
+			return emptyTransactionsResponse(accountNumber, totalPages, totalElements);
+		}
+
+		// Check if requested page number exceeds total number of pages
+		if (page > totalPages - 1) {
+			return pageNumberExceededResponse(totalPages, totalElements);
 		}
 
-		List<TransactionDto> transactions = transactionsPage.getContent().stream()
+		List<TransactionDto> transactions = sliceLoader.apply(PageRequest.of(page, limit)).getContent().stream()
 				.map(transactionUtil::mapToTransactionDto).collect(Collectors.toList());
 
 		return TransactionResponse.builder().status(200).message("Success").transactions(transactions)
-				.totalNoOfPages(totalPages).totalNoOfTransactions(Math.toIntExact(transactionsPage.getTotalElements()))
-				.build();
+				.totalNoOfPages(totalPages).totalNoOfTransactions(Math.toIntExact(totalElements)).build();
+	}
+
+	/**
+	 * Page of an account's transactions which starts in the archive while the
+	 * offset is within its archived count and continues in the table
+	 */
+	private Slice<Transaction> findSliceAcrossTiers(Account account, Pageable pageable) {
+
+		long archivedCount = account.getArchivedTransactionCount();
+
+		if (archivedCount == 0) {
+			return transactionRepository.findSliceByAccount(account, pageable);
+		}
+
+		long offset = pageable.getOffset();
+
+		// One extra transaction tells whether there is a next page
+		int wanted = pageable.getPageSize() + 1;
+
+		List<Transaction> transactions = offset < archivedCount
+				? transactionArchive.findByAccountNumber(account.getAccountNumber(), offset,
+						Math.min(archivedCount, offset + wanted))
+				: new ArrayList<>(wanted);
+
+		if (transactions.size() < wanted) {
+			transactions.addAll(transactionRepository.findByAccountNumberFrom(account.getAccountNumber(),
+					Math.max(0, offset - archivedCount), wanted - transactions.size()));
+		}
+
+		boolean hasNext = transactions.size() > pageable.getPageSize();
+
+		return new SliceImpl<>(hasNext ? transactions.subList(0, pageable.getPageSize()) : transactions, pageable,
+				hasNext);
+	}
+
+	private TransactionResponse sliceResponse(String accountNumber, Slice<Transaction> transactionsSlice) {
+
+		if (!transactionsSlice.hasContent()) {
+			return TransactionResponse.builder().status(200)
+					.message(String.format(Constants.NO_TRANSACTIONS_MESSAGE, accountNumber))
+					.transactions(Collections.emptyList()).hasNext(false).build();
+		}
+
+		List<TransactionDto> transactions = transactionsSlice.getContent().stream()
+				.map(transactionUtil::mapToTransactionDto).collect(Collectors.toList());
+
+		return TransactionResponse.builder().status(200).message("Success").transactions(transactions)
+				.hasNext(transactionsSlice.hasNext()).build();
+	}
+
+	private String checkTransactionType(String transactionType) {
+
+		for (TransactionType type : TransactionType.values()) {
+
+			if (type.name().equalsIgnoreCase(transactionType)) {
+				return type.name();
+			}
+		}
+
+		log.error(String.format(Constants.INVALID_TRANSACTION_TYPE_MESSAGE, transactionType));
+		throw new InvalidRequestDataException(String.format(Constants.INVALID_TRANSACTION_TYPE_MESSAGE, transactionType));
 	}
 
 	private TransactionResponse emptyTransactionsResponse(String accountNumber, int totalPages, Long totalElements) {
@@ -163,41 +744,224 @@ public class TransactionServiceImpl implements TransactionService {
 		return optionalAccount;
 	}
 
-	private void checkDuplicateTransaction(String transactionId) {
+	/**
+	 * Returns the original response when the transactionId was already used for
+	 * the same request, and rejects it when it was used for a different one
+	 */
+	private Optional<TransactionDto> findPerformedTransaction(String accountNumber,
+			TransactionRequest transactionRequest, TransactionType transactionType) {
+
+		String transactionId = transactionRequest.getTransactionId();
+
+		// Skip the lookup for ids which were definitely never used
+		if (!transactionIdFilter.mightContain(transactionId)) {
+			return Optional.empty();
+		}
 
-		Optional<Transaction> optionalTransaction = transactionRepository.findByTransactionId(transactionId);
+		Optional<Transaction> optionalTransaction = transactionRepository.findByTransactionId(transactionId)
+				.or(() -> transactionArchive.findByTransactionId(transactionId));
 
-		if (optionalTransaction.isPresent()) {
+		if (optionalTransaction.isEmpty()) {
+			return Optional.empty();
+		}
+
+		if (transactionUtil.isSameTransaction(optionalTransaction.get(), accountNumber, transactionRequest,
+				transactionType)) {
+
+			log.info("Replaying the response of transactionId: {}", transactionId);
+			return Optional.of(transactionUtil.mapToPerformedTransactionDto(optionalTransaction.get()));
+		}
+
+		log.error(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+		throw new DuplicateTransactionException(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+	}
+
+	private void checkDuplicateTransactions(List<BatchTransactionItem> items) {
+
+		Set<String> transactionIds = new HashSet<>();
+
+		for (BatchTransactionItem item : items) {
+
+			if (!transactionIds.add(item.getTransactionId())) {
+
+				log.error(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, item.getTransactionId()));
+				throw new DuplicateTransactionException(
+						String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, item.getTransactionId()));
+			}
+		}
+
+		// Skip the lookup for ids which were definitely never used
+		transactionIds.removeIf(transactionId -> !transactionIdFilter.mightContain(transactionId));
+
+		if (transactionIds.isEmpty()) {
+			return;
+		}
+
+		List<Transaction> performedTransactions = transactionRepository.findAllByTransactionIdIn(transactionIds);
+
+		if (!performedTransactions.isEmpty()) {
+
+			String transactionId = performedTransactions.get(0).getTransactionId();
 
 			log.error(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
 			throw new DuplicateTransactionException(
 					String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
 		}
+
+		for (String transactionId : transactionIds) {
+
+			if (transactionArchive.findByTransactionId(transactionId).isPresent()) {
+
+				log.error(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+				throw new DuplicateTransactionException(
+						String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionId));
+			}
+		}
 	}
 
-	private BigDecimal validateBalance(BigDecimal requestedAmount, BigDecimal accountBalance) {
+	/**
+	 * Balance at the start of the period, taken from the balance recorded with the
+	 * nearest transaction instead of summing the history before it
+	 */
+	private BigDecimal openingBalance(Account account, LocalDateTime from) {
+
+		String accountNumber = account.getAccountNumber();
+
+		// Balance after of striped accounts is read without the stripes locked and
+		// may miss concurrent changes, so it is not an anchor for them
+		if (account.getBalanceStripes() > 0) {
+
+			BigDecimal archivedNetAmount = findArchivedInPeriod(account, from, LATEST_TRANSACTION_DATE).stream()
+					.map(transaction -> TransactionType.DEBIT.name().equals(transaction.getTransactionType())
+							? transaction.getTransactionAmount().negate()
+							: transaction.getTransactionAmount())
+					.reduce(BigDecimal.ZERO, BigDecimal::add);
+
+			return stripedBalances.lockedBalanceOf(account)
+					.subtract(transactionRepository.sumNetAmountFrom(accountNumber, from)).subtract(archivedNetAmount);
+		}
+
+		Pageable first = PageRequest.of(0, 1);
+
+		List<Transaction> lastBefore = transactionRepository.findLastBefore(accountNumber, from, first);
+
+		if (!lastBefore.isEmpty()) {
+			return lastBefore.get(0).getBalanceAfter();
+		}
+
+		// The table holds nothing before the period, the archive holds the older
+		// transactions and possibly the first ones of the period
+		Transaction[] archived = new Transaction[2];
+
+		if (account.getArchivedTransactionCount() > 0) {
+			transactionArchive.forEach(accountNumber, 0, account.getArchivedTransactionCount(), transaction -> {
+
+				if (transaction.getBalanceAfter() == null) {
+					return;
+				}
+
+				if (transaction.getTransactionDate().isBefore(from)) {
+					archived[0] = transaction;
+				} else if (archived[1] == null) {
+					archived[1] = transaction;
+				}
+			});
+		}
+
+		if (archived[0] != null) {
+			return archived[0].getBalanceAfter();
+		}
 
-		BigDecimal remainingBalance = accountBalance.subtract(requestedAmount);
+		// Nothing recorded before the period, walk back from its first transaction
+		Transaction firstFrom = archived[1] != null ? archived[1]
+				: transactionRepository.findFirstFrom(accountNumber, from, first).stream().findFirst().orElse(null);
 
-		if (remainingBalance.compareTo(BigDecimal.ZERO) < 0) {
+		if (firstFrom != null) {
 
-			log.error(Constants.INSUFFICIENT_FUNDS_MESSAGE);
-			throw new InvalidRequestDataException(Constants.INSUFFICIENT_FUNDS_MESSAGE);
+			return TransactionType.DEBIT.name().equals(firstFrom.getTransactionType())
+					? firstFrom.getBalanceAfter().add(firstFrom.getTransactionAmount())
+					: firstFrom.getBalanceAfter().subtract(firstFrom.getTransactionAmount());
 		}
 
-		return remainingBalance;
+		// No transactions at all since the period started, the balance is unchanged
+		return stripedBalances.balanceOf(account);
 	}
 
-	private List<Transaction> createTransaction(TransactionRequest transactionRequest, LocalDateTime now,
-			String transactionType, Account account) {
+	// Archived transactions of the account from the given date on and before the other, oldest first
+	private List<Transaction> findArchivedInPeriod(Account account, LocalDateTime from, LocalDateTime to) {
 
 		List<Transaction> transactions = new ArrayList<>();
 
-		Transaction transaction = Transaction.builder().transactionType(transactionType)
-				.transactionId(transactionRequest.getTransactionId()).transactionDate(now)
-				.transactionAmount(transactionRequest.getAmount()).account(account).build();
-		transactions.add(transaction);
+		if (account.getArchivedTransactionCount() == 0 || !from.isBefore(transactionArchive.getCutoff())) {
+			return transactions;
+		}
+
+		transactionArchive.forEach(account.getAccountNumber(), 0, account.getArchivedTransactionCount(),
+				transaction -> {
+
+					LocalDateTime transactionDate = transaction.getTransactionDate();
+
+					if (!transactionDate.isBefore(from) && transactionDate.isBefore(to)) {
+						transactions.add(transaction);
+					}
+				});
 
 		return transactions;
 	}
+
+	// One rollup update per account of the batch, not one per item
+	private void addToDailySummaries(List<BatchTransactionItem> items, Map<String, Account> stripedAccounts,
+			LocalDate summaryDate) {
+
+		items.stream().collect(Collectors.groupingBy(BatchTransactionItem::getAccountNumber))
+				.forEach((accountNumber, accountItems) -> {
+
+					long creditCount = 0;
+					long debitCount = 0;
+					BigDecimal creditAmount = BigDecimal.ZERO;
+					BigDecimal debitAmount = BigDecimal.ZERO;
+
+					for (BatchTransactionItem item : accountItems) {
+
+						if (TransactionType.DEBIT.name().equals(item.getTransactionType())) {
+							debitCount++;
+							debitAmount = debitAmount.add(item.getAmount());
+						} else {
+							creditCount++;
+							creditAmount = creditAmount.add(item.getAmount());
+						}
+					}
+
+					Account stripedAccount = stripedAccounts.get(accountNumber);
+					dailySummaries.add(accountNumber, stripedAccount == null ? 0 : stripedAccount.getBalanceStripes(),
+							summaryDate, creditCount, creditAmount, debitCount, debitAmount);
+				});
+	}
+
+	// The striped account is null when the balance is kept in the account row
+	private void countTransactions(String accountNumber, Account stripedAccount, long count) {
+
+		if (stripedAccount == null) {
+			accountRepository.addTransactionCount(accountNumber, count);
+		} else {
+			stripedBalances.countTransactions(stripedAccount, count);
+		}
+	}
+
+	private void createTransaction(String accountNumber, TransactionRequest transactionRequest, LocalDateTime now,
+			String transactionType, BigDecimal balanceAfter) {
+
+		try {
+			transactionRepository.insertTransaction(accountNumber, transactionRequest.getTransactionId(),
+					transactionType, transactionRequest.getAmount(), now, balanceAfter);
+		} catch (DataIntegrityViolationException exception) {
+
+			// A concurrent request with the same transactionId inserted first
+			log.error(String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionRequest.getTransactionId()));
+			throw new DuplicateTransactionException(
+					String.format(Constants.DUPLICATE_TRANSACTION_MESSAGE, transactionRequest.getTransactionId()));
+		}
+
+		transactionIdFilter.put(transactionRequest.getTransactionId());
+	}
 }
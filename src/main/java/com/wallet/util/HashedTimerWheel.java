@@ -0,0 +1,197 @@
+package com.wallet.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hashed timer wheel. Timeouts are hashed into a ring of buckets by the tick
+ * their deadline falls in, and a single worker thread expires one bucket per
+ * tick. Scheduling and cancelling are O(1) and expiry never scans the timeouts
+ * of other ticks. Deadlines are honoured with a precision of one tick.
+ */
+@Slf4j
+public class HashedTimerWheel<K> {
+
+	private final long tickNanos;
+
+	private final int mask;
+
+	// Only accessed from the worker thread
+	private final List<Queue<Timeout<K>>> buckets;
+
+	// Scheduled timeouts not yet hashed into a bucket by the worker
+	private final Queue<Timeout<K>> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+	private final Map<K, Timeout<K>> timeouts = new ConcurrentHashMap<>();
+
+	private final Consumer<K> onExpiry;
+
+	private final Thread worker;
+
+	private final long startNanos = System.nanoTime();
+
+	// Only accessed from the worker thread
+	private long tick;
+
+	private volatile boolean running;
+
+	/**
+	 * @param wheelSize rounded up to a power of two
+	 * @param onExpiry  called on the worker thread, so it must not block
+	 */
+	public HashedTimerWheel(String name, long tickMillis, int wheelSize, Consumer<K> onExpiry) {
+
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		this.onExpiry = onExpiry;
+
+		int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+		this.mask = size - 1;
+		this.buckets = new ArrayList<>(size);
+
+		for (int index = 0; index < size; index++) {
+			buckets.add(new ArrayDeque<>());
+		}
+
+		worker = new Thread(this::run, name);
+		worker.setDaemon(true);
+	}
+
+	public void start() {
+
+		running = true;
+		worker.start();
+	}
+
+	public void stop() throws InterruptedException {
+
+		running = false;
+		LockSupport.unpark(worker);
+		worker.join();
+	}
+
+	/**
+	 * Schedules the key to expire after the delay, replacing its previous
+	 * timeout if any
+	 */
+	public void schedule(K key, long delayMillis) {
+
+		Timeout<K> timeout = new Timeout<>(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+		Timeout<K> previous = timeouts.put(key, timeout);
+
+		if (previous != null) {
+			previous.cancelled = true;
+		}
+
+		pendingTimeouts.add(timeout);
+	}
+
+	/**
+	 * Returns false if the key was not scheduled or has already expired
+	 */
+	public boolean cancel(K key) {
+
+		Timeout<K> timeout = timeouts.remove(key);
+
+		if (timeout == null) {
+			return false;
+		}
+
+		// Dropped from its bucket when the worker reaches it
+		timeout.cancelled = true;
+		return true;
+	}
+
+	public int size() {
+
+		return timeouts.size();
+	}
+
+	private void run() {
+
+		while (running) {
+
+			long tickDeadline = startNanos + (tick + 1) * tickNanos;
+
+			for (long remaining = tickDeadline - System.nanoTime(); remaining > 0 && running; remaining = tickDeadline
+					- System.nanoTime()) {
+				LockSupport.parkNanos(this, remaining);
+			}
+
+			hashPendingTimeouts();
+			expire(buckets.get((int) (tick & mask)));
+			tick++;
+		}
+	}
+
+	private void hashPendingTimeouts() {
+
+		for (Timeout<K> timeout = pendingTimeouts.poll(); timeout != null; timeout = pendingTimeouts.poll()) {
+
+			if (timeout.cancelled) {
+				continue;
+			}
+
+			// A deadline already passed expires in the current tick
+			long deadlineTick = Math.max((timeout.deadlineNanos - startNanos) / tickNanos, tick);
+			timeout.remainingRounds = (deadlineTick - tick) / buckets.size();
+
+			buckets.get((int) (deadlineTick & mask)).add(timeout);
+		}
+	}
+
+	private void expire(Queue<Timeout<K>> bucket) {
+
+		Iterator<Timeout<K>> iterator = bucket.iterator();
+
+		while (iterator.hasNext()) {
+
+			Timeout<K> timeout = iterator.next();
+
+			if (timeout.cancelled) {
+				iterator.remove();
+			} else if (timeout.remainingRounds > 0) {
+				timeout.remainingRounds--;
+			} else {
+
+				iterator.remove();
+
+				if (timeouts.remove(timeout.key, timeout)) {
+					try {
+						onExpiry.accept(timeout.key);
+					} catch (RuntimeException exception) {
+						log.error("Expiry of key: {} failed: {}", timeout.key, exception.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	private static class Timeout<K> {
+
+		private final K key;
+
+		private final long deadlineNanos;
+
+		// Full turns of the wheel left before the deadline tick
+		private long remainingRounds;
+
+		private volatile boolean cancelled;
+
+		private Timeout(K key, long deadlineNanos) {
+
+			this.key = key;
+			this.deadlineNanos = deadlineNanos;
+		}
+	}
+}
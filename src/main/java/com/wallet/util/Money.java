@@ -0,0 +1,81 @@
+package com.wallet.util;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Money as a long count of minor units (paise, cents) of a currency, so the
+ * hot path adds and compares primitives instead of allocating BigDecimals.
+ * BigDecimal is only used to convert at the API and database edges.
+ */
+public final class Money {
+
+	private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L };
+
+	private Money() {
+	}
+
+	/**
+	 * Number of decimals of the minor unit of the currency
+	 */
+	public static int scaleOf(String currencyCode) {
+
+		int scale = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+
+		// Pseudo currencies have no minor unit
+		return Math.max(scale, 0);
+	}
+
+	/**
+	 * Converts an amount to minor units. Throws an ArithmeticException if the
+	 * amount has more decimals than the scale or does not fit in a long
+	 */
+	public static long toMinorUnits(BigDecimal amount, int scale) {
+
+		return amount.movePointRight(scale).longValueExact();
+	}
+
+	public static BigDecimal toAmount(long minorUnits, int scale) {
+
+		return BigDecimal.valueOf(minorUnits, scale);
+	}
+
+	public static long add(long minorUnits, long addend) {
+
+		return Math.addExact(minorUnits, addend);
+	}
+
+	public static long subtract(long minorUnits, long subtrahend) {
+
+		return Math.subtractExact(minorUnits, subtrahend);
+	}
+
+	/**
+	 * Formats like BigDecimal.toPlainString at the given scale, without
+	 * allocating a BigDecimal
+	 */
+	public static String format(long minorUnits, int scale) {
+
+		if (scale == 0) {
+			return Long.toString(minorUnits);
+		}
+
+		long units = minorUnits / POWERS_OF_TEN[scale];
+		long fraction = Math.abs(minorUnits % POWERS_OF_TEN[scale]);
+
+		StringBuilder builder = new StringBuilder(24);
+
+		// The sign is lost in the units when they are 0
+		if (minorUnits < 0 && units == 0) {
+			builder.append('-');
+		}
+
+		builder.append(units).append('.');
+
+		for (long power = POWERS_OF_TEN[scale - 1]; power > 1 && fraction < power; power /= 10) {
+			builder.append('0');
+		}
+
+		return builder.append(fraction).toString();
+	}
+}
@@ -0,0 +1,65 @@
+package com.wallet.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.Constants;
+import com.wallet.model.entity.Transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Position in the (transaction_date, id) order of an account's transactions,
+ * with the number of its archived transactions already read. Transactions
+ * archived after the cursor was handed out are found from there. Clients only
+ * see it as an opaque token
+ */
+@Getter
+@AllArgsConstructor
+public final class TransactionCursor {
+
+	private static final String SEPARATOR = "|";
+
+	private final LocalDateTime transactionDate;
+
+	private final long id;
+
+	private final long archiveOrdinal;
+
+	public static TransactionCursor after(Transaction transaction, long archiveOrdinal) {
+
+		return new TransactionCursor(transaction.getTransactionDate(), transaction.getId(), archiveOrdinal);
+	}
+
+	public boolean isBefore(Transaction transaction) {
+
+		int comparison = transactionDate.compareTo(transaction.getTransactionDate());
+
+		return comparison < 0 || (comparison == 0 && id < transaction.getId());
+	}
+
+	public String encode() {
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(
+				(transactionDate + SEPARATOR + id + SEPARATOR + archiveOrdinal).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static TransactionCursor decode(String cursor) {
+
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int ordinalSeparator = decoded.lastIndexOf(SEPARATOR);
+			int idSeparator = decoded.lastIndexOf(SEPARATOR, ordinalSeparator - 1);
+
+			return new TransactionCursor(LocalDateTime.parse(decoded.substring(0, idSeparator)),
+					Long.parseLong(decoded.substring(idSeparator + 1, ordinalSeparator)),
+					Long.parseLong(decoded.substring(ordinalSeparator + 1)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException exception) {
+			throw new InvalidRequestDataException(String.format(Constants.INVALID_CURSOR_MESSAGE, cursor));
+		}
+	}
+}
@@ -2,10 +2,15 @@ package com.wallet.util;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Random;
+import java.util.List;
 
 import org.springframework.stereotype.Component;
 
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.Constants;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionRequest;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.entity.Transaction;
 
@@ -14,12 +19,6 @@ public class Util {
 
 	private static final String DATE_FORMAT = "dd-MM-yyyy HH:mm:ss";
 
-	public String generateAccountNumber() {
-
-		Random random = new Random();
-		return String.valueOf(random.nextInt(9000000) + 1000000);
-	}
-
 	public String getTimeString(LocalDateTime now) {
 
 		DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_FORMAT);
@@ -27,6 +26,62 @@ public class Util {
 		return now.format(formatter);
 	}
 
+	/**
+	 * Assigns the account number of a single-account batch to its items, or
+	 * checks every item of a multi-account batch (null accountNumber) has one
+	 */
+	public List<BatchTransactionItem> assignAccountNumber(String accountNumber, List<BatchTransactionItem> items) {
+
+		for (BatchTransactionItem item : items) {
+
+			if (accountNumber == null) {
+
+				if (item.getAccountNumber() == null || item.getAccountNumber().isBlank()) {
+					throw new InvalidRequestDataException(
+							String.format(Constants.BATCH_ACCOUNT_NUMBER_MISSING_MESSAGE, item.getTransactionId()));
+				}
+			} else if (item.getAccountNumber() != null && !accountNumber.equals(item.getAccountNumber())) {
+
+				throw new InvalidRequestDataException(String.format(Constants.BATCH_ACCOUNT_NUMBER_MISMATCH_MESSAGE,
+						item.getTransactionId(), accountNumber));
+			} else {
+				item.setAccountNumber(accountNumber);
+			}
+		}
+
+		return items;
+	}
+
+	/**
+	 * Checks whether a performed transaction was made by the same request, so
+	 * that a retry can be answered with the original response
+	 */
+	public boolean isSameTransaction(Transaction transaction, String accountNumber,
+			TransactionRequest transactionRequest, TransactionType transactionType) {
+
+		return transaction.getAccount() != null && accountNumber.equals(transaction.getAccount().getAccountNumber())
+				&& transactionType.name().equals(transaction.getTransactionType())
+				&& transaction.getTransactionAmount() != null
+				&& transaction.getTransactionAmount().compareTo(transactionRequest.getAmount()) == 0;
+	}
+
+	/**
+	 * Maps a performed transaction to the response which was returned when it was
+	 * performed
+	 */
+	public TransactionDto mapToPerformedTransactionDto(Transaction transaction) {
+
+		String message = TransactionType.DEBIT.name().equals(transaction.getTransactionType())
+				? Constants.DEBIT_SUCCESS_MESSAGE
+				: Constants.CREDIT_SUCCESS_MESSAGE;
+
+		return TransactionDto.builder().message(message).accountNumber(transaction.getAccount().getAccountNumber())
+				.accountBalance(
+						transaction.getBalanceAfter() == null ? null : transaction.getBalanceAfter().toPlainString())
+				.transactionType(transaction.getTransactionType())
+				.transactionDate(getTimeString(transaction.getTransactionDate())).build();
+	}
+
 	public TransactionDto mapToTransactionDto(Transaction transaction) {
 
 		return TransactionDto.builder().accountNumber(transaction.getAccount().getAccountNumber())
@@ -0,0 +1,52 @@
+package com.wallet.validator;
+
+import java.math.BigDecimal;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+import org.hibernate.validator.constraintvalidation.HibernateConstraintValidatorContext;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.wallet.util.Money;
+
+public class CurrencyAmountConstraint implements ConstraintValidator<CurrencyAmount, BigDecimal> {
+
+	@Value("${wallet.currency:INR}")
+	private String currency;
+
+	private int integer;
+
+	private int scale;
+
+	@Override
+	public void initialize(CurrencyAmount annotation) {
+
+		integer = annotation.integer();
+		scale = Money.scaleOf(currency);
+	}
+
+	@Override
+	public boolean isValid(BigDecimal value, ConstraintValidatorContext context) {
+
+		if (value == null) {
+			return true;
+		}
+
+		context.unwrap(HibernateConstraintValidatorContext.class).addMessageParameter("scale", scale);
+
+		BigDecimal amount = value.stripTrailingZeros();
+
+		if (amount.precision() - amount.scale() > integer) {
+			return false;
+		}
+
+		// The same conversion the balances go through
+		try {
+			Money.toMinorUnits(amount, scale);
+			return true;
+		} catch (ArithmeticException exception) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.wallet.config;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Stands in for the virtual thread executors of src/main/jdk21 when the
+ * service is built on a JDK older than 21.
+ */
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	static ExecutorService newPerTaskExecutor() {
+
+		throw new IllegalStateException(
+				"wallet.web.execution-mode=virtual needs the service built and run on JDK 21+, built for Java 11");
+	}
+}
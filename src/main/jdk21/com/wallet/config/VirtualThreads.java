@@ -0,0 +1,19 @@
+package com.wallet.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread executors of the JDK 21 build, the Java 11 build of
+ * src/main/jdk11 has none.
+ */
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	static ExecutorService newPerTaskExecutor() {
+
+		return Executors.newVirtualThreadPerTaskExecutor();
+	}
+}
@@ -0,0 +1,68 @@
+CREATE TABLE account (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	account_number VARCHAR(255) NOT NULL,
+	email_id VARCHAR(255) NOT NULL,
+	full_name VARCHAR(255) NOT NULL,
+	mobile_number VARCHAR(255) NOT NULL,
+	balance_amount DECIMAL(19, 2) NOT NULL,
+	account_type VARCHAR(255) NOT NULL,
+	account_status VARCHAR(255) NOT NULL,
+	balance_stripes INTEGER DEFAULT 0 NOT NULL,
+	transaction_count BIGINT DEFAULT 0 NOT NULL,
+	archived_transaction_count BIGINT DEFAULT 0 NOT NULL,
+	CONSTRAINT uk_account_account_number UNIQUE (account_number),
+	CONSTRAINT uk_account_email_id UNIQUE (email_id),
+	CONSTRAINT uk_account_mobile_number UNIQUE (mobile_number)
+);
+
+CREATE TABLE transaction (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	account_number VARCHAR(255) NOT NULL,
+	transaction_id VARCHAR(255) NOT NULL,
+	transaction_type VARCHAR(255) NOT NULL,
+	transaction_amount DECIMAL(19, 2) NOT NULL,
+	transaction_date TIMESTAMP NOT NULL,
+	balance_after DECIMAL(19, 2),
+	CONSTRAINT uk_transaction_transaction_id UNIQUE (transaction_id)
+);
+
+CREATE INDEX idx_transaction_account_date_id ON transaction (account_number, transaction_date, id);
+
+CREATE INDEX idx_transaction_account_type_date ON transaction (account_number, transaction_type, transaction_date);
+
+-- No foreign key to account: H2 backs one with a single-column index of its own, which ties with the
+-- history index on account_number lookups and wins. Transactions are only inserted after the update of
+-- their account matched, and accounts are never deleted
+
+CREATE TABLE account_balance_stripe (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	account_number VARCHAR(255) NOT NULL,
+	stripe_index INTEGER NOT NULL,
+	balance_amount DECIMAL(19, 2) NOT NULL,
+	transaction_count BIGINT DEFAULT 0 NOT NULL,
+	CONSTRAINT uk_account_balance_stripe UNIQUE (account_number, stripe_index)
+);
+
+CREATE TABLE balance_hold (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	hold_id VARCHAR(255) NOT NULL,
+	account_number VARCHAR(255) NOT NULL,
+	hold_amount DECIMAL(19, 2) NOT NULL,
+	expires_at TIMESTAMP NOT NULL,
+	CONSTRAINT uk_balance_hold_hold_id UNIQUE (hold_id)
+);
+
+CREATE TABLE daily_account_summary (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	account_number VARCHAR(255) NOT NULL,
+	summary_date DATE NOT NULL,
+	stripe_index INTEGER NOT NULL,
+	credit_count BIGINT NOT NULL,
+	credit_amount DECIMAL(19, 2) NOT NULL,
+	debit_count BIGINT NOT NULL,
+	debit_amount DECIMAL(19, 2) NOT NULL,
+	CONSTRAINT uk_daily_account_summary UNIQUE (account_number, summary_date, stripe_index)
+);
+
+-- Blocks of account numbers handed out by SequenceAccountNumberAllocator
+CREATE SEQUENCE account_number_block_seq START WITH 1;
@@ -0,0 +1,146 @@
+package com.wallet.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wallet.model.AccountStatus;
+import com.wallet.model.AccountType;
+import com.wallet.model.TransactionType;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.Transaction;
+import com.wallet.repository.TransactionJdbcRepository;
+import com.wallet.repository.TransactionRepository;
+
+@DataJpaTest
+@Import({ TransactionArchive.class, TransactionJdbcRepository.class })
+public class TransactionArchiveTest {
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@TempDir
+	Path directory;
+
+	@BeforeEach
+	public void init() throws InterruptedException, IOException {
+
+		// Reopen on an empty directory, without the segments of other tests
+		transactionArchive.stop();
+		ReflectionTestUtils.setField(transactionArchive, "directory", directory.toString());
+		ReflectionTestUtils.setField(transactionArchive, "maxAgeDays", 30);
+		ReflectionTestUtils.setField(transactionArchive, "blockRecords", 2);
+		transactionArchive.open();
+
+		LocalDateTime old = LocalDateTime.of(2022, 1, 10, 10, 0);
+
+		// Old transactions first, so they get the lower ids
+		saveAccount("9102", "test92@test1.com", "1119211111", transaction("TIdB1", old, 50));
+		saveAccount("9101", "test91@test1.com", "1119111111", transaction("TIdA1", old, 10),
+				transaction("TIdA2", old.plusMinutes(1), 20), transaction("TIdA3", old.plusMinutes(2), 30),
+				transaction("TIdA4", LocalDateTime.now(), 40));
+	}
+
+	@Test
+	public void shouldMoveOldTransactionsIntoSegmentAndServeThemFromThere() throws IOException {
+
+		assertEquals(4, transactionArchive.archive());
+
+		assertFalse(transactionRepository.findByTransactionId("TIdA1").isPresent());
+		assertTrue(transactionRepository.findByTransactionId("TIdA4").isPresent());
+		assertEquals(3L, archivedCount("9101"));
+		assertEquals(1L, archivedCount("9102"));
+
+		List<Transaction> transactions = transactionArchive.findByAccountNumber("9101", 1, 3);
+
+		assertEquals(Arrays.asList("TIdA2", "TIdA3"),
+				transactions.stream().map(Transaction::getTransactionId).collect(Collectors.toList()));
+		assertEquals("9101", transactions.get(0).getAccount().getAccountNumber());
+		assertEquals(0, new BigDecimal(20).compareTo(transactions.get(0).getTransactionAmount()));
+
+		Optional<Transaction> archived = transactionArchive.findByTransactionId("TIdB1");
+
+		assertTrue(archived.isPresent());
+		assertEquals("9102", archived.get().getAccount().getAccountNumber());
+		assertFalse(transactionArchive.findByTransactionId("TIdA4").isPresent());
+
+		List<String> transactionIds = new ArrayList<>();
+		transactionArchive.forEachTransactionId(transactionIds::add);
+
+		assertEquals(Arrays.asList("TIdA1", "TIdA2", "TIdA3", "TIdB1"), transactionIds);
+	}
+
+	@Test
+	public void shouldContinueOrdinalsInLaterSegments() throws IOException {
+
+		transactionArchive.archive();
+
+		// Nothing old is left, the next run writes no segment
+		assertEquals(0, transactionArchive.archive());
+
+		jdbcTemplate.update("UPDATE transaction SET transaction_date = ? WHERE transaction_id = 'TIdA4'",
+				Timestamp.valueOf(LocalDateTime.of(2022, 1, 11, 10, 0)));
+
+		assertEquals(1, transactionArchive.archive());
+		assertEquals(4L, archivedCount("9101"));
+		assertEquals("TIdA4", transactionArchive.findByAccountNumber("9101", 3, 4).get(0).getTransactionId());
+		assertEquals(4, transactionArchive.findByAccountNumber("9101", 0, 4).size());
+	}
+
+	private long archivedCount(String accountNumber) {
+
+		return jdbcTemplate.queryForObject("SELECT archived_transaction_count FROM account WHERE account_number = ?",
+				Long.class, accountNumber);
+	}
+
+	private void saveAccount(String accountNumber, String emailId, String mobileNumber, Transaction... transactions) {
+
+		Account account = Account.builder().accountNumber(accountNumber).accountStatus(AccountStatus.ACTIVE.name())
+				.accountType(AccountType.SAVINGS.name()).balanceAmount(new BigDecimal(100)).emailId(emailId)
+				.fullName("Test1 Test1").mobileNumber(mobileNumber).build();
+
+		for (Transaction transaction : transactions) {
+			transaction.setAccount(account);
+		}
+
+		account.setTransactions(Arrays.asList(transactions));
+		entityManager.persistAndFlush(account);
+	}
+
+	private static Transaction transaction(String transactionId, LocalDateTime transactionDate, int amount) {
+
+		return Transaction.builder().transactionId(transactionId).transactionType(TransactionType.CREDIT.name())
+				.transactionAmount(new BigDecimal(amount)).transactionDate(transactionDate)
+				.balanceAfter(new BigDecimal(100)).build();
+	}
+}
@@ -0,0 +1,162 @@
+package com.wallet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BalanceCacheTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	public void shouldLoadBalanceOnlyOnMiss() {
+
+		BalanceCache balanceCache = new BalanceCache(10, 4, 0, meterRegistry);
+
+		assertEquals(new BigDecimal(100), balanceCache.get("123456", this::load));
+		assertEquals(new BigDecimal(100), balanceCache.get("123456", this::load));
+
+		assertEquals(1, loads.get());
+		assertEquals(0.5, meterRegistry.get("wallet.balance-cache.hit-ratio").gauge().value());
+	}
+
+	@Test
+	public void shouldServeWrittenBalanceWithoutLoading() {
+
+		BalanceCache balanceCache = new BalanceCache(10, 4, 0, meterRegistry);
+
+		balanceCache.putWithinTransaction("123456", new BigDecimal(90));
+
+		assertEquals(new BigDecimal(90), balanceCache.get("123456", this::load));
+		assertEquals(0, loads.get());
+	}
+
+	@Test
+	public void shouldPublishWrittenBalanceOnlyOnceItIsCommitted() {
+
+		BalanceCache balanceCache = new BalanceCache(10, 4, 0, meterRegistry);
+
+		List<TransactionSynchronization> transaction = withinTransaction(
+				() -> balanceCache.putWithinTransaction("123456", new BigDecimal(90)));
+
+		// Still loads the committed balance, without caching it while the write is in flight
+		assertEquals(new BigDecimal(100), balanceCache.get("123456", this::load));
+		assertEquals(new BigDecimal(100), balanceCache.get("123456", this::load));
+		assertEquals(2, loads.get());
+
+		complete(transaction, TransactionSynchronization.STATUS_COMMITTED);
+
+		assertEquals(new BigDecimal(90), balanceCache.get("123456", this::load));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void shouldNotPublishBalanceOfRolledBackTransaction() {
+
+		BalanceCache balanceCache = new BalanceCache(10, 4, 0, meterRegistry);
+
+		complete(withinTransaction(() -> balanceCache.putWithinTransaction("123456", new BigDecimal(90))),
+				TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertEquals(new BigDecimal(100), balanceCache.get("123456", this::load));
+	}
+
+	@Test
+	public void shouldKeepBalanceOfLaterCommitWhenEarlierOneIsPublishedLast() {
+
+		BalanceCache balanceCache = new BalanceCache(10, 4, 0, meterRegistry);
+
+		List<TransactionSynchronization> first = withinTransaction(
+				() -> balanceCache.putWithinTransaction("123456", new BigDecimal(90)));
+		List<TransactionSynchronization> second = withinTransaction(
+				() -> balanceCache.putWithinTransaction("123456", new BigDecimal(80)));
+
+		complete(second, TransactionSynchronization.STATUS_COMMITTED);
+		complete(first, TransactionSynchronization.STATUS_COMMITTED);
+
+		assertEquals(new BigDecimal(80), balanceCache.get("123456", this::load));
+		assertEquals(0, loads.get());
+	}
+
+	@Test
+	public void shouldNotCacheBalanceLoadedWhileItWasWritten() {
+
+		BalanceCache balanceCache = new BalanceCache(10, 4, 0, meterRegistry);
+
+		balanceCache.get("123456", () -> {
+
+			// A concurrent writer invalidates while the old balance is being read
+			balanceCache.invalidate("123456");
+			return load();
+		});
+
+		balanceCache.get("123456", this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedBalance() {
+
+		// A single segment, so the least recently used balance is evicted across all accounts
+		BalanceCache balanceCache = new BalanceCache(2, 1, 0, meterRegistry);
+
+		balanceCache.get("1", this::load);
+		balanceCache.get("2", this::load);
+		balanceCache.get("1", this::load);
+		balanceCache.get("3", this::load);
+
+		assertEquals(2, balanceCache.size());
+		assertEquals(1, meterRegistry.get("wallet.balance-cache.evictions").counter().count());
+
+		// The second account was evicted, the first one was used more recently
+		balanceCache.get("1", this::load);
+		assertEquals(3, loads.get());
+	}
+
+	@Test
+	public void shouldReloadBalanceOlderThanMaxStaleness() throws InterruptedException {
+
+		BalanceCache balanceCache = new BalanceCache(10, 4, 1, meterRegistry);
+
+		balanceCache.get("123456", this::load);
+		Thread.sleep(5);
+		balanceCache.get("123456", this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	// Runs the write as if inside a transaction and returns its synchronizations
+	private List<TransactionSynchronization> withinTransaction(Runnable write) {
+
+		TransactionSynchronizationManager.initSynchronization();
+
+		try {
+			write.run();
+			return TransactionSynchronizationManager.getSynchronizations();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private void complete(List<TransactionSynchronization> transaction, int status) {
+
+		transaction.forEach(synchronization -> synchronization.afterCompletion(status));
+	}
+
+	private BigDecimal load() {
+
+		loads.incrementAndGet();
+		return new BigDecimal(100);
+	}
+}
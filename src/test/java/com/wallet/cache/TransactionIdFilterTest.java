@@ -0,0 +1,98 @@
+package com.wallet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wallet.archive.TransactionArchive;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionIdFilterTest {
+
+	@InjectMocks
+	private TransactionIdFilter transactionIdFilter;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private TransactionArchive transactionArchive;
+
+	@BeforeEach
+	public void init() {
+
+		ReflectionTestUtils.setField(transactionIdFilter, "expectedInsertions", 1000L);
+		ReflectionTestUtils.setField(transactionIdFilter, "falsePositiveRate", 0.01);
+		transactionIdFilter.init();
+	}
+
+	@Test
+	public void shouldReportEveryIdAsPossiblySeenUntilLoaded() {
+
+		assertTrue(transactionIdFilter.mightContain("TId1"));
+	}
+
+	@Test
+	public void shouldNeverReportAddedIdAsNew() {
+
+		doNothing().when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+		transactionIdFilter.load();
+
+		for (int index = 0; index < 1000; index++) {
+			transactionIdFilter.put("TId" + index);
+		}
+
+		for (int index = 0; index < 1000; index++) {
+			assertTrue(transactionIdFilter.mightContain("TId" + index));
+		}
+	}
+
+	@Test
+	public void shouldLoadArchivedIds() {
+
+		doNothing().when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+		doAnswer(invocation -> {
+			invocation.<Consumer<String>>getArgument(0).accept("TIdArchived");
+			return null;
+		}).when(transactionArchive).forEachTransactionId(any());
+
+		transactionIdFilter.load();
+
+		assertTrue(transactionIdFilter.mightContain("TIdArchived"));
+	}
+
+	@Test
+	public void shouldReportMostUnseenIdsAsNew() {
+
+		doNothing().when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+		transactionIdFilter.load();
+
+		for (int index = 0; index < 1000; index++) {
+			transactionIdFilter.put("TId" + index);
+		}
+
+		int falsePositives = 0;
+		for (int index = 0; index < 1000; index++) {
+			if (transactionIdFilter.mightContain("Other" + index)) {
+				falsePositives++;
+			}
+		}
+
+		assertFalse(falsePositives > 50);
+	}
+}
@@ -0,0 +1,119 @@
+package com.wallet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.wallet.exception.DuplicateTransactionException;
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.response.TransactionDto;
+
+public class TransactionReplayCacheTest {
+
+	private final TransactionReplayCache transactionReplayCache = new TransactionReplayCache(2);
+
+	@Test
+	public void shouldReplayTheOriginalResponseForSameRequest() {
+
+		AtomicInteger executions = new AtomicInteger();
+		TransactionRequest transactionRequest = request("TId10", "10");
+
+		TransactionDto first = transactionReplayCache.execute("123456", transactionRequest, TransactionType.DEBIT,
+				() -> response(executions.incrementAndGet()));
+		TransactionDto second = transactionReplayCache.execute("123456", request("TId10", "10.00"),
+				TransactionType.DEBIT, () -> response(executions.incrementAndGet()));
+
+		assertSame(first, second);
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	public void shouldThrowDuplicateTransactionExceptionForDifferentRequestWithSameTransactionId() {
+
+		transactionReplayCache.execute("123456", request("TId11", "10"), TransactionType.DEBIT, () -> response(1));
+
+		DuplicateTransactionException duplicateTransactionException = assertThrows(DuplicateTransactionException.class,
+				() -> transactionReplayCache.execute("123456", request("TId11", "10"), TransactionType.CREDIT,
+						() -> response(2)));
+
+		assertEquals("Transaction was already performed with transactionId: TId11",
+				duplicateTransactionException.getMessage());
+	}
+
+	@Test
+	public void shouldExecuteAgainAfterFailureOrEviction() {
+
+		AtomicInteger executions = new AtomicInteger();
+
+		assertThrows(InvalidRequestDataException.class,
+				() -> transactionReplayCache.execute("123456", request("TId12", "10"), TransactionType.DEBIT, () -> {
+					executions.incrementAndGet();
+					throw new InvalidRequestDataException("Insufficient funds");
+				}));
+
+		transactionReplayCache.execute("123456", request("TId12", "10"), TransactionType.DEBIT,
+				() -> response(executions.incrementAndGet()));
+		transactionReplayCache.execute("123456", request("TId13", "10"), TransactionType.DEBIT, () -> response(0));
+		transactionReplayCache.execute("123456", request("TId14", "10"), TransactionType.DEBIT, () -> response(0));
+		transactionReplayCache.execute("123456", request("TId12", "10"), TransactionType.DEBIT,
+				() -> response(executions.incrementAndGet()));
+
+		assertEquals(3, executions.get());
+	}
+
+	@Test
+	public void shouldCollapseConcurrentDuplicatesIntoOneExecution() throws Exception {
+
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<TransactionDto> first = CompletableFuture
+				.supplyAsync(() -> transactionReplayCache.execute("123456", request("TId15", "10"),
+						TransactionType.CREDIT, () -> {
+							started.countDown();
+							await(release);
+							return response(executions.incrementAndGet());
+						}));
+
+		started.await(1, TimeUnit.SECONDS);
+
+		CompletableFuture<TransactionDto> second = CompletableFuture
+				.supplyAsync(() -> transactionReplayCache.execute("123456", request("TId15", "10"),
+						TransactionType.CREDIT, () -> response(executions.incrementAndGet())));
+
+		release.countDown();
+
+		assertSame(first.get(1, TimeUnit.SECONDS), second.get(1, TimeUnit.SECONDS));
+		assertEquals(1, executions.get());
+	}
+
+	private TransactionRequest request(String transactionId, String amount) {
+
+		return TransactionRequest.builder().transactionId(transactionId).amount(new BigDecimal(amount)).build();
+	}
+
+	private TransactionDto response(int execution) {
+
+		return TransactionDto.builder().accountNumber("123456").accountBalance(String.valueOf(execution)).build();
+	}
+
+	private void await(CountDownLatch latch) {
+
+		try {
+			latch.await(1, TimeUnit.SECONDS);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -3,19 +3,29 @@ package com.wallet.controller;
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -25,15 +35,28 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wallet.exception.DuplicateTransactionException;
 import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.ExportFormat;
 import com.wallet.model.dto.request.AccountRequest;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.BatchTransactionRequest;
+import com.wallet.model.dto.request.HoldRequest;
+import com.wallet.model.dto.request.TransactionFilter;
 import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
 import com.wallet.model.dto.response.AccountDto;
+import com.wallet.model.dto.response.DailySummaryDto;
+import com.wallet.model.dto.response.OnboardingResponse;
+import com.wallet.model.dto.response.OnboardingResultDto;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
 import com.wallet.service.AccountService;
 import com.wallet.service.TransactionService;
 
@@ -71,6 +94,41 @@ public class AccountControllerTest {
 		verifyNoMoreInteractions(accountService);
 	}
 
+	@Test
+	public void shouldCreateAccountsFromJsonArray() throws Exception {
+
+		AccountRequest accountRequest = AccountRequest.builder().emailId("test@test.com").accountType("SAVINGS")
+				.balanceAmount(new BigDecimal(100)).fullName("Test Test").mobileNumber("1111111111").build();
+
+		when(accountService.createAccounts(anyList())).thenReturn(OnboardingResponse.builder()
+				.message("1 accounts created, 0 rejected").noOfCreated(1)
+				.results(Collections.singletonList(OnboardingResultDto.builder().row(1).status("CREATED")
+						.accountNumber("0000000034").build()))
+				.build());
+
+		mockMvc.perform(post("/bulk").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(Collections.singletonList(accountRequest)))).andExpect(status().isOk())
+				.andExpect(jsonPath("$.noOfCreated").value(1))
+				.andExpect(jsonPath("$.results[0].accountNumber").value("0000000034"));
+
+		verify(accountService, times(1)).createAccounts(Collections.singletonList(accountRequest));
+	}
+
+	@Test
+	public void shouldCreateAccountsFromCsvStream() throws Exception {
+
+		when(accountService.createAccounts(any(InputStream.class))).thenReturn(OnboardingResponse.builder()
+				.message("0 accounts created, 1 rejected").noOfRejected(1)
+				.results(Collections.singletonList(OnboardingResultDto.builder().row(1).status("REJECTED")
+						.message("Account is invalid: balanceAmount is not a number").build()))
+				.build());
+
+		mockMvc.perform(post("/bulk").contentType("text/csv")
+				.content("fullName,emailId,mobileNumber,accountType,balanceAmount\nTest,test@test.com,1,SAVINGS,x\n"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.noOfRejected").value(1))
+				.andExpect(jsonPath("$.results[0].status").value("REJECTED"));
+	}
+
 	@Test
 	public void shouldReturnBadRequestWhenInvalidRequestIsSent() throws Exception {
 
@@ -124,6 +182,27 @@ public class AccountControllerTest {
 				.andExpect(jsonPath("$.transactionType").value("DEBIT"));
 	}
 
+	@Test
+	public void shouldReplayTheResponseOfRetriedDebit() throws Exception {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().amount(new BigDecimal(10))
+				.transactionId("TId19").build();
+
+		TransactionDto transactionDto = TransactionDto.builder().accountNumber("123456")
+				.message("Account debited successfully").accountBalance("90").transactionType("DEBIT").build();
+
+		when(transactionService.performDebit(anyString(), any())).thenReturn(transactionDto);
+
+		for (int attempt = 0; attempt < 2; attempt++) {
+
+			mockMvc.perform(post("/123456/transactions/debit").contentType(MediaType.APPLICATION_JSON_VALUE)
+					.content(toJsonString(transactionRequest))).andExpect(status().isOk())
+					.andExpect(jsonPath("$.accountBalance").value("90"));
+		}
+
+		verify(transactionService, times(1)).performDebit("123456", transactionRequest);
+	}
+
 	@Test
 	public void shouldReturnBadRequestWhenTransactionRequestForDebitIsInvalid() throws Exception {
 
@@ -258,6 +337,268 @@ public class AccountControllerTest {
 				.andExpect(jsonPath("$.totalNoOfTransactions").value(2));
 	}
 
+	@Test
+	public void shouldPassFiltersOnTransactionHistoryToService() throws Exception {
+
+		TransactionFilter filter = TransactionFilter.builder().from(LocalDateTime.of(2022, 1, 10, 10, 0))
+				.to(LocalDateTime.of(2022, 1, 10, 11, 0)).transactionType("DEBIT").build();
+
+		when(transactionService.getFilteredTransactions("123456", filter, 0, 10, true))
+				.thenReturn(TransactionResponse.builder().status(200).message("Success").totalNoOfPages(1)
+						.totalNoOfTransactions(1).build());
+
+		mockMvc.perform(get(
+				"/transactions?accountNumber=123456&from=2022-01-10T10:00:00&to=2022-01-10T11:00:00&type=DEBIT"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.totalNoOfTransactions").value(1));
+	}
+
+	@Test
+	public void shouldReturnStatementForPeriod() throws Exception {
+
+		when(transactionService.getStatement("123456", LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)))
+				.thenReturn(StatementDto.builder().message("Account statement generated successfully")
+						.accountNumber("123456").openingBalance("100.00").closingBalance("70.00").totalCredits("0")
+						.totalDebits("30.00").noOfDebits(1).build());
+
+		mockMvc.perform(get("/123456/statement?fromDate=2022-01-01&toDate=2022-01-31")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.openingBalance").value("100.00"))
+				.andExpect(jsonPath("$.closingBalance").value("70.00"))
+				.andExpect(jsonPath("$.noOfDebits").value(1));
+	}
+
+	@Test
+	public void shouldReturnDailySummaryForPeriod() throws Exception {
+
+		when(transactionService.getSummary("123456", LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)))
+				.thenReturn(SummaryDto.builder().message("Account summary generated successfully")
+						.accountNumber("123456").noOfDebits(1).totalDebits("30.00").totalCredits("0")
+						.days(Collections.singletonList(DailySummaryDto.builder().summaryDate("2022-01-03")
+								.noOfDebits(1).totalDebits("30.00").totalCredits("0").build()))
+						.build());
+
+		mockMvc.perform(get("/123456/summary?fromDate=2022-01-01&toDate=2022-01-31")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalDebits").value("30.00"))
+				.andExpect(jsonPath("$.days[0].summaryDate").value("2022-01-03"));
+	}
+
+	@Test
+	public void shouldStreamTransactionExportAsCsv() throws Exception {
+
+		when(transactionService.exportTransactions("123456", ExportFormat.CSV))
+				.thenReturn(outputStream -> outputStream.write("transactionId\nTId19\n".getBytes(StandardCharsets.UTF_8)));
+
+		MvcResult mvcResult = mockMvc.perform(get("/transactions/export?accountNumber=123456&format=csv"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk())
+				.andExpect(content().contentType("text/csv"))
+				.andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions-123456.csv\""))
+				.andExpect(content().string("transactionId\nTId19\n"));
+	}
+
+	@Test
+	public void shouldReturnBadRequestForUnknownExportFormat() throws Exception {
+
+		mockMvc.perform(get("/transactions/export?accountNumber=123456&format=xml")).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message")
+						.value("Invalid export format: xml, supported formats are ndjson and csv"));
+	}
+
+	@Test
+	public void shouldReturnTransactionsWithoutTotalsWhenNotRequested() throws Exception {
+
+		List<TransactionDto> transactionDtos = new ArrayList<>();
+		transactionDtos.add(TransactionDto.builder().accountNumber("123456").transactionAmount("10")
+				.transactionId("TId18").transactionType("DEBIT").build());
+
+		when(transactionService.getTransactionSlice("123456", 0, 1)).thenReturn(TransactionResponse.builder()
+				.status(200).message("Success").transactions(transactionDtos).hasNext(true).build());
+
+		mockMvc.perform(get("/transactions?accountNumber=123456&page=0&limit=1&totals=false"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.hasNext").value(true))
+				.andExpect(jsonPath("$.totalNoOfTransactions").doesNotExist());
+	}
+
+	@Test
+	public void shouldReturnTransactionsAfterCursorWithNextCursor() throws Exception {
+
+		List<TransactionDto> transactionDtos = new ArrayList<>();
+		transactionDtos.add(TransactionDto.builder().accountNumber("123456").transactionAmount("10")
+				.transactionId("TId17").transactionType("DEBIT").build());
+
+		when(transactionService.getTransactionsAfter("123456", "MjAyMi0wMS0xMFQxMDowMHwy", 1))
+				.thenReturn(TransactionResponse.builder().status(200).message("Success").totalNoOfTransactions(1)
+						.transactions(transactionDtos).nextCursor("MjAyMi0wMS0xMFQxMDowMHwz").build());
+
+		mockMvc.perform(get("/transactions/cursor?accountNumber=123456&cursor=MjAyMi0wMS0xMFQxMDowMHwy&limit=1"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.transactions[0].transactionId").value("TId17"))
+				.andExpect(jsonPath("$.nextCursor").value("MjAyMi0wMS0xMFQxMDowMHwz"))
+				.andExpect(jsonPath("$.totalNoOfPages").doesNotExist());
+	}
+
+	@Test
+	public void shouldPerformBatchOfTransactionsOnAccount() throws Exception {
+
+		BatchTransactionRequest batchTransactionRequest = BatchTransactionRequest.builder()
+				.transactions(Arrays.asList(
+						BatchTransactionItem.builder().transactionId("TId30").transactionType("DEBIT")
+								.amount(new BigDecimal(10)).build(),
+						BatchTransactionItem.builder().transactionId("TId31").transactionType("CREDIT")
+								.amount(new BigDecimal(20)).build()))
+				.build();
+
+		when(transactionService.performBatch(anyString(), any()))
+				.thenReturn(TransactionResponse.builder().status(200)
+						.message("Batch of transactions performed successfully").totalNoOfTransactions(2).build());
+
+		mockMvc.perform(post("/123456/transactions/batch").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(batchTransactionRequest))).andExpect(status().isOk())
+				.andExpect(jsonPath("$.message").value("Batch of transactions performed successfully"))
+				.andExpect(jsonPath("$.totalNoOfTransactions").value(2));
+
+		verify(transactionService, times(1)).performBatch("123456", batchTransactionRequest.getTransactions());
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenBatchItemIsInvalid() throws Exception {
+
+		List<String> fields = Arrays.asList("transactions[0].transactionType", "transactions[0].amount");
+		List<String> errors = Arrays.asList("can only be 'DEBIT' or 'CREDIT'", "should be greater than or equal to 1");
+
+		BatchTransactionRequest batchTransactionRequest = BatchTransactionRequest.builder()
+				.transactions(Arrays.asList(BatchTransactionItem.builder().accountNumber("123456")
+						.transactionId("TId32").transactionType("REFUND").amount(new BigDecimal(0)).build()))
+				.build();
+
+		mockMvc.perform(post("/transactions/batch").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(batchTransactionRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Bad Request"))
+				.andExpect(jsonPath("$.errors[*].field", containsInAnyOrder(fields.toArray())))
+				.andExpect(jsonPath("$.errors[*].error", containsInAnyOrder(errors.toArray())));
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenBatchItemHasNoAmount() throws Exception {
+
+		BatchTransactionRequest batchTransactionRequest = BatchTransactionRequest.builder()
+				.transactions(Arrays.asList(BatchTransactionItem.builder().accountNumber("123456")
+						.transactionId("TId35").transactionType("DEBIT").build()))
+				.build();
+
+		mockMvc.perform(post("/transactions/batch").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(batchTransactionRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Bad Request"))
+				.andExpect(jsonPath("$.errors[0].field").value("transactions[0].amount"))
+				.andExpect(jsonPath("$.errors[0].error").value("cannot be null"));
+
+		verifyNoMoreInteractions(transactionService);
+	}
+
+	@Test
+	public void shouldTransferAmountBetweenAccounts() throws Exception {
+
+		TransferRequest transferRequest = TransferRequest.builder().transactionId("TId33").fromAccountNumber("123456")
+				.toAccountNumber("654321").amount(new BigDecimal(10)).build();
+
+		when(transactionService.performTransfer(any())).thenReturn(TransferDto.builder()
+				.message("Amount transferred successfully").transactionId("TId33").fromAccountNumber("123456")
+				.fromAccountBalance("90").toAccountNumber("654321").transactionAmount("10").build());
+
+		mockMvc.perform(post("/transfers").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(transferRequest))).andExpect(status().isOk())
+				.andExpect(jsonPath("$.message").value("Amount transferred successfully"))
+				.andExpect(jsonPath("$.fromAccountBalance").value("90"))
+				.andExpect(jsonPath("$.toAccountNumber").value("654321"));
+
+		verify(transactionService, times(1)).performTransfer(transferRequest);
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenTransferRequestIsInvalid() throws Exception {
+
+		List<String> fields = Arrays.asList("transactionId", "toAccountNumber", "amount");
+		List<String> errors = Arrays.asList("should be up to 17 characters", "cannot be null or empty",
+				"should be greater than or equal to 1");
+
+		TransferRequest transferRequest = TransferRequest.builder().transactionId("TId34-0123456789ABC")
+				.fromAccountNumber("123456").amount(new BigDecimal(0)).build();
+
+		mockMvc.perform(post("/transfers").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(transferRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Bad Request"))
+				.andExpect(jsonPath("$.errors[*].field", containsInAnyOrder(fields.toArray())))
+				.andExpect(jsonPath("$.errors[*].error", containsInAnyOrder(errors.toArray())));
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenTransactionRequestHasNoAmount() throws Exception {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId37").build();
+
+		mockMvc.perform(post("/123456/transactions/debit").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(transactionRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Bad Request"))
+				.andExpect(jsonPath("$.errors[0].field").value("amount"))
+				.andExpect(jsonPath("$.errors[0].error").value("cannot be null"));
+
+		verifyNoMoreInteractions(transactionService);
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenAmountHasMoreDecimalsThanTheCurrency() throws Exception {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId38")
+				.amount(new BigDecimal("10.505")).build();
+
+		mockMvc.perform(post("/123456/transactions/credit").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(transactionRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errors[0].field").value("amount"))
+				.andExpect(jsonPath("$.errors[0].error").value("should have up to 15 digits and 2 decimals"));
+
+		verifyNoMoreInteractions(transactionService);
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenAmountDoesNotConvertToMinorUnits() throws Exception {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().amount(new BigDecimal(1))
+				.transactionId("TId39").build();
+
+		when(transactionService.performDebit(anyString(), any())).thenThrow(new ArithmeticException("Overflow"));
+
+		mockMvc.perform(post("/123456/transactions/debit").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(transactionRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.status").value(400)).andExpect(jsonPath("$.message")
+						.value("Amount does not fit the minor unit of the currency or the balance"));
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenTransferRequestHasNoAmount() throws Exception {
+
+		TransferRequest transferRequest = TransferRequest.builder().transactionId("TId36").fromAccountNumber("123456")
+				.toAccountNumber("654321").build();
+
+		mockMvc.perform(post("/transfers").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(transferRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Bad Request"))
+				.andExpect(jsonPath("$.errors[0].field").value("amount"))
+				.andExpect(jsonPath("$.errors[0].error").value("cannot be null"));
+
+		verifyNoMoreInteractions(transactionService);
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenHoldRequestHasNoAmount() throws Exception {
+
+		HoldRequest holdRequest = HoldRequest.builder().holdId("HId10").ttlMillis(60_000L).build();
+
+		mockMvc.perform(post("/123456/holds").contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(toJsonString(holdRequest))).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Bad Request"))
+				.andExpect(jsonPath("$.errors[0].field").value("amount"))
+				.andExpect(jsonPath("$.errors[0].error").value("cannot be null"));
+	}
+
 	private String toJsonString(Object object) {
 
 		try {
@@ -0,0 +1,129 @@
+package com.wallet.journal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class BalanceSnapshotStoreTest {
+
+	@TempDir
+	Path directory;
+
+	private final BalanceSnapshotStore balanceSnapshotStore = new BalanceSnapshotStore();
+
+	@BeforeEach
+	public void init() {
+
+		ReflectionTestUtils.setField(balanceSnapshotStore, "directory", directory.toString());
+		ReflectionTestUtils.setField(balanceSnapshotStore, "retained", 2);
+	}
+
+	@Test
+	public void shouldLoadNothingWhenNoSnapshotWasTaken() throws IOException {
+
+		assertTrue(balanceSnapshotStore.loadLatest().isEmpty());
+	}
+
+	@Test
+	public void shouldLoadTheLatestSnapshotAndKeepOnlyTheRetainedOnes() throws IOException {
+
+		balanceSnapshotStore.save(snapshot(1, 10000));
+		balanceSnapshotStore.save(snapshot(2, 9000));
+		balanceSnapshotStore.save(snapshot(3, 8000));
+
+		BalanceSnapshot snapshot = balanceSnapshotStore.loadLatest().get();
+
+		assertArrayEquals(new long[] { 3, 3 }, snapshot.getSequences());
+		assertEquals(account("123456", 8000, 3), snapshot.getAccounts().get(0));
+		assertEquals(2, snapshots().size());
+	}
+
+	@Test
+	public void shouldWriteBalancesAsFixedWidthRecordsFollowedByAccountDetails() throws IOException {
+
+		balanceSnapshotStore.save(BalanceSnapshot.builder().sequences(new long[] { 7, 9 })
+				.accounts(Arrays.asList(account("123456", 100, 7), account("12345678901234567890", Long.MAX_VALUE, 9)))
+				.build());
+
+		// Magic, partition count, sequences, account count, two 48 byte records, two 58 byte details and the checksum
+		assertEquals(4 + 4 + 2 * 8 + 4 + 2 * 48 + 2 * 58 + 8, Files.size(snapshots().get(0)));
+
+		List<SnapshotAccount> accounts = balanceSnapshotStore.loadLatest().get().getAccounts();
+
+		assertEquals(account("123456", 100, 7), accounts.get(0));
+		assertEquals(account("12345678901234567890", Long.MAX_VALUE, 9), accounts.get(1));
+	}
+
+	@Test
+	public void shouldRejectAccountNumberWhichDoesNotFitARecord() {
+
+		BalanceSnapshot snapshot = BalanceSnapshot.builder().sequences(new long[] { 1 })
+				.accounts(Arrays.asList(account("1".repeat(33), 100, 1))).build();
+
+		assertThrows(IOException.class, () -> balanceSnapshotStore.save(snapshot));
+	}
+
+	@Test
+	public void shouldFallBackToPreviousSnapshotWhenLatestIsCorrupt() throws IOException {
+
+		balanceSnapshotStore.save(snapshot(1, 10000));
+		balanceSnapshotStore.save(snapshot(2, 9000));
+
+		try (RandomAccessFile latest = new RandomAccessFile(snapshots().get(0).toFile(), "rw")) {
+
+			latest.seek(latest.length() - 12);
+			latest.write(0x7f);
+		}
+
+		assertArrayEquals(new long[] { 1, 1 }, balanceSnapshotStore.loadLatest().get().getSequences());
+	}
+
+	@Test
+	public void shouldReportTheEarliestSequenceOfTheRetainedSnapshots() throws IOException {
+
+		assertEquals(0, balanceSnapshotStore.earliestSequence());
+
+		balanceSnapshotStore.save(snapshot(1, 10000));
+		balanceSnapshotStore.save(snapshot(2, 9000));
+		balanceSnapshotStore.save(snapshot(3, 8000));
+
+		assertEquals(2, balanceSnapshotStore.earliestSequence());
+	}
+
+	private BalanceSnapshot snapshot(long sequence, long minorUnits) {
+
+		return BalanceSnapshot.builder().sequences(new long[] { sequence, sequence })
+				.accounts(Arrays.asList(account("123456", minorUnits, sequence))).build();
+	}
+
+	private SnapshotAccount account(String accountNumber, long minorUnits, long sequence) {
+
+		return SnapshotAccount.builder().accountNumber(accountNumber).minorUnits(minorUnits).sequence(sequence)
+				.emailId("test1@test.com").fullName("Test1 Test1").mobileNumber("1111111111").accountType("SAVINGS")
+				.accountStatus("ACTIVE").build();
+	}
+
+	// Latest first
+	private List<Path> snapshots() throws IOException {
+
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package com.wallet.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wallet.ledger.LedgerEntry;
+
+public class TransactionJournalTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void shouldReplayAppendedEntriesAfterReopening() throws IOException {
+
+		TransactionJournal transactionJournal = open(4096);
+
+		LedgerEntry entry = entry("TId10");
+		assertEquals(1, transactionJournal.append(entry));
+		assertEquals(2, transactionJournal.append(entry("TId11")));
+		transactionJournal.close();
+
+		TransactionJournal reopened = open(4096);
+		assertEquals(3, reopened.append(entry("TId12")));
+
+		List<LedgerEntry> entries = replay(reopened);
+
+		assertEquals(3, entries.size());
+		assertEquals(entry, entries.get(0));
+		assertEquals("TId12", entries.get(2).getTransactionId());
+	}
+
+	@Test
+	public void shouldRollOverToNewSegmentWhenSegmentIsFull() throws IOException {
+
+		TransactionJournal transactionJournal = open(256);
+
+		for (int index = 0; index < 10; index++) {
+			transactionJournal.append(entry("TId" + index));
+		}
+
+		List<LedgerEntry> entries = replay(transactionJournal);
+
+		assertEquals(10, entries.size());
+		assertEquals(10, entries.get(9).getSequence());
+		assertTrue(segments().size() > 1);
+	}
+
+	@Test
+	public void shouldReplayOnlyTheEntriesAfterGivenSequence() throws IOException {
+
+		TransactionJournal transactionJournal = open(256);
+
+		for (int index = 0; index < 10; index++) {
+			transactionJournal.append(entry("TId" + index));
+		}
+
+		List<LedgerEntry> entries = new ArrayList<>();
+		transactionJournal.replay(7, entries::add);
+
+		assertEquals(3, entries.size());
+		assertEquals(8, entries.get(0).getSequence());
+		assertEquals(10, transactionJournal.lastSequence());
+	}
+
+	@Test
+	public void shouldIgnoreTornRecordAtTheEndOfJournal() throws IOException {
+
+		TransactionJournal transactionJournal = open(4096);
+		transactionJournal.append(entry("TId10"));
+		transactionJournal.append(entry("TId11"));
+		transactionJournal.close();
+
+		// Corrupt the payload of the second record
+		try (RandomAccessFile segment = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+
+			segment.seek(0);
+			int length = segment.readInt();
+			segment.seek(8L + length + 20);
+			segment.write(0x7f);
+		}
+
+		TransactionJournal reopened = open(4096);
+
+		assertEquals(1, replay(reopened).size());
+		assertEquals(2, reopened.append(entry("TId11")));
+		assertEquals(2, replay(reopened).size());
+	}
+
+	@Test
+	public void shouldWriteEntriesAppendedTogetherToTheSameSegment() throws IOException {
+
+		TransactionJournal transactionJournal = open(256);
+		transactionJournal.append(entry("TId0"));
+		transactionJournal.append(entry("TId1"));
+
+		// Does not fit the rest of the first segment as a whole
+		transactionJournal.appendAll(Arrays.asList(entry("TId2"), entry("TId2_C")));
+
+		List<Path> segments = segments();
+
+		assertEquals(2, segments.size());
+		assertTrue(segments.get(1).getFileName().toString().endsWith("00000000000000000003.log"));
+		assertEquals(4, replay(transactionJournal).size());
+	}
+
+	@Test
+	public void shouldDropEveryEntryOfTornGroup() throws IOException {
+
+		TransactionJournal transactionJournal = open(4096);
+		transactionJournal.append(entry("TId10"));
+		transactionJournal.appendAll(Arrays.asList(entry("TId11"), entry("TId11_C")));
+		transactionJournal.close();
+
+		// Corrupt the last byte of the group
+		try (RandomAccessFile segment = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+
+			segment.seek(0);
+			int length = segment.readInt();
+			segment.seek(8L + length);
+			int groupLength = segment.readInt();
+			segment.seek(8L + length + 8 + groupLength - 1);
+			segment.write(0x7f);
+		}
+
+		TransactionJournal reopened = open(4096);
+
+		assertEquals(1, replay(reopened).size());
+		assertEquals(2, reopened.append(entry("TId11")));
+	}
+
+	@Test
+	public void shouldDeleteSegmentsUpToGivenSequenceExceptTheLastOne() throws IOException {
+
+		TransactionJournal transactionJournal = open(256);
+
+		// Three entries per segment, starting at sequences 1, 4, 7 and 10
+		for (int index = 0; index < 10; index++) {
+			transactionJournal.append(entry("TId" + index));
+		}
+
+		assertEquals(4, segments().size());
+		assertEquals(1, transactionJournal.deleteUpTo(5));
+
+		List<LedgerEntry> entries = replay(transactionJournal);
+
+		assertEquals(7, entries.size());
+		assertEquals(4, entries.get(0).getSequence());
+
+		assertEquals(2, transactionJournal.deleteUpTo(100));
+		assertEquals(11, transactionJournal.append(entry("TId10")));
+		assertEquals(2, replay(transactionJournal).size());
+	}
+
+	@Test
+	public void shouldKeepEveryEntryOfConcurrentAppends() throws Exception {
+
+		TransactionJournal transactionJournal = open(1024);
+		ExecutorService appenders = Executors.newFixedThreadPool(4);
+
+		try {
+			List<Future<Long>> sequences = new ArrayList<>();
+
+			for (int index = 0; index < 100; index++) {
+
+				String transactionId = "TId" + index;
+				sequences.add(appenders.submit(() -> transactionJournal.append(entry(transactionId))));
+			}
+
+			Set<Long> assignedSequences = new HashSet<>();
+
+			for (Future<Long> sequence : sequences) {
+				assignedSequences.add(sequence.get());
+			}
+
+			assertEquals(100, assignedSequences.size());
+		} finally {
+			appenders.shutdown();
+		}
+
+		List<LedgerEntry> entries = replay(transactionJournal);
+
+		assertEquals(100, entries.size());
+		assertEquals(100, entries.get(99).getSequence());
+		assertEquals(100, entries.stream().map(LedgerEntry::getTransactionId).distinct().count());
+	}
+
+	private TransactionJournal open(int segmentSize) throws IOException {
+
+		TransactionJournal transactionJournal = new TransactionJournal();
+		ReflectionTestUtils.setField(transactionJournal, "directory", directory.toString());
+		ReflectionTestUtils.setField(transactionJournal, "segmentSize", segmentSize);
+		ReflectionTestUtils.setField(transactionJournal, "forceOnAppend", true);
+		transactionJournal.open();
+
+		return transactionJournal;
+	}
+
+	private List<LedgerEntry> replay(TransactionJournal transactionJournal) throws IOException {
+
+		List<LedgerEntry> entries = new ArrayList<>();
+		transactionJournal.replay(entries::add);
+
+		return entries;
+	}
+
+	private List<Path> segments() throws IOException {
+
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted().collect(Collectors.toList());
+		}
+	}
+
+	private LedgerEntry entry(String transactionId) {
+
+		return LedgerEntry.builder().accountNumber("123456").transactionId(transactionId).transactionType("DEBIT")
+				.transactionAmount(1000L).transactionDate(LocalDateTime.of(2021, 1, 20, 19, 0, 0, 5))
+				.balanceAfter(9000L).build();
+	}
+}
@@ -0,0 +1,477 @@
+package com.wallet.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.archive.TransactionArchive;
+import com.wallet.cache.TransactionIdFilter;
+import com.wallet.exception.DuplicateTransactionException;
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.journal.BalanceSnapshot;
+import com.wallet.journal.BalanceSnapshotStore;
+import com.wallet.journal.SnapshotAccount;
+import com.wallet.journal.TransactionJournal;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.dto.response.TransferDto;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.Transaction;
+import com.wallet.repository.AccountRepository;
+import com.wallet.repository.TransactionRepository;
+import com.wallet.service.impl.DailySummaries;
+import com.wallet.util.Util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class LedgerEngineTest {
+
+	@InjectMocks
+	private LedgerEngine ledgerEngine;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Mock
+	private Util util;
+
+	@Mock
+	private TransactionIdFilter transactionIdFilter;
+
+	@Mock
+	private TransactionJournal transactionJournal;
+
+	@Mock
+	private BalanceSnapshotStore balanceSnapshotStore;
+
+	@Mock
+	private DailySummaries dailySummaries;
+
+	@Mock
+	private TransactionArchive transactionArchive;
+
+	@Captor
+	private ArgumentCaptor<List<Account>> restoredAccounts;
+
+	@BeforeEach
+	public void init() throws IOException {
+
+		ReflectionTestUtils.setField(ledgerEngine, "transactionTemplate", new TransactionTemplate(transactionManager));
+		ReflectionTestUtils.setField(ledgerEngine, "partitionCount", 4);
+		ReflectionTestUtils.setField(ledgerEngine, "flushBatchSize", 10);
+		ReflectionTestUtils.setField(ledgerEngine, "currency", "INR");
+		ReflectionTestUtils.setField(ledgerEngine, "meterRegistry", new SimpleMeterRegistry());
+		ledgerEngine.start();
+
+		Account account = Account.builder().accountNumber("123456").balanceAmount(new BigDecimal(100))
+				.accountStatus("ACTIVE").build();
+
+		lenient().when(transactionIdFilter.mightContain(anyString())).thenReturn(true);
+		lenient().when(accountRepository.findByAccountNumberAndAccountStatus(eq("123456"), anyString()))
+				.thenReturn(Optional.of(account));
+
+		ledgerEngine.recover();
+	}
+
+	@AfterEach
+	public void destroy() throws InterruptedException {
+
+		ledgerEngine.stop();
+	}
+
+	@Test
+	public void shouldDebitFromLedgerBalanceAndPersistAsynchronously() {
+
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		TransactionDto transactionDto = ledgerEngine.debit("123456",
+				TransactionRequest.builder().transactionId("TId10").amount(new BigDecimal(10)).build());
+
+		assertEquals("90.00", transactionDto.getAccountBalance());
+		assertEquals("DEBIT", transactionDto.getTransactionType());
+		assertEquals(new BigDecimal("90.00"), ledgerEngine.balanceOf("123456").get());
+
+		verify(transactionJournal).append(any());
+		verify(accountRepository, timeout(1000)).debitBalance("123456", "ACTIVE", new BigDecimal("10.00"));
+		verify(transactionRepository, timeout(1000)).insertTransaction(eq("123456"), eq("TId10"), eq("DEBIT"),
+				eq(new BigDecimal("10.00")), any(), any());
+		verify(dailySummaries, timeout(1000)).addDebit(eq("123456"), eq(0), any(), eq(new BigDecimal("10.00")));
+	}
+
+	@Test
+	public void shouldRejectDebitWhenLedgerBalanceIsInsufficient() {
+
+		InvalidRequestDataException insufficientFundException = assertThrows(InvalidRequestDataException.class,
+				() -> ledgerEngine.debit("123456",
+						TransactionRequest.builder().transactionId("TId11").amount(new BigDecimal(110)).build()));
+
+		assertEquals("There are insufficient funds in your account. Please provide different amount.",
+				insufficientFundException.getMessage());
+		assertEquals(new BigDecimal("100.00"), ledgerEngine.balanceOf("123456").get());
+	}
+
+	@Test
+	public void shouldRejectTransactionIdWhichIsPendingOrPersisted() {
+
+		when(transactionRepository.findByTransactionId("TId12")).thenReturn(Optional.empty());
+		when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		ledgerEngine.credit("123456",
+				TransactionRequest.builder().transactionId("TId12").amount(new BigDecimal(10)).build());
+
+		verify(transactionRepository, timeout(1000)).insertTransaction(eq("123456"), eq("TId12"), eq("CREDIT"),
+				eq(new BigDecimal("10.00")), any(), any());
+		when(transactionRepository.findByTransactionId("TId12"))
+				.thenReturn(Optional.of(Transaction.builder().transactionId("TId12").build()));
+
+		assertThrows(DuplicateTransactionException.class, () -> ledgerEngine.credit("123456",
+				TransactionRequest.builder().transactionId("TId12").amount(new BigDecimal(10)).build()));
+	}
+
+	@Test
+	public void shouldStopPartitionAndKeepTheEntryWhenItCannotBePersisted() throws InterruptedException {
+
+		ReflectionTestUtils.setField(ledgerEngine, "flushRetries", 2);
+		when(accountRepository.debitBalance(anyString(), anyString(), any()))
+				.thenThrow(new IllegalStateException("Database is unavailable"));
+
+		TransactionDto transactionDto = ledgerEngine.debit("123456",
+				TransactionRequest.builder().transactionId("TId20").amount(new BigDecimal(10)).build());
+
+		assertEquals("90.00", transactionDto.getAccountBalance());
+
+		// The batch, the entry and both of its retries
+		verify(accountRepository, timeout(1000).times(4)).debitBalance("123456", "ACTIVE", new BigDecimal("10.00"));
+
+		assertEquals("Ledger partition " + ledgerEngine.partitionIndex("123456")
+				+ " stopped after an entry could not be persisted", awaitStoppedPartition("123456").getMessage());
+		assertEquals(new BigDecimal("90.00"), ledgerEngine.balanceOf("123456").get());
+		verify(transactionRepository, never()).insertTransaction(anyString(), anyString(), anyString(), any(), any(),
+				any());
+	}
+
+	@Test
+	public void shouldThrowAnAccountDoesNotExistExceptionForUnknownAccount() {
+
+		InvalidRequestDataException accountDoesNotExistException = assertThrows(InvalidRequestDataException.class,
+				() -> ledgerEngine.credit("654321",
+						TransactionRequest.builder().transactionId("TId13").amount(new BigDecimal(10)).build()));
+
+		assertEquals("Account does not exist with accountNumber: 654321", accountDoesNotExistException.getMessage());
+	}
+
+	@Test
+	public void shouldTransferBetweenAccountsOfDifferentPartitions() {
+
+		Account account = Account.builder().accountNumber("654321").balanceAmount(new BigDecimal(50))
+				.accountStatus("ACTIVE").build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(eq("654321"), anyString()))
+				.thenReturn(Optional.of(account));
+		lenient().when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+		lenient().when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		TransferDto transferDto = ledgerEngine.transfer(TransferRequest.builder().transactionId("TId18")
+				.fromAccountNumber("123456").toAccountNumber("654321").amount(new BigDecimal(30)).build());
+
+		assertEquals("70.00", transferDto.getFromAccountBalance());
+		assertEquals(new BigDecimal("70.00"), ledgerEngine.balanceOf("123456").get());
+		assertEquals(new BigDecimal("80.00"), ledgerEngine.balanceOf("654321").get());
+		verify(transactionJournal).appendAll(any());
+
+		InvalidRequestDataException insufficientFundException = assertThrows(InvalidRequestDataException.class,
+				() -> ledgerEngine.transfer(TransferRequest.builder().transactionId("TId19").fromAccountNumber("654321")
+						.toAccountNumber("123456").amount(new BigDecimal(100)).build()));
+
+		assertEquals("There are insufficient funds in your account. Please provide different amount.",
+				insufficientFundException.getMessage());
+		assertEquals(new BigDecimal("80.00"), ledgerEngine.balanceOf("654321").get());
+	}
+
+	@Test
+	public void shouldApplyBatchAllOrNothing() {
+
+		lenient().when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+		lenient().when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		InvalidRequestDataException insufficientFundException = assertThrows(InvalidRequestDataException.class,
+				() -> ledgerEngine.batch(Arrays.asList(item("TId21", "DEBIT", 60), item("TId22", "DEBIT", 60))));
+
+		assertEquals("There are insufficient funds in your account. Please provide different amount.",
+				insufficientFundException.getMessage());
+		assertEquals(new BigDecimal("100.00"), ledgerEngine.balanceOf("123456").get());
+		verify(transactionJournal, never()).appendAll(any());
+
+		// The transactionIds of the rejected batch are free again
+		List<TransactionDto> results = ledgerEngine
+				.batch(Arrays.asList(item("TId21", "DEBIT", 60), item("TId22", "CREDIT", 10)));
+
+		assertEquals("40.00", results.get(0).getAccountBalance());
+		assertEquals("50.00", results.get(1).getAccountBalance());
+		assertEquals(new BigDecimal("50.00"), ledgerEngine.balanceOf("123456").get());
+		verify(transactionJournal).appendAll(any());
+	}
+
+	@Test
+	public void shouldProjectJournaledEntriesMissingFromDatabaseOnRecovery() throws IOException {
+
+		LedgerEntry persisted = LedgerEntry.builder().sequence(1).accountNumber("123456").transactionId("TId14")
+				.transactionType("CREDIT").transactionAmount(1000L).transactionDate(LocalDateTime.now())
+				.balanceAfter(11000L).build();
+		LedgerEntry missing = LedgerEntry.builder().sequence(2).accountNumber("123456").transactionId("TId15")
+				.transactionType("DEBIT").transactionAmount(1000L).transactionDate(LocalDateTime.now())
+				.balanceAfter(10000L).build();
+
+		doAnswer(invocation -> {
+
+			Consumer<LedgerEntry> consumer = invocation.getArgument(1);
+			consumer.accept(persisted);
+			consumer.accept(missing);
+			return null;
+		}).when(transactionJournal).replay(anyLong(), any());
+		when(transactionRepository.findAllByTransactionIdIn(any()))
+				.thenReturn(Arrays.asList(Transaction.builder().transactionId("TId14").build()));
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		ledgerEngine.recover();
+
+		verify(accountRepository, never()).creditBalance(anyString(), anyString(), any());
+		verify(transactionRepository).insertTransaction(eq("123456"), eq("TId15"), eq("DEBIT"),
+				eq(new BigDecimal("10.00")), any(), eq(new BigDecimal("100.00")));
+	}
+
+	@Test
+	public void shouldRestoreSnapshotAndProjectOnlyTheJournalTailAfterIt() throws IOException {
+
+		// The balance of the database which lost its transactions
+		Account account = Account.builder().accountNumber("654321").balanceAmount(new BigDecimal(20))
+				.accountStatus("ACTIVE").build();
+		LedgerEntry covered = LedgerEntry.builder().sequence(3).accountNumber("654321").transactionId("TId16")
+				.transactionType("CREDIT").transactionAmount(1000L).transactionDate(LocalDateTime.now())
+				.balanceAfter(5000L).build();
+		LedgerEntry tail = LedgerEntry.builder().sequence(6).accountNumber("654321").transactionId("TId17")
+				.transactionType("CREDIT").transactionAmount(1000L).transactionDate(LocalDateTime.now())
+				.balanceAfter(6000L).build();
+
+		when(balanceSnapshotStore.loadLatest()).thenReturn(Optional.of(BalanceSnapshot.builder()
+				.sequences(new long[] { 5, 5, 5, 5 }).accounts(Arrays.asList(snapshotAccount("654321", 5000L, 3)))
+				.build()));
+		when(transactionRepository.count()).thenReturn(0L);
+		when(accountRepository.findAll()).thenReturn(Arrays.asList(account));
+		doAnswer(invocation -> {
+
+			Consumer<LedgerEntry> consumer = invocation.getArgument(1);
+			consumer.accept(covered);
+			consumer.accept(tail);
+			return null;
+		}).when(transactionJournal).replay(eq(5L), any());
+		when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		ledgerEngine.recover();
+
+		verify(accountRepository).saveAll(Arrays.asList(account));
+		assertEquals(new BigDecimal("50.00"), account.getBalanceAmount());
+		verify(transactionRepository, never()).insertTransaction(anyString(), eq("TId16"), anyString(), any(), any(),
+				any());
+		verify(transactionRepository).insertTransaction(eq("654321"), eq("TId17"), eq("CREDIT"),
+				eq(new BigDecimal("10.00")), any(), eq(new BigDecimal("60.00")));
+	}
+
+	@Test
+	public void shouldRecreateAccountCreatedAfterSeedingWhenDatabaseIsLost() throws IOException {
+
+		// Restarted on a fresh database, which only has the seeded accounts
+		Account seededAccount = storedAccount("654321", 20);
+		LedgerEntry tail = LedgerEntry.builder().sequence(6).accountNumber("789012").transactionId("TId18")
+				.transactionType("CREDIT").transactionAmount(1000L).transactionDate(LocalDateTime.now())
+				.balanceAfter(4000L).build();
+
+		when(balanceSnapshotStore.loadLatest()).thenReturn(Optional.of(BalanceSnapshot.builder()
+				.sequences(new long[] { 5, 5, 5, 5 })
+				.accounts(Arrays.asList(snapshotAccount("654321", 5000L, 3), snapshotAccount("789012", 3000L, 4)))
+				.build()));
+		when(transactionRepository.count()).thenReturn(0L);
+		when(accountRepository.findAll()).thenReturn(Arrays.asList(seededAccount));
+		doAnswer(invocation -> {
+
+			invocation.<Consumer<LedgerEntry>>getArgument(1).accept(tail);
+			return null;
+		}).when(transactionJournal).replay(eq(5L), any());
+		when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		ledgerEngine.recover();
+
+		verify(accountRepository).saveAll(restoredAccounts.capture());
+
+		Account recreatedAccount = restoredAccounts.getValue().get(1);
+
+		assertEquals(seededAccount, restoredAccounts.getValue().get(0));
+		assertEquals("789012", recreatedAccount.getAccountNumber());
+		assertEquals("789012@test.com", recreatedAccount.getEmailId());
+		assertEquals("ACTIVE", recreatedAccount.getAccountStatus());
+		assertEquals(new BigDecimal("30.00"), recreatedAccount.getBalanceAmount());
+		verify(transactionRepository).insertTransaction(eq("789012"), eq("TId18"), eq("CREDIT"),
+				eq(new BigDecimal("10.00")), any(), eq(new BigDecimal("40.00")));
+	}
+
+	@Test
+	public void shouldSnapshotEveryAccountWithTheSequenceItsBalanceIncludes() throws IOException {
+
+		when(transactionJournal.append(any())).thenAnswer(invocation -> {
+
+			invocation.<LedgerEntry>getArgument(0).setSequence(7);
+			return 7L;
+		});
+		when(transactionJournal.lastSequence()).thenReturn(7L);
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+
+		ledgerEngine.debit("123456",
+				TransactionRequest.builder().transactionId("TId19").amount(new BigDecimal(10)).build());
+
+		// The untouched account was never loaded into its partition
+		when(accountRepository.findAll())
+				.thenReturn(Arrays.asList(storedAccount("123456", 100), storedAccount("654321", 50)));
+
+		ledgerEngine.snapshot();
+
+		ArgumentCaptor<BalanceSnapshot> snapshot = ArgumentCaptor.forClass(BalanceSnapshot.class);
+		verify(balanceSnapshotStore).save(snapshot.capture());
+
+		assertEquals(4, snapshot.getValue().getSequences().length);
+		assertEquals(2, snapshot.getValue().getAccounts().size());
+		assertTrue(snapshot.getValue().getAccounts().contains(snapshotAccount("123456", 9000L, 7)));
+		assertTrue(snapshot.getValue().getAccounts().contains(snapshotAccount("654321", 5000L, 7)));
+	}
+
+	@Test
+	public void shouldTruncateJournalWhileOtherPartitionsAreIdle(@TempDir Path directory) throws Exception {
+
+		// Every record gets a segment of its own
+		TransactionJournal journal = new TransactionJournal();
+		ReflectionTestUtils.setField(journal, "directory", directory.resolve("journal").toString());
+		ReflectionTestUtils.setField(journal, "segmentSize", 100);
+		ReflectionTestUtils.setField(journal, "forceOnAppend", true);
+		journal.open();
+
+		BalanceSnapshotStore snapshotStore = new BalanceSnapshotStore();
+		ReflectionTestUtils.setField(snapshotStore, "directory", directory.resolve("snapshots").toString());
+		ReflectionTestUtils.setField(snapshotStore, "retained", 1);
+
+		ReflectionTestUtils.setField(ledgerEngine, "transactionJournal", journal);
+		ReflectionTestUtils.setField(ledgerEngine, "balanceSnapshotStore", snapshotStore);
+
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+		when(accountRepository.findAll()).thenReturn(Arrays.asList(storedAccount("123456", 100)));
+
+		try {
+			for (int index = 0; index < 3; index++) {
+				ledgerEngine.debit("123456", TransactionRequest.builder().transactionId("TId2" + index)
+						.amount(new BigDecimal(10)).build());
+			}
+
+			verify(transactionRepository, timeout(1000).times(3)).insertTransaction(eq("123456"), anyString(),
+					eq("DEBIT"), any(), any(), any());
+
+			// The other three partitions had no writes since recovery
+			for (int attempt = 0; attempt < 100 && segments(directory.resolve("journal")) > 1; attempt++) {
+
+				ledgerEngine.snapshot();
+				Thread.sleep(10);
+			}
+
+			assertEquals(1, segments(directory.resolve("journal")));
+		} finally {
+			journal.close();
+		}
+	}
+
+	private Account storedAccount(String accountNumber, int balance) {
+
+		return Account.builder().accountNumber(accountNumber).emailId(accountNumber + "@test.com")
+				.fullName("Test " + accountNumber).mobileNumber(accountNumber).balanceAmount(new BigDecimal(balance))
+				.accountType("SAVINGS").accountStatus("ACTIVE").build();
+	}
+
+	private SnapshotAccount snapshotAccount(String accountNumber, long minorUnits, long sequence) {
+
+		return SnapshotAccount.builder().accountNumber(accountNumber).minorUnits(minorUnits).sequence(sequence)
+				.emailId(accountNumber + "@test.com").fullName("Test " + accountNumber).mobileNumber(accountNumber)
+				.accountType("SAVINGS").accountStatus("ACTIVE").build();
+	}
+
+	private long segments(Path journalDirectory) throws IOException {
+
+		try (Stream<Path> files = Files.list(journalDirectory)) {
+			return files.count();
+		}
+	}
+
+	private BatchTransactionItem item(String transactionId, String transactionType, int amount) {
+
+		return BatchTransactionItem.builder().accountNumber("123456").transactionId(transactionId)
+				.transactionType(transactionType).amount(new BigDecimal(amount)).build();
+	}
+
+	// Probes with a debit the balance can never cover, so the probe changes nothing
+	private IllegalStateException awaitStoppedPartition(String accountNumber) throws InterruptedException {
+
+		for (int attempt = 0; attempt < 100; attempt++) {
+
+			try {
+				ledgerEngine.debit(accountNumber,
+						TransactionRequest.builder().transactionId("TIdProbe").amount(new BigDecimal(1000)).build());
+			} catch (IllegalStateException exception) {
+				return exception;
+			} catch (InvalidRequestDataException exception) {
+				Thread.sleep(10);
+			}
+		}
+
+		throw new AssertionError("Ledger partition of accountNumber: " + accountNumber + " did not stop");
+	}
+}
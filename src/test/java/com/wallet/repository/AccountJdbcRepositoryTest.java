@@ -0,0 +1,63 @@
+package com.wallet.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.wallet.model.AccountStatus;
+import com.wallet.model.AccountType;
+import com.wallet.model.entity.Account;
+
+@DataJpaTest
+@Import(AccountJdbcRepository.class)
+public class AccountJdbcRepositoryTest {
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private AccountJdbcRepository accountJdbcRepository;
+
+	@Test
+	public void shouldInsertAccountsAsOneBatchAndFindTheirEmailIdsAndMobileNumbers() {
+
+		assertArrayEquals(new int[] { 1, 1 }, accountJdbcRepository.insertAccounts(
+				Arrays.asList(account("0000000034", "bulk1@test.com", "5550000001"),
+						account("0000000042", "bulk2@test.com", "5550000002"))));
+
+		assertTrue(accountRepository.findByAccountNumberAndAccountStatus("0000000042", AccountStatus.ACTIVE.name())
+				.isPresent());
+		assertEquals(Collections.singletonList("bulk1@test.com"),
+				accountRepository.findEmailIdsIn(Arrays.asList("bulk1@test.com", "bulk3@test.com")));
+		assertEquals(Collections.singletonList("5550000002"),
+				accountRepository.findMobileNumbersIn(Arrays.asList("5550000002", "5550000003")));
+	}
+
+	@Test
+	public void shouldRejectAccountNumberWhichIsTaken() {
+
+		accountJdbcRepository
+				.insertAccounts(Collections.singletonList(account("0000000059", "bulk4@test.com", "5550000004")));
+
+		assertThrows(DataIntegrityViolationException.class, () -> accountJdbcRepository.insertAccounts(
+				Collections.singletonList(account("0000000059", "bulk5@test.com", "5550000005"))));
+	}
+
+	private static Account account(String accountNumber, String emailId, String mobileNumber) {
+
+		return Account.builder().accountNumber(accountNumber).emailId(emailId).mobileNumber(mobileNumber)
+				.fullName("Bulk Test").accountType(AccountType.SAVINGS.name()).balanceAmount(new BigDecimal(100))
+				.accountStatus(AccountStatus.ACTIVE.name()).build();
+	}
+}
@@ -82,4 +82,20 @@ public class AccountRepositoryTest {
 
 		assertFalse(optionalAccount.isPresent());
 	}
+
+	@Test
+	public void shouldDebitTheBalanceOnlyWhenFundsAreSufficient() {
+
+		assertEquals(0, accountRepository.debitBalance("12345", AccountStatus.ACTIVE.name(), new BigDecimal(150)));
+		assertEquals(1, accountRepository.debitBalance("12345", AccountStatus.ACTIVE.name(), new BigDecimal(40)));
+		assertEquals("60.00", accountRepository.findBalanceByAccountNumber("12345").toPlainString());
+	}
+
+	@Test
+	public void shouldCreditTheBalanceOnlyWhenAccountIsActive() {
+
+		assertEquals(0, accountRepository.creditBalance("12345", AccountStatus.INACTIVE.name(), new BigDecimal(10)));
+		assertEquals(1, accountRepository.creditBalance("12345", AccountStatus.ACTIVE.name(), new BigDecimal(10)));
+		assertEquals("110.00", accountRepository.findBalanceByAccountNumber("12345").toPlainString());
+	}
 }
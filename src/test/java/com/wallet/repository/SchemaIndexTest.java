@@ -0,0 +1,65 @@
+package com.wallet.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Pins the indexes of the hot lookups to the query plans of the migrated
+ * schema, so that a schema change which drops one fails here instead of
+ * turning the lookup into a table scan
+ */
+@DataJpaTest
+public class SchemaIndexTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void shouldLookUpAccountByAccountNumberWithUniqueIndex() {
+
+		assertUsesIndex("UK_ACCOUNT_ACCOUNT_NUMBER",
+				"SELECT * FROM account WHERE account_number = '456789' AND account_status = 'ACTIVE'");
+	}
+
+	@Test
+	public void shouldProbeEmailIdAndMobileNumberWithTheirOwnUniqueIndexes() {
+
+		assertUsesIndex("UK_ACCOUNT_EMAIL_ID", "SELECT id FROM account WHERE email_id = 'testuser1@test.com' LIMIT 1");
+		assertUsesIndex("UK_ACCOUNT_MOBILE_NUMBER", "SELECT id FROM account WHERE mobile_number = '1111111111' LIMIT 1");
+	}
+
+	@Test
+	public void shouldCheckEmailIdsAndMobileNumbersOfBulkOnboardingWithUniqueIndexes() {
+
+		assertUsesIndex("UK_ACCOUNT_EMAIL_ID",
+				"SELECT email_id FROM account WHERE email_id IN ('testuser1@test.com', 'testuser2@test.com')");
+		assertUsesIndex("UK_ACCOUNT_MOBILE_NUMBER",
+				"SELECT mobile_number FROM account WHERE mobile_number IN ('1111111111', '2222222222')");
+	}
+
+	@Test
+	public void shouldLookUpTransactionByTransactionIdWithUniqueIndex() {
+
+		assertUsesIndex("UK_TRANSACTION_TRANSACTION_ID", "SELECT * FROM transaction WHERE transaction_id = 'TId1'");
+	}
+
+	@Test
+	public void shouldPageTransactionHistoryOfAccountWithIndex() {
+
+		assertUsesIndex("IDX_TRANSACTION_ACCOUNT_",
+				"SELECT * FROM transaction WHERE account_number = '456789' ORDER BY transaction_date, id LIMIT 10");
+	}
+
+	private void assertUsesIndex(String indexName, String sql) {
+
+		String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+		assertTrue(plan.toUpperCase().contains(indexName), plan);
+		assertFalse(plan.contains("tableScan"), plan);
+	}
+}
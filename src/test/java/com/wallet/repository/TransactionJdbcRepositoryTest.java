@@ -0,0 +1,81 @@
+package com.wallet.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.wallet.model.AccountStatus;
+import com.wallet.model.AccountType;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.entity.Account;
+
+@DataJpaTest
+@Import(TransactionJdbcRepository.class)
+@TestInstance(Lifecycle.PER_CLASS)
+public class TransactionJdbcRepositoryTest {
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private TransactionJdbcRepository transactionJdbcRepository;
+
+	@BeforeAll
+	public void initializeData() {
+
+		Account account = Account.builder().accountNumber("5678").accountStatus(AccountStatus.ACTIVE.name())
+				.accountType(AccountType.SAVINGS.name()).balanceAmount(new BigDecimal(100)).emailId("test5@test1.com")
+				.fullName("Test1 Test1").mobileNumber("1111811111").build();
+
+		accountRepository.save(account);
+	}
+
+	@Test
+	public void shouldApplyBalanceChangesInOrderAndReportRejectedItems() {
+
+		List<BatchTransactionItem> items = Arrays.asList(
+				BatchTransactionItem.builder().accountNumber("5678").transactionId("TId40").transactionType("CREDIT")
+						.amount(new BigDecimal(50)).build(),
+				BatchTransactionItem.builder().accountNumber("5678").transactionId("TId41").transactionType("DEBIT")
+						.amount(new BigDecimal(200)).build(),
+				BatchTransactionItem.builder().accountNumber("5678").transactionId("TId42").transactionType("DEBIT")
+						.amount(new BigDecimal(150)).build());
+
+		assertArrayEquals(new int[] { 1, 0, 1 }, transactionJdbcRepository.updateBalances(items));
+		assertEquals("0.00", accountRepository.findBalanceByAccountNumber("5678").toPlainString());
+	}
+
+	@Test
+	public void shouldInsertTransactionsAsBatch() {
+
+		List<BatchTransactionItem> items = Arrays.asList(
+				BatchTransactionItem.builder().accountNumber("5678").transactionId("TId43").transactionType("CREDIT")
+						.amount(new BigDecimal(10)).build(),
+				BatchTransactionItem.builder().accountNumber("5678").transactionId("TId44").transactionType("DEBIT")
+						.amount(new BigDecimal(10)).build());
+
+		transactionJdbcRepository.insertTransactions(items, Arrays.asList(new BigDecimal(110), new BigDecimal(100)),
+				LocalDateTime.now());
+
+		assertTrue(transactionRepository.findByTransactionId("TId43").isPresent());
+		assertEquals("110.00",
+				transactionRepository.findByTransactionId("TId43").get().getBalanceAfter().toPlainString());
+		assertEquals(2, transactionRepository.findAllByTransactionIdIn(Arrays.asList("TId43", "TId44")).size());
+	}
+}
@@ -6,8 +6,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -18,6 +22,10 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import com.wallet.model.AccountStatus;
 import com.wallet.model.AccountType;
@@ -35,6 +43,9 @@ public class TransactionRepositoryTest {
 	@Autowired
 	private TransactionRepository transactionRepository;
 
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
 	private Account account;
 
 	private Transaction transaction1;
@@ -82,4 +93,97 @@ public class TransactionRepositoryTest {
 		assertEquals(2, page.getContent().size());
 		assertEquals(1, page.getTotalPages());
 	}
+
+	@Test
+	public void shouldStreamTransactionsOfPeriodAndFindBalanceBeforeIt() {
+
+		Account statementAccount = Account.builder().accountNumber("4321").accountStatus(AccountStatus.ACTIVE.name())
+				.accountType(AccountType.SAVINGS.name()).balanceAmount(new BigDecimal(100)).emailId("test4@test1.com")
+				.fullName("Test1 Test1").mobileNumber("1111411111").build();
+
+		LocalDateTime periodStart = LocalDateTime.of(2022, 1, 1, 0, 0);
+		statementAccount.setTransactions(Arrays.asList(
+				Transaction.builder().account(statementAccount).transactionId("TId60").transactionAmount(new BigDecimal(10))
+						.transactionType(TransactionType.CREDIT.name()).transactionDate(periodStart.minusDays(1))
+						.balanceAfter(new BigDecimal(110)).build(),
+				Transaction.builder().account(statementAccount).transactionId("TId61").transactionAmount(new BigDecimal(20))
+						.transactionType(TransactionType.DEBIT.name()).transactionDate(periodStart.plusDays(2))
+						.balanceAfter(new BigDecimal(90)).build(),
+				Transaction.builder().account(statementAccount).transactionId("TId62").transactionAmount(new BigDecimal(5))
+						.transactionType(TransactionType.DEBIT.name()).transactionDate(periodStart.plusMonths(1))
+						.balanceAfter(new BigDecimal(85)).build()));
+		accountRepository.save(statementAccount);
+
+		List<Transaction> lastBefore = transactionRepository.findLastBefore("4321", periodStart, PageRequest.of(0, 1));
+
+		assertEquals("TId60", lastBefore.get(0).getTransactionId());
+
+		try (Stream<Transaction> transactions = transactionRepository.streamByAccountNumberAndPeriod("4321",
+				periodStart, periodStart.plusMonths(1))) {
+
+			assertEquals(Collections.singletonList("TId61"),
+					transactions.map(Transaction::getTransactionId).collect(Collectors.toList()));
+		}
+	}
+
+	@Test
+	public void shouldFilterTransactionsByTypeAndPeriod() {
+
+		LocalDateTime from = LocalDateTime.now().minusDays(1);
+		LocalDateTime to = LocalDateTime.now().plusDays(1);
+
+		Slice<Transaction> debits = transactionRepository.findSliceByTypeInPeriod("1234",
+				TransactionType.DEBIT.name(), from, to, PageRequest.of(0, 10));
+
+		assertEquals(1, debits.getContent().size());
+		assertEquals("TId3", debits.getContent().get(0).getTransactionId());
+		assertEquals(1, transactionRepository.countByTypeInPeriod("1234", TransactionType.DEBIT.name(), from, to));
+		assertEquals(2, transactionRepository.countInPeriod("1234", from, to));
+		assertEquals(0, transactionRepository.countInPeriod("1234", to, to.plusDays(1)));
+	}
+
+	@Test
+	public void shouldUseTypeAndDateIndexForTypeFilter() {
+
+		String plan = explain(TransactionRepository.FIND_BY_TYPE_IN_PERIOD_SQL);
+
+		assertTrue(plan.contains("IDX_TRANSACTION_ACCOUNT_TYPE_DATE"), plan);
+		assertTrue(explain(TransactionRepository.COUNT_BY_TYPE_IN_PERIOD_SQL)
+				.contains("IDX_TRANSACTION_ACCOUNT_TYPE_DATE"));
+	}
+
+	@Test
+	public void shouldUseDateIndexForPeriodFilter() {
+
+		String plan = explain(TransactionRepository.FIND_IN_PERIOD_SQL);
+
+		assertTrue(plan.contains("IDX_TRANSACTION_ACCOUNT_DATE_ID"), plan);
+		assertTrue(explain(TransactionRepository.COUNT_IN_PERIOD_SQL).contains("IDX_TRANSACTION_ACCOUNT_DATE_ID"));
+	}
+
+	@Test
+	public void shouldSeekTransactionsInDateAndIdOrder() {
+
+		List<Transaction> firstPage = transactionRepository.findFirstByAccountNumber("1234", PageRequest.of(0, 1));
+
+		assertEquals(1, firstPage.size());
+		assertEquals("TId3", firstPage.get(0).getTransactionId());
+
+		Transaction last = firstPage.get(0);
+		List<Transaction> nextPage = transactionRepository.findNextByAccountNumber("1234", last.getTransactionDate(),
+				last.getId(), PageRequest.of(0, 2));
+
+		assertEquals(1, nextPage.size());
+		assertEquals("TId4", nextPage.get(0).getTransactionId());
+	}
+
+	private String explain(String sql) {
+
+		MapSqlParameterSource parameters = new MapSqlParameterSource().addValue("accountNumber", "1234")
+				.addValue("transactionType", TransactionType.DEBIT.name())
+				.addValue("from", LocalDateTime.now().minusDays(1)).addValue("to", LocalDateTime.now());
+
+		return new NamedParameterJdbcTemplate(jdbcTemplate).queryForObject("EXPLAIN " + sql, parameters,
+				String.class);
+	}
 }
@@ -0,0 +1,193 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.dto.request.AccountRequest;
+import com.wallet.model.dto.response.OnboardingResponse;
+import com.wallet.model.entity.Account;
+import com.wallet.repository.AccountJdbcRepository;
+import com.wallet.repository.AccountRepository;
+import com.wallet.service.impl.AccountOnboarding;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountOnboardingTest {
+
+	@InjectMocks
+	private AccountOnboarding accountOnboarding;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private AccountJdbcRepository accountJdbcRepository;
+
+	@Mock
+	private AccountNumberAllocator accountNumberAllocator;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	public void init() {
+
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(accountOnboarding, "validator",
+				Validation.buildDefaultValidatorFactory().getValidator());
+		ReflectionTestUtils.setField(accountOnboarding, "chunkSize", 2);
+		lenient().when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		lenient().when(accountNumberAllocator.allocate()).thenReturn("0000000034", "0000000042", "0000000059");
+	}
+
+	@Test
+	public void shouldCreateValidAccountsAndRejectTheOthersRowByRow() {
+
+		when(accountRepository.findEmailIdsIn(anyCollection())).thenReturn(Collections.singletonList("taken@test.com"));
+		when(accountRepository.findMobileNumbersIn(anyCollection())).thenReturn(Collections.emptyList())
+				.thenReturn(Collections.singletonList("1111111111"));
+
+		OnboardingResponse response = accountOnboarding.createAccounts(Arrays.asList(
+				accountRequest("Test1 Test1", "test1@test.com", "1111111111"),
+				accountRequest("Test2 Test2", "taken@test.com", "2222222222"),
+				accountRequest("", "test3@test.com", "3333333333"),
+				accountRequest("Test4 Test4", "test4@test.com", "1111111111")));
+
+		assertEquals(1, response.getNoOfCreated());
+		assertEquals(3, response.getNoOfRejected());
+		assertEquals("1 accounts created, 3 rejected", response.getMessage());
+
+		assertEquals("CREATED", response.getResults().get(0).getStatus());
+		assertEquals("0000000034", response.getResults().get(0).getAccountNumber());
+		assertEquals("Account already exists either with emailId: taken@test.com or mobileNumber: 2222222222",
+				response.getResults().get(1).getMessage());
+		assertEquals("Account is invalid: fullName cannot be null or empty",
+				response.getResults().get(2).getMessage());
+		assertNull(response.getResults().get(2).getAccountNumber());
+
+		// Same mobile number as the first account, which was inserted by an earlier
+		// chunk
+		assertEquals(4, response.getResults().get(3).getRow());
+		assertEquals("REJECTED", response.getResults().get(3).getStatus());
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<Account>> accounts = ArgumentCaptor.forClass(List.class);
+		verify(accountJdbcRepository, times(1)).insertAccounts(accounts.capture());
+		assertEquals("0000000034", accounts.getValue().get(0).getAccountNumber());
+		assertEquals("ACTIVE", accounts.getValue().get(0).getAccountStatus());
+	}
+
+	@Test
+	public void shouldRejectLaterAccountWithSameEmailIdInChunk() {
+
+		when(accountRepository.findEmailIdsIn(anyCollection())).thenReturn(Collections.emptyList());
+		when(accountRepository.findMobileNumbersIn(anyCollection())).thenReturn(Collections.emptyList());
+
+		OnboardingResponse response = accountOnboarding
+				.createAccounts(Arrays.asList(accountRequest("Test1 Test1", "test1@test.com", "1111111111"),
+						accountRequest("Test2 Test2", "test1@test.com", "2222222222")));
+
+		assertEquals(1, response.getNoOfCreated());
+		assertEquals("REJECTED", response.getResults().get(1).getStatus());
+	}
+
+	@Test
+	public void shouldCheckChunkAgainWhenConcurrentInsertConflicts() {
+
+		when(accountRepository.findEmailIdsIn(anyCollection())).thenReturn(Collections.emptyList())
+				.thenReturn(Collections.singletonList("test1@test.com"));
+		when(accountRepository.findMobileNumbersIn(anyCollection())).thenReturn(Collections.emptyList());
+		when(accountJdbcRepository.insertAccounts(any())).thenThrow(new DuplicateKeyException("email_id"));
+
+		OnboardingResponse response = accountOnboarding.createAccounts(
+				Collections.singletonList(accountRequest("Test1 Test1", "test1@test.com", "1111111111")));
+
+		assertEquals(0, response.getNoOfCreated());
+		assertEquals(1, response.getNoOfRejected());
+	}
+
+	@Test
+	public void shouldCreateAccountsFromCsvRows() throws IOException {
+
+		when(accountRepository.findEmailIdsIn(anyCollection())).thenReturn(Collections.emptyList());
+		when(accountRepository.findMobileNumbersIn(anyCollection())).thenReturn(Collections.emptyList());
+
+		OnboardingResponse response = accountOnboarding
+				.createAccounts(csv("fullName,emailId,mobileNumber,accountType,balanceAmount\n"
+						+ "\"Test, Test1\",test1@test.com,1111111111,SAVINGS,100\n"
+						+ "Test2 Test2,test2@test.com,2222222222,SAVINGS,abc\n" + "Test3 Test3,test3@test.com\n" + "\n"
+						+ "Test4 Test4,test4@test.com,4444444444,SAVINGS,\n"));
+
+		assertEquals(1, response.getNoOfCreated());
+		assertEquals(4, response.getResults().size());
+		assertEquals("Account is invalid: balanceAmount is not a number", response.getResults().get(1).getMessage());
+		assertEquals(
+				"Invalid CSV row, expected values for: fullName,emailId,mobileNumber,accountType,balanceAmount",
+				response.getResults().get(2).getMessage());
+		assertEquals("Account is invalid: balanceAmount cannot be null or empty",
+				response.getResults().get(3).getMessage());
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<Account>> accounts = ArgumentCaptor.forClass(List.class);
+		verify(accountJdbcRepository, times(1)).insertAccounts(accounts.capture());
+		assertEquals("Test, Test1", accounts.getValue().get(0).getFullName());
+		assertEquals(0, new BigDecimal(100).compareTo(accounts.getValue().get(0).getBalanceAmount()));
+	}
+
+	@Test
+	public void shouldThrowInvalidRequestDataExceptionForUnexpectedCsvHeader() {
+
+		assertThrows(InvalidRequestDataException.class,
+				() -> accountOnboarding.createAccounts(csv("name,email\nTest1 Test1,test1@test.com\n")));
+	}
+
+	@Test
+	public void shouldThrowInvalidRequestDataExceptionForNoAccounts() {
+
+		assertThrows(InvalidRequestDataException.class,
+				() -> accountOnboarding.createAccounts(Collections.emptyList()));
+	}
+
+	private static AccountRequest accountRequest(String fullName, String emailId, String mobileNumber) {
+
+		return AccountRequest.builder().fullName(fullName).emailId(emailId).mobileNumber(mobileNumber)
+				.accountType("SAVINGS").balanceAmount(new BigDecimal(100)).build();
+	}
+
+	private static InputStream csv(String content) {
+
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -2,13 +2,16 @@ package com.wallet.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,13 +21,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.wallet.cache.BalanceCache;
 import com.wallet.exception.InvalidRequestDataException;
 import com.wallet.model.dto.request.AccountRequest;
 import com.wallet.model.dto.response.AccountDto;
 import com.wallet.model.entity.Account;
 import com.wallet.repository.AccountRepository;
 import com.wallet.service.impl.AccountServiceImpl;
-import com.wallet.util.Util;
+import com.wallet.service.impl.StripedBalances;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountServiceTest {
@@ -36,12 +40,20 @@ public class AccountServiceTest {
 	private AccountRepository accountRepository;
 
 	@Mock
-	private Util util;
+	private AccountNumberAllocator accountNumberAllocator;
+
+	@Mock
+	private StripedBalances stripedBalances;
+
+	@Mock
+	private BalanceCache balanceCache;
 
 	@BeforeEach
 	public void init() {
 
 		MockitoAnnotations.openMocks(this);
+		lenient().when(balanceCache.get(anyString(), any()))
+				.thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
 	}
 
 	@Test
@@ -55,7 +67,7 @@ public class AccountServiceTest {
 				.balanceAmount(new BigDecimal(100)).emailId("test1@test1.com").fullName("Test1 Test1")
 				.mobileNumber("1111111111").build();
 
-		when(util.generateAccountNumber()).thenReturn("123456");
+		when(accountNumberAllocator.allocate()).thenReturn("123456");
 
 		AccountDto accountDto = accountServiceImpl.createAccount(accountRequest);
 
@@ -67,15 +79,11 @@ public class AccountServiceTest {
 	@Test
 	public void shouldThrowAnExceptionIfAccountAlreadyExistsWithGivenEmailOrMobile() {
 
-		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
-				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
-				.accountType("SAVINGS").accountStatus("ACTIVE").build();
-
 		AccountRequest accountRequest = AccountRequest.builder().accountType("SAVINGS")
 				.balanceAmount(new BigDecimal(100)).emailId("test1@test1.com").fullName("Test1 Test1")
 				.mobileNumber("1111111111").build();
 
-		when(accountRepository.findByEmailIdOrMobileNumber(anyString(), anyString())).thenReturn(Optional.of(account));
+		when(accountRepository.existsByEmailId("test1@test1.com")).thenReturn(true);
 
 		InvalidRequestDataException accountAlreadyExistsException = assertThrows(InvalidRequestDataException.class, () -> {
 			accountServiceImpl.createAccount(accountRequest);
@@ -85,6 +93,19 @@ public class AccountServiceTest {
 				accountAlreadyExistsException.getMessage());
 	}
 
+	@Test
+	public void shouldThrowAnExceptionIfAccountAlreadyExistsWithGivenMobileOnly() {
+
+		AccountRequest accountRequest = AccountRequest.builder().accountType("SAVINGS")
+				.balanceAmount(new BigDecimal(100)).emailId("test2@test1.com").fullName("Test1 Test1")
+				.mobileNumber("1111111111").build();
+
+		when(accountRepository.existsByMobileNumber("1111111111")).thenReturn(true);
+
+		assertThrows(InvalidRequestDataException.class, () -> accountServiceImpl.createAccount(accountRequest));
+		verify(accountRepository, times(0)).save(any());
+	}
+
 	@Test
 	public void shouldFetchBalanceForGivenAccount() {
 
@@ -114,4 +135,38 @@ public class AccountServiceTest {
 
 		assertEquals("Account does not exist with accountNumber: 123456", accountDoesNotExistException.getMessage());
 	}
+
+	@Test
+	public void shouldSumStripesWhenFetchingBalanceOfStripedAccount() {
+
+		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
+				.balanceAmount(BigDecimal.ZERO).fullName("Test1 Test1").mobileNumber("1111111111")
+				.accountType("SAVINGS").accountStatus("ACTIVE").balanceStripes(4).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(stripedBalances.balanceOf(account)).thenReturn(new BigDecimal("250.00"));
+
+		AccountDto accountDto = accountServiceImpl.fetchBalance("123456");
+
+		assertEquals("250.00", accountDto.getAccountBalance());
+	}
+
+	@Test
+	public void shouldStripeBalanceOfLockedAccount() {
+
+		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
+				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
+				.accountType("SAVINGS").accountStatus("ACTIVE").build();
+
+		when(accountRepository.findWithLockByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(stripedBalances.balanceOf(account)).thenReturn(new BigDecimal(100));
+
+		AccountDto accountDto = accountServiceImpl.stripeBalance("123456", 8);
+
+		verify(stripedBalances, times(1)).restripe(account, 8);
+		assertEquals("100", accountDto.getAccountBalance());
+		assertEquals("Account balance split into 8 stripes successfully", accountDto.getMessage());
+	}
 }
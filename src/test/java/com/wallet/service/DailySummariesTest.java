@@ -0,0 +1,123 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.repository.DailyAccountSummaryRepository;
+import com.wallet.repository.TransactionJdbcRepository;
+import com.wallet.service.impl.DailySummaries;
+
+@DataJpaTest
+@Import({ DailySummaries.class, TransactionJdbcRepository.class })
+public class DailySummariesTest {
+
+	@Autowired
+	private DailySummaries dailySummaries;
+
+	@Autowired
+	private DailyAccountSummaryRepository dailyAccountSummaryRepository;
+
+	@Autowired
+	private TransactionJdbcRepository transactionJdbcRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void shouldCreateRowOnFirstTransactionOfDayAndAddToItAfterwards() {
+
+		LocalDate day = LocalDate.of(2022, 1, 3);
+
+		dailySummaries.addCredit("8001", 0, day, new BigDecimal("15.50"));
+		dailySummaries.addDebit("8001", 0, day, new BigDecimal("30.00"));
+		dailySummaries.addDebit("8001", 0, day.plusDays(1), new BigDecimal("2.00"));
+
+		assertEquals(2, dailyAccountSummaryRepository.count());
+
+		List<Object[]> days = dailyAccountSummaryRepository.sumByDay("8001", day, day.plusDays(1));
+
+		assertEquals(2, days.size());
+		assertEquals(day, days.get(0)[0]);
+		assertEquals(1L, ((Number) days.get(0)[1]).longValue());
+		assertEquals(0, new BigDecimal("15.50").compareTo((BigDecimal) days.get(0)[2]));
+		assertEquals(1L, ((Number) days.get(0)[3]).longValue());
+		assertEquals(0, new BigDecimal("30.00").compareTo((BigDecimal) days.get(0)[4]));
+	}
+
+	@Test
+	public void shouldSumStripeRowsOfStripedAccountIntoOneDay() {
+
+		LocalDate day = LocalDate.of(2022, 1, 3);
+
+		for (int index = 0; index < 20; index++) {
+			dailySummaries.addCredit("8002", 4, day, BigDecimal.ONE);
+		}
+
+		List<Object[]> days = dailyAccountSummaryRepository.sumByDay("8002", day, day);
+
+		assertEquals(1, days.size());
+		assertEquals(20L, ((Number) days.get(0)[1]).longValue());
+		assertEquals(0, new BigDecimal(20).compareTo((BigDecimal) days.get(0)[2]));
+	}
+
+	@Test
+	public void shouldRejectSecondRowForSameDayAndStripe() {
+
+		LocalDate day = LocalDate.of(2022, 1, 3);
+
+		assertTrue(transactionJdbcRepository.insertDailySummary("8003", day, 0));
+		assertFalse(transactionJdbcRepository.insertDailySummary("8003", day, 0));
+		assertEquals(1, dailyAccountSummaryRepository.count());
+	}
+
+	/**
+	 * Runs outside the rolled back test transaction, so the savepoint is taken
+	 * and released by the real transaction manager and the work commits
+	 */
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void shouldKeepTransactionUsableAfterSummaryRowWasCreatedConcurrently() {
+
+		LocalDate day = LocalDate.of(2022, 1, 4);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+
+				// Another writer created the row first
+				transactionJdbcRepository.insertDailySummary("8004", day, 0);
+
+				assertFalse(transactionJdbcRepository.insertDailySummary("8004", day, 0));
+				dailySummaries.addCredit("8004", 0, day, new BigDecimal("12.00"));
+				dailySummaries.addCredit("8004", 0, day.plusDays(1), new BigDecimal("3.00"));
+			});
+
+			List<Object[]> days = dailyAccountSummaryRepository.sumByDay("8004", day, day.plusDays(1));
+
+			assertEquals(2, days.size());
+			assertEquals(1L, ((Number) days.get(0)[1]).longValue());
+			assertEquals(0, new BigDecimal("12.00").compareTo((BigDecimal) days.get(0)[2]));
+			assertEquals(1L, ((Number) days.get(1)[1]).longValue());
+		} finally {
+			jdbcTemplate.update("DELETE FROM daily_account_summary WHERE account_number = '8004'");
+		}
+	}
+}
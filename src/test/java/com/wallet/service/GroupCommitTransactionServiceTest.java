@@ -0,0 +1,161 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.cache.TransactionIdFilter;
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.entity.Account;
+import com.wallet.repository.AccountRepository;
+import com.wallet.service.impl.GroupCommitTransactionServiceImpl;
+import com.wallet.service.impl.TransactionServiceImpl;
+
+@ExtendWith(MockitoExtension.class)
+public class GroupCommitTransactionServiceTest {
+
+	@InjectMocks
+	private GroupCommitTransactionServiceImpl groupCommitTransactionServiceImpl;
+
+	@Mock
+	private TransactionServiceImpl transactionServiceImpl;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private TransactionIdFilter transactionIdFilter;
+
+	@BeforeEach
+	public void init() {
+
+		ReflectionTestUtils.setField(groupCommitTransactionServiceImpl, "transactionTemplate",
+				new TransactionTemplate(transactionManager));
+		ReflectionTestUtils.setField(groupCommitTransactionServiceImpl, "maxBatchSize", 16);
+		ReflectionTestUtils.setField(groupCommitTransactionServiceImpl, "maxWaitMicros", 50000L);
+		ReflectionTestUtils.setField(groupCommitTransactionServiceImpl, "currency", "INR");
+		groupCommitTransactionServiceImpl.start();
+	}
+
+	@AfterEach
+	public void destroy() throws InterruptedException {
+
+		groupCommitTransactionServiceImpl.stop();
+	}
+
+	@Test
+	public void shouldShareCommitsBetweenConcurrentWrites() throws Exception {
+
+		when(transactionServiceImpl.performCredit(any(), any()))
+				.thenAnswer(invocation -> TransactionDto.builder().accountNumber(invocation.getArgument(0)).build());
+		when(accountRepository.findAllByAccountNumberIn(anyCollection())).thenAnswer(invocation -> {
+
+			List<Account> accounts = new ArrayList<>();
+
+			for (Object accountNumber : invocation.<Iterable<?>>getArgument(0)) {
+				accounts.add(account((String) accountNumber));
+			}
+			return accounts;
+		});
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		List<Future<TransactionDto>> results = new ArrayList<>();
+
+		for (int index = 0; index < 8; index++) {
+
+			TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId5" + index)
+					.amount(new BigDecimal(10)).build();
+			String accountNumber = String.valueOf(index);
+
+			results.add(callers
+					.submit(() -> groupCommitTransactionServiceImpl.performCredit(accountNumber, transactionRequest)));
+		}
+
+		for (int index = 0; index < 8; index++) {
+			assertEquals(String.valueOf(index), results.get(index).get().getAccountNumber());
+		}
+		callers.shutdown();
+
+		// All 8 writes were applied in fewer transactions than writes
+		verify(transactionManager, atMost(7)).commit(any());
+	}
+
+	@Test
+	public void shouldReturnItsOwnErrorToFailedWriteOnly() throws Exception {
+
+		TransactionRequest failingRequest = TransactionRequest.builder().transactionId("TId60")
+				.amount(new BigDecimal(1000)).build();
+		TransactionRequest succeedingRequest = TransactionRequest.builder().transactionId("TId61")
+				.amount(new BigDecimal(10)).build();
+
+		when(accountRepository.findAllByAccountNumberIn(anyCollection()))
+				.thenReturn(Arrays.asList(account("123456")));
+		when(transactionServiceImpl.performDebit(any(), eq(failingRequest)))
+				.thenThrow(new InvalidRequestDataException("Insufficient funds"));
+		when(transactionServiceImpl.performDebit(any(), eq(succeedingRequest)))
+				.thenReturn(TransactionDto.builder().accountBalance("90").build());
+
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		Future<TransactionDto> failing = callers
+				.submit(() -> groupCommitTransactionServiceImpl.performDebit("123456", failingRequest));
+		Future<TransactionDto> succeeding = callers
+				.submit(() -> groupCommitTransactionServiceImpl.performDebit("123456", succeedingRequest));
+
+		assertEquals("90", succeeding.get().getAccountBalance());
+		Exception exception = assertThrows(Exception.class, failing::get);
+		assertEquals(InvalidRequestDataException.class, exception.getCause().getClass());
+		callers.shutdown();
+
+		// The debit which exceeds the balance was left out of the group instead of rolling it back
+		verify(transactionManager, never()).rollback(any());
+	}
+
+	@Test
+	public void shouldRejectWritesOnceStopped() throws InterruptedException {
+
+		groupCommitTransactionServiceImpl.stop();
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId62")
+				.amount(new BigDecimal(10)).build();
+
+		IllegalStateException exception = assertThrows(IllegalStateException.class,
+				() -> groupCommitTransactionServiceImpl.performCredit("123456", transactionRequest));
+		assertEquals("Group commit writer is stopped", exception.getMessage());
+	}
+
+	private Account account(String accountNumber) {
+
+		return Account.builder().accountNumber(accountNumber).balanceAmount(new BigDecimal(100))
+				.accountStatus("ACTIVE").build();
+	}
+}
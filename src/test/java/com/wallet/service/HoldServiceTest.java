@@ -0,0 +1,232 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.wallet.archive.TransactionArchive;
+import com.wallet.cache.BalanceCache;
+import com.wallet.cache.TransactionIdFilter;
+import com.wallet.exception.DuplicateTransactionException;
+import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.dto.request.HoldRequest;
+import com.wallet.model.dto.response.HoldDto;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.BalanceHold;
+import com.wallet.model.entity.Transaction;
+import com.wallet.repository.AccountRepository;
+import com.wallet.repository.BalanceHoldRepository;
+import com.wallet.repository.TransactionRepository;
+import com.wallet.service.impl.DailySummaries;
+import com.wallet.service.impl.HoldServiceImpl;
+import com.wallet.service.impl.StripedBalances;
+import com.wallet.util.HashedTimerWheel;
+import com.wallet.util.Util;
+
+@ExtendWith(MockitoExtension.class)
+public class HoldServiceTest {
+
+	@InjectMocks
+	private HoldServiceImpl holdServiceImpl;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private BalanceHoldRepository balanceHoldRepository;
+
+	@Mock
+	private StripedBalances stripedBalances;
+
+	@Mock
+	private TransactionIdFilter transactionIdFilter;
+
+	@Mock
+	private BalanceCache balanceCache;
+
+	@Mock
+	private Util util;
+
+	@Mock
+	private DailySummaries dailySummaries;
+
+	@Mock
+	private TransactionArchive transactionArchive;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	public void init() {
+
+		ReflectionTestUtils.setField(holdServiceImpl, "tickMillis", 10L);
+		ReflectionTestUtils.setField(holdServiceImpl, "wheelSize", 64);
+		holdServiceImpl.start();
+
+		lenient().when(transactionIdFilter.mightContain(anyString())).thenReturn(true);
+	}
+
+	@AfterEach
+	public void destroy() throws InterruptedException {
+
+		holdServiceImpl.stop();
+	}
+
+	@Test
+	public void shouldHoldAmountWithoutRecordingTransaction() {
+
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+		when(accountRepository.findBalanceByAccountNumber("123456")).thenReturn(new BigDecimal(90));
+
+		HoldDto holdDto = holdServiceImpl.reserve("123456", holdRequest("H1"));
+
+		assertEquals("Amount held successfully", holdDto.getMessage());
+		assertEquals("90", holdDto.getAccountBalance());
+		verify(balanceHoldRepository).saveAndFlush(any());
+		verify(transactionRepository, never()).insertTransaction(anyString(), anyString(), anyString(), any(), any(),
+				any());
+	}
+
+	@Test
+	public void shouldRejectHoldIdUsedByTransaction() {
+
+		when(transactionRepository.findByTransactionId("H1"))
+				.thenReturn(Optional.of(Transaction.builder().transactionId("H1").build()));
+
+		assertThrows(DuplicateTransactionException.class, () -> holdServiceImpl.reserve("123456", holdRequest("H1")));
+
+		verify(accountRepository, never()).debitBalance(anyString(), anyString(), any());
+	}
+
+	@Test
+	public void shouldRejectHoldWhenFundsAreInsufficient() {
+
+		Account account = Account.builder().accountNumber("123456").balanceAmount(new BigDecimal(5))
+				.accountStatus("ACTIVE").build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+
+		InvalidRequestDataException insufficientFundException = assertThrows(InvalidRequestDataException.class,
+				() -> holdServiceImpl.reserve("123456", holdRequest("H1")));
+
+		assertEquals("There are insufficient funds in your account. Please provide different amount.",
+				insufficientFundException.getMessage());
+	}
+
+	@Test
+	public void shouldCaptureHoldIntoDebit() {
+
+		Account account = Account.builder().accountNumber("123456").balanceAmount(new BigDecimal(90))
+				.accountStatus("ACTIVE").build();
+
+		when(balanceHoldRepository.findWithLockByHoldId("H1")).thenReturn(Optional.of(hold("H1")));
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(stripedBalances.balanceOf(account)).thenReturn(new BigDecimal(90));
+
+		TransactionDto transactionDto = holdServiceImpl.capture("123456", "H1");
+
+		assertEquals("DEBIT", transactionDto.getTransactionType());
+		assertEquals("90", transactionDto.getAccountBalance());
+		verify(transactionRepository).insertTransaction(eq("123456"), eq("H1"), eq("DEBIT"), eq(new BigDecimal(10)),
+				any(), eq(new BigDecimal(90)));
+		verify(dailySummaries).addDebit(eq("123456"), eq(0), any(), eq(new BigDecimal(10)));
+	}
+
+	@Test
+	public void shouldRejectCaptureOfExpiredHold() {
+
+		BalanceHold hold = hold("H1");
+		hold.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+		when(balanceHoldRepository.findWithLockByHoldId("H1")).thenReturn(Optional.of(hold));
+
+		InvalidRequestDataException holdExpiredException = assertThrows(InvalidRequestDataException.class,
+				() -> holdServiceImpl.capture("123456", "H1"));
+
+		assertEquals("Hold has expired with holdId: H1", holdExpiredException.getMessage());
+		verify(balanceHoldRepository, never()).delete(any());
+		verify(transactionRepository, never()).insertTransaction(anyString(), anyString(), anyString(), any(), any(),
+				any());
+	}
+
+	@Test
+	public void shouldRescheduleHoldWhichIsNotDueYet() {
+
+		ReflectionTestUtils.setField(holdServiceImpl, "transactionTemplate", new TransactionTemplate(transactionManager));
+		when(balanceHoldRepository.findWithLockByHoldId("H1")).thenReturn(Optional.of(hold("H1")));
+
+		ReflectionTestUtils.invokeMethod(holdServiceImpl, "expire", "H1");
+
+		HashedTimerWheel<?> expiryWheel = (HashedTimerWheel<?>) ReflectionTestUtils.getField(holdServiceImpl,
+				"expiryWheel");
+
+		assertEquals(1, expiryWheel.size());
+		verify(balanceHoldRepository, never()).delete(any());
+		verify(accountRepository, never()).creditBalance(anyString(), anyString(), any());
+	}
+
+	@Test
+	public void shouldReturnAmountWhenHoldIsReleased() {
+
+		when(balanceHoldRepository.findWithLockByHoldId("H1")).thenReturn(Optional.of(hold("H1")));
+		when(accountRepository.creditBalance("123456", "ACTIVE", new BigDecimal(10))).thenReturn(1);
+		when(accountRepository.findBalanceByAccountNumber("123456")).thenReturn(new BigDecimal(100));
+
+		HoldDto holdDto = holdServiceImpl.release("123456", "H1");
+
+		assertEquals("Hold released successfully", holdDto.getMessage());
+		assertEquals("100", holdDto.getAccountBalance());
+		verify(transactionRepository, never()).insertTransaction(anyString(), anyString(), anyString(), any(), any(),
+				any());
+	}
+
+	@Test
+	public void shouldNotReleaseHoldOfAnotherAccount() {
+
+		when(balanceHoldRepository.findWithLockByHoldId("H1")).thenReturn(Optional.of(hold("H1")));
+
+		InvalidRequestDataException holdDoesNotExistException = assertThrows(InvalidRequestDataException.class,
+				() -> holdServiceImpl.release("654321", "H1"));
+
+		assertEquals("Hold does not exist with holdId: H1", holdDoesNotExistException.getMessage());
+		verify(accountRepository, never()).creditBalance(anyString(), anyString(), any());
+	}
+
+	private HoldRequest holdRequest(String holdId) {
+
+		return HoldRequest.builder().holdId(holdId).amount(new BigDecimal(10)).ttlMillis(60_000L).build();
+	}
+
+	private BalanceHold hold(String holdId) {
+
+		return BalanceHold.builder().holdId(holdId).accountNumber("123456").holdAmount(new BigDecimal(10))
+				.expiresAt(LocalDateTime.now().plusMinutes(1)).build();
+	}
+}
@@ -0,0 +1,103 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wallet.repository.AccountRepository;
+import com.wallet.service.impl.SequenceAccountNumberAllocator;
+
+@ExtendWith(MockitoExtension.class)
+public class SequenceAccountNumberAllocatorTest {
+
+	@InjectMocks
+	private SequenceAccountNumberAllocator sequenceAccountNumberAllocator;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@BeforeEach
+	public void init() {
+
+		ReflectionTestUtils.setField(sequenceAccountNumberAllocator, "blockSize", 3L);
+	}
+
+	@Test
+	public void shouldHandOutNumbersOfReservedBlocksWithCheckDigit() {
+
+		when(accountRepository.nextAccountNumberBlock()).thenReturn(1L, 5L);
+
+		List<String> accountNumbers = new ArrayList<>();
+
+		for (int index = 0; index < 4; index++) {
+			accountNumbers.add(sequenceAccountNumberAllocator.allocate());
+		}
+
+		assertEquals(List.of("0000000034", "0000000042", "0000000059", "0000000158"), accountNumbers);
+		verify(accountRepository, times(2)).nextAccountNumberBlock();
+	}
+
+	@Test
+	public void shouldComputeLuhnCheckDigit() {
+
+		assertEquals(3, SequenceAccountNumberAllocator.checkDigit(7992739871L));
+		assertEquals(0, SequenceAccountNumberAllocator.checkDigit(0));
+	}
+
+	@Test
+	public void shouldNeverHandOutNumberTwiceAcrossThreads() throws Exception {
+
+		AtomicLong sequence = new AtomicLong();
+		when(accountRepository.nextAccountNumberBlock()).thenAnswer(invocation -> sequence.incrementAndGet());
+
+		Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+
+			for (int thread = 0; thread < 8; thread++) {
+				futures.add(executor.submit(() -> {
+					for (int index = 0; index < 1000; index++) {
+						accountNumbers.add(sequenceAccountNumberAllocator.allocate());
+					}
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(8000, accountNumbers.size());
+	}
+
+	@Test
+	public void shouldFailOnceNumbersAreExhausted() {
+
+		when(accountRepository.nextAccountNumberBlock()).thenReturn(333_333_333L);
+
+		assertThrows(IllegalStateException.class, () -> sequenceAccountNumberAllocator.allocate());
+	}
+}
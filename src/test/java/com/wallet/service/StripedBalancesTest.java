@@ -0,0 +1,121 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.wallet.model.AccountStatus;
+import com.wallet.model.AccountType;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.AccountBalanceStripe;
+import com.wallet.repository.AccountBalanceStripeRepository;
+import com.wallet.repository.AccountRepository;
+import com.wallet.service.impl.StripedBalances;
+
+@DataJpaTest
+@Import(StripedBalances.class)
+public class StripedBalancesTest {
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private AccountBalanceStripeRepository accountBalanceStripeRepository;
+
+	@Autowired
+	private StripedBalances stripedBalances;
+
+	@Test
+	public void shouldSplitBalanceEvenlyIntoStripes() {
+
+		Account account = createAccount("7001");
+
+		stripedBalances.restripe(account, 3);
+
+		List<AccountBalanceStripe> stripes = accountBalanceStripeRepository
+				.findAllByAccountNumberOrderByStripeIndex("7001");
+
+		assertEquals(3, stripes.size());
+		assertEquals(new BigDecimal("33.34"), stripes.get(0).getBalanceAmount());
+		assertEquals(new BigDecimal("33.33"), stripes.get(2).getBalanceAmount());
+		assertEquals(0, BigDecimal.ZERO.compareTo(account.getBalanceAmount()));
+		assertEquals(0, new BigDecimal(100).compareTo(stripedBalances.balanceOf(account)));
+	}
+
+	@Test
+	public void shouldBorrowAcrossStripesWhenOneRunsLow() {
+
+		Account account = createAccount("7002");
+		stripedBalances.restripe(account, 4);
+
+		// No single stripe holds 60, so the debit has to borrow
+		assertTrue(stripedBalances.debit(account, new BigDecimal(60)));
+		assertEquals(0, new BigDecimal(40).compareTo(stripedBalances.balanceOf(account)));
+
+		assertFalse(stripedBalances.debit(account, new BigDecimal(41)));
+		assertEquals(0, new BigDecimal(40).compareTo(stripedBalances.balanceOf(account)));
+	}
+
+	@Test
+	public void shouldFoldStripesBackIntoAccount() {
+
+		Account account = createAccount("7003");
+		stripedBalances.restripe(account, 4);
+		stripedBalances.credit(account, new BigDecimal(10));
+
+		Account lockedAccount = accountRepository
+				.findWithLockByAccountNumberAndAccountStatus("7003", AccountStatus.ACTIVE.name()).get();
+		stripedBalances.restripe(lockedAccount, 0);
+
+		assertEquals(0, lockedAccount.getBalanceStripes());
+		assertEquals(0, new BigDecimal(110).compareTo(lockedAccount.getBalanceAmount()));
+		assertTrue(accountBalanceStripeRepository.findAllByAccountNumberOrderByStripeIndex("7003").isEmpty());
+	}
+
+	@Test
+	public void shouldReadLockedBalanceAcrossAllStripes() {
+
+		Account account = createAccount("7005");
+		stripedBalances.restripe(account, 3);
+		stripedBalances.credit(account, new BigDecimal(10));
+		assertTrue(stripedBalances.debit(account, new BigDecimal(5)));
+
+		assertEquals(0, new BigDecimal(105).compareTo(stripedBalances.lockedBalanceOf(account)));
+	}
+
+	@Test
+	public void shouldCountTransactionsOnStripesAndFoldThemBack() {
+
+		Account account = createAccount("7004");
+		account.setTransactionCount(2);
+		stripedBalances.restripe(account, 4);
+
+		stripedBalances.countTransactions(account, 1);
+		stripedBalances.countTransactions(account, 2);
+
+		Account lockedAccount = accountRepository
+				.findWithLockByAccountNumberAndAccountStatus("7004", AccountStatus.ACTIVE.name()).get();
+		assertEquals(5, stripedBalances.transactionCountOf(lockedAccount));
+
+		stripedBalances.restripe(lockedAccount, 0);
+
+		assertEquals(5, lockedAccount.getTransactionCount());
+		assertEquals(5, stripedBalances.transactionCountOf(lockedAccount));
+	}
+
+	private Account createAccount(String accountNumber) {
+
+		return accountRepository.save(Account.builder().accountNumber(accountNumber)
+				.accountStatus(AccountStatus.ACTIVE.name()).accountType(AccountType.SAVINGS.name())
+				.balanceAmount(new BigDecimal(100)).emailId("stripe" + accountNumber + "@test.com")
+				.fullName("Stripe Test").mobileNumber("90000" + accountNumber).build());
+	}
+}
@@ -0,0 +1,104 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import com.wallet.archive.TransactionArchive;
+import com.wallet.model.AccountStatus;
+import com.wallet.model.AccountType;
+import com.wallet.model.ExportFormat;
+import com.wallet.model.TransactionType;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.Transaction;
+import com.wallet.repository.AccountRepository;
+import com.wallet.repository.TransactionJdbcRepository;
+import com.wallet.service.impl.TransactionExporter;
+import com.wallet.util.Util;
+
+@DataJpaTest
+@Import({ TransactionExporter.class, TransactionJdbcRepository.class, Util.class, JacksonAutoConfiguration.class })
+@TestInstance(Lifecycle.PER_CLASS)
+public class TransactionExporterTest {
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionExporter transactionExporter;
+
+	@MockBean
+	private TransactionArchive transactionArchive;
+
+	@BeforeAll
+	public void initializeData() {
+
+		Account account = Account.builder().accountNumber("6789").accountStatus(AccountStatus.ACTIVE.name())
+				.accountType(AccountType.SAVINGS.name()).balanceAmount(new BigDecimal(100)).emailId("test6@test1.com")
+				.fullName("Test1 Test1").mobileNumber("1111911111").build();
+
+		LocalDateTime transactionDate = LocalDateTime.of(2022, 1, 10, 10, 0);
+
+		// Saved newest first, exported oldest first
+		account.setTransactions(Arrays.asList(
+				Transaction.builder().account(account).transactionId("TId51,retry").transactionAmount(new BigDecimal(5))
+						.transactionType(TransactionType.CREDIT.name()).transactionDate(transactionDate.plusMinutes(1))
+						.balanceAfter(new BigDecimal(95)).build(),
+				Transaction.builder().account(account).transactionId("TId50").transactionAmount(new BigDecimal(10))
+						.transactionType(TransactionType.DEBIT.name()).transactionDate(transactionDate)
+						.balanceAfter(new BigDecimal(90)).build()));
+
+		accountRepository.save(account);
+	}
+
+	@Test
+	public void shouldExportTransactionsAsNdjsonOldestFirst() throws IOException {
+
+		assertEquals("{\"transactionId\":\"TId50\",\"transactionType\":\"DEBIT\",\"transactionAmount\":\"10.00\","
+				+ "\"balanceAfter\":\"90.00\",\"transactionDate\":\"10-01-2022 10:00:00\"}\n"
+				+ "{\"transactionId\":\"TId51,retry\",\"transactionType\":\"CREDIT\",\"transactionAmount\":\"5.00\","
+				+ "\"balanceAfter\":\"95.00\",\"transactionDate\":\"10-01-2022 10:01:00\"}\n",
+				export(ExportFormat.NDJSON));
+	}
+
+	@Test
+	public void shouldExportTransactionsAsCsvWithQuotedValues() throws IOException {
+
+		assertEquals("transactionId,transactionType,transactionAmount,balanceAfter,transactionDate\n"
+				+ "TId50,DEBIT,10.00,90.00,10-01-2022 10:00:00\n"
+				+ "\"TId51,retry\",CREDIT,5.00,95.00,10-01-2022 10:01:00\n", export(ExportFormat.CSV));
+	}
+
+	@Test
+	public void shouldExportOnlyHeaderForAccountWithoutTransactions() throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		transactionExporter.export("0000", 0, ExportFormat.CSV, outputStream);
+
+		assertEquals("transactionId,transactionType,transactionAmount,balanceAfter,transactionDate\n",
+				outputStream.toString(StandardCharsets.UTF_8));
+	}
+
+	private String export(ExportFormat format) throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		transactionExporter.export("6789", 0, format, outputStream);
+
+		return outputStream.toString(StandardCharsets.UTF_8);
+	}
+}
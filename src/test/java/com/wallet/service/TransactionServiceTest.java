@@ -1,37 +1,73 @@
 package com.wallet.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.wallet.archive.TransactionArchive;
+import com.wallet.cache.BalanceCache;
+import com.wallet.cache.TransactionIdFilter;
 import com.wallet.exception.DuplicateTransactionException;
 import com.wallet.exception.InvalidRequestDataException;
+import com.wallet.model.ExportFormat;
+import com.wallet.model.dto.request.BatchTransactionItem;
+import com.wallet.model.dto.request.TransactionFilter;
 import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.StatementDto;
+import com.wallet.model.dto.response.SummaryDto;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.dto.response.TransferDto;
 import com.wallet.model.entity.Account;
 import com.wallet.model.entity.Transaction;
 import com.wallet.repository.AccountRepository;
+import com.wallet.repository.DailyAccountSummaryRepository;
+import com.wallet.repository.TransactionJdbcRepository;
 import com.wallet.repository.TransactionRepository;
+import com.wallet.service.impl.DailySummaries;
+import com.wallet.service.impl.StripedBalances;
+import com.wallet.service.impl.TransactionExporter;
 import com.wallet.service.impl.TransactionServiceImpl;
+import com.wallet.util.TransactionCursor;
 import com.wallet.util.Util;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,13 +82,43 @@ public class TransactionServiceTest {
 	@Mock
 	private TransactionRepository transactionRepository;
 
+	@Mock
+	private TransactionJdbcRepository transactionJdbcRepository;
+
 	@Mock
 	private Util util;
 
+	@Mock
+	private TransactionIdFilter transactionIdFilter;
+
+	@Mock
+	private StripedBalances stripedBalances;
+
+	@Mock
+	private BalanceCache balanceCache;
+
+	@Mock
+	private TransactionExporter transactionExporter;
+
+	@Mock
+	private DailySummaries dailySummaries;
+
+	@Mock
+	private DailyAccountSummaryRepository dailyAccountSummaryRepository;
+
+	@Mock
+	private TransactionArchive transactionArchive;
+
+	@Captor
+	private ArgumentCaptor<List<BatchTransactionItem>> items;
+
 	@BeforeEach
 	public void init() {
 
 		MockitoAnnotations.openMocks(this);
+		lenient().when(transactionIdFilter.mightContain(anyString())).thenReturn(true);
+		ReflectionTestUtils.setField(transactionServiceImpl, "currency", "INR");
+		transactionServiceImpl.init();
 	}
 
 	@Test
@@ -77,13 +143,8 @@ public class TransactionServiceTest {
 		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
 				.amount(new BigDecimal("100")).build();
 
-		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
-				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
-				.accountType("SAVINGS").accountStatus("ACTIVE").build();
 		Transaction transaction = Transaction.builder().transactionId("TId10").build();
 
-		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
-				.thenReturn(Optional.of(account));
 		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.of(transaction));
 
 		DuplicateTransactionException duplicateTransactionException = assertThrows(DuplicateTransactionException.class,
@@ -95,6 +156,25 @@ public class TransactionServiceTest {
 				duplicateTransactionException.getMessage());
 	}
 
+	@Test
+	public void shouldReplayPerformedTransactionForSameRequest() {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
+				.amount(new BigDecimal("10")).build();
+
+		Transaction transaction = Transaction.builder().transactionId("TId10").transactionType("DEBIT")
+				.transactionAmount(new BigDecimal("10")).balanceAfter(new BigDecimal("90")).build();
+		TransactionDto transactionDto = TransactionDto.builder().message("Account debited successfully")
+				.accountNumber("123456").accountBalance("90").transactionType("DEBIT").build();
+
+		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.of(transaction));
+		when(util.isSameTransaction(any(), anyString(), any(), any())).thenReturn(true);
+		when(util.mapToPerformedTransactionDto(transaction)).thenReturn(transactionDto);
+
+		assertEquals(transactionDto, transactionServiceImpl.performDebit("123456", transactionRequest));
+		verify(accountRepository, never()).debitBalance(anyString(), anyString(), any());
+	}
+
 	@Test
 	public void shouldThrowInsufficientFundsExceptionWhenThereAreNoEnoughFundsAvailable() {
 
@@ -119,19 +199,51 @@ public class TransactionServiceTest {
 	}
 
 	@Test
-	public void shouldDebitTheAmountSuccessfully() {
+	public void shouldNotCreateTransactionRecordWhenDebitIsRejected() {
 
 		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
-				.amount(new BigDecimal("10")).build();
+				.amount(new BigDecimal("110")).build();
 
 		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
 				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
 				.accountType("SAVINGS").accountStatus("ACTIVE").build();
 
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(0);
 		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
 				.thenReturn(Optional.of(account));
-		when(accountRepository.save(any())).thenReturn(account);
+
+		assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.performDebit("123456", transactionRequest);
+		});
+
+		verify(transactionRepository, never()).insertTransaction(anyString(), anyString(), anyString(), any(), any(), any());
+	}
+
+	@Test
+	public void shouldThrowDuplicateTransactionExceptionForArchivedTransactionId() {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
+				.amount(new BigDecimal("100")).build();
+
+		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.empty());
+		when(transactionArchive.findByTransactionId("TId10"))
+				.thenReturn(Optional.of(Transaction.builder().transactionId("TId10").build()));
+
+		assertThrows(DuplicateTransactionException.class, () -> {
+			transactionServiceImpl.performCredit("123456", transactionRequest);
+		});
+		verify(accountRepository, never()).creditBalance(anyString(), anyString(), any());
+	}
+
+	@Test
+	public void shouldDebitTheAmountSuccessfully() {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
+				.amount(new BigDecimal("10")).build();
+
 		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.empty());
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(1);
+		when(accountRepository.findBalanceByAccountNumber(anyString())).thenReturn(new BigDecimal(90));
 
 		TransactionDto transactionDto = transactionServiceImpl.performDebit("123456", transactionRequest);
 
@@ -139,6 +251,34 @@ public class TransactionServiceTest {
 		assertEquals("90", transactionDto.getAccountBalance());
 		assertEquals("123456", transactionDto.getAccountNumber());
 		assertEquals("DEBIT", transactionDto.getTransactionType());
+		verify(accountRepository).addTransactionCount("123456", 1);
+		verify(dailySummaries).addDebit(eq("123456"), eq(0), any(), eq(new BigDecimal("10")));
+	}
+
+	@Test
+	public void shouldDebitStripesOfStripedAccount() {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
+				.amount(new BigDecimal("10")).build();
+
+		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
+				.balanceAmount(BigDecimal.ZERO).fullName("Test1 Test1").mobileNumber("1111111111")
+				.accountType("SAVINGS").accountStatus("ACTIVE").balanceStripes(4).build();
+
+		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.empty());
+		when(accountRepository.debitBalance(anyString(), anyString(), any())).thenReturn(0);
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(stripedBalances.debit(account, new BigDecimal("10"))).thenReturn(true);
+		when(stripedBalances.balanceOf(account)).thenReturn(new BigDecimal(90));
+
+		TransactionDto transactionDto = transactionServiceImpl.performDebit("123456", transactionRequest);
+
+		assertEquals("90", transactionDto.getAccountBalance());
+		verify(accountRepository, never()).findBalanceByAccountNumber(anyString());
+		verify(stripedBalances).countTransactions(account, 1);
+		verify(accountRepository, never()).addTransactionCount(anyString(), anyLong());
+		verify(dailySummaries).addDebit(eq("123456"), eq(4), any(), eq(new BigDecimal("10")));
 	}
 
 	@Test
@@ -163,13 +303,8 @@ public class TransactionServiceTest {
 		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
 				.amount(new BigDecimal("100")).build();
 
-		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
-				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
-				.accountType("SAVINGS").accountStatus("ACTIVE").build();
 		Transaction transaction = Transaction.builder().transactionId("TId10").build();
 
-		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
-				.thenReturn(Optional.of(account));
 		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.of(transaction));
 
 		DuplicateTransactionException duplicateTransactionException = assertThrows(DuplicateTransactionException.class,
@@ -187,14 +322,9 @@ public class TransactionServiceTest {
 		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
 				.amount(new BigDecimal("10")).build();
 
-		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
-				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
-				.accountType("SAVINGS").accountStatus("ACTIVE").build();
-
-		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
-				.thenReturn(Optional.of(account));
-		when(accountRepository.save(any())).thenReturn(account);
 		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.empty());
+		when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+		when(accountRepository.findBalanceByAccountNumber(anyString())).thenReturn(new BigDecimal(110));
 
 		TransactionDto transactionDto = transactionServiceImpl.performCredit("123456", transactionRequest);
 
@@ -222,28 +352,19 @@ public class TransactionServiceTest {
 
 		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
 				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
-				.accountType("SAVINGS").accountStatus("ACTIVE").build();
+				.accountType("SAVINGS").accountStatus("ACTIVE").transactionCount(2).build();
 
 		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
 				.thenReturn(Optional.of(account));
-
-		List<Transaction> transactions = new ArrayList<>();
-		Transaction transaction1 = Transaction.builder().transactionId("TId10").account(account)
-				.transactionAmount(new BigDecimal(10)).transactionType("DEBIT").build();
-		Transaction transaction2 = Transaction.builder().transactionId("TId11").account(account)
-				.transactionAmount(new BigDecimal(20)).transactionType("CREDIT").build();
-		transactions.add(transaction1);
-		transactions.add(transaction2);
-
-		Page<Transaction> page = new PageImpl<>(transactions);
-		when(transactionRepository.findAllByAccount(any(), any())).thenReturn(page);
+		when(stripedBalances.transactionCountOf(account)).thenReturn(2L);
 
 		TransactionResponse transactionResponse = transactionServiceImpl.getAllTransactions("123456", 2, 1);
 
-		assertEquals("Requested page exceeds total number of pages: 1", transactionResponse.getMessage());
-		assertEquals(1, transactionResponse.getTotalNoOfPages());
+		assertEquals("Requested page exceeds total number of pages: 2", transactionResponse.getMessage());
+		assertEquals(2, transactionResponse.getTotalNoOfPages());
 		assertEquals(2, transactionResponse.getTotalNoOfTransactions());
 		assertEquals(0, transactionResponse.getTransactions().size());
+		verify(transactionRepository, never()).findSliceByAccount(any(), any());
 	}
 
 	@Test
@@ -255,16 +376,15 @@ public class TransactionServiceTest {
 
 		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
 				.thenReturn(Optional.of(account));
-
-		Page<Transaction> page = new PageImpl<>(Collections.emptyList());
-		when(transactionRepository.findAllByAccount(any(), any())).thenReturn(page);
+		when(stripedBalances.transactionCountOf(account)).thenReturn(0L);
 
 		TransactionResponse transactionResponse = transactionServiceImpl.getAllTransactions("123456", 0, 1);
 
 		assertEquals("There were no transations performed on accountNumber: 123456", transactionResponse.getMessage());
-		assertEquals(1, transactionResponse.getTotalNoOfPages());
+		assertEquals(0, transactionResponse.getTotalNoOfPages());
 		assertEquals(0, transactionResponse.getTotalNoOfTransactions());
 		assertEquals(0, transactionResponse.getTransactions().size());
+		verify(transactionRepository, never()).findSliceByAccount(any(), any());
 	}
 
 	@Test
@@ -272,27 +392,667 @@ public class TransactionServiceTest {
 
 		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
 				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
-				.accountType("SAVINGS").accountStatus("ACTIVE").build();
+				.accountType("SAVINGS").accountStatus("ACTIVE").transactionCount(2).build();
 
 		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
 				.thenReturn(Optional.of(account));
+		when(stripedBalances.transactionCountOf(account)).thenReturn(2L);
 
-		List<Transaction> transactions = new ArrayList<>();
 		Transaction transaction1 = Transaction.builder().transactionId("TId10").account(account)
 				.transactionAmount(new BigDecimal(10)).transactionType("DEBIT").build();
-		Transaction transaction2 = Transaction.builder().transactionId("TId11").account(account)
-				.transactionAmount(new BigDecimal(20)).transactionType("CREDIT").build();
-		transactions.add(transaction1);
-		transactions.add(transaction2);
 
-		Page<Transaction> page = new PageImpl<>(transactions);
-		when(transactionRepository.findAllByAccount(any(), any())).thenReturn(page);
+		Slice<Transaction> slice = new SliceImpl<>(Collections.singletonList(transaction1), PageRequest.of(0, 1),
+				true);
+		when(transactionRepository.findSliceByAccount(account, PageRequest.of(0, 1))).thenReturn(slice);
 
 		TransactionResponse transactionResponse = transactionServiceImpl.getAllTransactions("123456", 0, 1);
 
 		assertEquals("Success", transactionResponse.getMessage());
-		assertEquals(1, transactionResponse.getTotalNoOfPages());
+		assertEquals(2, transactionResponse.getTotalNoOfPages());
 		assertEquals(2, transactionResponse.getTotalNoOfTransactions());
+		assertEquals(1, transactionResponse.getTransactions().size());
+	}
+
+	@Test
+	public void shouldPageFromArchiveIntoTransactionTable() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").transactionCount(5)
+				.archivedTransactionCount(3).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(stripedBalances.transactionCountOf(account)).thenReturn(5L);
+		when(transactionArchive.findByAccountNumber("123456", 2, 3)).thenReturn(
+				new ArrayList<>(Collections.singletonList(Transaction.builder().transactionId("TId3").build())));
+		when(transactionRepository.findByAccountNumberFrom("123456", 0, 2))
+				.thenReturn(Arrays.asList(Transaction.builder().transactionId("TId4").build(),
+						Transaction.builder().transactionId("TId5").build()));
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getAllTransactions("123456", 1, 2);
+
+		assertEquals(3, transactionResponse.getTotalNoOfPages());
+		assertEquals("TId3", transactionResponse.getTransactions().get(0).getTransactionId());
+		assertEquals("TId4", transactionResponse.getTransactions().get(1).getTransactionId());
+		verify(transactionRepository, never()).findSliceByAccount(any(), any());
+	}
+
+	@Test
+	public void shouldPageTransactionTableOnlyPastArchivedTransactions() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE")
+				.archivedTransactionCount(3).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(transactionRepository.findByAccountNumberFrom("123456", 1, 3))
+				.thenReturn(Collections.singletonList(Transaction.builder().transactionId("TId5").build()));
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getTransactionSlice("123456", 2, 2);
+
+		assertEquals(1, transactionResponse.getTransactions().size());
+		assertEquals(false, transactionResponse.getHasNext());
+		verify(transactionArchive, never()).findByAccountNumber(anyString(), anyLong(), anyLong());
+	}
+
+	@Test
+	public void shouldReturnSliceWithoutTotalsWhenTheyAreNotNeeded() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+
+		Transaction transaction1 = Transaction.builder().transactionId("TId10").account(account)
+				.transactionAmount(new BigDecimal(10)).transactionType("DEBIT").build();
+
+		when(transactionRepository.findSliceByAccount(account, PageRequest.of(1, 1))).thenReturn(
+				new SliceImpl<>(Collections.singletonList(transaction1), PageRequest.of(1, 1), false));
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getTransactionSlice("123456", 1, 1);
+
+		assertEquals("Success", transactionResponse.getMessage());
+		assertEquals(1, transactionResponse.getTransactions().size());
+		assertEquals(false, transactionResponse.getHasNext());
+		assertEquals(0, transactionResponse.getTotalNoOfTransactions());
+		verify(stripedBalances, never()).transactionCountOf(any());
+	}
+
+	@Test
+	public void shouldCountAndPageTransactionsMatchingTypeAndPeriod() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").build();
+		LocalDateTime from = LocalDateTime.of(2022, 1, 10, 10, 0);
+		LocalDateTime to = LocalDateTime.of(2022, 1, 10, 11, 0);
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(transactionRepository.countByTypeInPeriod("123456", "DEBIT", from, to)).thenReturn(3L);
+		when(transactionRepository.findSliceByTypeInPeriod("123456", "DEBIT", from, to, PageRequest.of(1, 2)))
+				.thenReturn(new SliceImpl<>(Collections.singletonList(Transaction.builder().transactionId("TId12")
+						.account(account).transactionType("DEBIT").build()), PageRequest.of(1, 2), false));
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getFilteredTransactions("123456",
+				TransactionFilter.builder().from(from).to(to).transactionType("debit").build(), 1, 2, true);
+
+		assertEquals("Success", transactionResponse.getMessage());
+		assertEquals(2, transactionResponse.getTotalNoOfPages());
+		assertEquals(3, transactionResponse.getTotalNoOfTransactions());
+		assertEquals(1, transactionResponse.getTransactions().size());
+		verify(stripedBalances, never()).transactionCountOf(any());
+	}
+
+	@Test
+	public void shouldFilterOnPeriodOnlyWithoutCountingWhenTotalsAreNotNeeded() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").build();
+		LocalDateTime from = LocalDateTime.of(2022, 1, 10, 10, 0);
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(transactionRepository.findSliceInPeriod(anyString(), any(), any(), any()))
+				.thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getFilteredTransactions("123456",
+				TransactionFilter.builder().from(from).build(), 0, 2, false);
+
+		assertEquals("There were no transations performed on accountNumber: 123456", transactionResponse.getMessage());
+		assertEquals(false, transactionResponse.getHasNext());
+		verify(transactionRepository, never()).countInPeriod(anyString(), any(), any());
+	}
+
+	@Test
+	public void shouldThrowAnInvalidRequestDataExceptionForUnknownTransactionTypeFilter() {
+
+		InvalidRequestDataException invalidTypeException = assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.getFilteredTransactions("123456",
+					TransactionFilter.builder().transactionType("REFUND").build(), 0, 2, true);
+		});
+
+		assertEquals("Invalid transaction type: REFUND, supported types are CREDIT and DEBIT",
+				invalidTypeException.getMessage());
+	}
+
+	@Test
+	public void shouldReturnNextCursorWhenMoreTransactionsFollow() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+
+		LocalDateTime transactionDate = LocalDateTime.of(2022, 1, 10, 10, 0);
+		List<Transaction> transactions = Arrays.asList(
+				Transaction.builder().id(1L).transactionId("TId10").account(account).transactionDate(transactionDate)
+						.build(),
+				Transaction.builder().id(2L).transactionId("TId11").account(account).transactionDate(transactionDate)
+						.build(),
+				Transaction.builder().id(3L).transactionId("TId12").account(account)
+						.transactionDate(transactionDate.plusSeconds(1)).build());
+
+		when(transactionRepository.findFirstByAccountNumber(anyString(), any())).thenReturn(transactions);
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getTransactionsAfter("123456", null, 2);
+
+		assertEquals("Success", transactionResponse.getMessage());
+		assertEquals(2, transactionResponse.getTransactions().size());
+
+		TransactionCursor nextCursor = TransactionCursor.decode(transactionResponse.getNextCursor());
+		assertEquals(transactionDate, nextCursor.getTransactionDate());
+		assertEquals(2L, nextCursor.getId());
+		assertEquals(0, nextCursor.getArchiveOrdinal());
+	}
+
+	@Test
+	public void shouldSeekPastCursorWithoutNextCursorOnLastPage() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+
+		LocalDateTime transactionDate = LocalDateTime.of(2022, 1, 10, 10, 0);
+		when(transactionRepository.findNextByAccountNumber("123456", transactionDate, 2L, PageRequest.of(0, 3)))
+				.thenReturn(Collections.singletonList(Transaction.builder().id(3L).transactionId("TId12")
+						.account(account).transactionDate(transactionDate.plusSeconds(1)).build()));
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getTransactionsAfter("123456",
+				new TransactionCursor(transactionDate, 2L, 0).encode(), 2);
+
+		assertEquals(1, transactionResponse.getTransactions().size());
+		assertNull(transactionResponse.getNextCursor());
+	}
+
+	@Test
+	public void shouldContinueCursorPagesFromArchiveIntoTransactionTable() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE")
+				.archivedTransactionCount(3).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+
+		LocalDateTime transactionDate = LocalDateTime.of(2022, 1, 10, 10, 0);
+		Transaction third = transaction(3L, "TId3", transactionDate.plusSeconds(2));
+
+		when(transactionArchive.findByAccountNumber("123456", 0, 3))
+				.thenReturn(Arrays.asList(transaction(1L, "TId1", transactionDate),
+						transaction(2L, "TId2", transactionDate.plusSeconds(1)), third));
+		when(transactionArchive.findByAccountNumber("123456", 2, 3)).thenReturn(Collections.singletonList(third));
+		when(transactionRepository.findNextByAccountNumber("123456", transactionDate.plusSeconds(2), 3L,
+				PageRequest.of(0, 2)))
+				.thenReturn(Collections.singletonList(transaction(4L, "TId4", transactionDate.plusSeconds(3))));
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		TransactionResponse firstPage = transactionServiceImpl.getTransactionsAfter("123456", null, 2);
+
+		assertEquals("TId1", firstPage.getTransactions().get(0).getTransactionId());
+		assertEquals("TId2", firstPage.getTransactions().get(1).getTransactionId());
+		assertEquals(2, TransactionCursor.decode(firstPage.getNextCursor()).getArchiveOrdinal());
+
+		TransactionResponse lastPage = transactionServiceImpl.getTransactionsAfter("123456",
+				firstPage.getNextCursor(), 2);
+
+		assertEquals("TId3", lastPage.getTransactions().get(0).getTransactionId());
+		assertEquals("TId4", lastPage.getTransactions().get(1).getTransactionId());
+		assertNull(lastPage.getNextCursor());
+		verify(transactionRepository, never()).findFirstByAccountNumber(anyString(), any());
+	}
+
+	@Test
+	public void shouldReturnTransactionsArchivedAfterCursorWasHandedOut() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE")
+				.archivedTransactionCount(3).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+
+		// The cursor was handed out while nothing was archived, the first two have been read since
+		LocalDateTime transactionDate = LocalDateTime.of(2022, 1, 10, 10, 0);
+		when(transactionArchive.findByAccountNumber("123456", 0, 3))
+				.thenReturn(Arrays.asList(transaction(1L, "TId1", transactionDate),
+						transaction(2L, "TId2", transactionDate.plusSeconds(1)),
+						transaction(3L, "TId3", transactionDate.plusSeconds(2))));
+		when(transactionRepository.findNextByAccountNumber("123456", transactionDate.plusSeconds(2), 3L,
+				PageRequest.of(0, 2)))
+				.thenReturn(Collections.singletonList(transaction(4L, "TId4", transactionDate.plusSeconds(3))));
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		TransactionResponse transactionResponse = transactionServiceImpl.getTransactionsAfter("123456",
+				new TransactionCursor(transactionDate.plusSeconds(1), 2L, 0).encode(), 2);
+
 		assertEquals(2, transactionResponse.getTransactions().size());
+		assertEquals("TId3", transactionResponse.getTransactions().get(0).getTransactionId());
+		assertEquals("TId4", transactionResponse.getTransactions().get(1).getTransactionId());
+		assertNull(transactionResponse.getNextCursor());
+	}
+
+	@Test
+	public void shouldThrowAnInvalidRequestDataExceptionForMalformedCursor() {
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(Account.builder().accountNumber("123456").build()));
+
+		InvalidRequestDataException invalidCursorException = assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.getTransactionsAfter("123456", "not-a-cursor", 2);
+		});
+
+		assertEquals("Invalid cursor: not-a-cursor", invalidCursorException.getMessage());
+		verify(transactionRepository, never()).findNextByAccountNumber(anyString(), any(), any(), any());
+	}
+
+	@Test
+	public void shouldGenerateStatementWithRunningBalanceFromBalanceBeforePeriod() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(transactionRepository.findLastBefore("123456", LocalDateTime.of(2022, 1, 1, 0, 0), PageRequest.of(0, 1)))
+				.thenReturn(Collections.singletonList(
+						Transaction.builder().transactionId("TId9").balanceAfter(new BigDecimal("100.00")).build()));
+		when(transactionRepository.streamByAccountNumberAndPeriod("123456", LocalDateTime.of(2022, 1, 1, 0, 0),
+				LocalDateTime.of(2022, 2, 1, 0, 0))).thenReturn(Stream.of(
+						Transaction.builder().transactionId("TId10").transactionType("DEBIT")
+								.transactionAmount(new BigDecimal("30.00")).build(),
+						Transaction.builder().transactionId("TId11").transactionType("CREDIT")
+								.transactionAmount(new BigDecimal("5.50")).build()));
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		StatementDto statementDto = transactionServiceImpl.getStatement("123456", LocalDate.of(2022, 1, 1),
+				LocalDate.of(2022, 1, 31));
+
+		assertEquals("100.00", statementDto.getOpeningBalance());
+		assertEquals("70.00", statementDto.getTransactions().get(0).getAccountBalance());
+		assertEquals("75.50", statementDto.getTransactions().get(1).getAccountBalance());
+		assertEquals("75.50", statementDto.getClosingBalance());
+		assertEquals("5.50", statementDto.getTotalCredits());
+		assertEquals("30.00", statementDto.getTotalDebits());
+		assertEquals(1, statementDto.getNoOfCredits());
+		assertEquals(1, statementDto.getNoOfDebits());
+		verify(transactionRepository, never()).findFirstFrom(anyString(), any(), any());
+	}
+
+	@Test
+	public void shouldWalkBackOpeningBalanceFromFirstTransactionWhenNoneBeforePeriod() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(transactionRepository.findLastBefore(anyString(), any(), any())).thenReturn(Collections.emptyList());
+		when(transactionRepository.findFirstFrom(anyString(), any(), any()))
+				.thenReturn(Collections.singletonList(Transaction.builder().transactionType("DEBIT")
+						.transactionAmount(new BigDecimal("30.00")).balanceAfter(new BigDecimal("70.00")).build()));
+		when(transactionRepository.streamByAccountNumberAndPeriod(anyString(), any(), any()))
+				.thenReturn(Stream.empty());
+
+		StatementDto statementDto = transactionServiceImpl.getStatement("123456", LocalDate.of(2022, 1, 1),
+				LocalDate.of(2022, 1, 31));
+
+		assertEquals("100.00", statementDto.getOpeningBalance());
+		assertEquals("100.00", statementDto.getClosingBalance());
+		assertEquals(0, statementDto.getTransactions().size());
+	}
+
+	@Test
+	public void shouldGenerateStatementFromArchivedAndTableTransactionsOfPeriod() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE")
+				.archivedTransactionCount(2).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(transactionRepository.findLastBefore(anyString(), any(), any())).thenReturn(Collections.emptyList());
+		when(transactionArchive.getCutoff()).thenReturn(LocalDateTime.of(2022, 1, 10, 0, 0));
+		archived(Transaction.builder().transactionId("TId9").transactionType("CREDIT")
+				.transactionAmount(new BigDecimal("100.00")).balanceAfter(new BigDecimal("100.00"))
+				.transactionDate(LocalDateTime.of(2021, 12, 31, 10, 0)).build(),
+				Transaction.builder().transactionId("TId10").transactionType("DEBIT")
+						.transactionAmount(new BigDecimal("30.00")).balanceAfter(new BigDecimal("70.00"))
+						.transactionDate(LocalDateTime.of(2022, 1, 5, 10, 0)).build());
+		when(transactionRepository.streamByAccountNumberAndPeriod(anyString(), any(), any()))
+				.thenReturn(Stream.of(Transaction.builder().transactionId("TId11").transactionType("CREDIT")
+						.transactionAmount(new BigDecimal("5.50")).build()));
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		StatementDto statementDto = transactionServiceImpl.getStatement("123456", LocalDate.of(2022, 1, 1),
+				LocalDate.of(2022, 1, 31));
+
+		assertEquals("100.00", statementDto.getOpeningBalance());
+		assertEquals("TId10", statementDto.getTransactions().get(0).getTransactionId());
+		assertEquals("70.00", statementDto.getTransactions().get(0).getAccountBalance());
+		assertEquals("75.50", statementDto.getTransactions().get(1).getAccountBalance());
+		assertEquals("75.50", statementDto.getClosingBalance());
+		assertEquals(1, statementDto.getNoOfDebits());
+		verify(transactionRepository, never()).findFirstFrom(anyString(), any(), any());
+	}
+
+	@Test
+	public void shouldWalkBackOpeningBalanceFromFirstArchivedTransactionOfPeriod() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE")
+				.archivedTransactionCount(1).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(transactionRepository.findLastBefore(anyString(), any(), any())).thenReturn(Collections.emptyList());
+		when(transactionArchive.getCutoff()).thenReturn(LocalDateTime.of(2022, 1, 10, 0, 0));
+		archived(Transaction.builder().transactionId("TId10").transactionType("DEBIT")
+				.transactionAmount(new BigDecimal("30.00")).balanceAfter(new BigDecimal("70.00"))
+				.transactionDate(LocalDateTime.of(2022, 1, 5, 10, 0)).build());
+		when(transactionRepository.streamByAccountNumberAndPeriod(anyString(), any(), any()))
+				.thenReturn(Stream.empty());
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		StatementDto statementDto = transactionServiceImpl.getStatement("123456", LocalDate.of(2022, 1, 1),
+				LocalDate.of(2022, 1, 31));
+
+		assertEquals("100.00", statementDto.getOpeningBalance());
+		assertEquals("70.00", statementDto.getClosingBalance());
+		verify(transactionRepository, never()).findFirstFrom(anyString(), any(), any());
+	}
+
+	@Test
+	public void shouldDeriveOpeningBalanceOfStripedAccountFromLockedBalanceInsteadOfBalanceAfter() {
+
+		Account account = Account.builder().accountNumber("123456").accountStatus("ACTIVE").balanceStripes(4).build();
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+		when(stripedBalances.lockedBalanceOf(account)).thenReturn(new BigDecimal("80.00"));
+		when(transactionRepository.sumNetAmountFrom("123456", LocalDateTime.of(2022, 1, 1, 0, 0)))
+				.thenReturn(new BigDecimal("-20.00"));
+		when(transactionRepository.streamByAccountNumberAndPeriod(anyString(), any(), any()))
+				.thenReturn(Stream.of(Transaction.builder().transactionId("TId10").transactionType("DEBIT")
+						.transactionAmount(new BigDecimal("20.00")).balanceAfter(new BigDecimal("95.00")).build()));
+		when(util.mapToTransactionDto(any())).thenAnswer(invocation -> TransactionDto.builder()
+				.transactionId(invocation.<Transaction>getArgument(0).getTransactionId()).build());
+
+		StatementDto statementDto = transactionServiceImpl.getStatement("123456", LocalDate.of(2022, 1, 1),
+				LocalDate.of(2022, 1, 31));
+
+		assertEquals("100.00", statementDto.getOpeningBalance());
+		assertEquals("80.00", statementDto.getTransactions().get(0).getAccountBalance());
+		assertEquals("80.00", statementDto.getClosingBalance());
+		verify(transactionRepository, never()).findLastBefore(anyString(), any(), any());
+		verify(transactionRepository, never()).findFirstFrom(anyString(), any(), any());
+	}
+
+	@Test
+	public void shouldThrowAnInvalidRequestDataExceptionForStatementPeriodEndingBeforeItStarts() {
+
+		InvalidRequestDataException invalidPeriodException = assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.getStatement("123456", LocalDate.of(2022, 2, 1), LocalDate.of(2022, 1, 31));
+		});
+
+		assertEquals("Statement period is invalid, fromDate: 2022-02-01 is after toDate: 2022-01-31",
+				invalidPeriodException.getMessage());
+	}
+
+	@Test
+	public void shouldSumUpDailySummariesOfPeriod() {
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(Account.builder().accountNumber("123456").build()));
+		when(dailyAccountSummaryRepository.sumByDay("123456", LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)))
+				.thenReturn(Arrays.asList(
+						new Object[] { LocalDate.of(2022, 1, 3), 2L, new BigDecimal("15.50"), 1L,
+								new BigDecimal("30.00") },
+						new Object[] { LocalDate.of(2022, 1, 7), 0L, new BigDecimal("0.00"), 3L,
+								new BigDecimal("12.00") }));
+
+		SummaryDto summaryDto = transactionServiceImpl.getSummary("123456", LocalDate.of(2022, 1, 1),
+				LocalDate.of(2022, 1, 31));
+
+		assertEquals("Account summary generated successfully", summaryDto.getMessage());
+		assertEquals(2, summaryDto.getNoOfCredits());
+		assertEquals("15.50", summaryDto.getTotalCredits());
+		assertEquals(4, summaryDto.getNoOfDebits());
+		assertEquals("42.00", summaryDto.getTotalDebits());
+		assertEquals(2, summaryDto.getDays().size());
+		assertEquals("2022-01-07", summaryDto.getDays().get(1).getSummaryDate());
+		assertEquals("12.00", summaryDto.getDays().get(1).getTotalDebits());
+		verify(transactionRepository, never()).streamByAccountNumberAndPeriod(anyString(), any(), any());
+	}
+
+	@Test
+	public void shouldThrowAnInvalidRequestDataExceptionForSummaryPeriodEndingBeforeItStarts() {
+
+		InvalidRequestDataException invalidPeriodException = assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.getSummary("123456", LocalDate.of(2022, 2, 1), LocalDate.of(2022, 1, 31));
+		});
+
+		assertEquals("Summary period is invalid, fromDate: 2022-02-01 is after toDate: 2022-01-31",
+				invalidPeriodException.getMessage());
+		verify(dailyAccountSummaryRepository, never()).sumByDay(anyString(), any(), any());
+	}
+
+	@Test
+	public void shouldCheckAccountBeforeStreamingExport() throws IOException {
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.empty());
+
+		assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.exportTransactions("123456", ExportFormat.CSV);
+		});
+		verify(transactionExporter, never()).export(anyString(), anyLong(), any(), any());
+	}
+
+	@Test
+	public void shouldExportWhenStreamingBodyIsWritten() throws IOException {
+
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(Account.builder().accountNumber("123456").build()));
+
+		StreamingResponseBody body = transactionServiceImpl.exportTransactions("123456", ExportFormat.NDJSON);
+		verify(transactionExporter, never()).export(anyString(), anyLong(), any(), any());
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		body.writeTo(outputStream);
+
+		verify(transactionExporter).export("123456", 0, ExportFormat.NDJSON, outputStream);
+	}
+
+	@Test
+	public void shouldPerformBatchWithRunningBalancePerItem() {
+
+		List<BatchTransactionItem> items = Arrays.asList(
+				BatchTransactionItem.builder().transactionId("TId20").transactionType("DEBIT")
+						.amount(new BigDecimal(10)).build(),
+				BatchTransactionItem.builder().transactionId("TId21").transactionType("CREDIT")
+						.amount(new BigDecimal(5)).build());
+		items.forEach(item -> item.setAccountNumber("123456"));
+
+		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
+				.balanceAmount(new BigDecimal(95)).fullName("Test1 Test1").mobileNumber("1111111111")
+				.accountType("SAVINGS").accountStatus("ACTIVE").build();
+
+		when(util.assignAccountNumber(anyString(), any())).thenReturn(items);
+		when(transactionRepository.findAllByTransactionIdIn(any())).thenReturn(Collections.emptyList());
+		when(transactionJdbcRepository.updateBalances(any())).thenReturn(new int[] { 1, 1 });
+		when(accountRepository.findAllByAccountNumberIn(any())).thenReturn(Collections.singletonList(account));
+
+		TransactionResponse transactionResponse = transactionServiceImpl.performBatch("123456", items);
+
+		assertEquals("Batch of transactions performed successfully", transactionResponse.getMessage());
+		assertEquals(2, transactionResponse.getTotalNoOfTransactions());
+		assertEquals("90.00", transactionResponse.getTransactions().get(0).getAccountBalance());
+		assertEquals("DEBIT", transactionResponse.getTransactions().get(0).getTransactionType());
+		assertEquals("95.00", transactionResponse.getTransactions().get(1).getAccountBalance());
+		assertEquals("TId21", transactionResponse.getTransactions().get(1).getTransactionId());
+		verify(transactionJdbcRepository).insertTransactions(any(), any(), any());
+		verify(dailySummaries).add(eq("123456"), eq(0), any(), eq(1L), eq(new BigDecimal(5)), eq(1L),
+				eq(new BigDecimal(10)));
+	}
+
+	@Test
+	public void shouldRejectBatchWhenAnyItemHasInsufficientFunds() {
+
+		List<BatchTransactionItem> items = Arrays.asList(
+				BatchTransactionItem.builder().accountNumber("123456").transactionId("TId22").transactionType("CREDIT")
+						.amount(new BigDecimal(10)).build(),
+				BatchTransactionItem.builder().accountNumber("123456").transactionId("TId23").transactionType("DEBIT")
+						.amount(new BigDecimal(500)).build());
+
+		Account account = Account.builder().accountNumber("123456").emailId("test1@test1.com")
+				.balanceAmount(new BigDecimal(100)).fullName("Test1 Test1").mobileNumber("1111111111")
+				.accountType("SAVINGS").accountStatus("ACTIVE").build();
+
+		when(util.assignAccountNumber(anyString(), any())).thenReturn(items);
+		when(transactionRepository.findAllByTransactionIdIn(any())).thenReturn(Collections.emptyList());
+		when(transactionJdbcRepository.updateBalances(any())).thenReturn(new int[] { 1, 0 });
+		when(accountRepository.findByAccountNumberAndAccountStatus(anyString(), anyString()))
+				.thenReturn(Optional.of(account));
+
+		InvalidRequestDataException insufficientFundException = assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.performBatch("123456", items);
+		});
+
+		assertEquals("There are insufficient funds in your account. Please provide different amount.",
+				insufficientFundException.getMessage());
+		verify(transactionJdbcRepository, never()).insertTransactions(any(), any(), any());
+	}
+
+	@Test
+	public void shouldRejectBatchWithRepeatedTransactionId() {
+
+		List<BatchTransactionItem> items = Arrays.asList(
+				BatchTransactionItem.builder().accountNumber("123456").transactionId("TId24").transactionType("CREDIT")
+						.amount(new BigDecimal(10)).build(),
+				BatchTransactionItem.builder().accountNumber("123456").transactionId("TId24").transactionType("DEBIT")
+						.amount(new BigDecimal(10)).build());
+
+		when(util.assignAccountNumber(anyString(), any())).thenReturn(items);
+
+		DuplicateTransactionException duplicateTransactionException = assertThrows(DuplicateTransactionException.class,
+				() -> {
+					transactionServiceImpl.performBatch("123456", items);
+				});
+
+		assertEquals("Transaction was already performed with transactionId: TId24",
+				duplicateTransactionException.getMessage());
+		verify(transactionJdbcRepository, never()).updateBalances(any());
+	}
+
+	@Test
+	public void shouldSkipDuplicateLookupForTransactionIdNeverSeen() {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId25")
+				.amount(new BigDecimal("10")).build();
+
+		when(transactionIdFilter.mightContain("TId25")).thenReturn(false);
+		when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+		when(accountRepository.findBalanceByAccountNumber(anyString())).thenReturn(new BigDecimal(110));
+
+		transactionServiceImpl.performCredit("123456", transactionRequest);
+
+		verify(transactionRepository, never()).findByTransactionId(anyString());
+		verify(transactionIdFilter).put("TId25");
+	}
+
+	@Test
+	public void shouldThrowDuplicateTransactionExceptionWhenConcurrentInsertWins() {
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId26")
+				.amount(new BigDecimal("10")).build();
+
+		when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.empty());
+		when(accountRepository.creditBalance(anyString(), anyString(), any())).thenReturn(1);
+		when(transactionRepository.insertTransaction(anyString(), anyString(), anyString(), any(), any(), any()))
+				.thenThrow(new DataIntegrityViolationException("uk_transaction_transaction_id"));
+
+		DuplicateTransactionException duplicateTransactionException = assertThrows(DuplicateTransactionException.class,
+				() -> {
+					transactionServiceImpl.performCredit("123456", transactionRequest);
+				});
+
+		assertEquals("Transaction was already performed with transactionId: TId26",
+				duplicateTransactionException.getMessage());
+	}
+
+	@Test
+	public void shouldTransferWithAccountsUpdatedInAccountNumberOrder() {
+
+		TransferRequest transferRequest = TransferRequest.builder().transactionId("TId27").fromAccountNumber("654321")
+				.toAccountNumber("123456").amount(new BigDecimal(10)).build();
+
+		Account from = Account.builder().accountNumber("654321").balanceAmount(new BigDecimal(90)).build();
+		Account to = Account.builder().accountNumber("123456").balanceAmount(new BigDecimal(110)).build();
+
+		when(transactionRepository.findAllByTransactionIdIn(any())).thenReturn(Collections.emptyList());
+		when(transactionJdbcRepository.updateBalances(any())).thenReturn(new int[] { 1, 1 });
+		when(accountRepository.findAllByAccountNumberIn(any())).thenReturn(Arrays.asList(from, to));
+
+		TransferDto transferDto = transactionServiceImpl.performTransfer(transferRequest);
+
+		assertEquals("Amount transferred successfully", transferDto.getMessage());
+		assertEquals("90.00", transferDto.getFromAccountBalance());
+
+		verify(transactionJdbcRepository).updateBalances(items.capture());
+
+		assertEquals("123456", items.getValue().get(0).getAccountNumber());
+		assertEquals("TId27-CR", items.getValue().get(0).getTransactionId());
+		assertEquals("654321", items.getValue().get(1).getAccountNumber());
+		assertEquals("DEBIT", items.getValue().get(1).getTransactionType());
+	}
+
+	@Test
+	public void shouldRejectTransferToSameAccount() {
+
+		TransferRequest transferRequest = TransferRequest.builder().transactionId("TId28").fromAccountNumber("123456")
+				.toAccountNumber("123456").amount(new BigDecimal(10)).build();
+
+		InvalidRequestDataException sameAccountException = assertThrows(InvalidRequestDataException.class, () -> {
+			transactionServiceImpl.performTransfer(transferRequest);
+		});
+
+		assertEquals("Amount cannot be transferred to the same accountNumber: 123456",
+				sameAccountException.getMessage());
+		verify(transactionJdbcRepository, never()).updateBalances(any());
+	}
+
+	private Transaction transaction(Long id, String transactionId, LocalDateTime transactionDate) {
+
+		return Transaction.builder().id(id).transactionId(transactionId).transactionDate(transactionDate).build();
+	}
+
+	// Hands the given transactions to every consumer of the archived transactions of the account
+	private void archived(Transaction... transactions) {
+
+		doAnswer(invocation -> {
+			Arrays.stream(transactions).forEach(invocation.<Consumer<Transaction>>getArgument(3));
+			return null;
+		}).when(transactionArchive).forEach(eq("123456"), eq(0L), eq((long) transactions.length), any());
 	}
 }
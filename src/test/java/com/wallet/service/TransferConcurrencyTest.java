@@ -0,0 +1,59 @@
+package com.wallet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.repository.AccountRepository;
+
+@SpringBootTest
+public class TransferConcurrencyTest {
+
+	private static final int TRANSFERS_PER_DIRECTION = 200;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Test
+	public void shouldApplyOppositeTransfersConcurrentlyWithoutDeadlock() throws Exception {
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		List<Future<?>> results = new ArrayList<>();
+
+		for (int index = 0; index < TRANSFERS_PER_DIRECTION; index++) {
+
+			results.add(callers.submit(transfer("TRF-A" + index, "456789", "987654")));
+			results.add(callers.submit(transfer("TRF-B" + index, "987654", "456789")));
+		}
+
+		// Every transfer succeeds within the lock timeout
+		for (Future<?> result : results) {
+			result.get(30, TimeUnit.SECONDS);
+		}
+		callers.shutdown();
+
+		assertEquals(0, new BigDecimal(1000).compareTo(accountRepository.findBalanceByAccountNumber("456789")));
+		assertEquals(0, new BigDecimal(1000).compareTo(accountRepository.findBalanceByAccountNumber("987654")));
+	}
+
+	private Runnable transfer(String transactionId, String fromAccountNumber, String toAccountNumber) {
+
+		return () -> transactionService.performTransfer(TransferRequest.builder().transactionId(transactionId)
+				.fromAccountNumber(fromAccountNumber).toAccountNumber(toAccountNumber).amount(BigDecimal.ONE)
+				.build());
+	}
+}
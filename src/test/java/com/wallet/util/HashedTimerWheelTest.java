@@ -0,0 +1,61 @@
+package com.wallet.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class HashedTimerWheelTest {
+
+	private final List<String> expired = new CopyOnWriteArrayList<>();
+
+	private final CountDownLatch expiries = new CountDownLatch(2);
+
+	private final HashedTimerWheel<String> timerWheel = new HashedTimerWheel<>("test-wheel", 5, 8, key -> {
+		expired.add(key);
+		expiries.countDown();
+	});
+
+	@AfterEach
+	public void destroy() throws InterruptedException {
+
+		timerWheel.stop();
+	}
+
+	@Test
+	public void shouldExpireKeysInDeadlineOrderAcrossRounds() throws InterruptedException {
+
+		timerWheel.start();
+
+		// 8 buckets of 5ms turn in 40ms, so the later key waits for a second round
+		timerWheel.schedule("H2", 100);
+		timerWheel.schedule("H1", 20);
+
+		assertTrue(expiries.await(2, TimeUnit.SECONDS));
+		assertEquals(List.of("H1", "H2"), expired);
+		assertEquals(0, timerWheel.size());
+	}
+
+	@Test
+	public void shouldNotExpireCancelledKeys() throws InterruptedException {
+
+		timerWheel.start();
+
+		timerWheel.schedule("H1", 20);
+		timerWheel.schedule("H2", 30);
+		timerWheel.schedule("H3", 40);
+
+		assertTrue(timerWheel.cancel("H2"));
+		assertFalse(timerWheel.cancel("H4"));
+
+		assertTrue(expiries.await(2, TimeUnit.SECONDS));
+		assertEquals(List.of("H1", "H3"), expired);
+	}
+}
@@ -0,0 +1,45 @@
+package com.wallet.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+public class MoneyTest {
+
+	@Test
+	public void shouldUseMinorUnitOfTheCurrency() {
+
+		assertEquals(2, Money.scaleOf("INR"));
+		assertEquals(0, Money.scaleOf("JPY"));
+		assertEquals(3, Money.scaleOf("KWD"));
+	}
+
+	@Test
+	public void shouldConvertAmountsToMinorUnitsAndBack() {
+
+		assertEquals(1050, Money.toMinorUnits(new BigDecimal("10.5"), 2));
+		assertEquals(new BigDecimal("10.50"), Money.toAmount(1050, 2));
+		assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(new BigDecimal("10.505"), 2));
+	}
+
+	@Test
+	public void shouldThrowOnOverflow() {
+
+		assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+		assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+	}
+
+	@Test
+	public void shouldFormatLikePlainStringOfTheAmount() {
+
+		for (long minorUnits : new long[] { 0, 5, -5, 99, 100, 1005, -1005, 123456789 }) {
+			assertEquals(Money.toAmount(minorUnits, 2).toPlainString(), Money.format(minorUnits, 2));
+			assertEquals(Money.toAmount(minorUnits, 3).toPlainString(), Money.format(minorUnits, 3));
+		}
+
+		assertEquals("42", Money.format(42, 0));
+	}
+}
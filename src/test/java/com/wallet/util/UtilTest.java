@@ -1,12 +1,16 @@
 package com.wallet.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import org.junit.jupiter.api.Test;
 
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.request.TransactionRequest;
 import com.wallet.model.dto.response.TransactionDto;
 import com.wallet.model.entity.Account;
 import com.wallet.model.entity.Transaction;
@@ -40,4 +44,41 @@ public class UtilTest {
 		assertEquals("TId10", transactionDto.getTransactionId());
 		assertEquals("123456", transactionDto.getAccountNumber());
 	}
+
+	@Test
+	public void shouldMatchPerformedTransactionOnlyForSameRequest() {
+
+		Util util = new Util();
+
+		Account account = Account.builder().accountNumber("123456").build();
+
+		Transaction transaction = Transaction.builder().transactionId("TId10").transactionAmount(new BigDecimal("10.00"))
+				.transactionType("DEBIT").account(account).build();
+
+		TransactionRequest transactionRequest = TransactionRequest.builder().transactionId("TId10")
+				.amount(new BigDecimal(10)).build();
+
+		assertTrue(util.isSameTransaction(transaction, "123456", transactionRequest, TransactionType.DEBIT));
+		assertFalse(util.isSameTransaction(transaction, "123456", transactionRequest, TransactionType.CREDIT));
+		assertFalse(util.isSameTransaction(transaction, "654321", transactionRequest, TransactionType.DEBIT));
+	}
+
+	@Test
+	public void shouldMapToPerformedTransactionDtoForGivenTransaction() {
+
+		Util util = new Util();
+
+		Account account = Account.builder().accountNumber("123456").build();
+
+		Transaction transaction = Transaction.builder().transactionId("TId10").transactionAmount(new BigDecimal(10))
+				.transactionType("CREDIT").transactionDate(LocalDateTime.of(2021, 01, 20, 19, 00, 00))
+				.balanceAfter(new BigDecimal("110.00")).account(account).build();
+
+		TransactionDto transactionDto = util.mapToPerformedTransactionDto(transaction);
+
+		assertEquals("Account credited successfully", transactionDto.getMessage());
+		assertEquals("123456", transactionDto.getAccountNumber());
+		assertEquals("110.00", transactionDto.getAccountBalance());
+		assertEquals("20-01-2021 19:00:00", transactionDto.getTransactionDate());
+	}
 }
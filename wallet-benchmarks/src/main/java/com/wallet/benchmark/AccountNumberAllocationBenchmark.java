@@ -0,0 +1,70 @@
+package com.wallet.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.wallet.service.AccountNumberAllocator;
+
+/**
+ * Throughput of account number allocation from 32 threads. A block size of 1
+ * takes a sequence value, and the allocator lock, for every number, larger
+ * blocks only once per block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(32)
+public class AccountNumberAllocationBenchmark {
+
+	@Param({ "1", "100", "10000" })
+	public long blockSize;
+
+	private WalletContext walletContext;
+
+	private AccountNumberAllocator accountNumberAllocator;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		walletContext = new WalletContext("direct", "--wallet.account-number.block-size=" + blockSize);
+		accountNumberAllocator = walletContext.bean(AccountNumberAllocator.class);
+	}
+
+	@Setup(Level.Iteration)
+	public void restartSequence() {
+
+		// Keeps a fast run from exhausting the 9 digit number space
+		walletContext.bean(JdbcTemplate.class).execute("ALTER SEQUENCE account_number_block_seq RESTART WITH 1");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+
+		walletContext.close();
+	}
+
+	@Benchmark
+	public String allocate() {
+
+		return accountNumberAllocator.allocate();
+	}
+}
@@ -0,0 +1,145 @@
+package com.wallet.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test for the request execution modes: keeps the given number of
+ * connections busy, each sending its next request as soon as the previous one
+ * completes, with 80% balance reads and 20% credits. Not a JMH benchmark, as
+ * JMH cannot drive thousands of concurrent clients. Run it from the shaded jar,
+ * with enough file descriptors for the connections (ulimit -n):
+ * 
+ * java -cp benchmarks.jar com.wallet.benchmark.ConcurrentConnectionsLoad
+ * platform|virtual [connections=10000] [seconds=30] [writeMode=direct]
+ */
+public final class ConcurrentConnectionsLoad {
+
+	private static final int ACCOUNTS = 1000;
+
+	// Latency histogram with 1ms buckets, the last one collects everything slower
+	private static final int LATENCY_BUCKETS = 10_001;
+
+	private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+
+	private final LongAdder completed = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final AtomicLong transactionIds = new AtomicLong();
+
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+
+	private final String baseUri;
+
+	private final long deadlineNanos;
+
+	private ConcurrentConnectionsLoad(int port, long seconds) {
+
+		this.baseUri = "http://localhost:" + port + "/v1/accounts/";
+		this.deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		String executionMode = args.length > 0 ? args[0] : "platform";
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+		long seconds = args.length > 2 ? Long.parseLong(args[2]) : 30;
+		String writeMode = args.length > 3 ? args[3] : "direct";
+
+		try (WalletContext walletContext = WalletContext.withWebServer(writeMode,
+				"--wallet.web.execution-mode=" + executionMode)) {
+
+			walletContext.seedAccounts(ACCOUNTS, new BigDecimal(1_000_000_000));
+
+			ConcurrentConnectionsLoad load = new ConcurrentConnectionsLoad(walletContext.port(), seconds);
+			long start = System.nanoTime();
+
+			CompletableFuture<?>[] clients = new CompletableFuture<?>[connections];
+
+			for (int index = 0; index < connections; index++) {
+				clients[index] = load.nextRequest();
+			}
+
+			CompletableFuture.allOf(clients).join();
+
+			load.report(executionMode, connections, System.nanoTime() - start);
+		}
+	}
+
+	// Completes once the client sent its last request before the deadline
+	private CompletableFuture<Void> nextRequest() {
+
+		if (System.nanoTime() >= deadlineNanos) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		long start = System.nanoTime();
+
+		return httpClient.sendAsync(randomRequest(), HttpResponse.BodyHandlers.discarding())
+				.handle((response, exception) -> {
+
+					if (exception != null || response.statusCode() != 200) {
+						failed.increment();
+					} else {
+
+						long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+						latencies.incrementAndGet((int) Math.min(millis, LATENCY_BUCKETS - 1));
+						completed.increment();
+					}
+					return null;
+				}).thenCompose(ignored -> nextRequest());
+	}
+
+	private HttpRequest randomRequest() {
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String accountNumber = WalletContext.accountNumber(random.nextInt(ACCOUNTS));
+
+		if (random.nextInt(5) > 0) {
+			return HttpRequest.newBuilder(URI.create(baseUri + accountNumber + "/balance")).GET().build();
+		}
+
+		String body = "{\"transactionId\":\"L" + transactionIds.incrementAndGet() + "\",\"amount\":1}";
+
+		return HttpRequest.newBuilder(URI.create(baseUri + accountNumber + "/transactions/credit"))
+				.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+	}
+
+	private void report(String executionMode, int connections, long elapsedNanos) {
+
+		long total = completed.sum();
+		double seconds = elapsedNanos / 1e9;
+
+		System.out.printf("mode=%s connections=%d requests=%d failed=%d throughput=%.0f/s p50=%dms p99=%dms "
+				+ "p99.9=%dms%n", executionMode, connections, total, failed.sum(), total / seconds, percentile(total, 0.5),
+				percentile(total, 0.99), percentile(total, 0.999));
+	}
+
+	private long percentile(long total, double fraction) {
+
+		long rank = (long) Math.ceil(total * fraction);
+		long seen = 0;
+
+		for (int bucket = 0; bucket < LATENCY_BUCKETS; bucket++) {
+
+			seen += latencies.get(bucket);
+
+			if (seen >= rank) {
+				return bucket;
+			}
+		}
+		return LATENCY_BUCKETS - 1;
+	}
+}
@@ -0,0 +1,96 @@
+package com.wallet.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.wallet.util.Money;
+
+/**
+ * Balance update of a single debit as the ledger writer does it: convert the
+ * requested amount, subtract it, check for insufficient funds and render the
+ * new balance for the response. Compares BigDecimal balances with minor-unit
+ * longs. Run with -prof gc to see the allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+	private static final int SCALE = 2;
+
+	private BigDecimal amount;
+
+	private BigDecimal decimalBalance;
+
+	private long amountMinorUnits;
+
+	private long minorUnitBalance;
+
+	@Setup
+	public void setUp() {
+
+		amount = new BigDecimal("12.34");
+		decimalBalance = new BigDecimal("1000000000.00");
+		amountMinorUnits = Money.toMinorUnits(amount, SCALE);
+		minorUnitBalance = Money.toMinorUnits(decimalBalance, SCALE);
+	}
+
+	@Benchmark
+	public String bigDecimalDebit() {
+
+		BigDecimal updatedBalance = decimalBalance.subtract(amount);
+
+		if (updatedBalance.signum() < 0) {
+			return null;
+		}
+
+		// Keep the balance from drifting towards insufficient funds
+		decimalBalance = updatedBalance.add(amount);
+
+		return updatedBalance.toPlainString();
+	}
+
+	@Benchmark
+	public String minorUnitDebit() {
+
+		long requestedMinorUnits = Money.toMinorUnits(amount, SCALE);
+		long updatedBalance = Money.subtract(minorUnitBalance, requestedMinorUnits);
+
+		if (updatedBalance < 0) {
+			return null;
+		}
+
+		minorUnitBalance = Money.add(updatedBalance, requestedMinorUnits);
+
+		return Money.format(updatedBalance, SCALE);
+	}
+
+	@Benchmark
+	public long minorUnitDebitWithoutEdges() {
+
+		// Amount already converted at the API edge and no response rendering
+		long updatedBalance = Money.subtract(minorUnitBalance, amountMinorUnits);
+
+		if (updatedBalance < 0) {
+			return -1;
+		}
+
+		minorUnitBalance = Money.add(updatedBalance, amountMinorUnits);
+
+		return updatedBalance;
+	}
+}
@@ -0,0 +1,96 @@
+package com.wallet.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.model.TransactionType;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.model.entity.Account;
+import com.wallet.model.entity.Transaction;
+import com.wallet.util.Util;
+
+/**
+ * Cost of turning a transaction into the response of the API: mapping the
+ * entity, formatting its date and serializing a single transaction and a page
+ * of 10 to JSON. Run with -prof gc to see the allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+	private static final int PAGE_SIZE = 10;
+
+	private final Util util = new Util();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private Transaction transaction;
+
+	private TransactionDto transactionDto;
+
+	private TransactionResponse transactionResponse;
+
+	@Setup
+	public void setUp() {
+
+		transaction = Transaction.builder().account(Account.builder().accountNumber("0000000034").build())
+				.transactionId("TId123456").transactionType(TransactionType.DEBIT.name())
+				.transactionAmount(new BigDecimal("12.34")).balanceAfter(new BigDecimal("987.66"))
+				.transactionDate(LocalDateTime.of(2022, 1, 10, 10, 30, 15)).build();
+		transactionDto = util.mapToTransactionDto(transaction);
+
+		List<TransactionDto> transactions = new ArrayList<>(PAGE_SIZE);
+
+		for (int index = 0; index < PAGE_SIZE; index++) {
+			transactions.add(transactionDto);
+		}
+
+		transactionResponse = TransactionResponse.builder().status(200).transactions(transactions)
+				.totalNoOfPages(10).totalNoOfTransactions(100).build();
+	}
+
+	@Benchmark
+	public TransactionDto mapToTransactionDto() {
+
+		return util.mapToTransactionDto(transaction);
+	}
+
+	@Benchmark
+	public String getTimeString() {
+
+		return util.getTimeString(transaction.getTransactionDate());
+	}
+
+	@Benchmark
+	public String serializeTransactionDto() throws JsonProcessingException {
+
+		return objectMapper.writeValueAsString(transactionDto);
+	}
+
+	@Benchmark
+	public String serializeTransactionResponse() throws JsonProcessingException {
+
+		return objectMapper.writeValueAsString(transactionResponse);
+	}
+}
@@ -0,0 +1,82 @@
+package com.wallet.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.wallet.model.dto.request.TransferRequest;
+import com.wallet.model.dto.response.TransferDto;
+import com.wallet.service.TransactionService;
+
+/**
+ * Throughput of transfers between randomly picked accounts of a small hot set,
+ * from 16 threads. Fewer hot accounts means more transfers contending for the
+ * same rows or ledger partitions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(16)
+public class TransferContentionBenchmark {
+
+	private static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+
+	@Param({ "2", "16", "1000" })
+	public int hotAccounts;
+
+	@Param({ "direct", "ledger" })
+	public String writeMode;
+
+	private final AtomicLong transactionIds = new AtomicLong();
+
+	private WalletContext walletContext;
+
+	private TransactionService transactionService;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		walletContext = new WalletContext(writeMode);
+		walletContext.seedAccounts(hotAccounts, INITIAL_BALANCE);
+		transactionService = walletContext.bean(TransactionService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+
+		walletContext.close();
+	}
+
+	@Benchmark
+	public TransferDto transfer() {
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int from = random.nextInt(hotAccounts);
+		int to = (from + 1 + random.nextInt(hotAccounts - 1)) % hotAccounts;
+
+		return transactionService.performTransfer(TransferRequest.builder()
+				.transactionId("T" + transactionIds.incrementAndGet())
+				.fromAccountNumber(WalletContext.accountNumber(from)).toAccountNumber(WalletContext.accountNumber(to))
+				.amount(BigDecimal.ONE).build());
+	}
+}
@@ -0,0 +1,152 @@
+package com.wallet.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.wallet.WalletApplication;
+
+/**
+ * Starts the wallet application on a private H2 database, without the web
+ * layer so that benchmarks can call its beans directly, or on a random port
+ * for load tests
+ */
+final class WalletContext implements AutoCloseable {
+
+	private static final String INSERT_ACCOUNT_SQL = "INSERT INTO account (account_number, email_id, full_name, "
+			+ "mobile_number, balance_amount, account_type, account_status) VALUES (?, ?, ?, ?, ?, 'SAVINGS', 'ACTIVE')";
+
+	private static final String INSERT_TRANSACTION_SQL = "INSERT INTO transaction (account_number, transaction_id, "
+			+ "transaction_type, transaction_amount, transaction_date, balance_after) VALUES (?, ?, 'CREDIT', 1, ?, ?)";
+
+	private static final String UPDATE_TRANSACTION_COUNT_SQL = "UPDATE account SET transaction_count = ? "
+			+ "WHERE account_number = ?";
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final Path dataDirectory;
+
+	private final ConfigurableApplicationContext context;
+
+	WalletContext(String writeMode, String... arguments) throws IOException {
+
+		this(WebApplicationType.NONE, writeMode, arguments);
+	}
+
+	private WalletContext(WebApplicationType webApplicationType, String writeMode, String... arguments)
+			throws IOException {
+
+		dataDirectory = Files.createTempDirectory("wallet-benchmark");
+
+		List<String> commandLine = new ArrayList<>(List.of(
+				"--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID(),
+				"--wallet.transactions.write-mode=" + writeMode,
+				"--wallet.journal.directory=" + dataDirectory.resolve("journal"),
+				"--wallet.snapshot.directory=" + dataDirectory.resolve("snapshots"),
+				"--wallet.snapshot.interval-seconds=0", "--logging.level.root=WARN", "--spring.main.banner-mode=off"));
+		commandLine.addAll(List.of(arguments));
+
+		context = new SpringApplicationBuilder(WalletApplication.class).web(webApplicationType)
+				.logStartupInfo(false).run(commandLine.toArray(new String[0]));
+	}
+
+	static WalletContext withWebServer(String writeMode, String... arguments) throws IOException {
+
+		List<String> commandLine = new ArrayList<>(List.of("--server.port=0"));
+		commandLine.addAll(List.of(arguments));
+
+		return new WalletContext(WebApplicationType.SERVLET, writeMode, commandLine.toArray(new String[0]));
+	}
+
+	int port() {
+
+		return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+	}
+
+	static String accountNumber(int index) {
+
+		return String.format("B%05d", index);
+	}
+
+	<T> T bean(Class<T> type) {
+
+		return context.getBean(type);
+	}
+
+	void seedAccounts(int count, BigDecimal balance) {
+
+		JdbcTemplate jdbcTemplate = bean(JdbcTemplate.class);
+		List<Object[]> arguments = new ArrayList<>(BATCH_SIZE);
+
+		for (int index = 0; index < count; index++) {
+
+			arguments.add(new Object[] { accountNumber(index), "benchmark" + index + "@test.com", "Benchmark " + index,
+					String.format("9%09d", index), balance });
+
+			if (arguments.size() == BATCH_SIZE || index == count - 1) {
+
+				jdbcTemplate.batchUpdate(INSERT_ACCOUNT_SQL, arguments);
+				arguments.clear();
+			}
+		}
+	}
+
+	/**
+	 * Gives each of the first accountCount seeded accounts a history of
+	 * transactionsPerAccount credits, one minute apart and ending now
+	 */
+	void seedTransactions(int accountCount, int transactionsPerAccount, BigDecimal balance) {
+
+		JdbcTemplate jdbcTemplate = bean(JdbcTemplate.class);
+		List<Object[]> arguments = new ArrayList<>(BATCH_SIZE);
+		LocalDateTime now = LocalDateTime.now();
+
+		for (int index = 0; index < accountCount; index++) {
+
+			for (int ordinal = 0; ordinal < transactionsPerAccount; ordinal++) {
+
+				arguments.add(new Object[] { accountNumber(index), String.format("S%05d-%d", index, ordinal),
+						Timestamp.valueOf(now.minusMinutes(transactionsPerAccount - ordinal)), balance });
+
+				if (arguments.size() == BATCH_SIZE) {
+
+					jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, arguments);
+					arguments.clear();
+				}
+			}
+
+			// Keeps the history totals in line with the seeded rows
+			jdbcTemplate.update(UPDATE_TRANSACTION_COUNT_SQL, transactionsPerAccount, accountNumber(index));
+		}
+
+		if (!arguments.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, arguments);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		context.close();
+
+		try (Stream<Path> files = Files.walk(dataDirectory)) {
+
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
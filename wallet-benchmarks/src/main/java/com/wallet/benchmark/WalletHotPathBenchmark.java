@@ -0,0 +1,141 @@
+package com.wallet.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.wallet.model.dto.request.TransactionRequest;
+import com.wallet.model.dto.response.AccountDto;
+import com.wallet.model.dto.response.TransactionDto;
+import com.wallet.model.dto.response.TransactionResponse;
+import com.wallet.service.AccountService;
+import com.wallet.service.TransactionService;
+
+/**
+ * Throughput of the request paths of the service beans against H2 seeded with
+ * the given number of accounts, each with the given number of transactions.
+ * The single-threaded benchmarks pick a random account per call. The hotAccount
+ * group runs debits, credits and balance reads of one account concurrently, the
+ * contended case of a popular wallet. Compare runs before and after a change
+ * with the same parameters, e.g. -p writeMode=ledger -p accounts=10000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class WalletHotPathBenchmark {
+
+	private static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+
+	@Param({ "1000" })
+	public int accounts;
+
+	@Param({ "100" })
+	public int transactionsPerAccount;
+
+	@Param({ "direct", "ledger", "group-commit" })
+	public String writeMode;
+
+	private final AtomicLong transactionIds = new AtomicLong();
+
+	private WalletContext walletContext;
+
+	private TransactionService transactionService;
+
+	private AccountService accountService;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		walletContext = new WalletContext(writeMode);
+		walletContext.seedAccounts(accounts, INITIAL_BALANCE);
+		walletContext.seedTransactions(accounts, transactionsPerAccount, INITIAL_BALANCE);
+		transactionService = walletContext.bean(TransactionService.class);
+		accountService = walletContext.bean(AccountService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+
+		walletContext.close();
+	}
+
+	@Benchmark
+	public TransactionDto performDebit() {
+
+		return transactionService.performDebit(randomAccountNumber(), transactionRequest());
+	}
+
+	@Benchmark
+	public TransactionDto performCredit() {
+
+		return transactionService.performCredit(randomAccountNumber(), transactionRequest());
+	}
+
+	@Benchmark
+	public TransactionResponse getAllTransactions() {
+
+		return transactionService.getAllTransactions(randomAccountNumber(), 0, 10);
+	}
+
+	@Benchmark
+	public AccountDto fetchBalance() {
+
+		return accountService.fetchBalance(randomAccountNumber());
+	}
+
+	@Benchmark
+	@Group("hotAccount")
+	@GroupThreads(4)
+	public TransactionDto hotAccountDebit() {
+
+		return transactionService.performDebit(WalletContext.accountNumber(0), transactionRequest());
+	}
+
+	@Benchmark
+	@Group("hotAccount")
+	@GroupThreads(4)
+	public TransactionDto hotAccountCredit() {
+
+		return transactionService.performCredit(WalletContext.accountNumber(0), transactionRequest());
+	}
+
+	@Benchmark
+	@Group("hotAccount")
+	@GroupThreads(8)
+	public AccountDto hotAccountBalance() {
+
+		return accountService.fetchBalance(WalletContext.accountNumber(0));
+	}
+
+	private String randomAccountNumber() {
+
+		return WalletContext.accountNumber(ThreadLocalRandom.current().nextInt(accounts));
+	}
+
+	private TransactionRequest transactionRequest() {
+
+		return TransactionRequest.builder().transactionId("T" + transactionIds.incrementAndGet())
+				.amount(BigDecimal.ONE).build();
+	}
+}